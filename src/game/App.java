@@ -1,14 +1,74 @@
 package game;
 
 import java.awt.EventQueue;
+import java.util.Arrays;
 
+import game.ai.EngineWarmup;
+import game.analysis.BatchAnalyzer;
+import game.board.LineBenchmark;
+import game.book.OpeningBookBuilder;
 import game.main.Game;
+import game.protocol.EngineProtocol;
+import game.record.GameRecordReader;
+import game.selfplay.EvaluationTuner;
+import game.selfplay.NTupleTrainer;
+import game.selfplay.Tournament;
+import game.server.GameServer;
+import game.utils.StartupTimer;
+import game.verify.DifferentialFuzzer;
+import game.verify.Perft;
 
 /**
  * Application entry point. Starts the main Game instance by forcing it to run in the dispatch thread of Swing (invokeLater).
+ * Command line modes without the UI are started with a flag as the first argument (--tournament, --protocol, --server, --book, --records, --analyze, --tune, --train, --benchmark, --fuzz, --perft, --warmup, --startup).
  */
 public class App {
     public static void main(String[] args) {
-        EventQueue.invokeLater(Game::new);
+        String mode = args.length > 0 ? args[0] : "";
+        String[] modeArgs = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+        switch (mode) {
+            case "--tournament":
+                Tournament.main(modeArgs);
+                break;
+            case "--protocol":
+                EngineProtocol.main(modeArgs);
+                break;
+            case "--server":
+                GameServer.main(modeArgs);
+                break;
+            case "--book":
+                OpeningBookBuilder.main(modeArgs);
+                break;
+            case "--records":
+                GameRecordReader.main(modeArgs);
+                break;
+            case "--analyze":
+                BatchAnalyzer.main(modeArgs);
+                break;
+            case "--tune":
+                EvaluationTuner.main(modeArgs);
+                break;
+            case "--train":
+                NTupleTrainer.main(modeArgs);
+                break;
+            case "--benchmark":
+                LineBenchmark.main(modeArgs);
+                break;
+            case "--fuzz":
+                DifferentialFuzzer.main(modeArgs);
+                break;
+            case "--perft":
+                Perft.main(modeArgs);
+                break;
+            case "--warmup":
+                EngineWarmup.main(modeArgs);
+                break;
+            case "--startup":
+                StartupTimer.main(modeArgs);
+                break;
+            default:
+                StartupTimer.mark("main");
+                EventQueue.invokeLater(Game::new);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package game.ai;
+
+import game.board.BoardTester;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.Move;
+import game.player.Occupant;
+
+/**
+ * Root search of boards of at most 64 positions with the bitboard search (see DecisionMaker.setBitboardSearch). Turns the board model into
+ * the bitboard words of both sides, and the positions found by the bitboard search back into moves and root results of the decision maker.
+ */
+final class BitboardRootSearch {
+    private final DecisionMaker owner;
+    private final BoardTester tester;
+
+    /**
+     * Bitboard search of the geometry of the latest board searched, null until then.
+     */
+    private BitboardSearch search;
+
+    private Occupant side;
+
+    /**
+     * Marks of the side to move and of the opponent.
+     */
+    private long own;
+    private long opponent;
+
+    /**
+     * Create a bitboard root search
+     * @param owner Decision maker running the search
+     * @param tester Board tester of the owner
+     */
+    BitboardRootSearch(DecisionMaker owner, BoardTester tester) {
+        this.owner = owner;
+        this.tester = tester;
+    }
+
+    /**
+     * Is the board searched with the bitboard search?
+     * @param model Board model
+     * @param geometry Geometry of the board
+     * @param enabled Is the bitboard search enabled for planar boards?
+     * @return True if the board fits in a single bitboard word and the geometry isn't planar or the bitboard search is enabled
+     */
+    static boolean isSearched(BoardModel model, BoardGeometry geometry, boolean enabled) {
+        return model.isBounded() && geometry.getPositions() <= Long.SIZE && (enabled || !geometry.isPlanar());
+    }
+
+    /**
+     * Set up the search of a board, call after the owner has prepared its' search
+     * @param model Board model to search
+     * @param geometry Geometry of the board
+     * @param side Occupant to get the move for
+     */
+    void prepare(BoardModel model, BoardGeometry geometry, Occupant side) {
+        if (search == null || search.getGeometry() != geometry) {
+            search = new BitboardSearch(owner, geometry, tester);
+        }
+        search.prepare(owner.getSearchTable(), owner.isHeuristicEnabled());
+        this.side = side;
+        long bot = getMarks(model, Occupant.BOT);
+        long human = getMarks(model, Occupant.HUMAN);
+        own = side == Occupant.BOT ? bot : human;
+        opponent = side == Occupant.BOT ? human : bot;
+    }
+
+    /**
+     * Get the marks of an occupant on a board of at most 64 positions as a single bitboard word
+     * @param model Board model
+     * @param occupant Occupant whose marks to get
+     * @return Bit row * columns + column set for every mark
+     */
+    private static long getMarks(BoardModel model, Occupant occupant) {
+        if (model instanceof BitBoardModel) {
+            return ((BitBoardModel) model).getWords(occupant)[0];
+        }
+        long marks = 0;
+        for (int row = 0; row < model.getRows(); row++) {
+            for (int column = 0; column < model.getColumns(); column++) {
+                if (model.getOccupant(row, column) == occupant) {
+                    marks |= 1L << (row * model.getColumns() + column);
+                }
+            }
+        }
+        return marks;
+    }
+
+    /**
+     * Search all the root moves to the specified depth
+     * @param depth Depth to search to
+     * @return Best move found
+     */
+    Move searchRoot(int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        int columns = search.getGeometry().getColumns();
+        long rootMove = owner.getRootMove();
+        int firstMove = rootMove == DecisionMaker.NO_MOVE ? -1 : MoveList.getRow(rootMove) * columns + MoveList.getColumn(rootMove);
+        int best = search.searchRoot(own, opponent, isMaximizing ? 1 : 0, depth, firstMove, owner.isExactRootScores());
+        if (search.isDepthLimitReached()) {
+            owner.reachDepthLimit();
+        }
+        if (best < 0) {
+            return Move.invalid();
+        }
+        int nonLosing = 0;
+        for (int i = 0; i < search.getRootMoveCount(); i++) {
+            int score = isMaximizing ? search.getRootScore(i) : -search.getRootScore(i); // The bot is the maximizer
+            if (owner.onRootMoveSearched(depth, getMove(search.getRootMove(i), columns), score, isMaximizing)) {
+                nonLosing++;
+            }
+        }
+        int[] positions = search.getPrincipalVariation();
+        Move[] line = new Move[positions.length];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = getMove(positions[i], columns);
+        }
+        Move bestMove = getMove(search.getRootMove(best), columns);
+        owner.setRootResult(bestMove, isMaximizing ? search.getRootScore(best) : -search.getRootScore(best), nonLosing, line);
+        return bestMove;
+    }
+
+    /**
+     * Get the move of a position of the bitboard search
+     * @param position Row * columns + column
+     * @param columns Columns of the board
+     * @return Move to the position
+     */
+    private static Move getMove(int position, int columns) {
+        return new Move(position / columns, position % columns);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,533 @@
+package game.ai;
+
+import java.util.Arrays;
+
+import game.board.BoardTester;
+import game.board.model.BoardGeometry;
+import game.board.model.LineMasks;
+import game.board.model.Zobrist;
+import game.player.Occupant;
+
+/**
+ * Search of boards that fit in a single bitboard word (at most 64 positions), e.g the 4x4x4 cube. The marks of each side are one long,
+ * and the search only looks at the line masks of the geometry, so the same code searches every geometry (planar or not) without walking any lines.
+ * Negamax with alpha-beta, principal variation search, the transposition table and the history heuristic. The lines are scanned once per node, which gives
+ * the threats (open lines one mark short of a win) of both sides, the heuristic and the move ordering at the same time:
+ * a threat of the side to move wins, two threats of the opponent lose, and a single threat of the opponent must be blocked
+ * (the block is searched without using depth, so forced sequences are seen to their end).
+ * Run by a decision maker (see DecisionMaker.getBestMove), which owns the node count, the limits and the iterative deepening.
+ */
+final class BitboardSearch {
+    /**
+     * Key XORed into the position keys of this search, so that its' entries never mix with the entries of the board model search in a shared table
+     * (the scores here are from the point of view of the side to move).
+     */
+    private static final long SEARCH_KEY = 0x3C6EF372FE94F82BL;
+
+    /**
+     * Most threats in a row searched past the depth limit. Beyond the depth limit only the moves making a threat are searched
+     * (and the forced blocks, which never count), so that a win by a chain of threats is seen even if the depth doesn't reach its' end.
+     */
+    private static final int THREAT_PLIES = 4;
+
+    /**
+     * Ordering score added to the move of the table entry, so that it is always searched first.
+     */
+    private static final int TABLE_MOVE_SCORE = 1 << 30;
+
+    private final DecisionMaker owner;
+    private final BoardGeometry geometry;
+    private final int columns;
+    private final int winLength;
+
+    /**
+     * Bits of all the positions of the board.
+     */
+    private final long board;
+    private final long[] lines;
+    private final int[][] linesThrough;
+
+    /**
+     * Hash keys of the marks, keys[side][position] (side 0 = human, 1 = bot), the same keys as the board models use.
+     */
+    private final long[][] keys;
+
+    /**
+     * Worth of an open line by the amount of marks in it (see HeuristicWeights).
+     */
+    private final int[] weights;
+
+    /**
+     * Ordering worth of a move on every line of the node of every ply, filled by the line scan of the node.
+     */
+    private final int[][] lineValues;
+
+    /**
+     * Moves and their ordering scores of the node of every ply.
+     */
+    private final int[][] moveBuffers;
+    private final int[][] scoreBuffers;
+
+    /**
+     * Worth of the moves that caused cutoffs, history[side][position], kept over the depths of a search.
+     */
+    private final int[][] history;
+
+    /**
+     * Triangular table of principal variations (positions), row n holds the best line found from ply n onwards.
+     */
+    private final int[][] pvTable;
+    private final int[] pvLength;
+
+    /**
+     * Results of the latest line scan: threats of the side to move and of the opponent, and the heuristic from the point of view of the side to move.
+     */
+    private long ownThreats;
+    private long opponentThreats;
+    private int lineScore;
+
+    /**
+     * Empty positions where the side to move would make a threat, from the latest line scan.
+     */
+    private long threatMoves;
+
+    private TranspositionTable table;
+    private boolean heuristicEnabled;
+    private boolean depthLimitReached;
+
+    /**
+     * Scores of the root moves of the latest depth (point of view of the side to move), in the order of rootMoves.
+     */
+    private int[] rootScores;
+    private int[] rootMoves;
+    private int rootMoveCount;
+
+    /**
+     * Create a search for a geometry
+     * @param owner Decision maker running the search
+     * @param geometry Geometry of the board, at most 64 positions
+     * @param tester Tester whose window weights the heuristic uses
+     */
+    BitboardSearch(DecisionMaker owner, BoardGeometry geometry, BoardTester tester) {
+        LineMasks masks = geometry.getLineMasks();
+        int positions = geometry.getPositions();
+        this.owner = owner;
+        this.geometry = geometry;
+        this.columns = geometry.getColumns();
+        this.winLength = geometry.getWinLength();
+        this.board = positions == 64 ? -1L : (1L << positions) - 1;
+        this.lines = masks.getLineMasks().clone();
+        this.linesThrough = new int[positions][];
+        this.keys = new long[2][positions];
+        for (int index = 0; index < positions; index++) {
+            linesThrough[index] = masks.getLinesThrough(index);
+            keys[0][index] = Zobrist.getKey(index / columns, index % columns, Occupant.HUMAN);
+            keys[1][index] = Zobrist.getKey(index / columns, index % columns, Occupant.BOT);
+        }
+        this.weights = new int[winLength + 1];
+        for (int marks = 0; marks < winLength; marks++) {
+            weights[marks] = tester.getWindowWeight(marks);
+        }
+        this.lineValues = new int[positions + 2][lines.length];
+        this.moveBuffers = new int[positions + 2][positions];
+        this.scoreBuffers = new int[positions + 2][positions];
+        this.history = new int[2][positions];
+        this.pvTable = new int[positions + 2][positions + 2];
+        this.pvLength = new int[positions + 2];
+        this.rootScores = new int[positions];
+        this.rootMoves = new int[positions];
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public boolean isDepthLimitReached() {
+        return depthLimitReached;
+    }
+
+    public int getRootMoveCount() {
+        return rootMoveCount;
+    }
+
+    /**
+     * Get a root move of the latest depth
+     * @param index Index of the move in the search order
+     * @return Position (row * columns + column)
+     */
+    public int getRootMove(int index) {
+        return rootMoves[index];
+    }
+
+    /**
+     * Get the score of a root move of the latest depth, moves that didn't beat the best move so far only have an upper bound
+     * @param index Index of the move in the search order
+     * @return Score from the point of view of the side to move
+     */
+    public int getRootScore(int index) {
+        return rootScores[index];
+    }
+
+    /**
+     * Get the principal variation of the latest depth
+     * @return Positions of the moves, starting from the root move
+     */
+    public int[] getPrincipalVariation() {
+        int[] line = new int[pvLength[0]];
+        System.arraycopy(pvTable[0], 0, line, 0, line.length);
+        return line;
+    }
+
+    /**
+     * Set up a new search, the history of the previous search is forgotten
+     * @param table Transposition table, null = not used
+     * @param heuristicEnabled When false, positions at the depth limit are scored as 0
+     */
+    public void prepare(TranspositionTable table, boolean heuristicEnabled) {
+        this.table = table;
+        this.heuristicEnabled = heuristicEnabled;
+        for (int[] sideHistory : history) {
+            Arrays.fill(sideHistory, 0);
+        }
+    }
+
+    /**
+     * Search every root move to the specified depth, the best move of the previous depth first
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param side Side to move (0 = human, 1 = bot)
+     * @param depth Depth to search to (plies after the root move)
+     * @param firstMove Position searched first, -1 if there is none
+     * @param fullWindow Search every root move with a full window, so that every root score is exact and not only the best one
+     * @return Index of the best root move in the search order (the first one if the search was aborted before any move was searched), -1 if there are no moves
+     */
+    public int searchRoot(long own, long opponent, int side, int depth, int firstMove, boolean fullWindow) {
+        depthLimitReached = false;
+        pvLength[0] = 0;
+        long hash = getHash(own, opponent, side);
+        scanLines(own, opponent, 0);
+        long winning = ownThreats;
+        rootMoveCount = generateMoves(own, opponent, side, 0, firstMove, board & ~(own | opponent));
+        System.arraycopy(moveBuffers[0], 0, rootMoves, 0, rootMoveCount);
+        int alpha = -Integer.MAX_VALUE;
+        int best = -1;
+        for (int i = 0; i < rootMoveCount; i++) {
+            int index = rootMoves[i];
+            long bit = 1L << index;
+            int score;
+            if ((winning & bit) != 0) {
+                score = BoardTester.WIN_SCORE; // Won by the root move itself
+                pvLength[1] = 1;
+            } else {
+                long childHash = hash ^ keys[side][index] ^ Zobrist.getSideToMoveKey(Occupant.BOT);
+                if (best < 0 || fullWindow) {
+                    score = -search(opponent, own | bit, 1 - side, childHash, 1, depth, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+                } else { // Only find out if the move beats the best one so far
+                    score = -search(opponent, own | bit, 1 - side, childHash, 1, depth, -alpha - 1, -alpha);
+                    if (score > alpha && !owner.isAborted()) {
+                        score = -search(opponent, own | bit, 1 - side, childHash, 1, depth, -Integer.MAX_VALUE, -alpha);
+                    }
+                }
+            }
+            if (owner.isAborted()) {
+                rootMoveCount = i;
+                if (best < 0) {
+                    best = 0; // Stopped before the first move was searched, the first move of the ordering is the best guess
+                }
+                break;
+            }
+            rootScores[i] = score;
+            if (best < 0 || score > alpha) {
+                alpha = score;
+                best = i;
+                updatePrincipalVariation(0, index);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Negamax search of a position where the last move didn't win
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param side Side to move (0 = human, 1 = bot)
+     * @param hash Position key
+     * @param ply Plies from the root
+     * @param depth Remaining depth
+     * @param alpha Alpha value
+     * @param beta Beta value
+     * @return Score from the point of view of the side to move
+     */
+    private int search(long own, long opponent, int side, long hash, int ply, int depth, int alpha, int beta) {
+        if (owner.countNode()) {
+            return 0;
+        }
+        pvLength[ply] = ply;
+        scanLines(own, opponent, ply);
+        if (ownThreats != 0) { // Every move that completes a line is in the threats, so without threats no move can win
+            pvLength[ply + 1] = ply + 1;
+            updatePrincipalVariation(ply, Long.numberOfTrailingZeros(ownThreats));
+            return BoardTester.WIN_SCORE - ply;
+        }
+        long empty = board & ~(own | opponent);
+        if (empty == 0) {
+            return 0;
+        }
+        if (opponentThreats != 0) {
+            if (Long.bitCount(opponentThreats) > 1) { // Only one can be blocked
+                return -(BoardTester.WIN_SCORE - ply - 1);
+            }
+            int index = Long.numberOfTrailingZeros(opponentThreats);
+            long childHash = hash ^ keys[side][index] ^ Zobrist.getSideToMoveKey(Occupant.BOT);
+            int score = -search(opponent, own | opponentThreats, 1 - side, childHash, ply + 1, depth, -beta, -alpha); // A forced move doesn't use depth
+            updatePrincipalVariation(ply, index);
+            return score;
+        }
+        if (depth <= 0) {
+            return searchThreats(own, opponent, side, hash, ply, depth, alpha, beta);
+        }
+        long key = hash ^ SEARCH_KEY;
+        long entry = table != null ? table.probe(key) : TranspositionTable.MISS;
+        int tableMove = -1;
+        if (entry != TranspositionTable.MISS) {
+            if (TranspositionTable.getDepth(entry) >= depth) {
+                depthLimitReached = true; // The stored search may have been cut by its' depth limit
+                int score = getScoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+            if (TranspositionTable.hasMove(entry)) {
+                tableMove = TranspositionTable.getMoveRow(entry) * columns + TranspositionTable.getMoveColumn(entry);
+            }
+        }
+        int moveCount = generateMoves(own, opponent, side, ply, tableMove, empty);
+        int[] moves = moveBuffers[ply];
+        int alphaOriginal = alpha;
+        int bestScore = -Integer.MAX_VALUE;
+        int bestMove = -1;
+        for (int i = 0; i < moveCount; i++) {
+            int index = moves[i];
+            long childOwn = own | (1L << index);
+            long childHash = hash ^ keys[side][index] ^ Zobrist.getSideToMoveKey(Occupant.BOT);
+            int score;
+            if (i == 0) {
+                score = -search(opponent, childOwn, 1 - side, childHash, ply + 1, depth - 1, -beta, -alpha);
+            } else {
+                score = -search(opponent, childOwn, 1 - side, childHash, ply + 1, depth - 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) { // Better than expected, search again with the full window
+                    score = -search(opponent, childOwn, 1 - side, childHash, ply + 1, depth - 1, -beta, -alpha);
+                }
+            }
+            if (owner.isAborted()) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = index;
+                updatePrincipalVariation(ply, index);
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                history[side][index] += depth * depth;
+                break;
+            }
+        }
+        if (table != null) {
+            int bound = TranspositionTable.EXACT;
+            if (bestScore <= alphaOriginal) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (bestScore >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            table.store(key, getScoreForTable(bestScore, ply), depth, bound, bestMove / columns, bestMove % columns);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Search a position at the depth limit: the heuristic, unless a move making a threat is better (the side to move may also make a quiet move instead,
+     * so the heuristic is a lower bound). Only the threats are searched further, and every threat forces the opponent to block it
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param side Side to move (0 = human, 1 = bot)
+     * @param hash Position key
+     * @param ply Plies from the root
+     * @param depth Remaining depth, 0 or less (minus the threats made past the depth limit)
+     * @param alpha Alpha value
+     * @param beta Beta value
+     * @return Score from the point of view of the side to move
+     */
+    private int searchThreats(long own, long opponent, int side, long hash, int ply, int depth, int alpha, int beta) {
+        depthLimitReached = true;
+        int bestScore = heuristicEnabled ? Math.max(-BoardTester.WIN_SCORE / 2, Math.min(BoardTester.WIN_SCORE / 2, lineScore)) : 0;
+        if (bestScore >= beta || depth <= -THREAT_PLIES || threatMoves == 0) {
+            return bestScore;
+        }
+        alpha = Math.max(alpha, bestScore);
+        int moveCount = generateMoves(own, opponent, side, ply, -1, threatMoves);
+        int[] moves = moveBuffers[ply];
+        for (int i = 0; i < moveCount; i++) {
+            int index = moves[i];
+            long childHash = hash ^ keys[side][index] ^ Zobrist.getSideToMoveKey(Occupant.BOT);
+            int score = -search(opponent, own | (1L << index), 1 - side, childHash, ply + 1, depth - 1, -beta, -alpha);
+            if (owner.isAborted()) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                updatePrincipalVariation(ply, index);
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Scan all the lines once: find the threats of both sides, the moves making a threat, the heuristic and the ordering worth of a move on every line
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param ply Ply of the node, the ordering worths go to its' row of lineValues
+     */
+    private void scanLines(long own, long opponent, int ply) {
+        int[] values = lineValues[ply];
+        long threats = 0;
+        long blocks = 0;
+        long threatening = 0;
+        int score = 0;
+        for (int line = 0; line < lines.length; line++) {
+            long mask = lines[line];
+            long ownOn = own & mask;
+            long opponentOn = opponent & mask;
+            if (opponentOn == 0) {
+                int marks = Long.bitCount(ownOn);
+                if (marks == winLength - 1) {
+                    threats |= mask & ~ownOn;
+                } else if (marks == winLength - 2 && marks > 0) {
+                    threatening |= mask & ~ownOn;
+                }
+                score += weights[marks];
+                values[line] = marks == 0 ? 1 : 2 * weights[Math.min(marks + 1, winLength - 1)]; // Extending own lines is worth more than blocking
+            } else if (ownOn == 0) {
+                int marks = Long.bitCount(opponentOn);
+                if (marks == winLength - 1) {
+                    blocks |= mask & ~opponentOn;
+                }
+                score -= weights[marks];
+                values[line] = weights[Math.min(marks + 1, winLength - 1)];
+            } else {
+                values[line] = 0; // Both sides have marks on the line, nobody can win it anymore
+            }
+        }
+        ownThreats = threats;
+        opponentThreats = blocks;
+        threatMoves = threatening;
+        lineScore = score;
+    }
+
+    /**
+     * Generate moves of a node, ordered by the table move, the line worths of the node and the history
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param side Side to move
+     * @param ply Ply of the node (scanned with scanLines)
+     * @param firstMove Position searched first, -1 if there is none
+     * @param candidates Empty positions to generate
+     * @return Amount of moves, the moves are in moveBuffers[ply]
+     */
+    private int generateMoves(long own, long opponent, int side, int ply, int firstMove, long candidates) {
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int[] values = lineValues[ply];
+        int count = 0;
+        for (long empty = candidates; empty != 0; empty &= empty - 1) {
+            int index = Long.numberOfTrailingZeros(empty);
+            int score = history[side][index];
+            for (int line : linesThrough[index]) {
+                score += values[line];
+            }
+            if (index == firstMove) {
+                score += TABLE_MOVE_SCORE;
+            }
+            int i = count++;
+            for (; i > 0 && scores[i - 1] < score; i--) { // Insertion sort, highest score first
+                moves[i] = moves[i - 1];
+                scores[i] = scores[i - 1];
+            }
+            moves[i] = index;
+            scores[i] = score;
+        }
+        return count;
+    }
+
+    /**
+     * Get the position key of a position, the same keys as the board models use
+     * @param own Marks of the side to move
+     * @param opponent Marks of the opponent
+     * @param side Side to move (0 = human, 1 = bot)
+     * @return Position key
+     */
+    private long getHash(long own, long opponent, int side) {
+        long hash = side == 1 ? Zobrist.getSideToMoveKey(Occupant.BOT) : 0;
+        for (long marks = own; marks != 0; marks &= marks - 1) {
+            hash ^= keys[side][Long.numberOfTrailingZeros(marks)];
+        }
+        for (long marks = opponent; marks != 0; marks &= marks - 1) {
+            hash ^= keys[1 - side][Long.numberOfTrailingZeros(marks)];
+        }
+        return hash;
+    }
+
+    /**
+     * Store a move that improved the score at the given ply as the start of the principal variation of that ply
+     * @param ply Ply of the move
+     * @param index Position of the move
+     */
+    private void updatePrincipalVariation(int ply, int index) {
+        int[] line = pvTable[ply];
+        int[] next = pvTable[ply + 1];
+        line[ply] = index;
+        int length = Math.max(pvLength[ply + 1], ply + 1);
+        for (int i = ply + 1; i < length; i++) {
+            line[i] = next[i];
+        }
+        pvLength[ply] = length;
+    }
+
+    /**
+     * Convert a win or loss score to a score relative to the position, so that it can be used at any ply
+     * @param score Score of the position
+     * @param ply Ply of the position
+     * @return Score to store
+     */
+    private static int getScoreForTable(int score, int ply) {
+        if (score > BoardTester.WIN_SCORE / 2) {
+            return score + ply;
+        } else if (score < -BoardTester.WIN_SCORE / 2) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a stored score back to a score of the current ply
+     * @param score Stored score
+     * @param ply Ply of the position
+     * @return Score as if searched at this ply
+     */
+    private static int getScoreFromTable(int score, int ply) {
+        if (score > BoardTester.WIN_SCORE / 2) {
+            return score - ply;
+        } else if (score < -BoardTester.WIN_SCORE / 2) {
+            return score + ply;
+        }
+        return score;
+    }
+}
\ No newline at end of file
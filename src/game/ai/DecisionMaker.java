@@ -1,57 +1,870 @@
 package game.ai;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
 import game.main.Game;
 import game.board.copy.BoardPieceCopy;
 import game.board.copy.BoardStateCopy;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.model.Symmetry;
+import game.board.model.Zobrist;
 import game.board.Move;
 import game.board.BoardTester;
 import game.player.Occupant;
 
-/**
- * Decision maker is the "AI" used by the bot player. Uses the minimax algorithm (with alpha-beta pruning optimization)
- * I used mainly used the sources below to create this variation of minimax, they explain it way better than I ever could!
- * https://www.youtube.com/watch?v=trKjYdBASyQ
- * https://medium.com/swlh/optimizing-decision-making-with-the-minimax-ai-algorithm-69cce500c6d6
- * https://www.geeksforgeeks.org/minimax-algorithm-in-game-theory-set-3-tic-tac-toe-ai-finding-optimal-move/?ref=lbp
- * https://www.geeksforgeeks.org/minimax-algorithm-in-game-theory-set-4-alpha-beta-pruning/
- */
-public class DecisionMaker {
-    private Game game;
-    private BoardTester tester;
+/**
+ * Decision maker is the "AI" used by the bot player. Uses the minimax algorithm (with alpha-beta pruning optimization)
+ * I used mainly used the sources below to create this variation of minimax, they explain it way better than I ever could!
+ * https://www.youtube.com/watch?v=trKjYdBASyQ
+ * https://medium.com/swlh/optimizing-decision-making-with-the-minimax-ai-algorithm-69cce500c6d6
+ * https://www.geeksforgeeks.org/minimax-algorithm-in-game-theory-set-3-tic-tac-toe-ai-finding-optimal-move/?ref=lbp
+ * https://www.geeksforgeeks.org/minimax-algorithm-in-game-theory-set-4-alpha-beta-pruning/
+ * There are two variations of the same search: the original one on a board state copy, and a faster one on a board model
+ * (bitboard or sparse), which only looks at the last move for wins and can limit the moves to the ones near the marks on big boards.
+ * The board model search can split the root moves over several threads (see setThreads and ParallelRootSearch), optionally in a deterministic mode
+ * limited by nodes instead of time. Boards of at most 64 positions can be searched with the bitboard search instead (see setBitboardSearch and BitboardRootSearch),
+ * which only looks at the line masks of the geometry; it is the only search of geometries that aren't planar, e.g the 4x4x4 cube.
+ */
+public class DecisionMaker {
+    /**
+     * How many nodes are searched between checks of the time budget (must be a power of two).
+     */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    /**
+     * Largest board area where the board model search looks at every empty position by default, on bigger boards only the positions near the marks are searched.
+     */
+    private static final int FULL_WIDTH_MAX_AREA = 100;
+
+    /**
+     * Default distance from the marks of the searched positions on big and unbounded boards.
+     */
+    private static final int DEFAULT_CANDIDATE_RADIUS = 2;
+
+    /**
+     * Amount of moves of a node searched to the full depth before late move reductions start.
+     */
+    private static final int LATE_MOVE_START = 3;
+
+    /**
+     * Smallest remaining depth where late moves are reduced.
+     */
+    private static final int LATE_MOVE_MIN_DEPTH = 3;
+
+    /**
+     * Moves from this index onwards are reduced by two plies instead of one, when there is depth left for it.
+     */
+    private static final int LATE_MOVE_DOUBLE_START = 10;
+
+    /**
+     * Largest remaining depth where futility pruning is used, the margin grows with the remaining depth.
+     */
+    private static final int FUTILITY_MAX_DEPTH = 2;
+
+    /**
+     * Packed move that is never on any board, used when there is no move to search first.
+     */
+    static final long NO_MOVE = Long.MIN_VALUE;
+
+    /**
+     * Size of the private transposition table of every thread in the deterministic mode, as a power of two entries (4 MB).
+     */
+    private static final int PRIVATE_TABLE_SIZE_BITS = 18;
+
+    private Game game;
+    private BoardTester tester;
+
+    /**
+     * Maximum depth of minimax used by this decision maker.
+     */
+    private int maxDepth;
+
+    /**
+     * Time budget in milliseconds for a single move, 0 = no budget (search directly to max depth).
+     */
+    private long timeBudget;
+
+    /**
+     * When false, the heuristic is not used when the max depth is reached (the position is scored as 0 instead).
+     */
+    private boolean heuristicEnabled = true;
+
+    /**
+     * Nodes (minimax calls) searched during the latest getBestMove call.
+     */
+    private long nodes;
+
+    /**
+     * Deepest fully completed search depth during the latest getBestMove call.
+     */
+    private int completedDepth;
+
+    /**
+     * System.nanoTime deadline of the current search, 0 = no deadline.
+     */
+    private long deadline;
+
+    /**
+     * Set when the deadline has passed, searches currently running unwind as fast as possible.
+     */
+    private boolean aborted;
+
+    /**
+     * Set from another thread to stop the search (e.g the analysis is no longer needed), once set this decision maker stays stopped.
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * Clock of the side this decision maker moves for, null = no clock (fixed depth or time budget).
+     */
+    private TimeManager timeManager;
+
+    /**
+     * Empty positions of the board being searched, used for dividing the clock between the moves.
+     */
+    private int emptyPositions;
+
+    /**
+     * Side of the current search.
+     */
+    private Occupant searchSide;
+
+    /**
+     * Root moves that didn't lose by force in the latest completed depth.
+     */
+    private int nonLosingRootMoves;
+
+    /**
+     * Scores above this (or below the negation) are proven wins (or losses). The heuristic of the reference engine gives the same scores
+     * as real wins, so there nothing is proven.
+     */
+    private int provenScore;
+
+    /**
+     * Did the current iteration stop anywhere because of the depth limit? If not, the whole game tree was searched and deeper iterations are useless.
+     */
+    private boolean depthLimitReached;
+
+    /**
+     * Score of the best root move found by the latest completed search depth.
+     */
+    private int bestRootScore;
+
+    /**
+     * Triangular table of principal variations, row n holds the best line found from ply n onwards.
+     */
+    private Move[][] pvTable;
+    private int[] pvLength;
+
+    /**
+     * Optional listener notified of every completed depth, null = no listener.
+     */
+    private SearchListener listener;
+
+    /**
+     * Distance from the marks of the positions searched by the board model search, 0 = every empty position, -1 = choose by board size.
+     */
+    private int candidateRadius = -1;
+
+    /**
+     * Search later moves of a node to a reduced depth first, and again to the full depth only if they turn out better than the earlier ones.
+     */
+    private boolean lateMoveReductions;
+
+    /**
+     * Skip the quiet moves of nodes near the depth limit when the heuristic of the node is too far below alpha (or above beta) for them to matter.
+     */
+    private boolean futilityPruning;
+
+    /**
+     * Heuristic margin of futility pruning per remaining ply, -1 = choose by win length.
+     */
+    private int futilityMargin = -1;
+
+    /**
+     * Futility margin used by the current board model search.
+     */
+    private int margin;
+
+    /**
+     * Smallest move ordering score of a tactical move (see BoardTester.getTacticalOrderScore), tactical moves are never reduced or pruned.
+     */
+    private int tacticalScore;
+
+    /**
+     * Best root move of the previous depth of the board model search (packed), searched first with late move reductions.
+     */
+    private long rootMove;
+
+    /**
+     * Network evaluating the positions of the board model search instead of the heuristic, null = use the heuristic.
+     */
+    private NTupleNetwork network;
+
+    /**
+     * Evaluator of the network for the current board model search, null if the network isn't used.
+     */
+    private NTupleEvaluator evaluator;
+
+    /**
+     * Reused move ordering scores of the board model search, one array per ply in the same order as the move lists.
+     */
+    private int[][] orderScores;
+
+    /**
+     * Radius used by the current board model search.
+     */
+    private int radius;
+
+    /**
+     * Reused move lists of the board model search, one per ply.
+     */
+    private MoveList[] moveLists;
+
+    /**
+     * Table of already searched positions of the board model search, null = not used.
+     */
+    private TranspositionTable transpositionTable;
+
+    /**
+     * Table used by the current search, the transposition table or in the deterministic mode the private table of this thread.
+     */
+    private TranspositionTable searchTable;
+
+    /**
+     * Table of this thread in the deterministic mode, cleared at the start of every search so that earlier searches can't change the result.
+     */
+    private TranspositionTable privateTable;
+
+    /**
+     * Threads searching the root moves of a board model, 1 = only the calling thread.
+     */
+    private int threads = 1;
+
+    /**
+     * In the deterministic mode the root moves are split over the threads in a fixed order, every thread has its' own table, and only nodes limit the search,
+     * so the same position, settings and thread count always give the same move.
+     */
+    private boolean deterministic;
+
+    /**
+     * Nodes a whole move may search over all the threads, 0 = no limit.
+     */
+    private long nodeBudget;
+
+    /**
+     * Node count of this thread where its' search is aborted.
+     */
+    private long nodeLimit = Long.MAX_VALUE;
+
+    /**
+     * Root search of the other threads, null until the first search with several threads.
+     */
+    private ParallelRootSearch parallel;
+
+    /**
+     * Search planar boards of at most 64 positions with the bitboard search (boards of other geometries always are).
+     */
+    private boolean bitboardSearch;
+
+    /**
+     * Search every root move with a full window, so that every root move gets an exact score (see setExactRootScores).
+     */
+    private boolean exactRootScores;
+
+    /**
+     * Root search of the boards searched with the bitboard search, null until the first one.
+     */
+    private BitboardRootSearch bitboardRoot;
+
+    /**
+     * Get the nodes searched in the latest search, including the nodes of all the threads
+     * @return Node count
+     */
+    public long getNodes() {
+        return parallel != null && threads > 1 ? nodes + parallel.getHelperNodes() : nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public int getBestScore() {
+        return bestRootScore;
+    }
+
+    /**
+     * Get the principal variation (expected line of play) of the latest completed search depth
+     * @return Moves starting from the best move
+     */
+    public Move[] getPrincipalVariation() {
+        Move[] pv = new Move[pvLength[0]];
+        System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+        return pv;
+    }
+
+    /**
+     * Stop the current search as soon as possible, can be called from any thread. The decision maker can't be used after this
+     */
+    public void stop() {
+        stopRequested = true;
+        ParallelRootSearch current = parallel;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Return the private tables of the deterministic mode (of this decision maker and its' helpers) to the memory budget, call when the decision maker
+     * is no longer needed. The decision maker can still be used, the tables are then allocated again
+     */
+    public void free() {
+        if (privateTable != null) {
+            privateTable.free();
+            privateTable = null;
+        }
+        if (parallel != null) {
+            parallel.free();
+        }
+    }
+
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * Search on a clock, the clock decides the time used for every move (instead of the time budget) up to the max depth
+     * @param manager Time manager of the side, null to search without a clock
+     */
+    public void setTimeManager(TimeManager manager) {
+        timeManager = manager;
+    }
+
+    public void setSearchListener(SearchListener value) {
+        listener = value;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public void setTranspositionTable(TranspositionTable table) {
+        transpositionTable = table;
+    }
+
+    public int getCandidateRadius() {
+        return candidateRadius;
+    }
+
+    public void setCandidateRadius(int value) {
+        candidateRadius = value;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean value) {
+        lateMoveReductions = value;
+    }
+
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    public void setFutilityPruning(boolean value) {
+        futilityPruning = value;
+    }
+
+    public int getFutilityMargin() {
+        return futilityMargin;
+    }
+
+    public void setFutilityMargin(int value) {
+        futilityMargin = value;
+    }
+
+    public NTupleNetwork getNetwork() {
+        return network;
+    }
+
+    public void setNetwork(NTupleNetwork value) {
+        network = value;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int depth) {
+        maxDepth = depth;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(long millis) {
+        timeBudget = millis;
+    }
+
+    public boolean isHeuristicEnabled() {
+        return heuristicEnabled;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isBitboardSearch() {
+        return bitboardSearch;
+    }
+
+    /**
+     * Search planar boards that fit in a single bitboard word (at most 64 positions) with the bitboard search, which works on the line masks of the board
+     * and finds the threats of both sides at every node. Always used for geometries that aren't planar. The bitboard search runs on the calling thread only,
+     * and doesn't use the network, late move reductions or futility pruning
+     * @param value True to use the bitboard search on small planar boards
+     */
+    public void setBitboardSearch(boolean value) {
+        bitboardSearch = value;
+    }
+
+    public boolean isExactRootScores() {
+        return exactRootScores;
+    }
+
+    /**
+     * Search every root move with a full window, for listeners that need the score of every move and not only the best one (see
+     * SearchListener.onRootMoveSearched). Otherwise root moves after the first one are only searched to find out if they beat the best move so far
+     * (with late move reductions, several threads or the bitboard search), and a move that doesn't gets a bound. Root moves are then searched
+     * on the calling thread only and without reductions, so this is slower
+     * @param value True to get an exact score for every root move
+     */
+    public void setExactRootScores(boolean value) {
+        exactRootScores = value;
+    }
+
+    /**
+     * Search the root moves of board models with several threads. The first root move is searched alone to get a bound for the rest,
+     * then the threads search the other moves against it. The original board state search always uses one thread
+     * @param value Amount of threads, 1 = only the calling thread
+     */
+    public void setThreads(int value) {
+        threads = Math.max(1, value);
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Make the board model search reproducible: the same position, settings and thread count always give the same move and score.
+     * The time budget and the clock are ignored (limit the search with the max depth or the node budget instead), the root moves are split
+     * over the threads in a fixed order, and every thread uses its' own transposition table that is cleared for every search
+     * @param value True for the deterministic mode
+     */
+    public void setDeterministic(boolean value) {
+        deterministic = value;
+    }
+
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Limit the nodes of a move, so that the search stops at the same point on machines of any speed. The result of a partly searched depth
+     * is thrown away like when the time runs out
+     * @param value Nodes over all the threads, 0 = no limit
+     */
+    public void setNodeBudget(long value) {
+        nodeBudget = Math.max(0, value);
+    }
+
+    public void setHeuristicEnabled(boolean value) {
+        heuristicEnabled = value;
+    }
+
+    /**
+     * Get the key of the scores this decision maker stores in a transposition table: the evaluation (the network or the heuristic weights)
+     * and whether pruning changes the scores. Decision makers should share a table only if their keys are the same
+     * @return Key, e.g "n1a2b3c4p" (a network, pruned) or "h5d6e7f8" (the heuristic, not pruned)
+     */
+    public String getEvaluationKey() {
+        String evaluation = !heuristicEnabled ? "z" : network != null ? "n" + Integer.toHexString(network.getFingerprint())
+            : "h" + Integer.toHexString(Arrays.hashCode(tester.getWindowWeights()));
+        return evaluation + (lateMoveReductions || futilityPruning ? "p" : "");
+    }
+
+    /**
+     * Create a new "AI" decision maker instance
+     * @param game Main game instance
+     * @param tester Board tester to test move resuls with
+     */
+    public DecisionMaker(Game game, BoardTester tester) {
+        this.game = game;
+        this.tester = tester;
+        this.maxDepth = Game.MAX_AI_ACCURACY;
+    }
+
+    /**
+     * Create a new "AI" decision maker instance that isn't attached to the main game instance (e.g for games played without the UI).
+     * Only getBestMove(state, side) can be used with this decision maker!
+     * @param tester Board tester to test move resuls with
+     * @param maxDepth Maximum depth of minimax
+     */
+    public DecisionMaker(BoardTester tester, int maxDepth) {
+        this.tester = tester;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * (Attempt to) Get the best possible move for the bot (AI)
+     * In reality, this is not the "best" move except on smaller boards, because of the processing power needed
+     * https://stackoverflow.com/questions/2080050/how-do-we-determine-the-time-and-space-complexity-of-minmax
+     * @return Optimal or sub-optimal move
+     */
+    public Move getBestMove() {
+        BoardModel model = new BitBoardModel(game.getBoard().getSnapshot()); // Copy the latest snapshot of the board
+        return getBestMove(model, Occupant.BOT);
+    }
+
+    /**
+     * Get the best move for either side on the given board state. The bot is always the maximizer and the human the minimizer,
+     * so when moving for the human the move with the lowest score is chosen.
+     * With a time budget or a search listener the search is deepened one depth at a time, and the move of the deepest completed depth is returned
+     * @param state Copy of a board state, all of its' moves must be free
+     * @param side Occupant to get the move for (BOT or HUMAN)
+     * @return Optimal or sub-optimal move, invalid move if there are no moves to make
+     */
+    public Move getBestMove(BoardStateCopy state, Occupant side) {
+        searchSide = side;
+        emptyPositions = state.getMoves().size();
+        provenScore = Integer.MAX_VALUE;
+        return deepen(depth -> searchRoot(state, side, depth));
+    }
+
+    /**
+     * Get the best move for either side on a board model, works the same way as the board state copy variation
+     * @param model Board model to search, marks are placed and removed during the search but it is left unchanged
+     * @param side Occupant to get the move for (BOT or HUMAN)
+     * @return Optimal or sub-optimal move, invalid move if there are no moves to make
+     */
+    public Move getBestMove(BoardModel model, Occupant side) {
+        BoardGeometry geometry = tester.getGeometry(model);
+        prepareSearch(model, side);
+        if (BitboardRootSearch.isSearched(model, geometry, bitboardSearch)) {
+            if (bitboardRoot == null) {
+                bitboardRoot = new BitboardRootSearch(this, tester);
+            }
+            bitboardRoot.prepare(model, geometry, side);
+            return deepen(bitboardRoot::searchRoot);
+        }
+        if (threads > 1 && !exactRootScores) {
+            if (parallel == null) {
+                parallel = new ParallelRootSearch(this, tester);
+            }
+            parallel.prepare(model, side);
+            return deepen(depth -> parallel.searchRoot(model, depth));
+        }
+        return deepen(depth -> searchRoot(model, side, depth));
+    }
+
+    /**
+     * Set up the state of a board model search
+     * @param model Board model to search
+     * @param side Occupant to get the move for
+     */
+    private void prepareSearch(BoardModel model, Occupant side) {
+        radius = candidateRadius < 0 ? getAutomaticRadius(model) : candidateRadius;
+        searchSide = side;
+        provenScore = BoardTester.WIN_SCORE / 2;
+        emptyPositions = model.isBounded() ? model.getRows() * model.getColumns() - model.getPiecesPlaced() : Integer.MAX_VALUE;
+        margin = futilityMargin < 0 ? tester.getWindowWeight(tester.getWinLength() - 1) : futilityMargin; // Worth of one window a mark short of a win
+        tacticalScore = tester.getTacticalOrderScore();
+        rootMove = NO_MOVE;
+        evaluator = null;
+        if (network != null && network.getWinLength() == tester.getWinLength() && model.isBounded() && tester.getGeometry(model).isPlanar()) { // Networks only know planar bounded boards
+            evaluator = new NTupleEvaluator(network, model.getRows(), model.getColumns());
+            evaluator.reset(model);
+        }
+        moveLists = new MoveList[maxDepth + 2];
+        orderScores = new int[maxDepth + 2][];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+            orderScores[i] = new int[64];
+        }
+        searchTable = transpositionTable;
+        if (deterministic && transpositionTable != null) { // The shared table would carry over positions from earlier searches and other threads
+            if (privateTable == null) {
+                privateTable = new TranspositionTable(PRIVATE_TABLE_SIZE_BITS);
+            }
+            privateTable.clear();
+            searchTable = privateTable;
+        }
+    }
+
+    /**
+     * Set up this decision maker as a helper of a parallel search, with the settings of the owner and its' own copy of the board
+     * @param owner Decision maker searching on the calling thread
+     * @param model Board copy of this helper
+     * @param side Occupant to get the move for
+     */
+    void prepareHelper(DecisionMaker owner, BoardModel model, Occupant side) {
+        maxDepth = owner.maxDepth;
+        heuristicEnabled = owner.heuristicEnabled;
+        candidateRadius = owner.radius;
+        lateMoveReductions = owner.lateMoveReductions;
+        futilityPruning = owner.futilityPruning;
+        futilityMargin = owner.futilityMargin;
+        network = owner.network;
+        transpositionTable = owner.transpositionTable;
+        deterministic = owner.deterministic;
+        stopRequested = owner.stopRequested;
+        prepareSearch(model, side);
+        nodes = 0;
+        pvTable = new Move[maxDepth + 2][maxDepth + 2];
+        pvLength = new int[maxDepth + 2];
+    }
+
+    /**
+     * Find a move that doesn't need a search: the only empty position, a winning move, or blocking the only winning move of the opponent.
+     * Each check only looks at the lines next to the marks, so this is far cheaper than even a shallow search
+     * @param model Board model
+     * @param side Occupant to move
+     * @return Forced move, invalid move if the position needs a search
+     */
+    public Move getForcedMove(BoardModel model, Occupant side) {
+        MoveList moves = new MoveList();
+        if (model.isBounded() && model.getRows() * model.getColumns() - model.getPiecesPlaced() == 1) {
+            model.generateMoves(0, moves);
+            return new Move(MoveList.getRow(moves.get(0)), MoveList.getColumn(moves.get(0)));
+        }
+        tester.collectWinningMoves(model, side, moves);
+        if (moves.size() == 0) {
+            tester.collectWinningMoves(model, side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT, moves);
+            if (moves.size() != 1) { // No threat, or more threats than can be blocked (the search picks the best of the lost moves)
+                return Move.invalid();
+            }
+        }
+        return new Move(MoveList.getRow(moves.get(0)), MoveList.getColumn(moves.get(0)));
+    }
+
+    /**
+     * Get the candidate radius used when it isn't set: small bounded boards are searched full width, the rest only near the marks
+     * @param model Board model
+     * @return Candidate radius (0 = all empty positions)
+     */
+    public static int getAutomaticRadius(BoardModel model) {
+        return model.isBounded() && model.getRows() * model.getColumns() <= FULL_WIDTH_MAX_AREA ? 0 : DEFAULT_CANDIDATE_RADIUS;
+    }
 
     /**
-     * Create a new "AI" decision maker instance
-     * @param game Main game instance
-     * @param tester Board tester to test move resuls with
+     * Run the root search once at the max depth, or one depth at a time with a time budget, a clock or a search listener
+     * @param searchRoot Function searching the root moves to the given depth
+     * @return Move of the deepest completed depth
      */
-    public DecisionMaker(Game game, BoardTester tester) {
-        this.game = game;
-        this.tester = tester;
+    private Move deepen(IntFunction<Move> searchRoot) {
+        nodes = 0;
+        nodeLimit = nodeBudget > 0 ? nodeBudget : Long.MAX_VALUE;
+        completedDepth = 0;
+        aborted = false;
+        pvTable = new Move[maxDepth + 2][maxDepth + 2];
+        pvLength = new int[maxDepth + 2];
+        TimeManager clock = deterministic ? null : timeManager; // Wall-clock limits would make the result depend on the speed of the machine
+        long budget = deterministic ? 0 : timeBudget;
+        if (clock != null) {
+            clock.startMove(emptyPositions);
+            budget = clock.getHardLimitMillis();
+        }
+        deadline = budget > 0 ? System.nanoTime() + budget * 1_000_000L : 0;
+        boolean iterative = budget > 0 || listener != null || nodeBudget > 0;
+        int startDepth = iterative ? 1 : maxDepth; // Without a budget or a listener, search directly to the max depth like before
+        Move bestMove = Move.invalid();
+        Move[] bestLine = new Move[0];
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            depthLimitReached = false;
+            Move move = searchRoot.apply(depth);
+            if (aborted) { // Incomplete iteration, use the result of the previous depth (if there was none, use this one anyway)
+                if (!bestMove.isValid()) {
+                    bestMove = move;
+                }
+                break;
+            }
+            bestMove = move;
+            bestLine = getPrincipalVariation();
+            completedDepth = depth;
+            if (listener != null) {
+                listener.onDepthCompleted(depth, bestRootScore, getNodes(), bestLine);
+            }
+            if (!depthLimitReached) {
+                break; // The whole game tree was searched, deeper iterations would give the same result
+            }
+            int sideScore = searchSide == Occupant.BOT ? bestRootScore : -bestRootScore;
+            boolean proven = Math.abs(bestRootScore) > provenScore;
+            if (clock != null && clock.shouldStop(bestMove, sideScore, proven, nonLosingRootMoves)) {
+                break;
+            }
+        }
+        if (clock != null) {
+            clock.finishMove();
+        }
+        System.arraycopy(bestLine, 0, pvTable[0], 0, bestLine.length); // Keep the principal variation of the deepest completed depth
+        pvLength[0] = bestLine.length;
+        return bestMove;
     }
 
     /**
-     * (Attempt to) Get the best possible move for the bot (AI)
-     * In reality, this is not the "best" move except on smaller boards, because of the processing power needed
-     * https://stackoverflow.com/questions/2080050/how-do-we-determine-the-time-and-space-complexity-of-minmax
-     * @return Optimal or sub-optimal move
+     * Search all the root moves to the specified depth
+     * @param state Copy of a board state
+     * @param side Occupant to get the move for
+     * @param depth Depth to search to
+     * @return Best move found
      */
-    public Move getBestMove() {
-        BoardStateCopy state = new BoardStateCopy(game.getBoard().getPieces()); // Get a copy of the current state of the board
-        Move bestMove = new Move(-1, -1); // Initialize the BestMove with invalid state at the start
-        int bestScore = Integer.MIN_VALUE; // Score is the smallest possible at the beginning, gets overridden by the first move
+    private Move searchRoot(BoardStateCopy state, Occupant side, int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        Move bestMove = Move.invalid(); // Initialize the BestMove with invalid state at the start
+        int rootScore = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE; // Score is the worst possible at the beginning, gets overridden by the first move
+        pvLength[0] = 0;
+        int nonLosing = 0;
         for (Move move : state.getMoves()) { // For all possible moves...
             BoardPieceCopy piece = state.getPiece(move.getRow(), move.getColumn()); // Get the piece of this move
-            piece.setOccupant(Occupant.BOT); // Set the occupant to the bot
-            int score = minimax(state, 0, false, Integer.MIN_VALUE, Integer.MAX_VALUE); // Get the result for performing this move (creating a game tree)
+            piece.setOccupant(side); // Set the occupant to the moving side
+            int score = minimax(state, 0, !isMaximizing, Integer.MIN_VALUE, Integer.MAX_VALUE, depth); // Get the result for performing this move (creating a game tree)
             piece.setOccupant(Occupant.NONE); // Reset This move, as we already got it's score
-            if (score > bestScore) { // Update score and move if this move was better than the current one.
-                bestScore = score;
+            if (aborted) {
+                break;
+            }
+            if (listener != null) {
+                listener.onRootMoveSearched(depth, move, score);
+            }
+            if (isMaximizing ? score > -provenScore : score < provenScore) {
+                nonLosing++;
+            }
+            if (isMaximizing ? score > rootScore : score < rootScore) { // Update score and move if this move was better than the current one.
+                rootScore = score;
                 bestMove.update(piece);
+                updatePrincipalVariation(0, move);
             }
         }
+        if (!aborted) {
+            bestRootScore = rootScore;
+            nonLosingRootMoves = nonLosing;
+        }
         return bestMove;
     }
 
+    /**
+     * Check if the search has to stop, either because the time budget ran out or because it was stopped from another thread
+     * @return True if the search has to stop
+     */
+    private boolean isOutOfTime() {
+        return stopRequested || (deadline != 0 && System.nanoTime() > deadline);
+    }
+
+    /**
+     * Count a searched node, and every now and then check the time. Once the node budget or the time runs out, the search is aborted
+     * @return True if the search has been aborted
+     */
+    boolean countNode() {
+        if (++nodes >= nodeLimit || ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && isOutOfTime())) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    void abort() {
+        aborted = true;
+    }
+
+    boolean isDepthLimitReached() {
+        return depthLimitReached;
+    }
+
+    /**
+     * Mark the current iteration as stopped by the depth limit somewhere, so that the search is deepened further
+     */
+    void reachDepthLimit() {
+        depthLimitReached = true;
+    }
+
+    /**
+     * Get the best root move of the previous depth
+     * @return Packed move, NO_MOVE if there is none
+     */
+    long getRootMove() {
+        return rootMove;
+    }
+
+    TranspositionTable getSearchTable() {
+        return searchTable;
+    }
+
+    /**
+     * Let this thread search until it has searched the given amount of nodes more
+     * @param share Nodes, Long.MAX_VALUE = no limit
+     */
+    void setNodeShare(long share) {
+        nodeLimit = share == Long.MAX_VALUE ? Long.MAX_VALUE : nodes + share;
+    }
+
+    /**
+     * Tell the listener about a searched root move
+     * @param depth Depth the move was searched to
+     * @param move Root move
+     * @param score Score of the move
+     * @param isMaximizing Is the bot making the root move?
+     * @return True if the move doesn't lose by force
+     */
+    boolean onRootMoveSearched(int depth, Move move, int score, boolean isMaximizing) {
+        if (listener != null) {
+            listener.onRootMoveSearched(depth, move, score);
+        }
+        return isMaximizing ? score > -provenScore : score < provenScore;
+    }
+
+    /**
+     * Store the result of a root search done outside of this class. The principal variation is always stored, the scores only if the iteration wasn't aborted
+     * @param bestMove Best root move
+     * @param score Score of the best move
+     * @param nonLosing Root moves that didn't lose by force
+     * @param line Principal variation starting from the best move
+     */
+    void setRootResult(Move bestMove, int score, int nonLosing, Move[] line) {
+        pvLength[0] = Math.min(line.length, pvTable[0].length); // Forced moves of the bitboard search don't use depth, so the line can be longer than the max depth
+        System.arraycopy(line, 0, pvTable[0], 0, pvLength[0]);
+        if (!aborted) {
+            bestRootScore = score;
+            nonLosingRootMoves = nonLosing;
+            rootMove = MoveList.pack(bestMove.getRow(), bestMove.getColumn());
+        }
+    }
+
+    /**
+     * Store a move that improved the score at the given ply as the start of the principal variation of that ply,
+     * followed by the principal variation of the next ply
+     * @param ply Ply of the move (0 = root move)
+     * @param move Move that improved the score
+     */
+    private void updatePrincipalVariation(int ply, Move move) {
+        Move[] line = pvTable[ply];
+        Move[] next = pvTable[ply + 1];
+        line[ply] = move;
+        for (int i = ply + 1; i < pvLength[ply + 1]; i++) {
+            line[i] = next[i];
+        }
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
     /**
      * The meat and bone of the decision maker. In short it is called with current board state and it plays the game 
      * forward as long as there is no tie, win or lose, and then returns the score of the move
@@ -60,20 +873,26 @@ public class DecisionMaker {
      * @param isMaximizing Is the current call the maximizer? (bot)
      * @param alpha Alpha value (maximizer)
      * @param beta Beta value (minimizer)
+     * @param depthLimit Depth where the heuristic is used instead of searching further
      * @return Score of performing the move (in getBestMove)
      */
-    private int minimax(BoardStateCopy state, int depth, boolean isMaximizing, int alpha, int beta) {
-        if (depth >= Game.getAiAccuracy()) { // If we're too deep in the current game tree branch, just return the heuristic for this move
-            return tester.getHeuristicResultForMinimax(state, depth);
+    private int minimax(BoardStateCopy state, int depth, boolean isMaximizing, int alpha, int beta, int depthLimit) {
+        if (countNode()) { // Out of time, the result of this search will be thrown away
+            return 0;
+        }
+        pvLength[depth + 1] = depth + 1; // No principal variation from this node yet
+        if (depth >= depthLimit) { // If we're too deep in the current game tree branch, just return the heuristic for this move
+            depthLimitReached = true;
+            return heuristicEnabled ? tester.getHeuristicResultForMinimax(state, depth) : 0;
         }
         int result = tester.getMoveResultForMinimax(state, depth); // Check if there are any results in the current branch of the game tree
         if (result != -1000) { // Other than -1000 means terminal, as in a win, lose or a tie
             return result; 
         }
         if (isMaximizing) { // Bot turn
-            return getMaximizerScore(state, depth, alpha, beta);
+            return getMaximizerScore(state, depth, alpha, beta, depthLimit);
         } else { // Player turn
-            return getMinimizerScore(state, depth, alpha, beta);
+            return getMinimizerScore(state, depth, alpha, beta, depthLimit);
         }
     }
 
@@ -83,16 +902,21 @@ public class DecisionMaker {
      * @param depth Depth of the current game tree
      * @param alpha Alpha value
      * @param beta Beta value
+     * @param depthLimit Depth where the heuristic is used
      * @return Maximizer score
      */
-    private int getMaximizerScore(BoardStateCopy state, int depth, int alpha, int beta) {
+    private int getMaximizerScore(BoardStateCopy state, int depth, int alpha, int beta, int depthLimit) {
         int bestScore = Integer.MIN_VALUE;
         for (Move move : state.getMoves()) {
             BoardPieceCopy piece = state.getPiece(move.getRow(), move.getColumn());
             if (piece.getOccupant() == Occupant.NONE) {
                 piece.setOccupant(Occupant.BOT);
-                bestScore = Math.max(bestScore, minimax(state, depth + 1, false, alpha, beta));
+                int score = minimax(state, depth + 1, false, alpha, beta, depthLimit);
                 piece.setOccupant(Occupant.NONE);
+                if (score > bestScore) {
+                    bestScore = score;
+                    updatePrincipalVariation(depth + 1, move);
+                }
                 alpha = Math.max(alpha, bestScore);
                 if (beta <= alpha) { 
                     break;
@@ -108,16 +932,21 @@ public class DecisionMaker {
      * @param depth Depth of the current game tree
      * @param alpha Alpha value
      * @param beta Beta value
+     * @param depthLimit Depth where the heuristic is used
      * @return Minimizer score
      */
-    private int getMinimizerScore(BoardStateCopy state, int depth, int alpha, int beta) {
+    private int getMinimizerScore(BoardStateCopy state, int depth, int alpha, int beta, int depthLimit) {
         int bestScore = Integer.MAX_VALUE;
         for (Move move : state.getMoves()) {
             BoardPieceCopy piece = state.getPiece(move.getRow(), move.getColumn());
             if (piece.getOccupant() == Occupant.NONE) {
                 piece.setOccupant(Occupant.HUMAN);
-                bestScore = Math.min(bestScore, minimax(state, depth + 1, true, alpha, beta));
+                int score = minimax(state, depth + 1, true, alpha, beta, depthLimit);
                 piece.setOccupant(Occupant.NONE);
+                if (score < bestScore) {
+                    bestScore = score;
+                    updatePrincipalVariation(depth + 1, move);
+                }
                 beta = Math.min(beta, bestScore);
                 if (beta <= alpha) {
                     break;
@@ -126,4 +955,533 @@ public class DecisionMaker {
         }
         return bestScore;
     }
+
+    /**
+     * Search all the root moves of a board model to the specified depth
+     * @param model Board model
+     * @param side Occupant to get the move for
+     * @param depth Depth to search to
+     * @return Best move found
+     */
+    private Move searchRoot(BoardModel model, Occupant side, int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        Move bestMove = Move.invalid();
+        int rootScore = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        pvLength[0] = 0;
+        int nonLosing = 0;
+        MoveList moves = moveLists[0];
+        moves.clear();
+        model.generateMoves(radius, moves);
+        if (lateMoveReductions) { // Reductions need the good moves first, the best move of the previous depth is most likely the best again
+            orderMoves(model, moves, isMaximizing, -1, rootMove);
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            int row = MoveList.getRow(moves.get(i));
+            int column = MoveList.getColumn(moves.get(i));
+            place(model, row, column, side);
+            int score;
+            if (lateMoveReductions && bestMove.isValid() && !exactRootScores) {
+                // Only find out if the move beats the best one so far, the scores of the worse moves are then bounds instead of exact scores
+                score = searchRootMove(model, i, isMaximizing, rootScore, depth, row, column);
+            } else {
+                score = minimax(model, 0, !isMaximizing, Integer.MIN_VALUE, Integer.MAX_VALUE, depth, row, column);
+            }
+            remove(model, row, column, side);
+            if (aborted) {
+                break;
+            }
+            Move move = new Move(row, column);
+            if (listener != null) {
+                listener.onRootMoveSearched(depth, move, score);
+            }
+            if (isMaximizing ? score > -provenScore : score < provenScore) {
+                nonLosing++;
+            }
+            if (isMaximizing ? score > rootScore : score < rootScore) {
+                rootScore = score;
+                bestMove = move;
+                updatePrincipalVariation(0, bestMove);
+            }
+        }
+        if (!aborted) {
+            bestRootScore = rootScore;
+            nonLosingRootMoves = nonLosing;
+            rootMove = MoveList.pack(bestMove.getRow(), bestMove.getColumn());
+        }
+        return bestMove;
+    }
+
+    /**
+     * Search a root move after the first one with the score of the best move so far as the bound, reduced first if it is a late move
+     * @param model Board model with the root move placed
+     * @param index Index of the move in the ordered root moves
+     * @param isMaximizing Is the bot making the root move?
+     * @param rootScore Score of the best root move so far
+     * @param depth Depth to search to
+     * @param row Row of the root move
+     * @param column Column of the root move
+     * @return Score of the move, or a bound not better than the best score so far if the move isn't better
+     */
+    private int searchRootMove(BoardModel model, int index, boolean isMaximizing, int rootScore, int depth, int row, int column) {
+        int alpha = isMaximizing ? rootScore : Integer.MIN_VALUE;
+        int beta = isMaximizing ? Integer.MAX_VALUE : rootScore;
+        int reduction = getReduction(index, orderScores[0][index], depth + 1);
+        if (reduction > 0) {
+            int score = isMaximizing ? minimax(model, 0, false, alpha, alpha + 1, depth - reduction, row, column)
+                : minimax(model, 0, true, beta - 1, beta, depth - reduction, row, column);
+            if (isMaximizing ? score <= alpha : score >= beta) {
+                return score;
+            }
+        }
+        return minimax(model, 0, !isMaximizing, alpha, beta, depth, row, column);
+    }
+
+    /**
+     * Generate and order the root moves of a board model search in the move list of the first ply
+     * @param model Board model
+     * @param isMaximizing Is the bot making the root move?
+     * @return Root moves, the best move of the previous depth first
+     */
+    MoveList generateRootMoves(BoardModel model, boolean isMaximizing) {
+        pvLength[0] = 0;
+        MoveList moves = moveLists[0];
+        moves.clear();
+        model.generateMoves(radius, moves);
+        if (moves.size() > 0) {
+            orderMoves(model, moves, isMaximizing, -1, rootMove);
+        }
+        return moves;
+    }
+
+    /**
+     * Search a root move of a parallel search: the first move with a full window, the others against the bound (see searchRootMove)
+     * @param model Board model of this thread
+     * @param moves Ordered root moves
+     * @param index Index of the move
+     * @param side Occupant to get the move for
+     * @param bound Score of the best root move so far, not used for the first move
+     * @param depth Depth to search to
+     * @return Score of the move, or a bound not better than the bound if the move isn't better
+     */
+    int searchRootMove(BoardModel model, MoveList moves, int index, Occupant side, int bound, int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        int row = MoveList.getRow(moves.get(index));
+        int column = MoveList.getColumn(moves.get(index));
+        place(model, row, column, side);
+        int score = index == 0 ? minimax(model, 0, !isMaximizing, Integer.MIN_VALUE, Integer.MAX_VALUE, depth, row, column)
+            : searchRootMove(model, index, isMaximizing, bound, depth, row, column);
+        remove(model, row, column, side);
+        return score;
+    }
+
+    /**
+     * Prepare a helper for the next depth of a parallel search
+     * @param owner Decision maker searching on the calling thread, gives the deadline and the ordering scores of the root moves
+     * @param share Nodes the helper may search in this depth, Long.MAX_VALUE = no limit
+     * @param moveCount Amount of root moves
+     */
+    void startIteration(DecisionMaker owner, long share, int moveCount) {
+        deadline = owner.deadline;
+        aborted = false;
+        depthLimitReached = false;
+        setNodeShare(share);
+        if (orderScores[0].length < moveCount) {
+            orderScores[0] = new int[moveCount];
+        }
+        System.arraycopy(owner.orderScores[0], 0, orderScores[0], 0, moveCount); // Reductions of the root moves depend on their ordering scores
+    }
+
+    /**
+     * Add the state of a helper after a depth of a parallel search, so that an abort or the depth limit anywhere counts for the whole search
+     * @param helper Helper that finished the depth
+     */
+    void join(DecisionMaker helper) {
+        aborted |= helper.aborted;
+        depthLimitReached |= helper.depthLimitReached;
+    }
+
+    /**
+     * Pick the best root move of a parallel search from the results of all the threads
+     * @param results Results sorted by the index of the move, so ties go to the earlier move like in searchRoot
+     * @param moves Ordered root moves
+     * @param side Occupant to get the move for
+     * @param depth Depth the moves were searched to
+     * @return Best move found
+     */
+    Move setRootResults(List<ParallelRootSearch.RootResult> results, MoveList moves, Occupant side, int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        Move bestMove = Move.invalid();
+        Move[] bestLine = new Move[0];
+        int rootScore = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int nonLosing = 0;
+        for (ParallelRootSearch.RootResult result : results) {
+            Move move = new Move(MoveList.getRow(moves.get(result.index)), MoveList.getColumn(moves.get(result.index)));
+            if (onRootMoveSearched(depth, move, result.score, isMaximizing)) {
+                nonLosing++;
+            }
+            if (isMaximizing ? result.score > rootScore : result.score < rootScore) {
+                rootScore = result.score;
+                bestMove = move;
+                Move[] line = result.line != null ? result.line : new Move[0]; // The best move beat every bound from the moves before it, so it always has a line
+                bestLine = new Move[1 + line.length];
+                bestLine[0] = move;
+                System.arraycopy(line, 0, bestLine, 1, line.length);
+            }
+        }
+        setRootResult(bestMove, rootScore, nonLosing, bestLine);
+        return bestMove;
+    }
+
+    /**
+     * Get the principal variation after the root move that was just searched
+     * @return Moves from the reply to the root move onwards
+     */
+    Move[] getChildLine() {
+        return Arrays.copyOfRange(pvTable[1], 1, Math.max(1, pvLength[1]));
+    }
+
+    /**
+     * Place a mark during the board model search, keeping the network evaluation up to date
+     * @param model Board model
+     * @param row Row index
+     * @param column Column index
+     * @param occupant Occupant of the mark
+     */
+    private void place(BoardModel model, int row, int column, Occupant occupant) {
+        model.setOccupant(row, column, occupant);
+        if (evaluator != null) {
+            evaluator.setOccupant(row, column, Occupant.NONE, occupant);
+        }
+    }
+
+    /**
+     * Remove a mark placed during the board model search
+     * @param model Board model
+     * @param row Row index
+     * @param column Column index
+     * @param occupant Occupant of the mark
+     */
+    private void remove(BoardModel model, int row, int column, Occupant occupant) {
+        model.setOccupant(row, column, Occupant.NONE);
+        if (evaluator != null) {
+            evaluator.setOccupant(row, column, occupant, Occupant.NONE);
+        }
+    }
+
+    /**
+     * Evaluate a position at the depth limit, with the n-tuple network if there is one and the heuristic otherwise
+     * @param model Board model
+     * @param isMaximizing Is the bot to move?
+     * @return Evaluation, positive = good for the bot
+     */
+    private int evaluate(BoardModel model, boolean isMaximizing) {
+        return evaluator != null ? evaluator.getScore(isMaximizing ? Occupant.BOT : Occupant.HUMAN) : tester.getHeuristicResult(model);
+    }
+
+    /**
+     * Minimax on a board model. Only the last move can have won the game, so only its' lines are checked for a win
+     * @param model Board model
+     * @param depth Current depth of this iteration of minimax
+     * @param isMaximizing Is the current call the maximizer? (bot)
+     * @param alpha Alpha value (maximizer)
+     * @param beta Beta value (minimizer)
+     * @param depthLimit Depth where the heuristic is used instead of searching further
+     * @param lastRow Row of the last move
+     * @param lastColumn Column of the last move
+     * @return Score of the position
+     */
+    private int minimax(BoardModel model, int depth, boolean isMaximizing, int alpha, int beta, int depthLimit, int lastRow, int lastColumn) {
+        if (countNode()) {
+            return 0;
+        }
+        pvLength[depth + 1] = depth + 1;
+        Occupant lastMover = isMaximizing ? Occupant.HUMAN : Occupant.BOT;
+        if (tester.hasWinner(model, lastMover, lastRow, lastColumn)) {
+            return lastMover == Occupant.BOT ? BoardTester.WIN_SCORE - depth : -BoardTester.WIN_SCORE + depth;
+        }
+        if (model.isFull()) { // No winner and no open spots, must be a tie
+            return 0;
+        }
+        if (depth >= depthLimit) {
+            depthLimitReached = true;
+            return heuristicEnabled ? evaluate(model, isMaximizing) : 0;
+        }
+        MoveList moves = moveLists[depth + 1];
+        moves.clear();
+        model.generateMoves(radius, moves);
+        if (searchTable == null) {
+            orderMoves(model, moves, isMaximizing, depth, NO_MOVE);
+            return searchMoves(model, moves, depth, isMaximizing, alpha, beta, depthLimit);
+        }
+        long hash = Zobrist.getPositionKey(model, isMaximizing ? Occupant.BOT : Occupant.HUMAN);
+        int remaining = depthLimit - depth;
+        long entry = searchTable.probe(hash);
+        if (entry != TranspositionTable.MISS) {
+            if (TranspositionTable.getDepth(entry) >= remaining) {
+                depthLimitReached = true; // The stored search may have been cut by its' depth limit
+                int score = getScoreFromTable(TranspositionTable.getScore(entry), depth);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                } else if (bound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+        long tableMove = NO_MOVE;
+        if (entry != TranspositionTable.MISS && TranspositionTable.hasMove(entry)) {
+            // Stored in the canonical orientation, turn it back to the orientation of this board
+            tableMove = Symmetry.fromCanonical(model, TranspositionTable.getMoveRow(entry), TranspositionTable.getMoveColumn(entry));
+        }
+        orderMoves(model, moves, isMaximizing, depth, tableMove);
+        int alphaOriginal = alpha;
+        int betaOriginal = beta;
+        int bestScore = searchMoves(model, moves, depth, isMaximizing, alpha, beta, depthLimit);
+        if (!aborted) { // Scores of an aborted search are not real scores
+            int bound = TranspositionTable.EXACT;
+            if (bestScore <= alphaOriginal) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (bestScore >= betaOriginal) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            storeToTable(model, hash, bestScore, depth, remaining, bound);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Search the moves of a position with either the maximizer or the minimizer
+     * @param model Board model
+     * @param moves Moves to search
+     * @param depth Depth of the current game tree
+     * @param isMaximizing Is the current call the maximizer? (bot)
+     * @param alpha Alpha value
+     * @param beta Beta value
+     * @param depthLimit Depth where the heuristic is used
+     * @return Score of the position
+     */
+    private int searchMoves(BoardModel model, MoveList moves, int depth, boolean isMaximizing, int alpha, int beta, int depthLimit) {
+        if (isMaximizing) {
+            return getMaximizerScore(model, moves, depth, alpha, beta, depthLimit);
+        } else {
+            return getMinimizerScore(model, moves, depth, alpha, beta, depthLimit);
+        }
+    }
+
+    /**
+     * Store a searched position in the transposition table, with the best move (first move of the PV of this ply) in the canonical orientation
+     * @param model Board model
+     * @param hash Hash of the position (with the side to move)
+     * @param score Score of the position
+     * @param depth Depth of the current game tree
+     * @param remaining Remaining depth the position was searched with
+     * @param bound Bound of the score
+     */
+    private void storeToTable(BoardModel model, long hash, int score, int depth, int remaining, int bound) {
+        int row = Move.INVALID_INDEX;
+        int column = Move.INVALID_INDEX;
+        if (pvLength[depth + 1] > depth + 1) {
+            Move best = pvTable[depth + 1][depth + 1];
+            long canonical = Symmetry.toCanonical(model, best.getRow(), best.getColumn());
+            row = MoveList.getRow(canonical);
+            column = MoveList.getColumn(canonical);
+        }
+        // Win scores depend on the depth they were found at, store them relative to this position instead
+        if (score > BoardTester.WIN_SCORE / 2) {
+            score += depth;
+        } else if (score < -BoardTester.WIN_SCORE / 2) {
+            score -= depth;
+        }
+        searchTable.store(hash, score, remaining, bound, row, column);
+    }
+
+    /**
+     * Convert a score stored in the transposition table back to a score of the current depth
+     * @param score Stored score
+     * @param depth Depth of the current game tree
+     * @return Score as if searched at this depth
+     */
+    private int getScoreFromTable(int score, int depth) {
+        if (score > BoardTester.WIN_SCORE / 2) {
+            return score - depth;
+        } else if (score < -BoardTester.WIN_SCORE / 2) {
+            return score + depth;
+        }
+        return score;
+    }
+
+    /**
+     * Order the moves of a position: the best known move first (e.g the best move of the table entry), then the rest by their move ordering score (highest first).
+     * Late move reductions and futility pruning rely on the good moves being searched first
+     * @param model Board model
+     * @param moves Moves of the position
+     * @param isMaximizing Is the bot making the moves?
+     * @param depth Depth of the current game tree (-1 = root)
+     * @param firstMove Packed move searched first, NO_MOVE if there is none
+     */
+    private void orderMoves(BoardModel model, MoveList moves, boolean isMaximizing, int depth, long firstMove) {
+        Occupant side = isMaximizing ? Occupant.BOT : Occupant.HUMAN;
+        int[] scores = orderScores[depth + 1];
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size() * 2];
+            orderScores[depth + 1] = scores;
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            scores[i] = tester.getMoveOrderScore(model, side, MoveList.getRow(moves.get(i)), MoveList.getColumn(moves.get(i)));
+        }
+        int first = 0;
+        for (int i = 0; firstMove != NO_MOVE && i < moves.size(); i++) {
+            if (moves.get(i) == firstMove) {
+                swapMoves(moves, scores, 0, i);
+                first = 1; // Searched first no matter its' score, it most likely cuts off the rest
+                break;
+            }
+        }
+        for (int i = first + 1; i < moves.size(); i++) { // Insertion sort, the lists are short and mostly already in order
+            for (int j = i; j > first && scores[j] > scores[j - 1]; j--) {
+                swapMoves(moves, scores, j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Swap two moves and their ordering scores
+     * @param moves Moves of the position
+     * @param scores Ordering scores of the moves
+     * @param first Index of the first move
+     * @param second Index of the second move
+     */
+    private void swapMoves(MoveList moves, int[] scores, int first, int second) {
+        moves.swap(first, second);
+        int score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+
+    /**
+     * Get the amount of plies a move is reduced by with late move reductions. The first moves, tactical moves and moves near the depth limit aren't reduced
+     * @param index Index of the move in the ordered move list
+     * @param orderScore Ordering score of the move
+     * @param remaining Remaining depth of the node
+     * @return Reduction in plies, 0 = search to the full depth
+     */
+    private int getReduction(int index, int orderScore, int remaining) {
+        if (!lateMoveReductions || index < LATE_MOVE_START || remaining < LATE_MOVE_MIN_DEPTH || orderScore >= tacticalScore) {
+            return 0;
+        }
+        return index >= LATE_MOVE_DOUBLE_START && remaining > LATE_MOVE_MIN_DEPTH + 1 ? 2 : 1;
+    }
+
+    /**
+     * Get the futility margin of a node, or -1 if the node can't be pruned. Only nodes near the depth limit are pruned,
+     * as only their heuristic tells something about the scores of the quiet moves
+     * @param remaining Remaining depth of the node
+     * @return Margin the heuristic of the node is compared with, -1 = no futility pruning
+     */
+    private int getFutilityMargin(int remaining) {
+        if (!futilityPruning || !heuristicEnabled || remaining > FUTILITY_MAX_DEPTH) {
+            return -1;
+        }
+        return margin * remaining;
+    }
+
+    /**
+     * Returns the score for a maximizer (bot) on a board model
+     * @param model Board model
+     * @param moves Moves to search
+     * @param depth Depth of the current game tree
+     * @param alpha Alpha value
+     * @param beta Beta value
+     * @param depthLimit Depth where the heuristic is used
+     * @return Maximizer score
+     */
+    private int getMaximizerScore(BoardModel model, MoveList moves, int depth, int alpha, int beta, int depthLimit) {
+        int bestScore = Integer.MIN_VALUE;
+        int[] scores = orderScores[depth + 1];
+        int remaining = depthLimit - depth;
+        int futility = getFutilityMargin(remaining);
+        // Quiet moves can't lift a position this far below alpha above it before the depth limit, only the tactical moves are searched
+        int futileScore = futility >= 0 ? evaluate(model, true) + futility : Integer.MAX_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            if (futileScore <= alpha && i > 0 && scores[i] < tacticalScore) {
+                bestScore = Math.max(bestScore, futileScore); // Upper bound of the quiet moves
+                break; // The moves are ordered, the rest are quiet too
+            }
+            int row = MoveList.getRow(moves.get(i));
+            int column = MoveList.getColumn(moves.get(i));
+            place(model, row, column, Occupant.BOT);
+            int score;
+            int reduction = getReduction(i, scores[i], remaining);
+            if (reduction > 0) {
+                score = minimax(model, depth + 1, false, alpha, alpha + 1, depthLimit - reduction, row, column); // Only find out if it beats alpha
+                if (score > alpha) { // Better than expected, search again to the full depth
+                    score = minimax(model, depth + 1, false, alpha, beta, depthLimit, row, column);
+                }
+            } else {
+                score = minimax(model, depth + 1, false, alpha, beta, depthLimit, row, column);
+            }
+            remove(model, row, column, Occupant.BOT);
+            if (score > bestScore) {
+                bestScore = score;
+                updatePrincipalVariation(depth + 1, new Move(row, column));
+            }
+            alpha = Math.max(alpha, bestScore);
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Returns the score for a minimizer (player) on a board model
+     * @param model Board model
+     * @param moves Moves to search
+     * @param depth Depth of the current game tree
+     * @param alpha Alpha value
+     * @param beta Beta value
+     * @param depthLimit Depth where the heuristic is used
+     * @return Minimizer score
+     */
+    private int getMinimizerScore(BoardModel model, MoveList moves, int depth, int alpha, int beta, int depthLimit) {
+        int bestScore = Integer.MAX_VALUE;
+        int[] scores = orderScores[depth + 1];
+        int remaining = depthLimit - depth;
+        int futility = getFutilityMargin(remaining);
+        int futileScore = futility >= 0 ? evaluate(model, false) - futility : Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            if (futileScore >= beta && i > 0 && scores[i] < tacticalScore) {
+                bestScore = Math.min(bestScore, futileScore); // Lower bound of the quiet moves
+                break;
+            }
+            int row = MoveList.getRow(moves.get(i));
+            int column = MoveList.getColumn(moves.get(i));
+            place(model, row, column, Occupant.HUMAN);
+            int score;
+            int reduction = getReduction(i, scores[i], remaining);
+            if (reduction > 0) {
+                score = minimax(model, depth + 1, true, beta - 1, beta, depthLimit - reduction, row, column);
+                if (score < beta) {
+                    score = minimax(model, depth + 1, true, alpha, beta, depthLimit, row, column);
+                }
+            } else {
+                score = minimax(model, depth + 1, true, alpha, beta, depthLimit, row, column);
+            }
+            remove(model, row, column, Occupant.HUMAN);
+            if (score < bestScore) {
+                bestScore = score;
+                updatePrincipalVariation(depth + 1, new Move(row, column));
+            }
+            beta = Math.min(beta, bestScore);
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return bestScore;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,283 @@
+package game.ai;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.board.BoardTester;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.book.OpeningBook;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Warm-up of the engine in the background, so that the first move of the bot isn't searched by the interpreter. The JIT compiler only compiles
+ * the search after it has run for a while, so without a warm-up the first move of a session is several times slower than the moves after it.
+ * The warm-up searches random openings of the chosen board size with the settings of the bot for a short while, on a private table
+ * (the shared table would fill up with positions that aren't played), and loads the n-tuple network and the opening book of the board.
+ * It starts when the application starts and again whenever the board settings of the new game dialog change, and stops as soon as the bot starts its' move.
+ * Disabled with the system property tictactoe.warmup=off.
+ * Usage (latency of the first searches with and without the warm-up): --warmup [--rows N] [--columns N] [--win N] [--nodes N] [--moves N] [--warmup on|off]
+ */
+public final class EngineWarmup {
+    /**
+     * System property of the warm-up, "off" disables it.
+     */
+    public static final String WARMUP_PROPERTY = "tictactoe.warmup";
+
+    /**
+     * Time spent warming up for a board, enough for the compiler to compile the search and the evaluation.
+     */
+    private static final long WARMUP_MILLIS = 5000;
+
+    /**
+     * Nodes of every warm-up search, small so that many different positions and board sizes of the search are seen.
+     */
+    private static final long SEARCH_NODES = 60000;
+
+    /**
+     * Most random moves made before a warm-up search.
+     */
+    private static final int OPENING_MOVES = 4;
+
+    /**
+     * Size of the private table of the warm-up as a power of two entries (1 MB).
+     */
+    private static final int TABLE_SIZE_BITS = 16;
+
+    /**
+     * Thread of the warm-up, a single low priority daemon thread so that it never keeps the game running or slows down the UI.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "engine-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Number of the latest warm-up, a warm-up ends when a newer one is started or the warm-up is stopped.
+     */
+    private static volatile long generation;
+
+    /**
+     * Decision maker of the search running in the warm-up, stopped when the warm-up is stopped.
+     */
+    private static volatile DecisionMaker current;
+
+    private static Future<?> task;
+
+    /**
+     * Searches done by the warm-ups, for the latency measurement.
+     */
+    private static volatile long searches;
+
+    /**
+     * Prevent instantiating by throwing exceptions if somehow tried.
+     */
+    private EngineWarmup() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Check if the warm-up is enabled
+     * @return False if disabled with the system property
+     */
+    public static boolean isEnabled() {
+        return !"off".equals(System.getProperty(WARMUP_PROPERTY));
+    }
+
+    /**
+     * Start warming up for a board in the background, stopping the warm-up of the previous board
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     */
+    public static void start(int rows, int columns, int winLength) {
+        start(BoardGeometry.plane(rows, columns, winLength));
+    }
+
+    /**
+     * Start warming up for a board of any geometry in the background, stopping the warm-up of the previous board
+     * @param geometry Board geometry
+     */
+    public static synchronized void start(BoardGeometry geometry) {
+        if (!isEnabled()) return;
+        stop();
+        long id = generation;
+        task = executor.submit(() -> run(geometry, id));
+    }
+
+    /**
+     * Stop the warm-up, e.g when the bot starts its' move and needs all the cores. Can be called from any thread
+     */
+    public static void stop() {
+        generation++;
+        DecisionMaker ai = current;
+        if (ai != null) {
+            ai.stop();
+        }
+    }
+
+    /**
+     * Wait until the latest warm-up has finished
+     */
+    public static void await() {
+        Future<?> latest;
+        synchronized (EngineWarmup.class) {
+            latest = task;
+        }
+        if (latest == null) return;
+        try {
+            latest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Engine warm-up failed: " + e.getCause());
+        }
+    }
+
+    public static long getSearches() {
+        return searches;
+    }
+
+    /**
+     * Search random openings until the warm-up time is up or the warm-up is stopped
+     * @param geometry Board geometry
+     * @param id Number of this warm-up
+     */
+    private static void run(BoardGeometry geometry, long id) {
+        int rows = geometry.getRows();
+        int columns = geometry.getColumns();
+        int winLength = geometry.getWinLength();
+        NTupleNetwork network = null; // The networks and books are planar, the bot doesn't use them on other geometries
+        if (geometry.isPlanar()) {
+            network = NTupleNetwork.getShared(winLength); // Loaded here so that the first move doesn't wait for the files
+            OpeningBook.getShared(rows, columns, winLength);
+        }
+        BoardTester tester = new BoardTester(geometry);
+        TranspositionTable table = new TranspositionTable(TABLE_SIZE_BITS);
+        Random random = new Random(rows * 31L + columns * 7L + winLength);
+        long deadline = System.nanoTime() + WARMUP_MILLIS * 1_000_000L;
+        try {
+            for (int i = 0; generation == id && System.nanoTime() < deadline; i++) {
+                BitBoardModel model = createOpening(random, rows, columns, tester);
+                Occupant side = model.getPiecesPlaced() % 2 == 0 ? Occupant.HUMAN : Occupant.BOT;
+                DecisionMaker ai = new DecisionMaker(tester, TimeManager.MAX_DEPTH);
+                ai.setLateMoveReductions(true); // Same settings as the bot, so that the same code is compiled
+                ai.setFutilityPruning(true);
+                ai.setNetwork(network);
+                ai.setTranspositionTable(table);
+                ai.setNodeBudget(SEARCH_NODES);
+                ai.setThreads(i % 4 == 3 ? Runtime.getRuntime().availableProcessors() : 1); // The parallel search now and then
+                current = ai;
+                if (generation != id) break; // Stopped before the search could be stopped
+                ai.getForcedMove(model, side);
+                ai.getBestMove(model, side);
+                ai.free();
+                searches++;
+            }
+        } finally {
+            current = null;
+            table.free();
+        }
+    }
+
+    /**
+     * Make random moves on an empty board, without ending the game
+     * @param random Random numbers of the warm-up
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param tester Board tester
+     * @return Board after the moves
+     */
+    private static BitBoardModel createOpening(Random random, int rows, int columns, BoardTester tester) {
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        int moves = Math.min(1 + random.nextInt(OPENING_MOVES), rows * columns - 2); // Both sides to move, the code of each is compiled separately
+        Occupant mover = Occupant.HUMAN;
+        for (int i = 0; i < moves; i++) {
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns);
+            if (model.getOccupant(row, column) != Occupant.NONE) continue;
+            model.setOccupant(row, column, mover);
+            if (tester.hasWinner(model, mover, row, column)) {
+                model.setOccupant(row, column, Occupant.NONE);
+                continue;
+            }
+            mover = mover == Occupant.HUMAN ? Occupant.BOT : Occupant.HUMAN;
+        }
+        return model;
+    }
+
+    /**
+     * Measure the latency of the first searches of a session from the command line, with or without the warm-up before them.
+     * The JIT compiler only warms up once per process, so compare two runs
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        int rows = 10;
+        int columns = 10;
+        int winLength = 5;
+        long nodes = 200000;
+        int moves = 5;
+        boolean warmup = true;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--rows": rows = Integer.parseInt(value); break;
+                    case "--columns": columns = Integer.parseInt(value); break;
+                    case "--win": winLength = Integer.parseInt(value); break;
+                    case "--nodes": nodes = Long.parseLong(value); break;
+                    case "--moves": moves = Integer.parseInt(value); break;
+                    case "--warmup": warmup = value.equals("on"); break;
+                    default: throw new IllegalArgumentException("Unknown argument: " + arg);
+                }
+            }
+            if (rows < Game.MIN_BOARD_SIZE || columns < Game.MIN_BOARD_SIZE || winLength < Game.MIN_WINNING_MARKS
+                || winLength > Math.max(rows, columns) || nodes < 1 || moves < 1) {
+                throw new IllegalArgumentException("Invalid warm-up settings");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        if (warmup) {
+            start(rows, columns, winLength);
+            await();
+            System.out.printf(Locale.ROOT, "Warm-up: %d searches in %.0f ms%n", searches, (System.nanoTime() - start) / 1e6);
+        } else {
+            System.out.println("No warm-up");
+        }
+        // The same deterministic search of a fixed amount of nodes every time, so that only the compiled code makes a difference
+        BoardTester tester = new BoardTester(winLength);
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        model.setOccupant(rows / 2, columns / 2, Occupant.HUMAN);
+        TranspositionTable table = new TranspositionTable(TABLE_SIZE_BITS);
+        for (int move = 1; move <= moves; move++) {
+            DecisionMaker ai = new DecisionMaker(tester, TimeManager.MAX_DEPTH);
+            ai.setLateMoveReductions(true); // Settings of the bot, otherwise the code compiled for the bot may have to be compiled again
+            ai.setFutilityPruning(true);
+            ai.setNetwork(NTupleNetwork.getShared(winLength));
+            ai.setTranspositionTable(table); // Deterministic searches use a private table cleared for every search instead
+            ai.setThreads(Runtime.getRuntime().availableProcessors());
+            ai.setDeterministic(true);
+            ai.setNodeBudget(nodes);
+            long moveStart = System.nanoTime();
+            ai.getBestMove(model, Occupant.BOT);
+            System.out.printf(Locale.ROOT, "Move %d: %.1f ms, %d nodes, depth %d%n", move, (System.nanoTime() - moveStart) / 1e6, ai.getNodes(), ai.getCompletedDepth());
+            ai.free();
+        }
+        table.free();
+    }
+}
\ No newline at end of file
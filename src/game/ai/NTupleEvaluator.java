@@ -0,0 +1,196 @@
+package game.ai;
+
+import java.util.Arrays;
+
+import game.board.BoardTester;
+import game.board.model.BoardModel;
+import game.player.Occupant;
+
+/**
+ * Incremental evaluation of a board with an n-tuple network. The pattern of every tuple and the sum of their weights are kept up to date
+ * as marks are placed and removed, so a move only touches the tuples through its' position (at most 4 * tuple length of them)
+ * and getting the evaluation is a single read. The sum is kept for both players to move in one long (see NTupleNetwork.getBoardWeights),
+ * as the weights are from the point of view of the player to move. Only integer arithmetic is used. Evaluators are not thread safe, every search creates its' own.
+ */
+public class NTupleEvaluator {
+    /**
+     * Row and column steps of the tuple directions, the first two use the straight table and the rest the diagonal table.
+     */
+    private static final int[][] DIRECTIONS = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+
+    private long[] weights;
+    private int rows;
+    private int columns;
+
+    /**
+     * Current base-3 pattern of every tuple.
+     */
+    private int[] patterns;
+
+    /**
+     * Offset of the table of every tuple in the weights.
+     */
+    private int[] tableOffsets;
+
+    /**
+     * Tuples through every position: the tuples of position i are cellTuples[cellStart[i]..cellStart[i + 1]),
+     * cellPowers holds the base-3 digit value of the position in each of them and cellOffsets the offset of their table.
+     */
+    private int[] cellStart;
+    private int[] cellTuples;
+    private int[] cellPowers;
+    private int[] cellOffsets;
+
+    /**
+     * Sum of the weights of all tuples with the bot to move, plus the sum with the human to move times 2^32.
+     */
+    private long sums;
+
+    /**
+     * Create an evaluator of an empty board
+     * @param network Network to evaluate with
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     */
+    public NTupleEvaluator(NTupleNetwork network, int rows, int columns) {
+        this.weights = network.getBoardWeights();
+        this.rows = rows;
+        this.columns = columns;
+        int length = network.getTupleLength();
+        int tupleCount = 0;
+        int[] tupleStarts = new int[rows * columns * DIRECTIONS.length];
+        int[] tupleDirections = new int[tupleStarts.length];
+        int[] cellCounts = new int[rows * columns];
+        for (int d = 0; d < DIRECTIONS.length; d++) { // Every line of tuple length positions that fits on the board is a tuple
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    int endRow = row + (length - 1) * DIRECTIONS[d][0];
+                    int endColumn = column + (length - 1) * DIRECTIONS[d][1];
+                    if (endRow >= rows || endColumn < 0 || endColumn >= columns) continue;
+                    tupleStarts[tupleCount] = row * columns + column;
+                    tupleDirections[tupleCount++] = d;
+                    for (int i = 0; i < length; i++) {
+                        cellCounts[(row + i * DIRECTIONS[d][0]) * columns + column + i * DIRECTIONS[d][1]]++;
+                    }
+                }
+            }
+        }
+        patterns = new int[tupleCount];
+        tableOffsets = new int[tupleCount];
+        cellStart = new int[rows * columns + 1];
+        for (int cell = 0; cell < cellCounts.length; cell++) {
+            cellStart[cell + 1] = cellStart[cell] + cellCounts[cell];
+        }
+        cellTuples = new int[cellStart[cellCounts.length]];
+        cellPowers = new int[cellTuples.length];
+        cellOffsets = new int[cellTuples.length];
+        int[] filled = new int[cellCounts.length];
+        for (int t = 0; t < tupleCount; t++) {
+            int[] direction = DIRECTIONS[tupleDirections[t]];
+            tableOffsets[t] = (tupleDirections[t] < 2 ? NTupleNetwork.STRAIGHT_TABLE : NTupleNetwork.DIAGONAL_TABLE) * network.getTableSize();
+            int power = 1;
+            for (int i = 0; i < length; i++) {
+                int cell = tupleStarts[t] + i * (direction[0] * columns + direction[1]);
+                int slot = cellStart[cell] + filled[cell]++;
+                cellTuples[slot] = t;
+                cellPowers[slot] = power;
+                cellOffsets[slot] = tableOffsets[t];
+                power *= 3;
+            }
+        }
+        resetSums();
+    }
+
+    /**
+     * Set the evaluator to a position, computing every tuple from scratch
+     * @param model Board of the same size as the evaluator
+     */
+    public void reset(BoardModel model) {
+        Arrays.fill(patterns, 0);
+        resetSums();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                Occupant occupant = model.getOccupant(row, column);
+                if (occupant != Occupant.NONE) {
+                    setOccupant(row, column, Occupant.NONE, occupant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the sums to an empty board
+     */
+    private void resetSums() {
+        sums = 0;
+        for (int t = 0; t < patterns.length; t++) {
+            sums += weights[tableOffsets[t]]; // Pattern 0 = all empty
+        }
+    }
+
+    /**
+     * Update the tuples through a position after its' occupant changed
+     * @param row Row index
+     * @param column Column index
+     * @param previous Previous occupant of the position
+     * @param occupant New occupant of the position
+     */
+    public void setOccupant(int row, int column, Occupant previous, Occupant occupant) {
+        int change = getDigit(occupant) - getDigit(previous);
+        int cell = row * columns + column;
+        for (int slot = cellStart[cell]; slot < cellStart[cell + 1]; slot++) {
+            int t = cellTuples[slot];
+            int offset = cellOffsets[slot];
+            int pattern = patterns[t];
+            int updated = pattern + change * cellPowers[slot];
+            sums += weights[offset + updated] - weights[offset + pattern];
+            patterns[t] = updated;
+        }
+    }
+
+    /**
+     * Get the evaluation of the current position
+     * @param sideToMove Occupant to move
+     * @return Sum of the weights of all tuples from the point of view of the bot, between -WIN_SCORE / 2 and WIN_SCORE / 2 like the heuristic
+     */
+    public int getScore(Occupant sideToMove) {
+        int botToMove = (int) sums; // The sums stay far below 2^31, so the low half is the bot sum and the rest the human sum
+        int score = sideToMove == Occupant.BOT ? botToMove : -(int) ((sums - botToMove) >> 32);
+        return Math.max(-BoardTester.WIN_SCORE / 2, Math.min(BoardTester.WIN_SCORE / 2, score));
+    }
+
+    /**
+     * Get the amount of tuples on the board
+     * @return Amount of tuples
+     */
+    public int getTupleCount() {
+        return patterns.length;
+    }
+
+    /**
+     * Get the current pattern of a tuple
+     * @param tuple Index of the tuple
+     * @return Base-3 pattern
+     */
+    public int getPattern(int tuple) {
+        return patterns[tuple];
+    }
+
+    /**
+     * Get the table of a tuple
+     * @param tuple Index of the tuple
+     * @return NTupleNetwork.STRAIGHT_TABLE or NTupleNetwork.DIAGONAL_TABLE
+     */
+    public int getTable(int tuple) {
+        return tableOffsets[tuple] == 0 ? NTupleNetwork.STRAIGHT_TABLE : NTupleNetwork.DIAGONAL_TABLE;
+    }
+
+    /**
+     * Get the base-3 digit of an occupant
+     * @param occupant Occupant
+     * @return 0 = empty, 1 = bot, 2 = human
+     */
+    public static int getDigit(Occupant occupant) {
+        return occupant == Occupant.BOT ? 1 : occupant == Occupant.HUMAN ? 2 : 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package game.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learned evaluation of the board model search: an n-tuple network. The tuples are all the straight lines of winLength + 1 positions on the board,
+ * and the weight of a tuple is looked up from a table by the base-3 pattern of its' positions (0 = empty, 1 = mark of the player to move, 2 = mark of the other player).
+ * All the horizontal and vertical tuples share one table and the diagonal tuples another one, so a network fits every board size of its' win length.
+ * The evaluation is the sum of the weights of all tuples, kept up to date move by move by NTupleEvaluator.
+ * The weights are shorts in heuristic points (positive = good for the player to move), trained by NTupleTrainer.
+ *
+ * File: magic (long), win length (int), tuple length (int), then the weights of both tables as shorts.
+ */
+public class NTupleNetwork {
+    /**
+     * First long of a network file.
+     */
+    static final long FILE_MAGIC = 0x4E54555054545401L;
+
+    /**
+     * Table of the horizontal and vertical tuples.
+     */
+    public static final int STRAIGHT_TABLE = 0;
+
+    /**
+     * Table of the diagonal tuples.
+     */
+    public static final int DIAGONAL_TABLE = 1;
+
+    /**
+     * System property of the directory the networks are loaded from, "networks" in the working directory by default.
+     */
+    public static final String NETWORK_DIRECTORY_PROPERTY = "tictactoe.network.dir";
+
+    /**
+     * Networks of the session by win length, missing networks are stored as empty so the file is looked for only once.
+     */
+    private static final Map<Integer, Optional<NTupleNetwork>> sharedNetworks = new ConcurrentHashMap<>();
+
+    private int winLength;
+    private int tupleLength;
+    private int tableSize;
+
+    /**
+     * Weights of both tables, the diagonal table starts at tableSize.
+     */
+    private short[] weights;
+
+    /**
+     * The same weights for the patterns of the board (0 = empty, 1 = bot, 2 = human), the weight when the bot is to move
+     * plus the weight when the human is to move times 2^32. The evaluator keeps the patterns of the board and the sum of both
+     * players to move in one long, so a tuple update is a single lookup.
+     */
+    private long[] boardWeights;
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Get the amount of positions in a tuple
+     * @return winLength + 1
+     */
+    public int getTupleLength() {
+        return tupleLength;
+    }
+
+    /**
+     * Get the amount of weights in one table
+     * @return 3 to the power of the tuple length
+     */
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    /**
+     * Get a weight
+     * @param table STRAIGHT_TABLE or DIAGONAL_TABLE
+     * @param pattern Base-3 pattern of the tuple
+     * @return Weight of the pattern
+     */
+    public int getWeight(int table, int pattern) {
+        return weights[table * tableSize + pattern];
+    }
+
+    /**
+     * Get the weights of both tables for the patterns of the board (0 = empty, 1 = bot, 2 = human), the diagonal table starts at getTableSize()
+     * @return Weight with the bot to move plus the weight with the human to move times 2^32, must not be modified
+     */
+    long[] getBoardWeights() {
+        return boardWeights;
+    }
+
+    /**
+     * Get a fingerprint of the weights, so that scores of different networks (e.g after training again) can be told apart
+     * @return Hash of the weights
+     */
+    public int getFingerprint() {
+        return Arrays.hashCode(weights);
+    }
+
+    /**
+     * Create a network with all weights 0
+     * @param winLength Consecutive marks needed for a win
+     */
+    public NTupleNetwork(int winLength) {
+        this.winLength = winLength;
+        tupleLength = winLength + 1;
+        tableSize = 1;
+        for (int i = 0; i < tupleLength; i++) {
+            tableSize *= 3;
+        }
+        weights = new short[2 * tableSize];
+        boardWeights = new long[2 * tableSize];
+    }
+
+    /**
+     * Read a network file
+     * @param file Network file
+     * @throws IOException If the file couldn't be read or isn't a network file
+     */
+    public NTupleNetwork(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != FILE_MAGIC) {
+                throw new IOException("Not a network file: " + file);
+            }
+            int length = in.readInt();
+            if (length < 1 || length > 9 || in.readInt() != length + 1) { // 3^10 weights is already more than any board needs
+                throw new IOException("Invalid network file: " + file);
+            }
+            winLength = length;
+            tupleLength = length + 1;
+            tableSize = 1;
+            for (int i = 0; i < tupleLength; i++) {
+                tableSize *= 3;
+            }
+            weights = new short[2 * tableSize];
+            boardWeights = new long[2 * tableSize];
+            for (int table = 0; table < 2; table++) {
+                for (int pattern = 0; pattern < tableSize; pattern++) {
+                    setWeight(table, pattern, in.readShort());
+                }
+            }
+        }
+    }
+
+    /**
+     * Set a weight
+     * @param table STRAIGHT_TABLE or DIAGONAL_TABLE
+     * @param pattern Base-3 pattern of the tuple
+     * @param weight New weight
+     */
+    public void setWeight(int table, int pattern, short weight) {
+        int offset = table * tableSize;
+        long previous = weights[offset + pattern];
+        weights[offset + pattern] = weight;
+        boardWeights[offset + pattern] += weight - previous; // The bot marks are the marks of the player to move
+        boardWeights[offset + swapPlayers(pattern, tupleLength)] += (weight - previous) << 32; // The human marks are
+    }
+
+    /**
+     * Swap the marks of the players in a base-3 pattern
+     * @param pattern Pattern
+     * @param length Amount of digits
+     * @return Pattern with the digits 1 and 2 swapped
+     */
+    public static int swapPlayers(int pattern, int length) {
+        int swapped = 0;
+        int power = 1;
+        for (int i = 0; i < length; i++) {
+            int digit = pattern % 3;
+            swapped += (digit == 0 ? 0 : 3 - digit) * power;
+            pattern /= 3;
+            power *= 3;
+        }
+        return swapped;
+    }
+
+    /**
+     * Write the network to a file
+     * @param file File to write
+     * @throws IOException If writing failed
+     */
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(FILE_MAGIC);
+            out.writeInt(winLength);
+            out.writeInt(tupleLength);
+            for (short weight : weights) {
+                out.writeShort(weight);
+            }
+        }
+    }
+
+    /**
+     * Get the network of a win length, loaded from the network directory the first time it is needed
+     * @param winLength Consecutive marks needed for a win
+     * @return Shared network, null if there is no network for the win length
+     */
+    public static NTupleNetwork getShared(int winLength) {
+        return sharedNetworks.computeIfAbsent(winLength, NTupleNetwork::loadShared).orElse(null);
+    }
+
+    /**
+     * Get the file name of the network of a win length
+     * @param winLength Consecutive marks needed for a win
+     * @return File name
+     */
+    public static String getFileName(int winLength) {
+        return "ntuple-" + winLength + ".bin";
+    }
+
+    /**
+     * Load a shared network from the network directory
+     * @param winLength Consecutive marks needed for a win
+     * @return Loaded network, empty if the file doesn't exist or is invalid
+     */
+    private static Optional<NTupleNetwork> loadShared(int winLength) {
+        Path file = Paths.get(System.getProperty(NETWORK_DIRECTORY_PROPERTY, "networks"), getFileName(winLength));
+        if (Files.isRegularFile(file)) {
+            try {
+                return Optional.of(new NTupleNetwork(file));
+            } catch (IOException e) {
+                System.err.println("Couldn't open network " + file + ": " + e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+}
\ No newline at end of file
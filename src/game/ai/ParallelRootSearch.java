@@ -0,0 +1,230 @@
+package game.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.board.BoardTester;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.Move;
+import game.player.Occupant;
+
+/**
+ * Root search of a board model split over several threads (see DecisionMaker.setThreads). The first root move is searched alone with a full window,
+ * then the other moves are split over the threads and searched against the best score so far: of their own thread in the deterministic mode
+ * (thread t searches the moves 1 + t, 1 + t + threads...), otherwise of all the threads (every thread takes the next unsearched move).
+ * Every other thread is a helper decision maker with its' own tester, board copy and move lists. Run by a decision maker, which owns the calling thread's
+ * search, the limits and the iterative deepening.
+ */
+final class ParallelRootSearch {
+    /**
+     * Threads of the helpers of all the parallel searches, created when needed and ended after a minute without searches.
+     */
+    private static final ExecutorService searchPool = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "search-helper");
+        thread.setDaemon(true); // Never keeps the game running
+        return thread;
+    });
+
+    /**
+     * Result of a root move searched by one thread
+     */
+    static final class RootResult {
+        final int index;
+        final int score;
+
+        /**
+         * Principal variation after the move, null if the move didn't beat the bound it was searched with
+         */
+        final Move[] line;
+
+        private RootResult(int index, int score, Move[] line) {
+            this.index = index;
+            this.score = score;
+            this.line = line;
+        }
+    }
+
+    private final DecisionMaker owner;
+    private final BoardTester tester;
+
+    /**
+     * Decision makers of the other threads, null until the first search.
+     */
+    private DecisionMaker[] helpers;
+
+    /**
+     * Board copies the helpers search on, models[i] belongs to helpers[i].
+     */
+    private BoardModel[] models;
+
+    private Occupant side;
+
+    /**
+     * Create a parallel root search
+     * @param owner Decision maker searching on the calling thread
+     * @param tester Board tester of the owner, copied for every helper
+     */
+    ParallelRootSearch(DecisionMaker owner, BoardTester tester) {
+        this.owner = owner;
+        this.tester = tester;
+    }
+
+    /**
+     * Set up the helpers with the settings of the owner and their own copies of the board, call after the owner has prepared its' search
+     * @param model Board model to search
+     * @param side Occupant to get the move for
+     */
+    void prepare(BoardModel model, Occupant side) {
+        this.side = side;
+        int count = owner.getThreads() - 1;
+        if (helpers == null || helpers.length != count) {
+            helpers = new DecisionMaker[count];
+            for (int i = 0; i < helpers.length; i++) {
+                helpers[i] = new DecisionMaker(tester.copy(), owner.getMaxDepth()); // Testers keep buffers, so every thread needs its' own
+            }
+        }
+        models = new BoardModel[count];
+        for (int i = 0; i < helpers.length; i++) {
+            models[i] = model.copy();
+            helpers[i].prepareHelper(owner, models[i], side);
+        }
+    }
+
+    /**
+     * Get the nodes searched by the helpers in the latest search
+     * @return Node count
+     */
+    long getHelperNodes() {
+        long total = 0;
+        for (int i = 0; helpers != null && i < helpers.length; i++) {
+            total += helpers[i].getNodes();
+        }
+        return total;
+    }
+
+    /**
+     * Stop the helpers, can be called from any thread
+     */
+    void stop() {
+        DecisionMaker[] current = helpers;
+        for (int i = 0; current != null && i < current.length; i++) {
+            current[i].stop();
+        }
+    }
+
+    /**
+     * Return the private tables of the helpers to the memory budget
+     */
+    void free() {
+        for (int i = 0; helpers != null && i < helpers.length; i++) {
+            helpers[i].free();
+        }
+    }
+
+    /**
+     * Search all the root moves of the board model to the specified depth with all the threads.
+     * The results are combined in the order of the moves, so ties go to the earlier move like in the search of a single thread
+     * @param model Board model the owner searches on
+     * @param depth Depth to search to
+     * @return Best move found
+     */
+    Move searchRoot(BoardModel model, int depth) {
+        boolean isMaximizing = side == Occupant.BOT;
+        MoveList moves = owner.generateRootMoves(model, isMaximizing); // The first move gives the bound for all the others, it should be the best one
+        if (moves.size() == 0) {
+            return Move.invalid();
+        }
+        long budget = owner.getNodeBudget();
+        owner.setNodeShare(budget > 0 ? budget - owner.getNodes() : Long.MAX_VALUE);
+        int firstScore = owner.searchRootMove(model, moves, 0, side, 0, depth);
+        if (owner.isAborted()) {
+            return Move.invalid();
+        }
+        List<RootResult> results = new ArrayList<>();
+        results.add(new RootResult(0, firstScore, owner.getChildLine()));
+
+        // Every thread gets an equal share of the nodes left, so that where a thread stops doesn't depend on the other threads
+        int threads = helpers.length + 1;
+        long share = budget > 0 ? Math.max(0, budget - owner.getNodes()) / threads : Long.MAX_VALUE;
+        AtomicInteger next = owner.isDeterministic() ? null : new AtomicInteger(1);
+        AtomicInteger sharedBound = owner.isDeterministic() ? null : new AtomicInteger(firstScore);
+        List<Future<List<RootResult>>> futures = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            DecisionMaker helper = helpers[i];
+            BoardModel helperModel = models[i];
+            int thread = i + 1;
+            helper.startIteration(owner, share, moves.size());
+            futures.add(searchPool.submit(() -> searchRootMoves(helper, helperModel, moves, thread, threads, firstScore, depth, next, sharedBound)));
+        }
+        owner.setNodeShare(share);
+        results.addAll(searchRootMoves(owner, model, moves, 0, threads, firstScore, depth, next, sharedBound));
+        for (Future<List<RootResult>> future : futures) {
+            try {
+                results.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                owner.stop();
+                owner.abort();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search thread failed", e.getCause());
+            }
+        }
+        for (DecisionMaker helper : helpers) {
+            owner.join(helper);
+        }
+
+        results.sort((first, second) -> Integer.compare(first.index, second.index));
+        return owner.setRootResults(results, moves, side, depth);
+    }
+
+    /**
+     * Search root moves on one thread, each against the best score so far (see searchRoot)
+     * @param searcher Decision maker of this thread
+     * @param model Board model of this thread
+     * @param moves Ordered root moves, shared by all the threads and only read
+     * @param thread Index of this thread (0 = the calling thread)
+     * @param threadCount Amount of threads
+     * @param bound Score of the first root move
+     * @param depth Depth to search to
+     * @param next Index of the next unsearched move shared by the threads, null in the deterministic mode
+     * @param sharedBound Best score of all the threads, null in the deterministic mode
+     * @return Results of the moves searched by this thread, in the order they were searched
+     */
+    private List<RootResult> searchRootMoves(DecisionMaker searcher, BoardModel model, MoveList moves, int thread, int threadCount, int bound, int depth,
+        AtomicInteger next, AtomicInteger sharedBound) {
+        boolean isMaximizing = side == Occupant.BOT;
+        List<RootResult> results = new ArrayList<>();
+        int index = 1 + thread - threadCount;
+        while (true) {
+            if (sharedBound != null) {
+                // Read before taking the move, so the bound only comes from earlier moves. A later move could have an exact score equal to a
+                // fail low of this move, and the fail low would win the tie
+                bound = isMaximizing ? Math.max(bound, sharedBound.get()) : Math.min(bound, sharedBound.get());
+            }
+            index = next != null ? next.getAndIncrement() : index + threadCount;
+            if (index >= moves.size()) {
+                break;
+            }
+            int score = searcher.searchRootMove(model, moves, index, side, bound, depth);
+            if (searcher.isAborted()) {
+                break;
+            }
+            Move[] line = null;
+            if (isMaximizing ? score > bound : score < bound) { // Beat the bound, so the score is exact
+                bound = score;
+                line = searcher.getChildLine();
+                if (sharedBound != null) {
+                    sharedBound.accumulateAndGet(score, isMaximizing ? Math::max : Math::min);
+                }
+            }
+            results.add(new RootResult(index, score, line));
+        }
+        return results;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package game.ai;
+
+import game.board.Move;
+
+/**
+ * Receives progress information from the decision maker while it is searching, e.g for printing engine info lines.
+ * Called on the searching thread.
+ */
+public interface SearchListener {
+    /**
+     * Called every time a search depth has been completed
+     * @param depth Completed depth
+     * @param score Score of the best move (from the point of view of the bot, the maximizer)
+     * @param nodes Nodes searched so far during this move
+     * @param principalVariation Expected line of play, starting from the best move
+     */
+    public void onDepthCompleted(int depth, int score, long nodes, Move[] principalVariation);
+
+    /**
+     * Called every time a root move has been searched to the current depth. Not needed by most listeners, so does nothing by default.
+     * The score of the first move and of every move that beat the best move so far is exact. With late move reductions, several threads or
+     * the bitboard search, the other moves are only searched against the best score so far, and their score is a bound: the move is no better
+     * than the best move so far for the side to move. Set DecisionMaker.setExactRootScores to get an exact score for every move
+     * @param depth Depth the move was searched to
+     * @param move Searched root move
+     * @param score Score of the move (from the point of view of the bot, the maximizer)
+     */
+    public default void onRootMoveSearched(int depth, Move move, int score) {
+        // Only listeners interested in the scores of all the moves (e.g the analysis overlay) need this
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package game.ai;
+
+import game.board.Move;
+
+/**
+ * Chess clock style time management for the decision maker. The side has a clock that runs during its' moves and gets an increment
+ * after every move, and every move gets a soft time target and a hard limit from the clock:
+ * - Deeper iterations are started only while there is time left to finish them before the (adjusted) target
+ * - The target shrinks when the best move has stayed the same over several depths, and grows when the score drops
+ * - The search stops right away when the result is a proven win or loss, or when only one move doesn't lose
+ * - The hard limit aborts a depth that takes far too long
+ * The clock never flags, when it runs out the moves are made as fast as possible until the increments fill it up again.
+ */
+public class TimeManager {
+    /**
+     * Maximum search depth when searching on the clock, the clock decides how deep the search goes.
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * Moves left in the game assumed at most when dividing the clock between the moves.
+     */
+    private static final int MAX_MOVES_TO_GO = 20;
+
+    /**
+     * Hard limit as a multiple of the target.
+     */
+    private static final int HARD_LIMIT_FACTOR = 4;
+
+    /**
+     * A deeper iteration usually takes longer than all the previous ones together, so it is only started before this part of the target.
+     */
+    private static final double NEXT_DEPTH_RATIO = 0.5;
+
+    /**
+     * Score drop (from the point of view of the moving side) between two depths that is treated as trouble, and the target factor then.
+     */
+    private static final int SCORE_DROP = 30;
+    private static final double SCORE_DROP_FACTOR = 2.0;
+
+    /**
+     * Depths the best move has to stay the same to shrink the target, and the target factor then.
+     */
+    private static final int STABLE_DEPTHS = 3;
+    private static final double STABLE_FACTOR = 0.5;
+
+    /**
+     * Time used for a move at least, even on an empty clock.
+     */
+    private static final long MIN_MOVE_MILLIS = 10;
+
+    private long remainingMillis;
+    private long incrementMillis;
+
+    private long moveStart;
+    private long targetMillis;
+    private long hardLimitMillis;
+    private Move previousMove;
+    private int previousScore;
+    private int stableDepths;
+
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return hardLimitMillis;
+    }
+
+    /**
+     * Create a new time manager with a full clock
+     * @param clockMillis Time on the clock at the start of the game
+     * @param incrementMillis Time added to the clock after every move
+     */
+    public TimeManager(long clockMillis, long incrementMillis) {
+        this.remainingMillis = clockMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Start the clock for a move and compute the time target and the hard limit of the move
+     * @param emptyPositions Empty positions on the board (both sides move in them, so about half are the moves left for this side)
+     */
+    public void startMove(int emptyPositions) {
+        moveStart = System.nanoTime();
+        int movesToGo = Math.max(1, Math.min(MAX_MOVES_TO_GO, (emptyPositions + 1) / 2));
+        long available = Math.max(0, remainingMillis);
+        targetMillis = Math.max(MIN_MOVE_MILLIS, available / movesToGo + incrementMillis * 3 / 4);
+        hardLimitMillis = Math.max(MIN_MOVE_MILLIS, Math.min(targetMillis * HARD_LIMIT_FACTOR, available / 2 + incrementMillis));
+        targetMillis = Math.min(targetMillis, hardLimitMillis);
+        previousMove = null;
+        stableDepths = 0;
+    }
+
+    /**
+     * Decide if the search should stop after a completed depth
+     * @param bestMove Best move of the depth
+     * @param score Score of the best move, from the point of view of the moving side
+     * @param proven Is the score a proven win or loss?
+     * @param nonLosingMoves Amount of moves that don't lose by force at this depth
+     * @return True if the search should stop and play the best move
+     */
+    public boolean shouldStop(Move bestMove, int score, boolean proven, int nonLosingMoves) {
+        if (proven) return true; // Proven win or loss, deeper searches can't change it
+        if (nonLosingMoves <= 1) return true; // Only move (or every move loses), nothing to choose between
+        double factor = 1.0;
+        if (previousMove != null) {
+            boolean sameMove = previousMove.getRow() == bestMove.getRow() && previousMove.getColumn() == bestMove.getColumn();
+            stableDepths = sameMove ? stableDepths + 1 : 0;
+            if (score < previousScore - SCORE_DROP) {
+                factor = SCORE_DROP_FACTOR; // Something went wrong, take time to find a way out
+            } else if (stableDepths >= STABLE_DEPTHS) {
+                factor = STABLE_FACTOR;
+            }
+        }
+        previousMove = bestMove;
+        previousScore = score;
+        double elapsed = (System.nanoTime() - moveStart) / 1e6;
+        return elapsed > Math.min(targetMillis * factor, hardLimitMillis) * NEXT_DEPTH_RATIO;
+    }
+
+    /**
+     * Stop the clock after the move, the time used is taken from the clock and the increment is added
+     */
+    public void finishMove() {
+        remainingMillis += incrementMillis - (System.nanoTime() - moveStart) / 1_000_000;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,377 @@
+package game.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import game.board.model.BoardGeometry;
+import game.memory.MemoryBudget;
+import game.memory.OffHeapLongArray;
+
+/**
+ * Table of already searched positions (canonical hash -> score, bound, depth and best move), so that positions reached again,
+ * in the same search or in a later game, don't have to be searched again.
+ * Entries are two longs (hash XOR data, data) without locks, so that several searching threads can share a table: a torn entry written
+ * by two threads at once simply doesn't match its' hash anymore.
+ * The entries are kept outside of the heap (see OffHeapLongArray), either in direct memory or memory mapped from a file, in which case they are kept over restarts.
+ * Tables are reserved from the global MemoryBudget and shrink to fit in it, and they can be resized between games.
+ */
+public class TranspositionTable {
+    /**
+     * Bounds of a stored score.
+     */
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    /**
+     * Data value of a missing entry, a stored entry never has data 0 because the stored depth is always at least 1.
+     */
+    public static final long MISS = 0;
+
+    /**
+     * Default size of a table as a power of two entries (2^20 entries = 16 MB).
+     */
+    public static final int DEFAULT_SIZE_BITS = 20;
+
+    /**
+     * Smallest and largest size of a table as a power of two entries (16 KB and 16 GB).
+     */
+    public static final int MIN_SIZE_BITS = 10;
+    public static final int MAX_SIZE_BITS = 30;
+
+    /**
+     * System property of the size of the shared tables in megabytes, rounded down to a power of two entries (16 MB by default).
+     */
+    public static final String SHARED_SIZE_PROPERTY = "tictactoe.hash.mb";
+
+    /**
+     * System property of the directory where the shared tables are saved, tables are kept only in memory if it is not set.
+     */
+    public static final String CACHE_DIRECTORY_PROPERTY = "tictactoe.cache.dir";
+
+    /**
+     * First long of a table file, followed by the entry count.
+     */
+    private static final long FILE_MAGIC = 0x5454545454540001L;
+    private static final int FILE_HEADER_BYTES = 16;
+
+    /**
+     * Offset of a move coordinate in the data, coordinates from -1024 to 1022 can be stored (1023 = no move).
+     */
+    private static final int COORDINATE_OFFSET = 1024;
+    private static final int NO_MOVE = 0x7FF;
+
+    /**
+     * Tables shared by all the games of the session, one per board size, win length and evaluation.
+     */
+    private static final Map<String, TranspositionTable> sharedTables = new ConcurrentHashMap<>();
+
+    /**
+     * Size of the shared tables created from now on as a power of two entries, set with resizeShared.
+     */
+    private static volatile int sharedSizeBits = getSizeBits(Long.getLong(SHARED_SIZE_PROPERTY, 16L) << 20);
+
+    private OffHeapLongArray entries;
+    private long mask;
+    private int sizeBits;
+
+    /**
+     * File the table is mapped from, null for a table in direct memory.
+     */
+    private Path file;
+
+    /**
+     * Create a new table in direct memory, halved until it fits in the memory budget
+     * @param sizeBits Size of the table as a power of two entries
+     * @throws IllegalStateException If not even a table of MIN_SIZE_BITS fits in the budget
+     */
+    public TranspositionTable(int sizeBits) {
+        allocate(sizeBits);
+    }
+
+    /**
+     * Create a table memory mapped from a file. An existing file of the same size is reused as is, otherwise the file is (re)created empty.
+     * @param file Table file
+     * @param sizeBits Size of the table as a power of two entries
+     * @throws IOException If the file couldn't be opened or mapped
+     */
+    public TranspositionTable(Path file, int sizeBits) throws IOException {
+        this.file = file;
+        map(sizeBits);
+    }
+
+    /**
+     * Allocate the entries in direct memory, halving the size until it fits in the memory budget
+     * @param sizeBits Size of the table as a power of two entries
+     * @throws IllegalStateException If not even a table of MIN_SIZE_BITS fits in the budget
+     */
+    private void allocate(int sizeBits) {
+        sizeBits = Math.max(MIN_SIZE_BITS, Math.min(MAX_SIZE_BITS, sizeBits));
+        while (sizeBits > MIN_SIZE_BITS && (16L << sizeBits) > MemoryBudget.getAvailable()) {
+            sizeBits--;
+        }
+        entries = new OffHeapLongArray(2L << sizeBits);
+        setSizeBits(sizeBits);
+    }
+
+    /**
+     * Map the entries from the file of the table. An existing file of the same size is reused as is, otherwise the file is (re)created empty.
+     * @param sizeBits Size of the table as a power of two entries
+     * @throws IOException If the file couldn't be opened or mapped
+     * @throws IllegalStateException If the table doesn't fit in the memory budget
+     */
+    private void map(int sizeBits) throws IOException {
+        sizeBits = Math.max(MIN_SIZE_BITS, Math.min(MAX_SIZE_BITS, sizeBits));
+        long entryCount = 1L << sizeBits;
+        long bytes = FILE_HEADER_BYTES + entryCount * 16;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean reuse = channel.size() == bytes;
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_BYTES); // Mappings stay valid after the channel is closed
+            boolean valid = reuse && header.getLong(0) == FILE_MAGIC && header.getLong(8) == entryCount;
+            if (!reuse) {
+                channel.truncate(0); // A shorter file is zero filled when it is mapped again at the full size
+            }
+            entries = new OffHeapLongArray(channel, FILE_HEADER_BYTES, 2 * entryCount);
+            if (!valid) {
+                if (reuse) entries.clear();
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_BYTES);
+                header.putLong(0, FILE_MAGIC);
+                header.putLong(8, entryCount);
+            }
+        }
+        setSizeBits(sizeBits);
+    }
+
+    private void setSizeBits(int sizeBits) {
+        this.sizeBits = sizeBits;
+        this.mask = (1L << sizeBits) - 1;
+    }
+
+    /**
+     * Get the size of the table
+     * @return Size as a power of two entries
+     */
+    public int getSizeBits() {
+        return sizeBits;
+    }
+
+    /**
+     * Get the memory used by the entries
+     * @return Size in bytes
+     */
+    public long getBytes() {
+        return entries.length() * Long.BYTES;
+    }
+
+    /**
+     * Get the largest table size that fits in an amount of memory
+     * @param bytes Memory for the table
+     * @return Size as a power of two entries, between MIN_SIZE_BITS and MAX_SIZE_BITS
+     */
+    public static int getSizeBits(long bytes) {
+        int sizeBits = MIN_SIZE_BITS;
+        while (sizeBits < MAX_SIZE_BITS && (16L << (sizeBits + 1)) <= bytes) {
+            sizeBits++;
+        }
+        return sizeBits;
+    }
+
+    /**
+     * Resize the table, all the entries are lost. Must not be called while the table is being searched with, i.e only between games
+     * @param sizeBits New size as a power of two entries (halved until it fits in the memory budget)
+     * @throws IOException If the file of a mapped table couldn't be mapped again
+     */
+    public synchronized void resize(int sizeBits) throws IOException {
+        entries.free(); // Memory of the old entries counts towards the new size
+        if (file != null) {
+            map(sizeBits);
+        } else {
+            allocate(sizeBits);
+        }
+    }
+
+    /**
+     * Get the table shared by all the games with the same board size, win length and evaluation. If the cache directory property is set,
+     * the table is memory mapped from a file there, so it is also kept over restarts. The evaluation is part of the file name,
+     * so scores of an older network or older weights aren't used after training again
+     * @param rows Row size of the board (0 for unbounded boards)
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @param evaluationKey Evaluation of the searches using the table (see DecisionMaker.getEvaluationKey)
+     * @return Shared table
+     */
+    public static TranspositionTable getShared(int rows, int columns, int winLength, String evaluationKey) {
+        String name = "tt-" + rows + "x" + columns + "-" + winLength + "-" + evaluationKey;
+        return sharedTables.computeIfAbsent(name, TranspositionTable::createShared);
+    }
+
+    /**
+     * Get the table shared by all the games of a geometry and evaluation, planar geometries share the tables of their board size and win length
+     * @param geometry Board geometry
+     * @param evaluationKey Evaluation of the searches using the table (see DecisionMaker.getEvaluationKey)
+     * @return Shared table
+     */
+    public static TranspositionTable getShared(BoardGeometry geometry, String evaluationKey) {
+        return sharedTables.computeIfAbsent("tt-" + geometry.getName() + "-" + evaluationKey, TranspositionTable::createShared);
+    }
+
+    /**
+     * Resize all the shared tables, and create the shared tables from now on with this size. Must not be called while any search is using a shared
+     * table, i.e only between the games of a single session. A table that can't be resized is replaced by a new one
+     * @param sizeBits New size as a power of two entries
+     * @throws IllegalStateException If not even a replacement table of MIN_SIZE_BITS fits in the memory budget
+     */
+    public static void resizeShared(int sizeBits) {
+        sharedSizeBits = sizeBits;
+        for (TranspositionTable table : sharedTables.values()) {
+            table.free(); // Free all the tables first, so that every table can get its' share of the budget
+        }
+        for (Map.Entry<String, TranspositionTable> shared : sharedTables.entrySet()) {
+            try {
+                shared.getValue().resize(sizeBits);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Couldn't resize " + shared.getKey() + ", creating it again: " + e.getMessage());
+                shared.setValue(createShared(shared.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Create a shared table, falling back to a table on the heap if the file can't be used
+     * @param name Name of the table
+     * @return New table
+     */
+    private static TranspositionTable createShared(String name) {
+        String directory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            try {
+                Path path = Paths.get(directory);
+                Files.createDirectories(path);
+                return new TranspositionTable(path.resolve(name + ".bin"), sharedSizeBits);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Couldn't map " + name + ", keeping it in memory: " + e.getMessage());
+            }
+        }
+        return new TranspositionTable(sharedSizeBits);
+    }
+
+    /**
+     * Look up a position
+     * @param hash Hash of the position
+     * @return Data of the entry (decode with the static getters), MISS if the position isn't in the table
+     */
+    public long probe(long hash) {
+        long index = getIndex(hash);
+        long data = entries.get(index + 1);
+        if ((entries.get(index) ^ data) != hash) return MISS;
+        return data;
+    }
+
+    /**
+     * Store a position. An existing entry of another position is always replaced, an entry of the same position only by a deeper search
+     * @param hash Hash of the position
+     * @param score Score of the position
+     * @param depth Remaining search depth the score was searched with (0-254)
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param row Row of the best move (in the canonical orientation), or Move.INVALID_INDEX if there is none
+     * @param column Column of the best move
+     */
+    public void store(long hash, int score, int depth, int bound, int row, int column) {
+        long index = getIndex(hash);
+        long oldData = entries.get(index + 1);
+        if ((entries.get(index) ^ oldData) == hash && getDepth(oldData) > depth) return;
+        long moveRow = NO_MOVE;
+        long moveColumn = NO_MOVE;
+        if (row >= -COORDINATE_OFFSET && row < COORDINATE_OFFSET - 1 && column >= -COORDINATE_OFFSET && column < COORDINATE_OFFSET - 1) {
+            moveRow = row + COORDINATE_OFFSET;
+            moveColumn = column + COORDINATE_OFFSET;
+        }
+        long data = (score & 0xFFFFFFFFL) | ((long) (Math.min(depth, 254) + 1) << 32) | ((long) bound << 40) | (moveRow << 42) | (moveColumn << 53);
+        entries.set(index, hash ^ data);
+        entries.set(index + 1, data);
+    }
+
+    /**
+     * Remove all the entries, zeroed on all the cores
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Return the memory of the table to the budget, the table can't be used until it is resized
+     */
+    public synchronized void free() {
+        entries.free();
+    }
+
+    /**
+     * Get the score of an entry
+     * @param data Entry data
+     * @return Stored score
+     */
+    public static int getScore(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Get the remaining search depth of an entry
+     * @param data Entry data
+     * @return Stored depth
+     */
+    public static int getDepth(long data) {
+        return (int) ((data >>> 32) & 0xFF) - 1;
+    }
+
+    /**
+     * Get the bound of an entry
+     * @param data Entry data
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public static int getBound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    /**
+     * Does the entry have a best move?
+     * @param data Entry data
+     * @return True or false
+     */
+    public static boolean hasMove(long data) {
+        return ((data >>> 42) & 0x7FF) != NO_MOVE;
+    }
+
+    /**
+     * Get the best move row of an entry
+     * @param data Entry data
+     * @return Row of the best move (in the canonical orientation)
+     */
+    public static int getMoveRow(long data) {
+        return (int) ((data >>> 42) & 0x7FF) - COORDINATE_OFFSET;
+    }
+
+    /**
+     * Get the best move column of an entry
+     * @param data Entry data
+     * @return Column of the best move (in the canonical orientation)
+     */
+    public static int getMoveColumn(long data) {
+        return (int) ((data >>> 53) & 0x7FF) - COORDINATE_OFFSET;
+    }
+
+    /**
+     * Get the index of the first long of the entry of a hash
+     * @param hash Hash of the position
+     * @return Index in the entries buffer
+     */
+    private long getIndex(long hash) {
+        return ((hash ^ (hash >>> 32)) & mask) << 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package game.analysis;
+
+import java.util.List;
+
+import javax.swing.SwingWorker;
+
+import game.ai.DecisionMaker;
+import game.ai.SearchListener;
+import game.ai.TranspositionTable;
+import game.board.Board;
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Background analysis of the human's turn for the analysis overlay. The decision maker searches with exact root scores (see
+ * DecisionMaker.setExactRootScores), so every root move is searched with a full window and its' score is exact, not a bound
+ * (see SearchListener.onRootMoveSearched). The moves are searched one depth at a time, and the score of each move is published
+ * to the UI thread as soon as it is known, so the overlay fills in progressively and deeper results replace shallower ones.
+ */
+public class AnalysisWorker extends SwingWorker<Void, AnalysisWorker.RootScore> implements SearchListener {
+    private Board board;
+    private BoardModel model;
+    private DecisionMaker ai;
+
+    /**
+     * Score of a single root move.
+     */
+    static class RootScore {
+        private int row;
+        private int column;
+        private int score;
+
+        private RootScore(int row, int column, int score) {
+            this.row = row;
+            this.column = column;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Create a new analysis of the current board, the latest snapshot of the board is copied here
+     * @param game Main game instance
+     */
+    public AnalysisWorker(Game game) {
+        board = game.getBoard();
+        model = new BitBoardModel(board.getSnapshot());
+        ai = new DecisionMaker(new BoardTester(board.getGeometry()), Game.MAX_AI_ACCURACY);
+        ai.setTranspositionTable(TranspositionTable.getShared(board.getGeometry(), ai.getEvaluationKey())); // Not the table of the bot, which prunes
+        ai.setExactRootScores(true); // Shades need the score of every move, not only whether it beats the best one
+        ai.setCandidateRadius(0); // Every empty piece gets a score, also on big boards that are otherwise searched only near the marks
+        ai.setSearchListener(this); // A listener makes the search deepen one depth at a time
+    }
+
+    /**
+     * Check if a board can be analysed: it has empty positions and nobody has won yet
+     * @param board Board to check
+     * @return True if the board can be analysed
+     */
+    public static boolean canAnalyse(Board board) {
+        BoardModel model = new BitBoardModel(board.getSnapshot());
+        if (model.isFull()) return false;
+        BoardTester tester = new BoardTester(board.getGeometry());
+        MoveList marks = new MoveList();
+        model.collectPieces(Occupant.HUMAN, marks);
+        model.collectPieces(Occupant.BOT, marks);
+        for (int i = 0; i < marks.size(); i++) {
+            int row = MoveList.getRow(marks.get(i));
+            int column = MoveList.getColumn(marks.get(i));
+            if (tester.hasWinner(model, model.getOccupant(row, column), row, column)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stop the analysis, the results still on their way to the UI thread are dropped
+     */
+    public void stop() {
+        cancel(false);
+        ai.stop();
+    }
+
+    /**
+     * Search the human's moves in the background thread
+     */
+    @Override
+    protected Void doInBackground() {
+        ai.getBestMove(model, Occupant.HUMAN);
+        return null;
+    }
+
+    @Override
+    public void onDepthCompleted(int depth, int score, long nodes, Move[] principalVariation) {
+        // The scores of the single moves are published as soon as they are searched, nothing more to show per depth
+    }
+
+    /**
+     * Publish the score of a root move to the UI thread, called on the background thread
+     */
+    @Override
+    public void onRootMoveSearched(int depth, Move move, int score) {
+        publish(new RootScore(move.getRow(), move.getColumn(), score));
+    }
+
+    /**
+     * Show the published scores on the board, called on the UI thread
+     * @param scores Scores published since the last call
+     */
+    @Override
+    protected void process(List<RootScore> scores) {
+        if (isCancelled()) return; // The board may have changed already
+        for (RootScore score : scores) {
+            board.getComponent().setAnalysisScore(score.row, score.column, score.score);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,292 @@
+package game.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.ai.DecisionMaker;
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardModel;
+import game.main.Game;
+import game.player.Occupant;
+import game.record.GameRecordFormat;
+import game.record.GameRecordReader;
+
+/**
+ * Command line batch analysis. Every position of the input is searched with the engine and the results (best move, score, depth,
+ * principal variation, nodes and time) are written as CSV or JSON lines, in the same order as the input.
+ * The input is either a game record file (every position before a move is analysed for the side that moved) or a text file of positions,
+ * one per line: "rows columns winLength side cells", where side is x (human) or o (bot) and cells are the rows one after another
+ * as x, o or . (empty), e.g "3 3 3 o x........". Empty lines and lines starting with # are skipped.
+ * The input is read while the positions are analysed, and at most --inflight positions are queued at a time,
+ * so inputs of any size are analysed in constant memory.
+ * Usage: --analyze --input FILE [--output FILE] [--format csv|jsonl] [--depth N] [--time MS] [--threads N] [--inflight N]
+ */
+public class BatchAnalyzer {
+    private String input;
+    private String output;
+    private boolean json;
+    private int depth = Game.MAX_AI_ACCURACY;
+    private long timeBudget;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int inflight = -1;
+
+    private ExecutorService executor;
+    private Writer writer;
+
+    /**
+     * Results of the positions being analysed, in input order.
+     */
+    private Deque<Future<String>> pending = new ArrayDeque<>();
+
+    /**
+     * Run the batch analysis from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        BatchAnalyzer analyzer = new BatchAnalyzer();
+        try {
+            analyzer.parseArguments(args);
+            analyzer.run();
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--input": input = value; break;
+                case "--output": output = value; break;
+                case "--format": json = parseFormat(value); break;
+                case "--depth": depth = Integer.parseInt(value); break;
+                case "--time": timeBudget = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--inflight": inflight = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (input == null) {
+            throw new IllegalArgumentException("No input file (--input)");
+        }
+        if (inflight < 1) {
+            inflight = threads * 4; // Enough queued work to keep every thread busy
+        }
+    }
+
+    /**
+     * Parse the output format
+     * @param value csv or jsonl
+     * @return True for JSON lines, false for CSV
+     */
+    private static boolean parseFormat(String value) {
+        if (value.equals("jsonl")) return true;
+        if (value.equals("csv")) return false;
+        throw new IllegalArgumentException("Unknown format: " + value);
+    }
+
+    /**
+     * Analyse the whole input
+     * @throws IOException If reading the input or writing the output fails
+     * @throws InterruptedException If interrupted while waiting for the results
+     * @throws ExecutionException If the analysis of a position threw an exception
+     */
+    private void run() throws IOException, InterruptedException, ExecutionException {
+        executor = Executors.newFixedThreadPool(threads);
+        OutputStream out = output == null ? System.out : Files.newOutputStream(Paths.get(output));
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(input)));
+            Writer resultWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer = resultWriter;
+            if (!json) {
+                writer.write("id,side,row,column,score,depth,nodes,micros,pv\n");
+            }
+            if (isRecordFile(in)) {
+                analyseRecords(in);
+            } else {
+                analysePositions(in);
+            }
+            while (!pending.isEmpty()) {
+                writer.write(pending.poll().get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Check if the input starts with the magic bytes of a game record file, the stream is left at the start
+     * @param in Input stream
+     * @return True for game record files
+     * @throws IOException If reading fails
+     */
+    private static boolean isRecordFile(InputStream in) throws IOException {
+        byte[] magic = new byte[GameRecordFormat.MAGIC.length];
+        in.mark(magic.length);
+        int read = in.readNBytes(magic, 0, magic.length);
+        in.reset();
+        return read == magic.length && Arrays.equals(magic, GameRecordFormat.MAGIC);
+    }
+
+    /**
+     * Analyse every position before a move of the recorded games, the id of a position is "game:move"
+     * @param in Record file stream
+     * @throws IOException If reading or writing fails
+     * @throws InterruptedException If interrupted while waiting for the results
+     * @throws ExecutionException If the analysis of a position threw an exception
+     */
+    private void analyseRecords(InputStream in) throws IOException, InterruptedException, ExecutionException {
+        GameRecordReader reader = new GameRecordReader(in);
+        for (long game = 1; reader.next(); game++) {
+            BoardModel model = new BitBoardModel(reader.getRows(), reader.getColumns());
+            for (int i = 0; i < reader.getMoveCount(); i++) {
+                submit(game + ":" + (i + 1), model.copy(), reader.getWinLength(), reader.getMover(i));
+                model.setOccupant(reader.getMoveRow(i), reader.getMoveColumn(i), reader.getMover(i));
+            }
+        }
+    }
+
+    /**
+     * Analyse the positions of a text file, the id of a position is its' line number
+     * @param in Text file stream
+     * @throws IOException If reading or writing fails
+     * @throws InterruptedException If interrupted while waiting for the results
+     * @throws ExecutionException If the analysis of a position threw an exception
+     */
+    private void analysePositions(InputStream in) throws IOException, InterruptedException, ExecutionException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        for (long number = 1; (line = lines.readLine()) != null; number++) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\s+");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Invalid position on line " + number);
+            }
+            int rows = Integer.parseInt(fields[0]);
+            int columns = Integer.parseInt(fields[1]);
+            BoardModel model = parseCells(fields[4], rows, columns, number);
+            submit(Long.toString(number), model, Integer.parseInt(fields[2]), parseSide(fields[3], number));
+        }
+    }
+
+    /**
+     * Parse the cells of a text position
+     * @param cells Cells row by row (x, o or .)
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param number Line number for error messages
+     * @return Board of the position
+     */
+    private static BoardModel parseCells(String cells, int rows, int columns, long number) {
+        if (cells.length() != rows * columns) {
+            throw new IllegalArgumentException("Wrong amount of cells on line " + number);
+        }
+        BoardModel model = new BitBoardModel(rows, columns);
+        for (int i = 0; i < cells.length(); i++) {
+            char cell = cells.charAt(i);
+            if (cell == 'x') {
+                model.setOccupant(i / columns, i % columns, Occupant.HUMAN);
+            } else if (cell == 'o') {
+                model.setOccupant(i / columns, i % columns, Occupant.BOT);
+            } else if (cell != '.') {
+                throw new IllegalArgumentException("Invalid cell '" + cell + "' on line " + number);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Parse the side to move of a text position
+     * @param side x (human) or o (bot)
+     * @param number Line number for error messages
+     * @return Occupant to move
+     */
+    private static Occupant parseSide(String side, long number) {
+        if (side.equals("x")) return Occupant.HUMAN;
+        if (side.equals("o")) return Occupant.BOT;
+        throw new IllegalArgumentException("Invalid side '" + side + "' on line " + number);
+    }
+
+    /**
+     * Queue a position for analysis. When the queue is full, the oldest result is waited for and written first,
+     * which keeps both the memory use and the output order under control
+     * @param id Id of the position in the output
+     * @param model Board of the position, owned by the analysis
+     * @param winLength Consecutive marks needed for a win
+     * @param side Occupant to move
+     * @throws IOException If writing fails
+     * @throws InterruptedException If interrupted while waiting for a result
+     * @throws ExecutionException If the analysis of a position threw an exception
+     */
+    private void submit(String id, BoardModel model, int winLength, Occupant side) throws IOException, InterruptedException, ExecutionException {
+        while (pending.size() >= inflight) {
+            writer.write(pending.poll().get());
+        }
+        pending.add(executor.submit(() -> analyse(id, model, winLength, side)));
+    }
+
+    /**
+     * Analyse a single position, decision makers are not thread safe so every analysis creates its' own
+     * @param id Id of the position in the output
+     * @param model Board of the position
+     * @param winLength Consecutive marks needed for a win
+     * @param side Occupant to move
+     * @return Output line of the result
+     */
+    private String analyse(String id, BoardModel model, int winLength, Occupant side) {
+        DecisionMaker ai = new DecisionMaker(new BoardTester(winLength), depth);
+        ai.setTimeBudget(timeBudget);
+        long start = System.nanoTime();
+        Move move = ai.getBestMove(model, side);
+        long micros = (System.nanoTime() - start) / 1000;
+        StringBuilder pv = new StringBuilder();
+        for (Move pvMove : ai.getPrincipalVariation()) {
+            if (pv.length() > 0) pv.append(' ');
+            pv.append(pvMove.getRow()).append(',').append(pvMove.getColumn());
+        }
+        String sideName = side == Occupant.BOT ? "o" : "x";
+        if (!move.isValid()) { // Full or already decided position
+            return json ? "{\"id\":\"" + id + "\",\"side\":\"" + sideName + "\",\"move\":null}\n" : id + "," + sideName + ",,,,,,,\n";
+        }
+        if (json) {
+            return "{\"id\":\"" + id + "\",\"side\":\"" + sideName + "\",\"row\":" + move.getRow() + ",\"column\":" + move.getColumn()
+                + ",\"score\":" + ai.getBestScore() + ",\"depth\":" + ai.getCompletedDepth() + ",\"nodes\":" + ai.getNodes()
+                + ",\"micros\":" + micros + ",\"pv\":\"" + pv + "\"}\n";
+        }
+        return id + "," + sideName + "," + move.getRow() + "," + move.getColumn() + "," + ai.getBestScore() + "," + ai.getCompletedDepth()
+            + "," + ai.getNodes() + "," + micros + ",\"" + pv + "\"\n"; // The moves of the PV contain commas, so it is quoted
+    }
+}
\ No newline at end of file
@@ -1,12 +1,8 @@
 package game.board;
 
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.GridLayout;
-
-import javax.swing.JPanel;
-import javax.swing.border.EmptyBorder;
-
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardSnapshot;
 import game.main.Game;
 import game.player.Occupant;
 
@@ -14,7 +10,10 @@ import game.player.Occupant;
  * Represents the "real" game board and its' UI.
  */
 public class Board {
-    private JPanel panel;
+    /**
+     * Single component painting the whole board
+     */
+    private BoardComponent component;
     /**
      * Matrix of all pieces on the board
      */
@@ -30,14 +29,42 @@ public class Board {
      */
     private int piecesPlaced;
 
-    public JPanel getPanel() {
-        return panel;
+    /**
+     * Bitboard kept in sync with the pieces, only used to create the snapshots
+     */
+    private BitBoardModel model;
+
+    /**
+     * Latest snapshot of the board. Searches and analyses run outside the UI thread and read the board only through this,
+     * never through the pieces, which are changed and painted on the UI thread.
+     */
+    private volatile BoardSnapshot snapshot;
+
+    /**
+     * Geometry of the board, the pieces are laid out in its' rows and columns
+     */
+    private BoardGeometry geometry;
+
+    public BoardComponent getComponent() {
+        return component;
     }
 
     public BoardPiece[][] getPieces() {
         return pieces;
     }
 
+    /**
+     * Get the latest snapshot of the board, can be called from any thread
+     * @return Immutable snapshot of the board
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
     public int getRowLength() {
         return pieces.length;
     }
@@ -74,44 +101,42 @@ public class Board {
     }
 
     /**
-     * Create a new board instance with specified sizes, row and column
-     * @param row Row size of the board
-     * @param column Column size of the board
-     * @param game Main game instance
+     * Update the bitboard and publish a new snapshot after the occupant of a piece changed, called by the piece itself.
+     * Only called on the UI thread, so no lock is needed: other threads only read the volatile snapshot.
+     * @param row Row index of the piece
+     * @param column Column index of the piece
+     * @param occupant New occupant of the piece
      */
-    public Board(int row, int column, Game game) {
-        panel = new JPanel();
-        initializeUI(row, column, game);
+    void onOccupantChanged(int row, int column, Occupant occupant) {
+        model.setOccupant(row, column, occupant); // Occupant.NONE removes the mark
+        snapshot = model.createSnapshot(snapshot.getVersion() + 1);
     }
 
     /**
-     * Create the board UI
+     * Create a new board instance with specified sizes, row and column
      * @param row Row size of the board
      * @param column Column size of the board
      * @param game Main game instance
      */
-    private void initializeUI(int row, int column, Game game) {
-        panel.setPreferredSize(new Dimension(500, 500));
-        panel.setBackground(Color.black);
-        panel.setBorder(new EmptyBorder(4, 4, 4, 4));
-        createPiecesGrid(row, column);
-        setPieces(row, column, game);
+    public Board(int row, int column, Game game) {
+        this(BoardGeometry.plane(row, column, Game.getWinLength()), game);
     }
 
     /**
-     * Create the board piece grid UI
-     * @param row Number of rows
-     * @param column Number of columns
+     * Create a new board instance of a geometry, e.g the 4x4x4 cube
+     * @param geometry Geometry of the board
+     * @param game Main game instance
      */
-    private void createPiecesGrid(int row, int column) {
-        GridLayout gl = new GridLayout(row, column);
-        gl.setHgap(4); 
-        gl.setVgap(4);
-        panel.setLayout(gl);
+    public Board(BoardGeometry geometry, Game game) {
+        this.geometry = geometry;
+        model = new BitBoardModel(geometry.getRows(), geometry.getColumns());
+        snapshot = model.createSnapshot(0);
+        setPieces(geometry.getRows(), geometry.getColumns(), game);
+        component = new BoardComponent(this);
     }
 
     /**
-     * Instantiate the piece instances on the created grid, and store them in the pieces matrix
+     * Instantiate the piece instances and store them in the pieces matrix
      * @param row Row size of the board
      * @param column Column size of the board
      * @param game Game instance
@@ -121,9 +146,7 @@ public class Board {
         pieces = new BoardPiece[row][column];
         for (int r = 0; r < row; r++) {
             for (int c = 0; c < column; c++) {
-                BoardPiece p = new BoardPiece(r, c, game);
-                pieces[r][c] = p;
-                panel.add(p.getButton()); // Add to the board UI panel
+                pieces[r][c] = new BoardPiece(r, c, this, game);
             }
         }
     }
@@ -0,0 +1,218 @@
+package game.board;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+
+import game.player.Occupant;
+import game.utils.Utilities;
+
+/**
+ * A single component that paints the whole board (grid and marks) straight from the board pieces, instead of one button per piece.
+ * Mouse presses are mapped to the pressed piece, and only the changed piece is repainted when a mark is placed.
+ * Boards of several layers (the cube) are painted one layer at a time, the layers side by side in a square grid with wider gaps between them.
+ */
+public class BoardComponent extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Width of the border around the board and of the gaps between the pieces, in pixels.
+     */
+    private static final int GAP = 4;
+
+    /**
+     * Width of the gaps between the layers of a layered board, in pixels.
+     */
+    private static final int LAYER_GAP = 16;
+
+    /**
+     * Score (from the point of view of the human) at which the analysis shading is about two thirds of its' full strength.
+     */
+    private static final double ANALYSIS_SCORE_SCALE = 100.0;
+
+    private transient Board board;
+
+    /**
+     * Analysis scores of the empty pieces (from the point of view of the bot), only pieces marked in analysed are shaded.
+     */
+    private int[][] analysisScores;
+    private boolean[][] analysed;
+
+    /**
+     * Create a new board component
+     * @param board Board to paint
+     */
+    public BoardComponent(Board board) {
+        this.board = board;
+        analysisScores = new int[board.getRowLength()][board.getColumnLength()];
+        analysed = new boolean[board.getRowLength()][board.getColumnLength()];
+        setPreferredSize(new Dimension(500, 500));
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                onMousePressed(e.getX(), e.getY());
+            }
+        });
+    }
+
+    /**
+     * Lay out the component, and render the marks for the new piece size in the background so that the first mark of the size is painted without waiting
+     */
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        super.setBounds(x, y, width, height);
+        Rectangle bounds = getPieceBounds(0, 0);
+        if (bounds.width > 0 && bounds.height > 0) {
+            Utilities.getImageAsync(BoardPiece.LOCAL_X_MARK_PATH, bounds.width, bounds.height, this);
+            Utilities.getImageAsync(BoardPiece.LOCAL_O_MARK_PATH, bounds.width, bounds.height, this);
+        }
+    }
+
+    /**
+     * Repaint only the area of the specified piece
+     * @param row Row index of the piece
+     * @param column Column index of the piece
+     */
+    public void repaintPiece(int row, int column) {
+        repaint(getPieceBounds(row, column));
+    }
+
+    /**
+     * Shade an empty piece by the analysis score of a move there
+     * @param row Row index of the piece
+     * @param column Column index of the piece
+     * @param score Score of the move (from the point of view of the bot)
+     */
+    public void setAnalysisScore(int row, int column, int score) {
+        analysisScores[row][column] = score;
+        analysed[row][column] = true;
+        repaintPiece(row, column);
+    }
+
+    /**
+     * Remove the analysis shading of all the pieces
+     */
+    public void clearAnalysis() {
+        for (boolean[] row : analysed) {
+            Arrays.fill(row, false);
+        }
+        repaint();
+    }
+
+    /**
+     * Get the bounds of a piece on this component. Leftover pixels that don't divide evenly are split on both sides, like in GridLayout.
+     * On a layered board the column picks the layer (see BoardGeometry), and the layers are laid out in rows of layerColumns layers
+     * @param row Row index of the piece
+     * @param column Column index of the piece
+     * @return Bounds of the piece
+     */
+    public Rectangle getPieceBounds(int row, int column) {
+        int layers = board.getGeometry().getLayers();
+        int layerSize = board.getColumnLength() / layers; // Columns of a single layer
+        int layerColumns = (int) Math.ceil(Math.sqrt(layers));
+        int layerRows = (layers + layerColumns - 1) / layerColumns;
+        int rows = board.getRowLength() * layerRows; // Rows and columns of the grid of all the layers
+        int columns = layerSize * layerColumns;
+        int gapsX = GAP * (columns + 1) + (LAYER_GAP - GAP) * (layerColumns - 1);
+        int gapsY = GAP * (rows + 1) + (LAYER_GAP - GAP) * (layerRows - 1);
+        int pieceWidth = (getWidth() - gapsX) / columns;
+        int pieceHeight = (getHeight() - gapsY) / rows;
+        int offsetX = (getWidth() - gapsX - pieceWidth * columns) / 2;
+        int offsetY = (getHeight() - gapsY - pieceHeight * rows) / 2;
+        int layer = column / layerSize;
+        int layerX = layer % layerColumns;
+        int layerY = layer / layerColumns;
+        int x = offsetX + GAP + (layerX * layerSize + column % layerSize) * (pieceWidth + GAP) + layerX * (LAYER_GAP - GAP);
+        int y = offsetY + GAP + (layerY * board.getRowLength() + row) * (pieceHeight + GAP) + layerY * (LAYER_GAP - GAP);
+        return new Rectangle(x, y, pieceWidth, pieceHeight);
+    }
+
+    /**
+     * Paint the background, the pieces and the marks inside the clip area
+     * @param g Graphics context
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(Color.black);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        Rectangle clip = g.getClipBounds();
+        BoardPiece[][] pieces = board.getPieces();
+        for (int r = 0; r < pieces.length; r++) {
+            for (int c = 0; c < pieces[r].length; c++) {
+                Rectangle bounds = getPieceBounds(r, c);
+                if (clip == null || clip.intersects(bounds)) {
+                    paintPiece(g, pieces[r][c], bounds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Paint a single piece and its' mark
+     * @param g Graphics context
+     * @param piece Piece to paint
+     * @param bounds Bounds of the piece
+     */
+    private void paintPiece(Graphics g, BoardPiece piece, Rectangle bounds) {
+        g.setColor(getPieceColor(piece));
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        String markPath = null;
+        if (piece.getOccupant() == Occupant.HUMAN) {
+            markPath = BoardPiece.LOCAL_X_MARK_PATH;
+        } else if (piece.getOccupant() == Occupant.BOT) {
+            markPath = BoardPiece.LOCAL_O_MARK_PATH;
+        }
+        if (markPath != null) {
+            Image mark = Utilities.getImage(markPath, bounds.width, bounds.height, this); // Cached after the first mark of this size
+            g.drawImage(mark, bounds.x, bounds.y, null);
+        }
+    }
+
+    /**
+     * Get the background color of a piece: white, or for analysed empty pieces green (good for the human) or red (good for the bot)
+     * @param piece Piece to paint
+     * @return Background color
+     */
+    private Color getPieceColor(BoardPiece piece) {
+        int row = piece.getRow();
+        int column = piece.getColumn();
+        if (piece.getOccupant() != Occupant.NONE || !analysed[row][column]) {
+            return Color.white;
+        }
+        int score = -analysisScores[row][column]; // The human is analysed, so lower scores are better
+        double strength;
+        if (Math.abs(score) > BoardTester.WIN_SCORE / 2) { // Forced win or loss
+            strength = Math.signum(score);
+        } else {
+            strength = Math.tanh(score / ANALYSIS_SCORE_SCALE) * 0.8;
+        }
+        int fade = (int) (255 * (1 - Math.abs(strength)));
+        return strength >= 0 ? new Color(fade, 255, fade) : new Color(255, fade, fade);
+    }
+
+    /**
+     * Map a mouse press to the pressed piece (presses on the gaps are ignored). The pieces are looked up from their bounds,
+     * so that the same lookup works for every layout of the layers
+     * @param x X coordinate of the press
+     * @param y Y coordinate of the press
+     */
+    private void onMousePressed(int x, int y) {
+        BoardPiece[][] pieces = board.getPieces();
+        for (int r = 0; r < pieces.length; r++) {
+            for (int c = 0; c < pieces[r].length; c++) {
+                if (getPieceBounds(r, c).contains(x, y)) {
+                    pieces[r][c].onPressed();
+                    return;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
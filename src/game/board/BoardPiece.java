@@ -1,18 +1,13 @@
 package game.board;
 
-import java.awt.Color;
-
-import javax.swing.ImageIcon;
-import javax.swing.JButton;
 import javax.swing.SwingWorker;
 
 import game.dialogs.EndingDialog;
 import game.main.Game;
 import game.player.Occupant;
-import game.utils.Utilities;
 
 /**
- * Represents a "real" piece on the board (as opposed to the BoardPieceCopy). Player and bot moves are also started from here, when the player presses a button.
+ * Represents a "real" piece on the board (as opposed to the BoardPieceCopy). Player and bot moves are also started from here, when the player presses the piece on the board.
  */
 public class BoardPiece implements Piece {
     /**
@@ -27,15 +22,11 @@ public class BoardPiece implements Piece {
     public static final String LOCAL_O_MARK_PATH = "/images/o.png";
 
     private Game game;
-    private JButton button;
+    private Board board;
     private Occupant occupant;
     private int row;
     private int column;
 
-    public JButton getButton() {
-        return button;
-    }
-
     /**
      * Get the current occupant of this piece
      */
@@ -44,24 +35,13 @@ public class BoardPiece implements Piece {
     }
 
     /**
-     * Set the occupant on this piece and update the image
+     * Set the occupant on this piece and repaint the mark
      * @param occupant Occupant to update with
      */
     public void setOccupant(Occupant occupant) {
         this.occupant = occupant;
-        if (occupant == Occupant.HUMAN) {
-            setMark(LOCAL_X_MARK_PATH);
-        } else if (occupant == Occupant.BOT) {
-            setMark(LOCAL_O_MARK_PATH);
-        }
-    }
-
-    /**
-     * Set the mark of this piece.
-     * @param imgPath Path of the image for the mark
-     */
-    private void setMark(String imgPath) {
-        button.setIcon(new ImageIcon(Utilities.getImage(imgPath, button.getWidth(), button.getHeight(), this)));
+        board.onOccupantChanged(row, column, occupant); // Publish a new snapshot for the searches
+        board.getComponent().repaintPiece(row, column); // Only this piece gets repainted
     }
 
     public int getRow() {
@@ -76,30 +56,21 @@ public class BoardPiece implements Piece {
      * Create a new piece for the board
      * @param row Row index of the piece
      * @param column Column index of the piece
+     * @param board Board this piece belongs to
      * @param game Main game instance
      */
-    public BoardPiece(int row, int column, Game game) {
+    public BoardPiece(int row, int column, Board board, Game game) {
         this.game = game;
+        this.board = board;
         this.row = row;
         this.column = column;
         occupant = Occupant.NONE; // Piece has no occupant in the beginning
-        initializeUI();
-    }
-
-    /**
-     * Create the UI for this piece
-     */
-    private void initializeUI() {
-        button = new JButton();
-        button.setBackground(Color.white);
-        button.setFocusable(false);
-        button.addActionListener(event -> onPieceButtonPressed());
     }
 
     /**
-     * When game is being played, and the human player clicks this piece's button, this gets called
+     * When game is being played, and the human player presses this piece on the board, this gets called
      */
-    private void onPieceButtonPressed() {
+    public void onPressed() {
         performPlayerMoves();
     }
 
@@ -108,6 +79,7 @@ public class BoardPiece implements Piece {
      */
     private void performPlayerMoves() {
         if (!game.getCanPlaceMarks() || occupant != Occupant.NONE) return; // Game is not being played or piece is already occupied
+        game.stopAnalysis(); // The analysed position is gone after this move
         game.getBoard().updateNumberOfPiecesPlaced(); // Update the amount of pieces placed on the board
         int humanResult = game.getHuman().move(this); // Player move first (only thing it does it activates this current piece)
         if (humanResult == 1) { // If human move resulted in a win
@@ -125,23 +97,23 @@ public class BoardPiece implements Piece {
     private void botMove(int humanResult) {
         game.setCanPlaceMarks(false); // Disable making new moves during bot move
         game.setBotMovingText(true); // Enable bot move processing alert text
-        new SwingWorker<Integer, Object>() { // Start a new SwingWorker to process bot move on another thread
+        new SwingWorker<Move, Object>() { // Start a new SwingWorker to process bot move on another thread
             /**
-             * Process move in a background thread to avoid blocking UI thread
+             * Find the move in a background thread to avoid blocking UI thread, the board isn't changed there
              */
             @Override
-            public Integer doInBackground() {
-                return game.getBot().move(null);
+            public Move doInBackground() {
+                return game.getBot().getMove();
             }
 
             /**
-             * Called when the background thread is done
+             * Called on the UI thread when the background thread is done, sets the move on the board
              */
             @Override
             protected void done() {
                 int botResult = -1;
                 try {
-                    botResult = get(); // Get the move result from the background thread
+                    botResult = game.getBot().applyMove(get()); // Set the move from the background thread and get its' result
                 } catch (Exception e) {
                     // Ignore
                 }
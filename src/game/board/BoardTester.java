@@ -1,22 +1,144 @@
 package game.board;
 
 import game.board.copy.BoardStateCopy;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardModel;
+import game.board.model.LineEvaluator;
+import game.board.model.LineMasks;
+import game.board.model.MoveList;
 import game.main.Game;
 import game.player.Occupant;
 
 /**
  * BoardTester contains different methods for testing the board for move results, 
  * e.g if there is a winner at a specific piece or row/column, etc. Also has methods used by the minimax algorithm.
+ * A tester of a geometry that isn't planar (see BoardGeometry) finds the wins, winning moves and the heuristic of a board model from the line masks of the geometry,
+ * the rest of the methods (move ordering, the board state copy methods) only know the lines of planar boards.
  */
 public class BoardTester {
+    /**
+     * Score of a bot win in the board model search (human win is the negative), depth is negated from it like in the original scores.
+     * The heuristic of the board model search always stays below half of this.
+     */
+    public static final int WIN_SCORE = 10000;
+
+    /**
+     * Row and column steps of the four line directions (horizontal, vertical and both diagonals).
+     */
+    private static final int[][] DIRECTIONS = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+
     private Game game;
 
     /**
-     * Create a new instance of BoardTester
+     * Reused list of piece positions for the board model heuristic, so that evaluating doesn't allocate.
+     */
+    private MoveList pieceBuffer = new MoveList();
+
+    /**
+     * Reused list of candidate positions for finding winning moves.
+     */
+    private MoveList candidateBuffer = new MoveList();
+
+    /**
+     * Consecutive marks needed for a win, as used by this tester
+     */
+    private int winLength;
+
+    /**
+     * Worth of a window in the board model heuristic by the amount of marks in it (see HeuristicWeights)
+     */
+    private int[] windowWeights;
+
+    /**
+     * Evaluator of all the lines of a bitboard at once, created for the size of the first bitboard evaluated (null until then)
+     */
+    private LineEvaluator lineEvaluator;
+
+    /**
+     * Are bitboards evaluated with the line evaluator? Off only to compare against the window walk (e.g benchmarks)
+     */
+    private boolean lineEvaluation = true;
+
+    /**
+     * Geometry of the boards of this tester, null = planar boards of any size (the lines are walked on the board)
+     */
+    private BoardGeometry geometry;
+
+    /**
+     * Planar geometry of the size of the latest board model asked for (see getGeometry), null until then
+     */
+    private BoardGeometry planeGeometry;
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Create a new instance of BoardTester, using the win length of the current game
      * @param game Main game instance
      */
     public BoardTester(Game game) {
         this.game = game;
+        this.winLength = Game.getWinLength();
+        this.windowWeights = HeuristicWeights.getWeights(winLength);
+        setGeometry(game.getBoard().getGeometry());
+    }
+
+    /**
+     * Create a new instance of BoardTester that isn't attached to the main game instance (e.g for games played without the UI).
+     * Only the methods taking a board state can be used with this tester!
+     * @param winLength Consecutive marks needed for a win
+     */
+    public BoardTester(int winLength) {
+        this.winLength = winLength;
+        this.windowWeights = HeuristicWeights.getWeights(winLength);
+    }
+
+    /**
+     * Create a new instance of BoardTester for a geometry that isn't attached to the main game instance.
+     * Only the methods taking a board state can be used with this tester!
+     * @param geometry Geometry of the boards, the win length is taken from it
+     */
+    public BoardTester(BoardGeometry geometry) {
+        this(geometry.getWinLength());
+        setGeometry(geometry);
+    }
+
+    /**
+     * Set the geometry of the boards tested, planar geometries are tested by walking the lines like boards without a geometry
+     * @param geometry Geometry of the boards
+     */
+    private void setGeometry(BoardGeometry geometry) {
+        this.geometry = geometry.isPlanar() ? null : geometry;
+    }
+
+    /**
+     * Get the geometry of a board model tested with this tester
+     * @param model Board model of the geometry
+     * @return Geometry of this tester, or the planar geometry of the size of the model if this tester tests planar boards
+     */
+    public BoardGeometry getGeometry(BoardModel model) {
+        if (geometry != null) {
+            return geometry;
+        }
+        if (planeGeometry == null || planeGeometry.getRows() != model.getRows() || planeGeometry.getColumns() != model.getColumns()) {
+            planeGeometry = BoardGeometry.plane(model.getRows(), model.getColumns(), winLength);
+        }
+        return planeGeometry;
+    }
+
+    /**
+     * Create a tester with the win length and window weights of this one that isn't attached to the main game instance,
+     * e.g for another searching thread (a tester keeps buffers, so it can't be shared by threads)
+     * @return New tester
+     */
+    public BoardTester copy() {
+        BoardTester copy = new BoardTester(winLength);
+        copy.windowWeights = windowWeights;
+        copy.lineEvaluation = lineEvaluation;
+        copy.geometry = geometry;
+        return copy;
     }
 
     /**
@@ -25,28 +147,328 @@ public class BoardTester {
      * @return Move result for this piece (0 = tie, 1 = win, -1 = no win and no tie)
      */
     public int getMoveResult(Piece piece) {
+        return getMoveResult(piece.getOccupant(), piece.getRow(), piece.getColumn());
+    }
+
+    /**
+     * Get the move result for a piece at the specified index
+     * @param occupant Occupant to get the move result for
+     * @param row Row index
+     * @param column Column index
+     * @return Move result (0 = tie, 1 = win, -1 = no win and no tie)
+     */
+    public int getMoveResult(Occupant occupant, int row, int column) {
         if (game.getBoard().isBoardFull()) return 0; // If the board has no available pieces, return a tie automatically
-        if (hasWinner(game.getBoard().getPieces(), piece.getOccupant(), piece.getRow(), piece.getColumn())) {
+        boolean won = geometry != null ? hasWinner(new BitBoardModel(game.getBoard().getSnapshot()), occupant, row, column) // Lines of the geometry
+            : hasWinner(game.getBoard().getPieces(), occupant, row, column);
+        if (won) {
             return 1;
         }
         return -1;
     }
 
     /**
-     * Get the move result for a piece at the specified index
+     * Get the move result for a move on a board model
+     * @param model Board model the move was made on
      * @param occupant Occupant to get the move result for
      * @param row Row index
      * @param column Column index
      * @return Move result (0 = tie, 1 = win, -1 = no win and no tie)
      */
-    public int getMoveResult(Occupant occupant, int row, int column) {
-        if (game.getBoard().isBoardFull()) return 0; // If the board has no available pieces, return a tie automatically
-        if (hasWinner(game.getBoard().getPieces(), occupant, row, column)) {
+    public int getMoveResult(BoardModel model, Occupant occupant, int row, int column) {
+        if (hasWinner(model, occupant, row, column)) {
             return 1;
         }
+        if (model.isFull()) return 0; // No winner and no available pieces, must be a tie
         return -1;
     }
 
+    /**
+     * Check all four lines through the specified position for a win of the given occupant (or all the lines of the geometry through it).
+     * Only looks at the marks on the lines, so the cost doesn't depend on the size of the board
+     * @param model Board model to check
+     * @param occupant Occupant to check for
+     * @param row Row index
+     * @param column Column index
+     * @return True if the occupant has enough consecutive marks through the position, else false
+     */
+    public boolean hasWinner(BoardModel model, Occupant occupant, int row, int column) {
+        if (geometry != null) {
+            return hasLineWinner(model, occupant, row, column);
+        }
+        for (int[] direction : DIRECTIONS) {
+            int amount = 1 + countConsecutive(model, occupant, row, column, direction[0], direction[1])
+                + countConsecutive(model, occupant, row, column, -direction[0], -direction[1]);
+            if (amount >= winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the lines of the geometry through the specified position for a win of the given occupant, the position itself counts as a mark of the occupant
+     * @param model Board model to check
+     * @param occupant Occupant to check for
+     * @param row Row index
+     * @param column Column index
+     * @return True if some line through the position has only marks of the occupant besides the position
+     */
+    private boolean hasLineWinner(BoardModel model, Occupant occupant, int row, int column) {
+        LineMasks masks = geometry.getLineMasks();
+        int index = row * model.getColumns() + column;
+        if (model instanceof BitBoardModel && masks.getWords() == 1) { // The whole board in one word, a line is a single AND
+            long marks = ((BitBoardModel) model).getWords(occupant)[0] | (1L << index);
+            for (int line : masks.getLinesThrough(index)) {
+                long mask = masks.getLineMasks()[line];
+                if ((marks & mask) == mask) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int line : masks.getLinesThrough(index)) {
+            boolean won = true;
+            for (int other = 0; other < model.getRows() * model.getColumns() && won; other++) {
+                boolean onLine = (masks.getLineMasks()[line * masks.getWords() + (other >>> 6)] & (1L << other)) != 0;
+                if (onLine && other != index) {
+                    won = model.getOccupant(other / model.getColumns(), other % model.getColumns()) == occupant;
+                }
+            }
+            if (won) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the empty positions where the occupant would win with a single move. A winning position is always next to a mark of the occupant,
+     * so only the positions next to the marks are checked, with the same line check as hasWinner (on geometries that aren't planar every empty position)
+     * @param model Board model to check
+     * @param occupant Occupant to find the winning moves for
+     * @param moves List the winning positions are added to
+     */
+    public void collectWinningMoves(BoardModel model, Occupant occupant, MoveList moves) {
+        candidateBuffer.clear();
+        model.generateMoves(geometry != null ? 0 : 1, candidateBuffer); // Layers side by side aren't next to each other in the layout
+        for (int i = 0; i < candidateBuffer.size(); i++) {
+            int row = MoveList.getRow(candidateBuffer.get(i));
+            int column = MoveList.getColumn(candidateBuffer.get(i));
+            if (hasWinner(model, occupant, row, column)) { // Lines through an empty position count the marks on both sides of it
+                moves.add(row, column);
+            }
+        }
+    }
+
+    /**
+     * Score an empty position for move ordering by the runs of marks next to it on all four lines. Extending own runs is worth
+     * a bit more than blocking the runs of the opponent, and a run is worth four times more for every mark in it like the windows of the heuristic
+     * @param model Board model
+     * @param occupant Occupant making the move
+     * @param row Row index of the empty position
+     * @param column Column index of the empty position
+     * @return Ordering score of the move, 0 if there are no marks next to it
+     */
+    public int getMoveOrderScore(BoardModel model, Occupant occupant, int row, int column) {
+        int score = 0;
+        for (int[] direction : DIRECTIONS) {
+            int own = 0;
+            int opponent = 0;
+            for (int sign = -1; sign <= 1; sign += 2) { // Both sides of the position
+                Occupant neighbour = model.getOccupant(row + sign * direction[0], column + sign * direction[1]);
+                if (neighbour == Occupant.NONE) continue;
+                int run = countConsecutive(model, neighbour, row, column, sign * direction[0], sign * direction[1]);
+                if (neighbour == occupant) {
+                    own += run;
+                } else {
+                    opponent += run;
+                }
+            }
+            score += getRunScore(Math.min(own, winLength - 1)) * 2 + getRunScore(Math.min(opponent, winLength - 1));
+        }
+        return score;
+    }
+
+    /**
+     * Get the ordering score of a move that makes or blocks a run one mark short of a threat (winLength - 2 marks next to it),
+     * moves with at least this score are tactical and shouldn't be reduced or pruned by the search
+     * @return Smallest tactical ordering score
+     */
+    public int getTacticalOrderScore() {
+        return getRunScore(Math.max(1, winLength - 2));
+    }
+
+    /**
+     * Worth of a run of marks next to a position in move ordering
+     * @param run Amount of marks
+     * @return 0 for no marks, then 1, 5, 21, 85... (each mark is worth four times more)
+     */
+    private int getRunScore(int run) {
+        return ((1 << (2 * run)) - 1) / 3;
+    }
+
+    /**
+     * Count the consecutive marks of an occupant from a position (not including the position itself) in one direction
+     * @param model Board model to check
+     * @param occupant Occupant to count
+     * @param row Row index
+     * @param column Column index
+     * @param rowStep Row step of the direction
+     * @param columnStep Column step of the direction
+     * @return Amount of consecutive marks, at most winLength - 1
+     */
+    private int countConsecutive(BoardModel model, Occupant occupant, int row, int column, int rowStep, int columnStep) {
+        int amount = 0;
+        row += rowStep;
+        column += columnStep;
+        while (amount < winLength - 1 && model.getOccupant(row, column) == occupant) {
+            amount++;
+            row += rowStep;
+            column += columnStep;
+        }
+        return amount;
+    }
+
+    /**
+     * Heuristic of the board model search. Every window of winLength positions that contains marks of only one player is worth
+     * more the more marks it has (by default 1, 4, 16, 64..., see HeuristicWeights). Only windows through placed marks are looked at, so the cost grows with the amount of marks
+     * @param model Board model to evaluate
+     * @return Bot windows minus human windows, between -WIN_SCORE / 2 and WIN_SCORE / 2
+     */
+    public int getHeuristicResult(BoardModel model) {
+        int score;
+        LineEvaluator lines = getLineEvaluator(model);
+        if (lines != null) { // Same windows, all the lines of the bitboard tested at once
+            BitBoardModel bitBoard = (BitBoardModel) model;
+            score = lines.evaluate(bitBoard.getWords(Occupant.BOT), bitBoard.getWords(Occupant.HUMAN));
+        } else {
+            score = getWindowScore(model, Occupant.BOT, Occupant.HUMAN) - getWindowScore(model, Occupant.HUMAN, Occupant.BOT);
+        }
+        return Math.max(-WIN_SCORE / 2, Math.min(WIN_SCORE / 2, score));
+    }
+
+    /**
+     * Get the line evaluator for a board model, creating it again if the board size has changed
+     * @param model Board model to evaluate
+     * @return Line evaluator of the board, null if the model isn't a bitboard or line evaluation is off
+     */
+    public LineEvaluator getLineEvaluator(BoardModel model) {
+        if ((!lineEvaluation && geometry == null) || !(model instanceof BitBoardModel)) { // Only the lines know the windows of other geometries
+            return null;
+        }
+        if (lineEvaluator == null || lineEvaluator.getMasks().getRows() != model.getRows() || lineEvaluator.getMasks().getColumns() != model.getColumns()) {
+            lineEvaluator = LineEvaluator.create(getGeometry(model).getLineMasks(), windowWeights);
+        }
+        return lineEvaluator;
+    }
+
+    /**
+     * Set whether bitboards are evaluated with the line evaluator or by walking the windows through the marks like other board models (same scores)
+     * @param lineEvaluation True to use the line evaluator (default)
+     */
+    public void setLineEvaluation(boolean lineEvaluation) {
+        this.lineEvaluation = lineEvaluation;
+    }
+
+    /**
+     * Sum the worth of all the windows of an occupant that the opponent hasn't blocked
+     * @param model Board model to evaluate
+     * @param occupant Occupant whose windows to sum
+     * @param opponent Opponent of the occupant
+     * @return Sum of the window worths
+     */
+    private int getWindowScore(BoardModel model, Occupant occupant, Occupant opponent) {
+        pieceBuffer.clear();
+        model.collectPieces(occupant, pieceBuffer);
+        int score = 0;
+        for (int i = 0; i < pieceBuffer.size(); i++) {
+            int row = MoveList.getRow(pieceBuffer.get(i));
+            int column = MoveList.getColumn(pieceBuffer.get(i));
+            for (int[] direction : DIRECTIONS) {
+                for (int offset = 0; offset < winLength; offset++) {
+                    int marks = countWindowMarks(model, occupant, opponent, row, column, offset, direction);
+                    score += windowWeights[marks]; // Weight of 0 marks is 0
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Set the window weights of the heuristic of this tester, e.g to compare weights in self-play
+     * @param weights Weights indexed by the amount of marks in a window (winLength + 1 values, see HeuristicWeights)
+     */
+    public void setWindowWeights(int[] weights) {
+        windowWeights = weights;
+        lineEvaluator = null; // Created again with the new weights
+    }
+
+    /**
+     * Get the window weights of the heuristic of this tester
+     * @return Weights indexed by the amount of marks in a window, the array must not be modified
+     */
+    public int[] getWindowWeights() {
+        return windowWeights;
+    }
+
+    /**
+     * Get the heuristic worth of a window with the given amount of marks
+     * @param marks Amount of marks in the window (0..winLength - 1)
+     * @return Weight of the window
+     */
+    public int getWindowWeight(int marks) {
+        return windowWeights[marks];
+    }
+
+    /**
+     * Count the windows of an occupant that the opponent hasn't blocked by the amount of marks in them, the features the heuristic weights multiply
+     * @param model Board model to evaluate
+     * @param occupant Occupant whose windows to count
+     * @param opponent Opponent of the occupant
+     * @param counts Counts indexed by the amount of marks (winLength + 1 values), the windows are added to them
+     */
+    public void collectWindowCounts(BoardModel model, Occupant occupant, Occupant opponent, int[] counts) {
+        pieceBuffer.clear();
+        model.collectPieces(occupant, pieceBuffer);
+        for (int i = 0; i < pieceBuffer.size(); i++) {
+            int row = MoveList.getRow(pieceBuffer.get(i));
+            int column = MoveList.getColumn(pieceBuffer.get(i));
+            for (int[] direction : DIRECTIONS) {
+                for (int offset = 0; offset < winLength; offset++) {
+                    counts[countWindowMarks(model, occupant, opponent, row, column, offset, direction)]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Count the marks in a window through a mark. To count every window only once, the window is only counted from its' first mark
+     * @param model Board model to evaluate
+     * @param occupant Occupant of the mark
+     * @param opponent Opponent of the occupant
+     * @param row Row of the mark
+     * @param column Column of the mark
+     * @param offset How many positions before the mark the window starts
+     * @param direction Direction of the window
+     * @return Amount of marks in the window, 0 if the window is blocked, goes outside the board or isn't counted from this mark
+     */
+    private int countWindowMarks(BoardModel model, Occupant occupant, Occupant opponent, int row, int column, int offset, int[] direction) {
+        int marks = 0;
+        for (int i = 0; i < winLength; i++) {
+            int r = row + (i - offset) * direction[0];
+            int c = column + (i - offset) * direction[1];
+            if (!model.isInside(r, c)) return 0;
+            Occupant current = model.getOccupant(r, c);
+            if (current == opponent) return 0;
+            if (current == occupant) {
+                if (marks == 0 && i != offset) return 0; // The window has an earlier mark, it is counted from there
+                marks++;
+            }
+        }
+        return marks;
+    }
+
     /**
      * Check if there is a winner, tie or no winner on the current state of the board (entire board) and return the result (used by the minimax algorithm)
      * @param state Copy of the state of the board
@@ -229,7 +651,7 @@ public class BoardTester {
                 break;
             }
         }
-        return amount >= Game.getWinLength();
+        return amount >= winLength;
     }
 
     /**
@@ -260,7 +682,7 @@ public class BoardTester {
                 break;
             }
         }
-        return amount >= Game.getWinLength();
+        return amount >= winLength;
     }
 
     /**
@@ -293,7 +715,7 @@ public class BoardTester {
                 break;
             }
         }
-        return amount >= Game.getWinLength();
+        return amount >= winLength;
     }
 
     /**
@@ -326,6 +748,6 @@ public class BoardTester {
                 break;
             }
         }
-        return amount >= Game.getWinLength();
+        return amount >= winLength;
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package game.board;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Window weights of the board model heuristic, one weight per amount of marks in a window, separately for every win length.
+ * The weights are loaded from the resource /weights/heuristic.properties (written by the evaluation tuner, see EvaluationTuner),
+ * or from the file given with the system property "tictactoe.weights.file". Each line is "window.winLength=w1,w2,...",
+ * win lengths missing from the file use the hand-picked weights 1, 4, 16, 64...
+ */
+public final class HeuristicWeights {
+    /**
+     * Resource the weights are loaded from by default.
+     */
+    public static final String RESOURCE = "/weights/heuristic.properties";
+
+    /**
+     * System property of a weight file used instead of the resource (e.g to try tuned weights without rebuilding).
+     */
+    public static final String FILE_PROPERTY = "tictactoe.weights.file";
+
+    /**
+     * Weights already parsed, by win length.
+     */
+    private static final Map<Integer, int[]> weights = new ConcurrentHashMap<>();
+
+    /**
+     * Loaded weight file, null until the first weights are asked for.
+     */
+    private static Properties properties;
+
+    private HeuristicWeights() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Get the window weights of a win length
+     * @param winLength Consecutive marks needed for a win
+     * @return Weights indexed by the amount of marks in a window (index 0 is always 0, index winLength is a complete line), the array must not be modified
+     */
+    public static int[] getWeights(int winLength) {
+        return weights.computeIfAbsent(winLength, length -> {
+            String value = getProperties().getProperty(getKey(length));
+            return value == null ? getDefaultWeights(length) : parse(value, length);
+        });
+    }
+
+    /**
+     * Get the hand-picked weights, every mark in a window makes it worth four times more
+     * @param winLength Consecutive marks needed for a win
+     * @return Weights 0, 1, 4, 16... (winLength + 1 values)
+     */
+    public static int[] getDefaultWeights(int winLength) {
+        int[] defaults = new int[winLength + 1];
+        for (int marks = 1; marks < winLength; marks++) {
+            defaults[marks] = 1 << (2 * (marks - 1));
+        }
+        defaults[winLength] = BoardTester.WIN_SCORE / 2; // Complete lines end the game before they are evaluated, but are worth a win if they are
+        return defaults;
+    }
+
+    /**
+     * Get the property key of the weights of a win length
+     * @param winLength Consecutive marks needed for a win
+     * @return Key, e.g "window.5"
+     */
+    public static String getKey(int winLength) {
+        return "window." + winLength;
+    }
+
+    /**
+     * Format weights as a property value
+     * @param values Weights indexed by the amount of marks (index 0 and the complete line are skipped)
+     * @return Comma separated weights, e.g "1,4,16,64"
+     */
+    public static String format(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int marks = 1; marks < values.length - 1; marks++) {
+            if (marks > 1) builder.append(',');
+            builder.append(values[marks]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse weights from a property value
+     * @param value Comma separated weights
+     * @param winLength Consecutive marks needed for a win
+     * @return Weights indexed by the amount of marks
+     * @throws IllegalArgumentException If the value doesn't have winLength - 1 weights
+     */
+    public static int[] parse(String value, int winLength) {
+        String[] parts = value.split(",");
+        if (parts.length != winLength - 1) {
+            throw new IllegalArgumentException("Expected " + (winLength - 1) + " weights for win length " + winLength + ": " + value);
+        }
+        int[] parsed = getDefaultWeights(winLength);
+        for (int marks = 1; marks < winLength; marks++) {
+            parsed[marks] = Integer.parseInt(parts[marks - 1].trim());
+        }
+        return parsed;
+    }
+
+    /**
+     * Read a weight file, a missing file gives no weights
+     * @param path Path of the file
+     * @return Properties of the file
+     * @throws IOException If reading an existing file failed
+     */
+    public static Properties read(Path path) throws IOException {
+        Properties file = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                file.load(reader);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Get the loaded weight file, loaded on the first call. A missing or unreadable file gives only the default weights
+     * @return Properties of the weight file
+     */
+    private static synchronized Properties getProperties() {
+        if (properties != null) return properties;
+        properties = new Properties();
+        String file = System.getProperty(FILE_PROPERTY, "");
+        try {
+            if (!file.isEmpty()) {
+                properties = read(Paths.get(file));
+            } else {
+                try (InputStream in = HeuristicWeights.class.getResourceAsStream(RESOURCE)) {
+                    if (in != null) properties.load(in);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Reading heuristic weights failed, using the default weights: " + e.getMessage());
+        }
+        return properties;
+    }
+}
\ No newline at end of file
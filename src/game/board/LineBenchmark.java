@@ -0,0 +1,253 @@
+package game.board;
+
+import java.util.Locale;
+import java.util.Random;
+
+import game.board.model.BitBoardModel;
+import game.board.model.LineEvaluator;
+import game.board.model.LineMasks;
+import game.board.model.ScalarLineEvaluator;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Command line benchmark of the window heuristic and the win test on random positions: the window walk of BoardTester against the line evaluators
+ * (scalar, and the vector win test if it is available, see LineEvaluator). All the evaluators are first checked to give the same results on every position.
+ * Usage: --benchmark [--rows N] [--columns N] [--win N] [--positions N] [--marks N] [--millis N] [--seed N]
+ */
+public class LineBenchmark {
+    /**
+     * Benchmarked operation over all the positions
+     */
+    private interface Case {
+        /**
+         * Run the operation on every position once
+         * @return Sum of the results, so that the work can't be optimised away
+         */
+        long run();
+    }
+
+    private int rows = 10;
+    private int columns = 10;
+    private int winLength = 5;
+    private int positionCount = 4096;
+    private int maxMarks = 40;
+    private int millis = 1000;
+    private long seed = 1;
+
+    private BitBoardModel[] positions;
+    private long[][] bots;
+    private long[][] humans;
+    private BoardTester tester;
+    private LineEvaluator scalar;
+    private LineEvaluator vector;
+
+    /**
+     * Run the benchmark from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        LineBenchmark benchmark = new LineBenchmark();
+        try {
+            benchmark.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (!benchmark.run()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--positions": positionCount = Integer.parseInt(value); break;
+                case "--marks": maxMarks = Integer.parseInt(value); break;
+                case "--millis": millis = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (winLength < Game.MIN_WINNING_MARKS || winLength > Math.max(rows, columns) || maxMarks > rows * columns
+            || positionCount < 1 || millis < 1) {
+            throw new IllegalArgumentException("Invalid benchmark settings");
+        }
+    }
+
+    /**
+     * Generate the positions, check the evaluators against each other and time them
+     * @return True if all the evaluators agreed
+     */
+    private boolean run() {
+        tester = new BoardTester(winLength);
+        LineMasks masks = new LineMasks(rows, columns, winLength);
+        int[] weights = HeuristicWeights.getWeights(winLength);
+        scalar = new ScalarLineEvaluator(masks, weights);
+        vector = LineEvaluator.create(masks, weights);
+        if (vector.getName().equals(scalar.getName())) {
+            vector = null;
+        }
+        generatePositions();
+        System.out.printf(Locale.ROOT, "Board %dx%d, win length %d, %d lines, %d positions of up to %d marks, vector backend %s%n",
+            rows, columns, winLength, masks.getLineCount(), positionCount, maxMarks, vector != null ? "available" : "not available");
+        if (!verify()) {
+            return false;
+        }
+
+        System.out.println("Heuristic:");
+        measure("window walk", () -> {
+            tester.setLineEvaluation(false);
+            long sum = 0;
+            for (BitBoardModel position : positions) {
+                sum += tester.getHeuristicResult(position);
+            }
+            return sum;
+        });
+        measure("scalar lines", () -> evaluateAll(scalar)); // The vector backend evaluates with the scalar lines
+
+        System.out.println("Win test:");
+        measure("mark walk", () -> {
+            long sum = 0;
+            for (BitBoardModel position : positions) {
+                sum += hasWinnerByMarks(position, Occupant.BOT) || hasWinnerByMarks(position, Occupant.HUMAN) ? 1 : 0;
+            }
+            return sum;
+        });
+        measure("scalar lines", () -> testWins(scalar));
+        if (vector != null) {
+            measure("vector lines", () -> testWins(vector));
+        }
+        return true;
+    }
+
+    /**
+     * Fill random positions with random amounts of marks, alternating between the players like in a game
+     */
+    private void generatePositions() {
+        Random random = new Random(seed);
+        positions = new BitBoardModel[positionCount];
+        bots = new long[positionCount][];
+        humans = new long[positionCount][];
+        for (int i = 0; i < positionCount; i++) {
+            BitBoardModel position = new BitBoardModel(rows, columns);
+            int marks = 1 + random.nextInt(maxMarks);
+            for (int mark = 0; mark < marks; mark++) {
+                int row;
+                int column;
+                do {
+                    row = random.nextInt(rows);
+                    column = random.nextInt(columns);
+                } while (position.getOccupant(row, column) != Occupant.NONE);
+                position.setOccupant(row, column, mark % 2 == 0 ? Occupant.HUMAN : Occupant.BOT);
+            }
+            positions[i] = position;
+            bots[i] = position.getWords(Occupant.BOT);
+            humans[i] = position.getWords(Occupant.HUMAN);
+        }
+    }
+
+    /**
+     * Check that the window walk and the line evaluators agree on every position
+     * @return True if there were no mismatches
+     */
+    private boolean verify() {
+        tester.setLineEvaluation(false);
+        int mismatches = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int expected = tester.getHeuristicResult(positions[i]);
+            boolean won = hasWinnerByMarks(positions[i], Occupant.BOT) || hasWinnerByMarks(positions[i], Occupant.HUMAN);
+            boolean matches = clamp(scalar.evaluate(bots[i], humans[i])) == expected && (scalar.hasWin(bots[i]) || scalar.hasWin(humans[i])) == won;
+            if (vector != null) {
+                matches &= clamp(vector.evaluate(bots[i], humans[i])) == expected && (vector.hasWin(bots[i]) || vector.hasWin(humans[i])) == won;
+            }
+            if (!matches) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            System.out.println("Evaluators disagree on " + mismatches + " positions");
+            return false;
+        }
+        System.out.println("Evaluators agree on all positions");
+        return true;
+    }
+
+    /**
+     * Clamp a line evaluator score like BoardTester.getHeuristicResult does
+     * @param score Unclamped score
+     * @return Clamped score
+     */
+    private int clamp(int score) {
+        return Math.max(-BoardTester.WIN_SCORE / 2, Math.min(BoardTester.WIN_SCORE / 2, score));
+    }
+
+    /**
+     * Test for a win with the line check of BoardTester through every mark of an occupant, the way the game would without line masks
+     * @param position Position to test
+     * @param occupant Occupant to test
+     * @return True if the occupant has a line
+     */
+    private boolean hasWinnerByMarks(BitBoardModel position, Occupant occupant) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (position.getOccupant(row, column) == occupant && tester.hasWinner(position, occupant, row, column)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long evaluateAll(LineEvaluator evaluator) {
+        long sum = 0;
+        for (int i = 0; i < positionCount; i++) {
+            sum += evaluator.evaluate(bots[i], humans[i]);
+        }
+        return sum;
+    }
+
+    private long testWins(LineEvaluator evaluator) {
+        long sum = 0;
+        for (int i = 0; i < positionCount; i++) {
+            sum += evaluator.hasWin(bots[i]) || evaluator.hasWin(humans[i]) ? 1 : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Run a case for the measuring time to warm it up, then again to time it, and print the time per position
+     * @param name Name of the case
+     * @param benchmarkCase Case to measure
+     */
+    private void measure(String name, Case benchmarkCase) {
+        long checksum = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            long deadline = start + millis * 1000000L;
+            long runs = 0;
+            long now;
+            do {
+                checksum += benchmarkCase.run();
+                runs++;
+                now = System.nanoTime();
+            } while (now < deadline);
+            if (pass == 1) {
+                System.out.printf(Locale.ROOT, "  %-14s %9.1f ns/position (checksum %d)%n", name, (double) (now - start) / (runs * positionCount), checksum);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -4,6 +4,11 @@ package game.board;
  * Represents a move that can be made. e.g a best move given by the minimax decision maker.
  */
 public class Move {
+    /**
+     * Row and column of an invalid move. Negative indexes are valid on unbounded boards, so -1 can't be used.
+     */
+    public static final int INVALID_INDEX = Integer.MIN_VALUE;
+
     private int row;
     private int column;
 
@@ -25,11 +30,19 @@ public class Move {
     }
 
     /**
-     * Is this move a valid move valid? (row and column are both NOT -1)
-     * @return True if row and column are not -1
+     * Is this move a valid move valid? (row and column are both NOT INVALID_INDEX)
+     * @return True if row and column are not INVALID_INDEX
      */
     public boolean isValid() {
-        return row != -1 && column != -1;
+        return row != INVALID_INDEX && column != INVALID_INDEX;
+    }
+
+    /**
+     * Create a new invalid move, e.g to initialize a best move before any moves have been looked at
+     * @return Invalid move
+     */
+    public static Move invalid() {
+        return new Move(INVALID_INDEX, INVALID_INDEX);
     }
 
     /**
@@ -1,6 +1,5 @@
 package game.board.copy;
 
-import game.board.BoardPiece;
 import game.board.Piece;
 import game.player.Occupant;
 
@@ -29,12 +28,24 @@ public class BoardPieceCopy implements Piece {
     }
 
     /**
-     * Create a new fake board piece using a "real" piece
+     * Create a new fake board piece using a "real" piece (or another copy)
      * @param piece Original piece from which values get copied from
      */
-    public BoardPieceCopy(BoardPiece piece) {
+    public BoardPieceCopy(Piece piece) {
         this.occupant = piece.getOccupant();
         this.row = piece.getRow();
         this.column = piece.getColumn();
     }
+
+    /**
+     * Create a new fake board piece that doesn't have an original piece, e.g for games played without the UI
+     * @param row Row index of the piece
+     * @param column Column index of the piece
+     * @param occupant Initial occupant of the piece
+     */
+    public BoardPieceCopy(int row, int column, Occupant occupant) {
+        this.occupant = occupant;
+        this.row = row;
+        this.column = column;
+    }
 }
\ No newline at end of file
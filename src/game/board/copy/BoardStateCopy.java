@@ -3,8 +3,9 @@ package game.board.copy;
 import java.util.ArrayList;
 import java.util.List;
 
-import game.board.BoardPiece;
 import game.board.Move;
+import game.board.Piece;
+import game.board.model.BoardModel;
 import game.player.Occupant;
 
 /**
@@ -42,24 +43,42 @@ public class BoardStateCopy {
 
     /**
      * Create a copy from a board state
-     * @param original Board from which the state will be copied from
+     * @param original Board (or another copy of a board) from which the state will be copied from
      */
-    public BoardStateCopy(BoardPiece[][] original) {
+    public BoardStateCopy(Piece[][] original) {
         freeMoves = new ArrayList<>();
         initialize(original);
     }
 
+    /**
+     * Create a copy from a board model of fixed size, e.g to compare the original search to the board model search
+     * @param model Bounded board model from which the state will be copied from
+     */
+    public BoardStateCopy(BoardModel model) {
+        freeMoves = new ArrayList<>();
+        pieces = new BoardPieceCopy[model.getRows()][model.getColumns()];
+        for (int r = 0; r < model.getRows(); r++) {
+            for (int c = 0; c < model.getColumns(); c++) {
+                Occupant occupant = model.getOccupant(r, c);
+                if (occupant == Occupant.NONE) {
+                    freeMoves.add(new Move(r, c));
+                }
+                pieces[r][c] = new BoardPieceCopy(r, c, occupant);
+            }
+        }
+    }
+
     /**
      * Initialize the copy with the original board
      * @param original Original board state data
      */
-    private void initialize(BoardPiece[][] original) {
+    private void initialize(Piece[][] original) {
         int rows = original.length;
         int columns = original[0].length;
         pieces = new BoardPieceCopy[rows][columns];
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < columns; c++) {
-                BoardPiece piece = original[r][c];
+                Piece piece = original[r][c];
                 if (piece.getOccupant() == Occupant.NONE) {
                     freeMoves.add(new Move(r, c)); // Piece wasn't occupied, add it to free moves
                 }
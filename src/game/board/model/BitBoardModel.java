@@ -0,0 +1,274 @@
+package game.board.model;
+
+import game.board.Piece;
+import game.player.Occupant;
+
+/**
+ * Board model of fixed size, where the marks of both players are packed into bitboards (one bit per position, row by row).
+ */
+public class BitBoardModel implements BoardModel {
+    private int rows;
+    private int columns;
+    private long[] human;
+    private long[] bot;
+    private int piecesPlaced;
+
+    /**
+     * Zobrist hashes of the position under every symmetry of the board, updated whenever a mark is placed or removed.
+     */
+    private long[] hashes;
+
+    /**
+     * Positions already added during the current move generation, cleared again before generateMoves returns.
+     */
+    private long[] generated;
+
+    /**
+     * Create a new empty board
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     */
+    public BitBoardModel(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        int words = (rows * columns + 63) >>> 6;
+        human = new long[words];
+        bot = new long[words];
+        generated = new long[words];
+        hashes = new long[Symmetry.getCount(rows, columns)];
+    }
+
+    /**
+     * Create a bitboard from the pieces of a board (e.g the "real" board of the UI)
+     * @param pieces Pieces of the board
+     */
+    public BitBoardModel(Piece[][] pieces) {
+        this(pieces.length, pieces[0].length);
+        for (Piece[] row : pieces) {
+            for (Piece piece : row) {
+                if (piece.getOccupant() != Occupant.NONE) {
+                    setOccupant(piece.getRow(), piece.getColumn(), piece.getOccupant());
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a bitboard from a snapshot of a board, only the arrays of the snapshot are copied
+     * @param snapshot Snapshot of the board
+     */
+    public BitBoardModel(BoardSnapshot snapshot) {
+        rows = snapshot.rows;
+        columns = snapshot.columns;
+        human = snapshot.human.clone();
+        bot = snapshot.bot.clone();
+        generated = new long[human.length];
+        hashes = snapshot.hashes.clone();
+        piecesPlaced = snapshot.piecesPlaced;
+    }
+
+    /**
+     * Create a copy of another bitboard
+     * @param other Board to copy
+     */
+    private BitBoardModel(BitBoardModel other) {
+        rows = other.rows;
+        columns = other.columns;
+        human = other.human.clone();
+        bot = other.bot.clone();
+        generated = new long[human.length];
+        hashes = other.hashes.clone();
+        piecesPlaced = other.piecesPlaced;
+    }
+
+    /**
+     * Create an immutable snapshot of the current state of this board
+     * @param version Version number of the snapshot
+     * @return Snapshot that is not affected by later changes to this board
+     */
+    public BoardSnapshot createSnapshot(long version) {
+        return new BoardSnapshot(rows, columns, human.clone(), bot.clone(), hashes.clone(), piecesPlaced, version);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public boolean isBounded() {
+        return true;
+    }
+
+    public boolean isInside(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /**
+     * Get the bitboard words of an occupant (bit row * columns + column), e.g for testing all the lines of the board at once.
+     * The array is the live state of the board and must not be modified
+     * @param occupant Occupant whose marks to get (HUMAN or BOT)
+     * @return Bitboard words of the occupant
+     */
+    public long[] getWords(Occupant occupant) {
+        return occupant == Occupant.HUMAN ? human : bot;
+    }
+
+    public Occupant getOccupant(int row, int column) {
+        if (!isInside(row, column)) return Occupant.NONE;
+        int index = row * columns + column;
+        long bit = 1L << index;
+        if ((human[index >>> 6] & bit) != 0) return Occupant.HUMAN;
+        if ((bot[index >>> 6] & bit) != 0) return Occupant.BOT;
+        return Occupant.NONE;
+    }
+
+    public void setOccupant(int row, int column, Occupant occupant) {
+        int index = row * columns + column;
+        int word = index >>> 6;
+        long bit = 1L << index; // Shifts only use the lowest 6 bits of the index
+        Occupant previous = getOccupant(row, column);
+        if (previous == occupant) return;
+        if (previous != Occupant.NONE) {
+            updateHashes(row, column, previous);
+            piecesPlaced--;
+        }
+        human[word] &= ~bit;
+        bot[word] &= ~bit;
+        if (occupant == Occupant.HUMAN) {
+            human[word] |= bit;
+        } else if (occupant == Occupant.BOT) {
+            bot[word] |= bit;
+        }
+        if (occupant != Occupant.NONE) {
+            updateHashes(row, column, occupant);
+            piecesPlaced++;
+        }
+    }
+
+    /**
+     * XOR a mark into (or out of) the hashes of every symmetry
+     * @param row Row index of the mark
+     * @param column Column index of the mark
+     * @param occupant Occupant of the mark
+     */
+    private void updateHashes(int row, int column, Occupant occupant) {
+        for (int symmetry = 0; symmetry < hashes.length; symmetry++) {
+            long position = Symmetry.transform(symmetry, row, column, rows, columns);
+            hashes[symmetry] ^= Zobrist.getKey(MoveList.getRow(position), MoveList.getColumn(position), occupant);
+        }
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public boolean isFull() {
+        return piecesPlaced >= rows * columns;
+    }
+
+    public void generateMoves(int radius, MoveList moves) {
+        if (radius <= 0) {
+            generateAllMoves(moves);
+        } else if (piecesPlaced == 0) {
+            moves.add(rows / 2, columns / 2);
+        } else {
+            generateNearbyMoves(radius, moves);
+        }
+    }
+
+    /**
+     * Add every empty position, by scanning the empty bits of each word
+     * @param moves List to add the moves to
+     */
+    private void generateAllMoves(MoveList moves) {
+        int size = rows * columns;
+        for (int word = 0; word < human.length; word++) {
+            long empty = ~(human[word] | bot[word]);
+            int remaining = size - (word << 6);
+            if (remaining < 64) {
+                empty &= (1L << remaining) - 1; // Bits past the last position are not on the board
+            }
+            while (empty != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(empty);
+                moves.add(index / columns, index % columns);
+                empty &= empty - 1;
+            }
+        }
+    }
+
+    /**
+     * Add the empty positions near the marks, using the generated bits to skip positions added already
+     * @param radius Maximum distance from a mark
+     * @param moves List to add the moves to
+     */
+    private void generateNearbyMoves(int radius, MoveList moves) {
+        int start = moves.size();
+        for (int word = 0; word < human.length; word++) {
+            long occupied = human[word] | bot[word];
+            while (occupied != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(occupied);
+                addNearbyMoves(index / columns, index % columns, radius, moves);
+                occupied &= occupied - 1;
+            }
+        }
+        for (int i = start; i < moves.size(); i++) { // Clear the generated bits for the next call
+            long move = moves.get(i);
+            int index = MoveList.getRow(move) * columns + MoveList.getColumn(move);
+            generated[index >>> 6] = 0;
+        }
+    }
+
+    /**
+     * Add the empty positions around a single mark
+     * @param row Row of the mark
+     * @param column Column of the mark
+     * @param radius Maximum distance from the mark
+     * @param moves List to add the moves to
+     */
+    private void addNearbyMoves(int row, int column, int radius, MoveList moves) {
+        for (int r = Math.max(0, row - radius); r <= Math.min(rows - 1, row + radius); r++) {
+            for (int c = Math.max(0, column - radius); c <= Math.min(columns - 1, column + radius); c++) {
+                int index = r * columns + c;
+                int word = index >>> 6;
+                long bit = 1L << index;
+                if (((human[word] | bot[word] | generated[word]) & bit) == 0) {
+                    generated[word] |= bit;
+                    moves.add(r, c);
+                }
+            }
+        }
+    }
+
+    public void collectPieces(Occupant occupant, MoveList pieces) {
+        long[] bits = occupant == Occupant.HUMAN ? human : bot;
+        for (int word = 0; word < bits.length; word++) {
+            long occupied = bits[word];
+            while (occupied != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(occupied);
+                pieces.add(index / columns, index % columns);
+                occupied &= occupied - 1;
+            }
+        }
+    }
+
+    public long getHash() {
+        return hashes[getCanonicalSymmetry()];
+    }
+
+    public int getCanonicalSymmetry() {
+        int canonical = 0;
+        for (int symmetry = 1; symmetry < hashes.length; symmetry++) {
+            if (hashes[symmetry] < hashes[canonical]) {
+                canonical = symmetry;
+            }
+        }
+        return canonical;
+    }
+
+    public BoardModel copy() {
+        return new BitBoardModel(this);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package game.board.model;
+
+/**
+ * Shape of a board: which positions there are and which lines of them win. Every geometry is laid out on a grid of rows and columns,
+ * so the board models, moves and the UI pieces work the same way on all of them.
+ * A planar geometry is a plain board of rows and columns where any winLength marks in a row, column or diagonal win.
+ * A cube geometry (e.g Qubic, 4x4x4) is a stack of square layers laid out side by side: layer l of a cube of size n
+ * takes the columns l * n .. l * n + n - 1, and a line wins when it goes through the whole cube in any of its' 13 directions.
+ * Only the line masks tell the lines apart, so everything that works on the masks (the line evaluator, the bitboard search) works on any geometry.
+ */
+public final class BoardGeometry {
+    /**
+     * Steps of the 13 line directions of a cube (layer, row, column), one of every pair of opposite directions.
+     */
+    private static final int[][] CUBE_DIRECTIONS = {
+        { 0, 0, 1 }, { 0, 1, 0 }, { 1, 0, 0 },
+        { 0, 1, 1 }, { 0, 1, -1 }, { 1, 0, 1 }, { 1, 0, -1 }, { 1, 1, 0 }, { 1, -1, 0 },
+        { 1, 1, 1 }, { 1, 1, -1 }, { 1, -1, 1 }, { 1, -1, -1 }
+    };
+
+    /**
+     * Side of the Qubic board.
+     */
+    public static final int QUBIC_SIZE = 4;
+
+    private final int rows;
+    private final int columns;
+    private final int layers;
+    private final int winLength;
+
+    /**
+     * Line masks of the geometry, created when first needed.
+     */
+    private LineMasks lineMasks;
+
+    /**
+     * Create a geometry
+     * @param rows Rows of the layout
+     * @param columns Columns of the layout
+     * @param layers Amount of layers side by side, 1 = planar
+     * @param winLength Consecutive marks needed for a win
+     */
+    private BoardGeometry(int rows, int columns, int layers, int winLength) {
+        this.rows = rows;
+        this.columns = columns;
+        this.layers = layers;
+        this.winLength = winLength;
+    }
+
+    /**
+     * Create a planar geometry, the board of the original game
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @return Planar geometry
+     */
+    public static BoardGeometry plane(int rows, int columns, int winLength) {
+        return new BoardGeometry(rows, columns, 1, winLength);
+    }
+
+    /**
+     * Create a cube geometry, where a line through the whole cube wins
+     * @param size Side of the cube (also the win length)
+     * @return Cube geometry, size rows and size * size columns
+     */
+    public static BoardGeometry cube(int size) {
+        return new BoardGeometry(size, size * size, size, size);
+    }
+
+    /**
+     * Get the rows of the layout
+     * @return Row size of the board models of this geometry
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the columns of the layout, all the layers included
+     * @return Column size of the board models of this geometry
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get the amount of layers laid out side by side
+     * @return 1 for planar geometries, the side of the cube otherwise
+     */
+    public int getLayers() {
+        return layers;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Are the winning lines the rows, columns and diagonals of the layout? Only then can lines be walked on the board model directly
+     * @return True for planar geometries
+     */
+    public boolean isPlanar() {
+        return layers == 1;
+    }
+
+    /**
+     * Get the amount of positions of the board
+     * @return Rows times columns
+     */
+    public int getPositions() {
+        return rows * columns;
+    }
+
+    /**
+     * Get the layer of a column of the layout
+     * @param column Column index
+     * @return Layer index, always 0 on planar geometries
+     */
+    public int getLayer(int column) {
+        return column / (columns / layers);
+    }
+
+    /**
+     * Get the line masks of the geometry, in the bit layout of BitBoardModel
+     * @return Line masks, shared by all the users of this geometry and never modified
+     */
+    public synchronized LineMasks getLineMasks() {
+        if (lineMasks == null) {
+            lineMasks = isPlanar() ? new LineMasks(rows, columns, winLength) : new LineMasks(rows, columns, winLength, getCubeLines());
+        }
+        return lineMasks;
+    }
+
+    /**
+     * Get the name of the geometry, e.g for the names of the shared tables
+     * @return "RxC-W" for planar geometries (same as the original table names), "NxNxN" for cubes
+     */
+    public String getName() {
+        return isPlanar() ? rows + "x" + columns + "-" + winLength : layers + "x" + rows + "x" + rows;
+    }
+
+    @Override
+    public String toString() {
+        return isPlanar() ? rows + "x" + columns + ", win length " + winLength : layers + "x" + rows + "x" + rows + " cube";
+    }
+
+    /**
+     * Get the lines through the whole cube as layout indices (row * columns + column)
+     * @return Positions of every line
+     */
+    private int[][] getCubeLines() {
+        int size = rows;
+        int[][] lines = new int[LineMasks.countCubeLines(size)][size];
+        int line = 0;
+        for (int[] direction : CUBE_DIRECTIONS) {
+            for (int layer = 0; layer < size; layer++) {
+                for (int row = 0; row < size; row++) {
+                    for (int column = 0; column < size; column++) {
+                        int endLayer = layer + (size - 1) * direction[0];
+                        int endRow = row + (size - 1) * direction[1];
+                        int endColumn = column + (size - 1) * direction[2];
+                        if (!isInsideCube(endLayer, size) || !isInsideCube(endRow, size) || !isInsideCube(endColumn, size)) continue;
+                        for (int i = 0; i < size; i++) {
+                            int l = layer + i * direction[0];
+                            lines[line][i] = (row + i * direction[1]) * columns + l * size + column + i * direction[2];
+                        }
+                        line++;
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isInsideCube(int index, int size) {
+        return index >= 0 && index < size;
+    }
+}
\ No newline at end of file
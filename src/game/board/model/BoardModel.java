@@ -0,0 +1,96 @@
+package game.board.model;
+
+import game.player.Occupant;
+
+/**
+ * Compact representation of a board used by the search, independent of the UI pieces.
+ * Positions outside the board are treated as empty, so that win detection can walk past the edges without bounds checks.
+ */
+public interface BoardModel {
+    /**
+     * Get the amount of rows on the board
+     * @return Row size, 0 if the board is unbounded
+     */
+    public int getRows();
+
+    /**
+     * Get the amount of columns on the board
+     * @return Column size, 0 if the board is unbounded
+     */
+    public int getColumns();
+
+    /**
+     * Does the board have fixed bounds?
+     * @return True for boards of fixed size, false for unbounded boards
+     */
+    public boolean isBounded();
+
+    /**
+     * Is the position inside the board?
+     * @param row Row index
+     * @param column Column index
+     * @return True if a mark can be placed at the position (always true on unbounded boards)
+     */
+    public boolean isInside(int row, int column);
+
+    /**
+     * Get the occupant at the specified position
+     * @param row Row index
+     * @param column Column index
+     * @return Occupant, Occupant.NONE if empty or outside the board
+     */
+    public Occupant getOccupant(int row, int column);
+
+    /**
+     * Set the occupant at the specified position, Occupant.NONE removes the mark
+     * @param row Row index
+     * @param column Column index
+     * @param occupant New occupant
+     */
+    public void setOccupant(int row, int column, Occupant occupant);
+
+    /**
+     * Get the amount of marks placed on the board
+     * @return Amount of marks
+     */
+    public int getPiecesPlaced();
+
+    /**
+     * Is the board full of marks? (never true for unbounded boards)
+     * @return True or false
+     */
+    public boolean isFull();
+
+    /**
+     * Add the empty positions worth searching to the move list
+     * @param radius 0 = every empty position (bounded boards only), otherwise empty positions at most this far away from any mark
+     * (or only the middle of the board if there are no marks yet)
+     * @param moves List to add the moves to
+     */
+    public void generateMoves(int radius, MoveList moves);
+
+    /**
+     * Add the positions of all the marks of an occupant to the move list
+     * @param occupant Occupant whose marks to collect
+     * @param pieces List to add the positions to
+     */
+    public void collectPieces(Occupant occupant, MoveList pieces);
+
+    /**
+     * Get the canonical Zobrist hash of the marks, the same for all the symmetries of the position (see Symmetry)
+     * @return Hash of the position
+     */
+    public long getHash();
+
+    /**
+     * Get the symmetry that maps this position to its' canonical form (the one getHash is the plain hash of)
+     * @return Symmetry index, always 0 on unbounded boards
+     */
+    public int getCanonicalSymmetry();
+
+    /**
+     * Create an independent copy of this board
+     * @return Copy of the board
+     */
+    public BoardModel copy();
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package game.board.model;
+
+import game.player.Occupant;
+
+/**
+ * Immutable snapshot of a bounded board: the bitboards of both players, the hashes and a version number that grows with every change.
+ * Snapshots are never modified after they are created, so they can be handed from the UI thread to the search threads
+ * through a volatile reference without any locking, and a search board is created from one by copying a few arrays.
+ */
+public final class BoardSnapshot {
+    final int rows;
+    final int columns;
+    final long[] human;
+    final long[] bot;
+    final long[] hashes;
+    final int piecesPlaced;
+    private final long version;
+
+    /**
+     * Create a snapshot, the arrays must not be modified after this (see BitBoardModel.createSnapshot)
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param human Bitboard of the human marks
+     * @param bot Bitboard of the bot marks
+     * @param hashes Hashes of the position under every symmetry
+     * @param piecesPlaced Amount of marks on the board
+     * @param version Version of the board
+     */
+    BoardSnapshot(int rows, int columns, long[] human, long[] bot, long[] hashes, int piecesPlaced, long version) {
+        this.rows = rows;
+        this.columns = columns;
+        this.human = human;
+        this.bot = bot;
+        this.hashes = hashes;
+        this.piecesPlaced = piecesPlaced;
+        this.version = version;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    /**
+     * Get the version of the board this snapshot was taken of, every placed or removed mark increases it by one
+     * @return Version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the occupant of a position
+     * @param row Row index
+     * @param column Column index
+     * @return Occupant of the position
+     */
+    public Occupant getOccupant(int row, int column) {
+        int index = row * columns + column;
+        long bit = 1L << index;
+        if ((human[index >>> 6] & bit) != 0) return Occupant.HUMAN;
+        if ((bot[index >>> 6] & bit) != 0) return Occupant.BOT;
+        return Occupant.NONE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package game.board.model;
+
+/**
+ * Win test and window heuristic over all the winning lines of a bounded board at once, working directly on the bitboard words of BitBoardModel.
+ * A line with only bot marks is worth weights[marks] and a line with only human marks -weights[marks], which gives exactly the window heuristic of BoardTester.
+ * The scalar backend (ScalarLineEvaluator) is always available, the vector backend (VectorLineEvaluator, built on jdk.incubator.vector)
+ * is used when it has been compiled in and the incubator module is enabled (see create). The vector backend only speeds up the win test,
+ * its' heuristic is the scalar one, which was faster.
+ */
+public interface LineEvaluator {
+    /**
+     * Class name of the optional vector backend, loaded by name so that the rest of the game builds and runs without the incubator module.
+     */
+    public static final String VECTOR_CLASS = "game.board.model.VectorLineEvaluator";
+
+    /**
+     * System property selecting the backend, "scalar" disables the vector backend even if it is available.
+     */
+    public static final String BACKEND_PROPERTY = "tictactoe.lines.backend";
+
+    /**
+     * Get the line masks this evaluator tests
+     * @return Line masks of the board
+     */
+    public LineMasks getMasks();
+
+    /**
+     * Get the name of the backend
+     * @return "scalar" or "vector"
+     */
+    public String getName();
+
+    /**
+     * Test every line for a win
+     * @param words Bitboard words of an occupant
+     * @return True if all the positions of some line are set
+     */
+    public boolean hasWin(long[] words);
+
+    /**
+     * Evaluate a position with the window heuristic (not clamped)
+     * @param bot Bitboard words of the bot
+     * @param human Bitboard words of the human
+     * @return Sum of the open bot lines minus the sum of the open human lines
+     */
+    public int evaluate(long[] bot, long[] human);
+
+    /**
+     * Create an evaluator for a board, the vector backend if it is available and not disabled with BACKEND_PROPERTY, else the scalar backend
+     * @param masks Line masks of the board
+     * @param weights Worth of a line by the amount of marks in it (winLength + 1 values, see HeuristicWeights)
+     * @return Evaluator of the board
+     */
+    public static LineEvaluator create(LineMasks masks, int[] weights) {
+        if (!"scalar".equals(System.getProperty(BACKEND_PROPERTY))) {
+            try {
+                return (LineEvaluator) Class.forName(VECTOR_CLASS).getConstructor(LineMasks.class, int[].class).newInstance(masks, weights);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Vector backend not compiled in or the incubator module isn't enabled (--add-modules jdk.incubator.vector)
+            }
+        }
+        return new ScalarLineEvaluator(masks, weights);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package game.board.model;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard masks of every winning line (window of winLength positions in a row, column or diagonal, or a line of another geometry, see BoardGeometry) of a bounded board,
+ * in the bit layout of BitBoardModel. A line is won when all of its' bits are set in the words of an occupant,
+ * and it is open for an occupant when none of its' bits are set in the words of the opponent.
+ */
+public class LineMasks {
+    /**
+     * Row and column steps of the four line directions (horizontal, vertical and both diagonals).
+     */
+    private static final int[][] DIRECTIONS = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+
+    private final int rows;
+    private final int columns;
+    private final int winLength;
+    private final int words;
+    private final int lineCount;
+
+    /**
+     * Masks line by line, words of line i at i * words .. i * words + words - 1 (used by the scalar evaluator)
+     */
+    private final long[] lineMasks;
+
+    /**
+     * Masks word by word, wordMasks[word][line] (used by the vector evaluator, so that consecutive lines are in consecutive lanes)
+     */
+    private final long[][] wordMasks;
+
+    /**
+     * Lines through every position, linesThrough[position] holds the indices of the lines the position is on. Created when first needed
+     */
+    private volatile int[][] linesThrough;
+
+    /**
+     * Create the masks of all the lines of a board
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     */
+    public LineMasks(int rows, int columns, int winLength) {
+        this(rows, columns, winLength, countLines(rows, columns, winLength));
+        int line = 0;
+        for (int[] direction : DIRECTIONS) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    int endRow = row + (winLength - 1) * direction[0];
+                    int endColumn = column + (winLength - 1) * direction[1];
+                    if (endRow >= rows || endColumn < 0 || endColumn >= columns) continue; // Line doesn't fit on the board from here
+                    for (int i = 0; i < winLength; i++) {
+                        addPosition(line, (row + i * direction[0]) * columns + column + i * direction[1]);
+                    }
+                    line++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the masks of the given lines, e.g the lines of a geometry that isn't planar (see BoardGeometry)
+     * @param rows Row size of the layout
+     * @param columns Column size of the layout
+     * @param winLength Consecutive marks needed for a win
+     * @param lines Positions (row * columns + column) of every line
+     */
+    public LineMasks(int rows, int columns, int winLength, int[][] lines) {
+        this(rows, columns, winLength, lines.length);
+        for (int line = 0; line < lines.length; line++) {
+            for (int index : lines[line]) {
+                addPosition(line, index);
+            }
+        }
+    }
+
+    /**
+     * Create empty masks
+     * @param rows Row size of the layout
+     * @param columns Column size of the layout
+     * @param winLength Consecutive marks needed for a win
+     * @param lineCount Amount of lines
+     */
+    private LineMasks(int rows, int columns, int winLength, int lineCount) {
+        this.rows = rows;
+        this.columns = columns;
+        this.winLength = winLength;
+        this.words = (rows * columns + 63) >>> 6;
+        this.lineCount = lineCount;
+        this.lineMasks = new long[lineCount * words];
+        this.wordMasks = new long[words][lineCount];
+    }
+
+    /**
+     * Add a position to the masks of a line
+     * @param line Index of the line
+     * @param index Position (row * columns + column)
+     */
+    private void addPosition(int line, int index) {
+        lineMasks[line * words + (index >>> 6)] |= 1L << index;
+        wordMasks[index >>> 6][line] |= 1L << index;
+    }
+
+    /**
+     * Count the lines that fit on a board
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @return Amount of lines (e.g 8 on 3x3 and 192 on 10x10 with win length 5)
+     */
+    public static int countLines(int rows, int columns, int winLength) {
+        int rowStarts = Math.max(0, rows - winLength + 1);
+        int columnStarts = Math.max(0, columns - winLength + 1);
+        return rows * columnStarts + rowStarts * columns + 2 * rowStarts * columnStarts;
+    }
+
+    /**
+     * Count the lines through a whole cube
+     * @param size Side of the cube
+     * @return Amount of lines (76 on 4x4x4)
+     */
+    public static int countCubeLines(int size) {
+        return ((size + 2) * (size + 2) * (size + 2) - size * size * size) / 2;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Get the amount of bitboard words of the board
+     * @return Words per occupant
+     */
+    public int getWords() {
+        return words;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get the masks line by line, the words of line i are at i * getWords() onwards. Must not be modified
+     * @return Line masks
+     */
+    public long[] getLineMasks() {
+        return lineMasks;
+    }
+
+    /**
+     * Get the masks of a single bitboard word for every line. Must not be modified
+     * @param word Index of the word
+     * @return Masks indexed by line
+     */
+    public long[] getWordMasks(int word) {
+        return wordMasks[word];
+    }
+
+    /**
+     * Get the lines a position is on
+     * @param index Position (row * columns + column)
+     * @return Indices of the lines through the position. Must not be modified
+     */
+    public int[] getLinesThrough(int index) {
+        int[][] through = linesThrough;
+        if (through == null) { // Collected once, searches look the lines up at every node
+            through = createLinesThrough();
+        }
+        return through[index];
+    }
+
+    /**
+     * Collect the lines through every position from the masks
+     * @return Indices of the lines through each position
+     */
+    private synchronized int[][] createLinesThrough() {
+        if (linesThrough == null) {
+            int[][] through = new int[rows * columns][];
+            for (int index = 0; index < through.length; index++) {
+                int count = 0;
+                int[] lines = new int[lineCount];
+                for (int line = 0; line < lineCount; line++) {
+                    if ((lineMasks[line * words + (index >>> 6)] & (1L << index)) != 0) {
+                        lines[count++] = line;
+                    }
+                }
+                through[index] = Arrays.copyOf(lines, count);
+            }
+            linesThrough = through;
+        }
+        return linesThrough;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package game.board.model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of moves packed into longs (row in the high 32 bits, column in the low 32 bits), used by the board models
+ * and the search so that generating moves doesn't allocate a Move object per move.
+ */
+public class MoveList {
+    private long[] moves = new long[64];
+    private int size;
+
+    /**
+     * Pack a row and a column into a single move
+     * @param row Row index
+     * @param column Column index
+     * @return Packed move
+     */
+    public static long pack(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the row of a packed move
+     * @param move Packed move
+     * @return Row index
+     */
+    public static int getRow(long move) {
+        return (int) (move >> 32);
+    }
+
+    /**
+     * Get the column of a packed move
+     * @param move Packed move
+     * @return Column index
+     */
+    public static int getColumn(long move) {
+        return (int) move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a packed move at the specified index
+     * @param index Index of the move
+     * @return Packed move
+     */
+    public long get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Add a move to the end of the list
+     * @param row Row index
+     * @param column Column index
+     */
+    public void add(int row, int column) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = pack(row, column);
+    }
+
+    /**
+     * Swap two moves of the list, used to search a more promising move earlier
+     * @param first Index of the first move
+     * @param second Index of the second move
+     */
+    public void swap(int first, int second) {
+        long move = moves[first];
+        moves[first] = moves[second];
+        moves[second] = move;
+    }
+
+    /**
+     * Remove all the moves (the capacity is kept)
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sort the moves from the given index onwards and remove duplicates among them, used when the same move may have been generated from several pieces
+     * @param from Index of the first move to sort
+     */
+    public void sortAndRemoveDuplicates(int from) {
+        Arrays.sort(moves, from, size);
+        int unique = from;
+        for (int i = from; i < size; i++) {
+            if (unique == from || moves[unique - 1] != moves[i]) {
+                moves[unique++] = moves[i];
+            }
+        }
+        size = unique;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package game.board.model;
+
+/**
+ * Line evaluator testing the lines one at a time with plain long operations, the fallback when the vector backend isn't available.
+ * A line costs a few AND and bit count instructions per bitboard word, instead of walking the positions of the windows through every mark.
+ */
+public class ScalarLineEvaluator implements LineEvaluator {
+    protected final LineMasks masks;
+    protected final int[] weights;
+    protected final int words;
+    protected final int lineCount;
+    private final long[] lineMasks;
+
+    /**
+     * Score of a line by its' bot and human marks, lineScores[botMarks * (winLength + 1) + humanMarks], so that a line is scored without branches
+     */
+    private final int[] lineScores;
+
+    /**
+     * Create a scalar evaluator
+     * @param masks Line masks of the board
+     * @param weights Worth of a line by the amount of marks in it (winLength + 1 values, see HeuristicWeights)
+     */
+    public ScalarLineEvaluator(LineMasks masks, int[] weights) {
+        this.masks = masks;
+        this.weights = weights;
+        this.words = masks.getWords();
+        this.lineCount = masks.getLineCount();
+        this.lineMasks = masks.getLineMasks();
+        this.lineScores = new int[weights.length * weights.length];
+        for (int botMarks = 0; botMarks < weights.length; botMarks++) {
+            for (int humanMarks = 0; humanMarks < weights.length; humanMarks++) {
+                if (humanMarks == 0) {
+                    lineScores[botMarks * weights.length] = weights[botMarks]; // Weight of 0 marks is 0, so empty lines add nothing
+                } else if (botMarks == 0) {
+                    lineScores[humanMarks] = -weights[humanMarks];
+                }
+            }
+        }
+    }
+
+    public LineMasks getMasks() {
+        return masks;
+    }
+
+    public String getName() {
+        return "scalar";
+    }
+
+    public boolean hasWin(long[] words) {
+        return hasWin(words, 0);
+    }
+
+    /**
+     * Test the lines from the given line onwards for a win, the vector backend tests the lines left over from full vectors with this
+     * @param words Bitboard words of an occupant
+     * @param fromLine Index of the first line to test
+     * @return True if all the positions of some line are set
+     */
+    protected boolean hasWin(long[] words, int fromLine) {
+        for (int line = fromLine; line < lineCount; line++) {
+            int offset = line * this.words;
+            boolean won = true;
+            for (int word = 0; word < this.words && won; word++) {
+                long mask = lineMasks[offset + word];
+                won = (words[word] & mask) == mask;
+            }
+            if (won) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int evaluate(long[] bot, long[] human) {
+        int score = 0;
+        for (int line = 0; line < lineCount; line++) {
+            int offset = line * words;
+            int botMarks = 0;
+            int humanMarks = 0;
+            for (int word = 0; word < words; word++) {
+                long mask = lineMasks[offset + word];
+                botMarks += Long.bitCount(bot[word] & mask);
+                humanMarks += Long.bitCount(human[word] & mask);
+            }
+            score += lineScores[botMarks * weights.length + humanMarks];
+        }
+        return score;
+    }
+}
\ No newline at end of file
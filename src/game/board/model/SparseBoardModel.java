@@ -0,0 +1,208 @@
+package game.board.model;
+
+import game.player.Occupant;
+
+/**
+ * Unbounded board model, where only the placed marks are stored in an open addressing hash table keyed by the packed position.
+ * Memory and the cost of every operation grow with the amount of marks, not with the area of the board.
+ */
+public class SparseBoardModel implements BoardModel {
+    private static final byte EMPTY = 0;
+    private static final byte HUMAN = 1;
+    private static final byte BOT = 2;
+
+    /**
+     * Packed positions (see MoveList.pack) of the hash table slots.
+     */
+    private long[] keys;
+
+    /**
+     * Occupants of the hash table slots, EMPTY = free slot.
+     */
+    private byte[] values;
+    private int piecesPlaced;
+
+    /**
+     * Zobrist hash of the marks, updated whenever a mark is placed or removed.
+     */
+    private long hash;
+
+    /**
+     * Create a new empty unbounded board
+     */
+    public SparseBoardModel() {
+        keys = new long[64];
+        values = new byte[64];
+    }
+
+    /**
+     * Create a copy of another sparse board
+     * @param other Board to copy
+     */
+    private SparseBoardModel(SparseBoardModel other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        piecesPlaced = other.piecesPlaced;
+        hash = other.hash;
+    }
+
+    public int getRows() {
+        return 0;
+    }
+
+    public int getColumns() {
+        return 0;
+    }
+
+    public boolean isBounded() {
+        return false;
+    }
+
+    public boolean isInside(int row, int column) {
+        return true;
+    }
+
+    public Occupant getOccupant(int row, int column) {
+        byte value = values[findSlot(MoveList.pack(row, column))];
+        if (value == HUMAN) return Occupant.HUMAN;
+        if (value == BOT) return Occupant.BOT;
+        return Occupant.NONE;
+    }
+
+    public void setOccupant(int row, int column, Occupant occupant) {
+        long key = MoveList.pack(row, column);
+        int slot = findSlot(key);
+        if (values[slot] != EMPTY) {
+            hash ^= Zobrist.getKey(row, column, values[slot] == HUMAN ? Occupant.HUMAN : Occupant.BOT);
+        }
+        if (occupant == Occupant.NONE) {
+            if (values[slot] != EMPTY) {
+                removeSlot(slot);
+                piecesPlaced--;
+            }
+            return;
+        }
+        hash ^= Zobrist.getKey(row, column, occupant);
+        if (values[slot] == EMPTY) {
+            if ((piecesPlaced + 1) * 2 > keys.length) { // Keep the table at most half full
+                grow();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            piecesPlaced++;
+        }
+        values[slot] = occupant == Occupant.HUMAN ? HUMAN : BOT;
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public boolean isFull() {
+        return false;
+    }
+
+    public void generateMoves(int radius, MoveList moves) {
+        if (piecesPlaced == 0) {
+            moves.add(0, 0);
+            return;
+        }
+        int distance = Math.max(1, radius); // Every empty position can't be generated on an unbounded board
+        int start = moves.size();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] == EMPTY) continue;
+            int row = MoveList.getRow(keys[slot]);
+            int column = MoveList.getColumn(keys[slot]);
+            for (int r = row - distance; r <= row + distance; r++) {
+                for (int c = column - distance; c <= column + distance; c++) {
+                    if (values[findSlot(MoveList.pack(r, c))] == EMPTY) {
+                        moves.add(r, c);
+                    }
+                }
+            }
+        }
+        moves.sortAndRemoveDuplicates(start); // Positions near several marks were added more than once
+    }
+
+    public void collectPieces(Occupant occupant, MoveList pieces) {
+        byte value = occupant == Occupant.HUMAN ? HUMAN : BOT;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] == value) {
+                pieces.add(MoveList.getRow(keys[slot]), MoveList.getColumn(keys[slot]));
+            }
+        }
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getCanonicalSymmetry() {
+        return 0;
+    }
+
+    public BoardModel copy() {
+        return new SparseBoardModel(this);
+    }
+
+    /**
+     * Find the slot of a key with linear probing
+     * @param key Packed position
+     * @return Slot holding the key, or the free slot where it would be inserted
+     */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Remove a slot by shifting the following entries of the probe sequence backwards, so that no tombstones are needed
+     * @param slot Slot to remove
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (values[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) { // Entry may be moved to the free slot without breaking its' probe sequence
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[free] = EMPTY;
+    }
+
+    /**
+     * Double the size of the hash table
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new byte[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Mix the bits of a packed position, so that nearby positions spread over the table
+     * @param key Packed position
+     * @return Hash code
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package game.board.model;
+
+/**
+ * Symmetries (rotations and mirrors) of a board of fixed size. Positions that are mirror images or rotations of each other
+ * are the same position for the search, so they share the same canonical hash.
+ * Symmetries 0-3 (identity and mirrors) work on every board, 4-7 (transposes and rotations) only on square boards.
+ */
+public final class Symmetry {
+    /**
+     * Inverse of every symmetry, the quarter rotations (5 and 6) are each others' inverses and the rest are their own.
+     */
+    private static final int[] INVERSES = { 0, 1, 2, 3, 4, 6, 5, 7 };
+
+    /**
+     * Prevent instantiating by throwing exceptions if somehow tried.
+     */
+    private Symmetry() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Get the amount of symmetries of a board
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @return 8 for square boards, 4 otherwise
+     */
+    public static int getCount(int rows, int columns) {
+        return rows == columns ? 8 : 4;
+    }
+
+    /**
+     * Get the inverse of a symmetry
+     * @param symmetry Symmetry index
+     * @return Symmetry that undoes the given one
+     */
+    public static int getInverse(int symmetry) {
+        return INVERSES[symmetry];
+    }
+
+    /**
+     * Transform a position with a symmetry
+     * @param symmetry Symmetry index
+     * @param row Row index
+     * @param column Column index
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @return Transformed position, packed like in MoveList
+     */
+    public static long transform(int symmetry, int row, int column, int rows, int columns) {
+        int lastRow = rows - 1;
+        int lastColumn = columns - 1;
+        switch (symmetry) {
+            case 1: return MoveList.pack(row, lastColumn - column);
+            case 2: return MoveList.pack(lastRow - row, column);
+            case 3: return MoveList.pack(lastRow - row, lastColumn - column);
+            case 4: return MoveList.pack(column, row);
+            case 5: return MoveList.pack(column, lastRow - row);
+            case 6: return MoveList.pack(lastColumn - column, row);
+            case 7: return MoveList.pack(lastColumn - column, lastRow - row);
+            default: return MoveList.pack(row, column);
+        }
+    }
+
+    /**
+     * Turn a position of a board model to the canonical orientation of the model (the one its' hash is computed in)
+     * @param model Board model
+     * @param row Row index
+     * @param column Column index
+     * @return Position in the canonical orientation, packed like in MoveList
+     */
+    public static long toCanonical(BoardModel model, int row, int column) {
+        if (!model.isBounded()) return MoveList.pack(row, column); // Unbounded boards have no symmetries
+        return transform(model.getCanonicalSymmetry(), row, column, model.getRows(), model.getColumns());
+    }
+
+    /**
+     * Turn a position in the canonical orientation of a board model back to the orientation of the model
+     * @param model Board model
+     * @param row Row index in the canonical orientation
+     * @param column Column index in the canonical orientation
+     * @return Position on the model, packed like in MoveList
+     */
+    public static long fromCanonical(BoardModel model, int row, int column) {
+        if (!model.isBounded()) return MoveList.pack(row, column);
+        return transform(getInverse(model.getCanonicalSymmetry()), row, column, model.getRows(), model.getColumns());
+    }
+}
\ No newline at end of file
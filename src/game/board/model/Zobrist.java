@@ -0,0 +1,55 @@
+package game.board.model;
+
+import game.player.Occupant;
+
+/**
+ * Zobrist hash keys of the marks. The keys are computed from the position with a fixed mixing function instead of a random table,
+ * so they work on unbounded boards and stay the same between runs (hashes can be saved to files).
+ */
+public final class Zobrist {
+    /**
+     * Key XORed into the hash of a position when the bot is the one to move, so the same marks with a different side to move don't mix.
+     */
+    private static final long BOT_TO_MOVE_KEY = 0x6A09E667F3BCC909L;
+
+    /**
+     * Prevent instantiating by throwing exceptions if somehow tried.
+     */
+    private Zobrist() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Get the hash key of a mark
+     * @param row Row index of the mark
+     * @param column Column index of the mark
+     * @param occupant Occupant of the mark (HUMAN or BOT)
+     * @return Hash key, XOR it into the hash of the board when the mark is placed or removed
+     */
+    public static long getKey(int row, int column, Occupant occupant) {
+        long z = MoveList.pack(row, column) * 2 + (occupant == Occupant.BOT ? 1 : 0) + 0x9E3779B97F4A7C15L;
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Get the key of a position for tables of searched positions, the canonical hash of the marks combined with the side to move
+     * @param model Board model
+     * @param sideToMove Occupant to move next (HUMAN or BOT)
+     * @return Position key
+     */
+    public static long getPositionKey(BoardModel model, Occupant sideToMove) {
+        return model.getHash() ^ getSideToMoveKey(sideToMove);
+    }
+
+    /**
+     * Get the key of the side to move, XORed into the hash of the marks in position keys
+     * @param sideToMove Occupant to move next (HUMAN or BOT)
+     * @return Side to move key, 0 for the human
+     */
+    public static long getSideToMoveKey(Occupant sideToMove) {
+        return sideToMove == Occupant.BOT ? BOT_TO_MOVE_KEY : 0;
+    }
+}
\ No newline at end of file
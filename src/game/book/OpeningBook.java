@@ -0,0 +1,211 @@
+package game.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import game.board.Move;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.model.Symmetry;
+import game.board.model.Zobrist;
+import game.player.Occupant;
+
+/**
+ * Read only database of searched positions (position key -> best move and score), queried before searching.
+ * The book file is a header followed by fixed size records sorted by the position key, and it is memory mapped,
+ * so opening a book doesn't read it and a lookup is a binary search touching only a few pages of the file.
+ * Books are written by OpeningBookBuilder.
+ */
+public class OpeningBook {
+    /**
+     * First long of a book file.
+     */
+    static final long FILE_MAGIC = 0x424F4F4B54545401L;
+
+    /**
+     * Header: magic, rows, columns, win length, search depth and record count.
+     */
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * Record: position key (long), move row and column (short each) and score (int).
+     */
+    static final int RECORD_BYTES = 16;
+
+    /**
+     * System property of the directory the books are loaded from, "books" in the working directory by default.
+     */
+    public static final String BOOK_DIRECTORY_PROPERTY = "tictactoe.book.dir";
+
+    /**
+     * Books of the session, one per board size and win length. Missing books are stored as empty books so the file is looked for only once.
+     */
+    private static final Map<String, OpeningBook> sharedBooks = new ConcurrentHashMap<>();
+
+    private ByteBuffer records;
+    private int recordCount;
+    private int rows;
+    private int columns;
+    private int winLength;
+    private int depth;
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Get the search depth the moves of the book were searched with
+     * @return Search depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Create an empty book, used when there is no book file
+     */
+    private OpeningBook() {
+        records = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Open a book file
+     * @param file Book file
+     * @throws IOException If the file couldn't be mapped or isn't a book file
+     */
+    public OpeningBook(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid book size: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong(0) != FILE_MAGIC) {
+                throw new IOException("Not a book file: " + file);
+            }
+            rows = buffer.getInt(8);
+            columns = buffer.getInt(12);
+            winLength = buffer.getInt(16);
+            depth = buffer.getInt(20);
+            long count = buffer.getLong(24);
+            if (HEADER_BYTES + count * RECORD_BYTES != channel.size()) {
+                throw new IOException("Truncated book file: " + file);
+            }
+            recordCount = (int) count;
+            buffer.position(HEADER_BYTES);
+            records = buffer.slice();
+        }
+    }
+
+    /**
+     * Get the book of a board size and win length, loaded from the book directory the first time it is needed
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @return Shared book, empty if there is no book for the board
+     */
+    public static OpeningBook getShared(int rows, int columns, int winLength) {
+        return sharedBooks.computeIfAbsent(getFileName(rows, columns, winLength), OpeningBook::loadShared);
+    }
+
+    /**
+     * Get the file name of the book of a board size and win length
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @return File name
+     */
+    public static String getFileName(int rows, int columns, int winLength) {
+        return "book-" + rows + "x" + columns + "-" + winLength + ".bin";
+    }
+
+    /**
+     * Load a shared book from the book directory
+     * @param fileName File name of the book
+     * @return Loaded book, empty if the file doesn't exist or is invalid
+     */
+    private static OpeningBook loadShared(String fileName) {
+        Path file = Paths.get(System.getProperty(BOOK_DIRECTORY_PROPERTY, "books"), fileName);
+        if (Files.isRegularFile(file)) {
+            try {
+                return new OpeningBook(file);
+            } catch (IOException e) {
+                System.err.println("Couldn't open book " + file + ": " + e.getMessage());
+            }
+        }
+        return new OpeningBook();
+    }
+
+    /**
+     * Get the book move of a position
+     * @param model Current board
+     * @param side Occupant to move
+     * @return Book move on the board, invalid move if the position isn't in the book
+     */
+    public Move getMove(BoardModel model, Occupant side) {
+        int index = find(Zobrist.getPositionKey(model, side));
+        if (index < 0) {
+            return Move.invalid();
+        }
+        int offset = index * RECORD_BYTES;
+        long position = Symmetry.fromCanonical(model, records.getShort(offset + 8), records.getShort(offset + 10));
+        int row = MoveList.getRow(position);
+        int column = MoveList.getColumn(position);
+        if (!model.isInside(row, column) || model.getOccupant(row, column) != Occupant.NONE) {
+            return Move.invalid(); // Different position with the same key
+        }
+        return new Move(row, column);
+    }
+
+    /**
+     * Get the book score of a position
+     * @param model Current board
+     * @param side Occupant to move
+     * @param defaultScore Score returned if the position isn't in the book
+     * @return Score of the position (positive = good for the bot)
+     */
+    public int getScore(BoardModel model, Occupant side, int defaultScore) {
+        int index = find(Zobrist.getPositionKey(model, side));
+        return index < 0 ? defaultScore : records.getInt(index * RECORD_BYTES + 12);
+    }
+
+    /**
+     * Binary search a position key from the records
+     * @param key Position key
+     * @return Index of the record, -1 if not found
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = records.getLong(middle * RECORD_BYTES);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+package game.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.ai.DecisionMaker;
+import game.ai.TranspositionTable;
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.model.Symmetry;
+import game.board.model.Zobrist;
+import game.main.Game;
+import game.player.Occupant;
+import game.record.GameRecordReader;
+
+/**
+ * Command line tool writing an opening book. Every position reachable in the given amount of moves (with either side moving first)
+ * is searched once, positions that are rotations or mirrors of each other are searched only once.
+ * With --records only the positions of the first moves of recorded games (see GameRecordReader) are searched, so the book covers real play.
+ * Usage: --book [--rows N] [--columns N] [--win N] [--plies N] [--depth N] [--time MS] [--threads N] [--records FILE] [--output FILE]
+ */
+public class OpeningBookBuilder {
+    private int rows = Game.MIN_BOARD_SIZE;
+    private int columns = Game.MIN_BOARD_SIZE;
+    private int winLength = Game.MIN_WINNING_MARKS;
+    private int plies = 4;
+    private int depth = Game.MAX_AI_ACCURACY;
+    private long timeBudget;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path output;
+    private Path records;
+
+    /**
+     * Transposition table shared by all the searches, positions of the book overlap a lot deeper in the search.
+     */
+    private TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_BITS);
+
+    /**
+     * Position waiting to be searched.
+     */
+    private static class BookPosition {
+        private long key;
+        private BoardModel model;
+        private Occupant side;
+
+        private BookPosition(long key, BoardModel model, Occupant side) {
+            this.key = key;
+            this.model = model;
+            this.side = side;
+        }
+    }
+
+    /**
+     * Run the builder from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        try {
+            builder.parseArguments(args);
+            builder.build();
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Book search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--plies": plies = Integer.parseInt(value); break;
+                case "--depth": depth = Integer.parseInt(value); break;
+                case "--time": timeBudget = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--output": output = Paths.get(value); break;
+                case "--records": records = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (rows < 1 || columns < 1 || winLength > Math.max(rows, columns) || plies >= rows * columns) {
+            throw new IllegalArgumentException("Invalid board settings");
+        }
+        if (output == null) {
+            output = Paths.get(System.getProperty(OpeningBook.BOOK_DIRECTORY_PROPERTY, "books"), OpeningBook.getFileName(rows, columns, winLength));
+        }
+    }
+
+    /**
+     * Collect the positions, search them concurrently and write the book
+     * @throws IOException If the book couldn't be written
+     * @throws InterruptedException If interrupted while waiting for the searches
+     * @throws ExecutionException If a search threw an exception
+     */
+    private void build() throws IOException, InterruptedException, ExecutionException {
+        List<BookPosition> positions = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        BoardTester tester = new BoardTester(winLength);
+        if (records != null) {
+            collectRecordedPositions(seen, positions);
+        } else {
+            collectPositions(new BitBoardModel(rows, columns), Occupant.HUMAN, plies, tester, seen, positions);
+            collectPositions(new BitBoardModel(rows, columns), Occupant.BOT, plies, tester, seen, positions);
+        }
+        System.out.printf("Board %dx%d, win length %d, %d positions up to %d moves, depth %d, %d threads%n",
+            rows, columns, winLength, positions.size(), plies, depth, threads);
+        long[] keys = new long[positions.size()];
+        long[] data = new long[positions.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>(positions.size());
+            for (BookPosition position : positions) {
+                results.add(executor.submit(() -> searchPosition(position)));
+            }
+            for (int i = 0; i < positions.size(); i++) {
+                keys[i] = positions.get(i).key;
+                data[i] = results.get(i).get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        write(keys, data);
+        System.out.println("Wrote " + output);
+    }
+
+    /**
+     * Collect the unique (by canonical key) positions that aren't already decided, recursively up to the given amount of moves
+     * @param model Board to collect from, marks are placed and removed but it is left unchanged
+     * @param side Occupant to move
+     * @param movesLeft Moves still allowed from this position
+     * @param tester Board tester used to skip won positions
+     * @param seen Keys of the already collected positions
+     * @param positions Collected positions
+     */
+    private void collectPositions(BoardModel model, Occupant side, int movesLeft, BoardTester tester, Set<Long> seen, List<BookPosition> positions) {
+        long key = Zobrist.getPositionKey(model, side);
+        if (model.isFull() || !seen.add(key)) return;
+        positions.add(new BookPosition(key, model.copy(), side));
+        if (movesLeft == 0) return;
+        MoveList moves = new MoveList();
+        model.generateMoves(DecisionMaker.getAutomaticRadius(model), moves);
+        Occupant next = side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+        for (int i = 0; i < moves.size(); i++) {
+            int row = MoveList.getRow(moves.get(i));
+            int column = MoveList.getColumn(moves.get(i));
+            model.setOccupant(row, column, side);
+            if (!tester.hasWinner(model, side, row, column)) {
+                collectPositions(model, next, movesLeft - 1, tester, seen, positions);
+            }
+            model.setOccupant(row, column, Occupant.NONE);
+        }
+    }
+
+    /**
+     * Collect the unique positions before each of the first moves of the recorded games played on the same board
+     * @param seen Keys of the already collected positions
+     * @param positions Collected positions
+     * @throws IOException If the record file couldn't be read
+     */
+    private void collectRecordedPositions(Set<Long> seen, List<BookPosition> positions) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(records)) {
+            while (reader.next()) {
+                if (reader.getRows() != rows || reader.getColumns() != columns || reader.getWinLength() != winLength) continue;
+                BoardModel model = new BitBoardModel(rows, columns);
+                for (int i = 0; i < Math.min(plies + 1, reader.getMoveCount()); i++) {
+                    long key = Zobrist.getPositionKey(model, reader.getMover(i));
+                    if (seen.add(key)) {
+                        positions.add(new BookPosition(key, model.copy(), reader.getMover(i)));
+                    }
+                    model.setOccupant(reader.getMoveRow(i), reader.getMoveColumn(i), reader.getMover(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Search a book position, decision makers are not thread safe so every search creates its' own
+     * @param position Position to search
+     * @return Record data: move row, move column (canonical orientation) and score packed into a long
+     */
+    private long searchPosition(BookPosition position) {
+        DecisionMaker ai = new DecisionMaker(new BoardTester(winLength), depth);
+        ai.setTimeBudget(timeBudget);
+        ai.setTranspositionTable(transpositionTable);
+        Move move = ai.getBestMove(position.model, position.side);
+        long canonical = Symmetry.toCanonical(position.model, move.getRow(), move.getColumn());
+        return ((long) (MoveList.getRow(canonical) & 0xFFFF) << 48) | ((long) (MoveList.getColumn(canonical) & 0xFFFF) << 32)
+            | (ai.getBestScore() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write the book file, records sorted by the position key
+     * @param keys Position keys
+     * @param data Record data of the positions
+     * @throws IOException If the file couldn't be written
+     */
+    private void write(long[] keys, long[] data) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (OutputStream file = Files.newOutputStream(output); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeLong(OpeningBook.FILE_MAGIC);
+            out.writeInt(rows);
+            out.writeInt(columns);
+            out.writeInt(winLength);
+            out.writeInt(depth);
+            out.writeLong(keys.length);
+            for (int index : order) {
+                out.writeLong(keys[index]);
+                out.writeLong(data[index]); // Row and column shorts followed by the score int, in the same big endian order the book reads them
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -136,6 +136,6 @@ public class EndingDialog {
     private void disposeDialogAndCreateNewGame() {
         resultDialog.dispose();
         Utilities.bringWindowToFront(parentFrame);
-        game.createNewGameState(game.getBoard().getRowLength(), game.getBoard().getColumnLength());
+        game.createNewGameState(game.getBoard().getGeometry()); // Same geometry, so that a cube game is followed by a cube game
     }
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package game.dialogs;
 
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -16,6 +16,8 @@ import javax.swing.SwingConstants;
 import javax.swing.WindowConstants;
 import javax.swing.border.EmptyBorder;
 
+import game.ai.EngineWarmup;
+import game.board.model.BoardGeometry;
 import game.main.Game;
 
 /**
@@ -28,7 +30,13 @@ public class NewGameDialog {
     private JSlider rowSizeSlider;
     private JSlider columnSizeSlider;
     private JSlider winningMarksSlider;
-    private JSlider aiAccuracySlider;
+    private JSlider clockSlider;
+    private JSlider incrementSlider;
+
+    /**
+     * Play on the 4x4x4 cube (Qubic) instead of the board of the sliders.
+     */
+    private JCheckBox cubeCheckBox;
 
     /**
      * Create a new NewGameDialog popup.
@@ -46,16 +54,18 @@ public class NewGameDialog {
     private void initializeUI(Game game) {
         frame = new JFrame();
         frame.setTitle("New Game");
-        frame.setSize(new Dimension(265, 440));
+        frame.setSize(new Dimension(265, 500));
         frame.setLayout(new BoxLayout(frame.getContentPane(), BoxLayout.Y_AXIS));
         frame.setLocationRelativeTo(game.getFrame());
         frame.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
         frame.setResizable(false);
         createSizeSliders();
         createWinningMarksSlider();
-        createAiAccuracySlider();
+        createCubeCheckBox();
+        createClockSliders();
         createConfirmationButtonsPanel();
         frame.setVisible(true);
+        warmUpEngine();
     }
 
     /**
@@ -72,6 +82,7 @@ public class NewGameDialog {
         rowSizeSlider.addChangeListener(event -> onSizeSliderValueChanged());
         rowSizeSlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
         rowSizeSlider.setMajorTickSpacing(1);  
+        rowSizeSlider.setLabelTable(rowSizeSlider.createStandardLabels(2)); // Every other size, so that the labels fit
         rowSizeSlider.setPaintLabels(true);  
         frame.add(rowSizeSlider);
         JLabel boardSizeLabelColumn = new JLabel();
@@ -84,6 +95,7 @@ public class NewGameDialog {
         columnSizeSlider.addChangeListener(event -> onSizeSliderValueChanged());
         columnSizeSlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
         columnSizeSlider.setMajorTickSpacing(1);  
+        columnSizeSlider.setLabelTable(columnSizeSlider.createStandardLabels(2)); // Every other size, so that the labels fit
         columnSizeSlider.setPaintLabels(true);  
         frame.add(columnSizeSlider);
     }
@@ -99,6 +111,7 @@ public class NewGameDialog {
         winningMarksLabel.setText("Winning Marks");
         frame.add(winningMarksLabel);
         winningMarksSlider = new JSlider(SwingConstants.HORIZONTAL, Game.MIN_BOARD_SIZE, Game.MIN_BOARD_SIZE, Game.MIN_BOARD_SIZE);
+        winningMarksSlider.addChangeListener(event -> onWinningMarksSliderValueChanged());
         winningMarksSlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
         winningMarksSlider.setMajorTickSpacing(1);  
         winningMarksSlider.setPaintLabels(true);  
@@ -106,31 +119,53 @@ public class NewGameDialog {
     }
 
     /**
-     * Create a slider for setting the AI accuracy (depth of minimax).
+     * Create a check box for playing on the 4x4x4 cube instead, the cube has its' own size and win length so the sliders are disabled while it is checked.
+     */
+    private void createCubeCheckBox() {
+        cubeCheckBox = new JCheckBox("3D board (4x4x4)");
+        cubeCheckBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cubeCheckBox.setBorder(new EmptyBorder(3, 3, 3, 3));
+        cubeCheckBox.setFont(new Font(null, Font.BOLD, 15));
+        cubeCheckBox.addActionListener(event -> onCubeCheckBoxChanged());
+        frame.add(cubeCheckBox);
+    }
+
+    /**
+     * Create the sliders for setting the bot clock (time for the whole game and time added after every move).
      */
-    private void createAiAccuracySlider() {
-        JLabel aiAccuracyLabel = new JLabel();
-        aiAccuracyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        aiAccuracyLabel.setBorder(new EmptyBorder(3, 3, 3, 3));
-        aiAccuracyLabel.setFont(new Font(null, Font.BOLD, 15));
-        aiAccuracyLabel.setText("AI Accuracy");
-        frame.add(aiAccuracyLabel);
-        aiAccuracySlider = new JSlider(SwingConstants.HORIZONTAL, Game.MIN_AI_ACCURACY, Game.MAX_AI_ACCURACY, Game.MIN_AI_ACCURACY);
-        aiAccuracySlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
-        aiAccuracySlider.setMajorTickSpacing(1);  
-        aiAccuracySlider.setPaintLabels(true);  
-        frame.add(aiAccuracySlider);
-        JTextArea aiAccuracyWarning = new JTextArea();
-        aiAccuracyWarning.setEditable(false);
-        aiAccuracyWarning.setLineWrap(true);
-        aiAccuracyWarning.setWrapStyleWord(true);
-        aiAccuracyWarning.setAlignmentX(Component.CENTER_ALIGNMENT);
-        aiAccuracyWarning.setBorder(new EmptyBorder(4, 4, 4, 4));
-        aiAccuracyWarning.setForeground(Color.RED);
-        aiAccuracyWarning.setFont(new Font(null, Font.BOLD, 12));
-        aiAccuracyWarning.setText("WARNING! With big a board size and a high accuracy, it might take a long time for the enemy bot to finish processing its' move." 
-                                + " Prefer small size with high accuracy and vice-versa.");
-        frame.add(aiAccuracyWarning);
+    private void createClockSliders() {
+        JLabel clockLabel = new JLabel();
+        clockLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        clockLabel.setBorder(new EmptyBorder(3, 3, 3, 3));
+        clockLabel.setFont(new Font(null, Font.BOLD, 15));
+        clockLabel.setText("Bot Clock (minutes)");
+        frame.add(clockLabel);
+        clockSlider = new JSlider(SwingConstants.HORIZONTAL, Game.MIN_CLOCK_MINUTES, Game.MAX_CLOCK_MINUTES, Game.MIN_CLOCK_MINUTES);
+        clockSlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
+        clockSlider.setMajorTickSpacing(1);  
+        clockSlider.setPaintLabels(true);  
+        frame.add(clockSlider);
+        JLabel incrementLabel = new JLabel();
+        incrementLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        incrementLabel.setBorder(new EmptyBorder(3, 3, 3, 3));
+        incrementLabel.setFont(new Font(null, Font.BOLD, 15));
+        incrementLabel.setText("Increment (seconds)");
+        frame.add(incrementLabel);
+        incrementSlider = new JSlider(SwingConstants.HORIZONTAL, 0, Game.MAX_INCREMENT_SECONDS, 0);
+        incrementSlider.setBorder(new EmptyBorder(5, 5, 5, 5));  
+        incrementSlider.setMajorTickSpacing(1);  
+        incrementSlider.setLabelTable(incrementSlider.createStandardLabels(2)); // Every other value, so that the labels fit
+        incrementSlider.setPaintLabels(true);  
+        frame.add(incrementSlider);
+        JTextArea clockInfo = new JTextArea();
+        clockInfo.setEditable(false);
+        clockInfo.setLineWrap(true);
+        clockInfo.setWrapStyleWord(true);
+        clockInfo.setAlignmentX(Component.CENTER_ALIGNMENT);
+        clockInfo.setBorder(new EmptyBorder(4, 4, 4, 4));
+        clockInfo.setFont(new Font(null, Font.BOLD, 12));
+        clockInfo.setText("The bot divides its' clock between its' moves: obvious moves are fast, hard ones get more time.");
+        frame.add(clockInfo);
     }
 
     /**
@@ -154,6 +189,47 @@ public class NewGameDialog {
      */
     private void onSizeSliderValueChanged() {
         updateWinningMarksSlider();
+        if (!rowSizeSlider.getValueIsAdjusting() && !columnSizeSlider.getValueIsAdjusting()) {
+            warmUpEngine();
+        }
+    }
+
+    /**
+     * Called when the winning marks slider had its' value changed.
+     */
+    private void onWinningMarksSliderValueChanged() {
+        if (!winningMarksSlider.getValueIsAdjusting()) {
+            warmUpEngine();
+        }
+    }
+
+    /**
+     * Called when the cube check box is checked or unchecked.
+     */
+    private void onCubeCheckBoxChanged() {
+        boolean planar = !cubeCheckBox.isSelected();
+        rowSizeSlider.setEnabled(planar);
+        columnSizeSlider.setEnabled(planar);
+        winningMarksSlider.setEnabled(planar);
+        warmUpEngine();
+    }
+
+    /**
+     * Warm up the engine for the board of the current settings while the dialog is open, so that the first bot move of the game is fast.
+     */
+    private void warmUpEngine() {
+        EngineWarmup.start(getGeometry());
+    }
+
+    /**
+     * Get the geometry of the board of the current settings
+     * @return The cube if it is checked, otherwise the planar board of the slider values
+     */
+    private BoardGeometry getGeometry() {
+        if (cubeCheckBox.isSelected()) {
+            return BoardGeometry.cube(BoardGeometry.QUBIC_SIZE);
+        }
+        return BoardGeometry.plane(rowSizeSlider.getValue(), columnSizeSlider.getValue(), winningMarksSlider.getValue());
     }
 
     /**
@@ -179,10 +255,12 @@ public class NewGameDialog {
      * Create and activate a new game.
      */
     private void createNewGame() {
-        game.setCanPlaceMarks(true); // Enable mark placing for the player
-        Game.setWinLength(winningMarksSlider.getValue()); // Set winning marks length
-        Game.setAiAccuracy(aiAccuracySlider.getValue()); // Set ai accuracy
-        game.createNewGameState(rowSizeSlider.getValue(), columnSizeSlider.getValue()); // Create a new game from current row and column slider values
+        BoardGeometry geometry = getGeometry();
+        Game.setWinLength(geometry.getWinLength()); // Set winning marks length
+        Game.setClockMillis(clockSlider.getValue() * 60_000L); // Set bot clock
+        Game.setIncrementMillis(incrementSlider.getValue() * 1000L);
+        game.createNewGameState(geometry); // Create a new game from the current settings
+        game.setCanPlaceMarks(true); // Enable mark placing for the player, after the new board is created so the analysis starts on it
     }
 
     /**
@@ -199,4 +277,4 @@ public class NewGameDialog {
         game.getFrame().setEnabled(true);
         frame.dispose();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,20 +1,44 @@
 package game.labels;
 
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.util.Objects;
 
 import javax.swing.JLabel;
 
 /**
- * Represents a JLabel object that can be rotated.
+ * Represents a JLabel object that can be rotated. The rotated text is rendered once into an image, and repaints only draw the image
+ * until the text, font, color, size or screen scale of the label changes.
  */
 public class RotatableJLabel extends JLabel {
     private static final long serialVersionUID = 1L;
     private double rotation;
 
+    /**
+     * Rendered label and what it was rendered with, null until the first paint.
+     */
+    private transient BufferedImage rendered;
+    private String renderedText;
+    private Font renderedFont;
+    private Color renderedColor;
+    private double renderedScaleX;
+    private double renderedScaleY;
+    private int renderedWidth;
+    private int renderedHeight;
+
+    /**
+     * Position of the image on the label, the image is cropped to the text.
+     */
+    private int renderedX;
+    private int renderedY;
+
     /**
      * New rotatable JLabel, with text, font and rotation applied
      * @param text String of text to be displayed on this JLabel
@@ -34,11 +58,90 @@ public class RotatableJLabel extends JLabel {
 
     @Override
     /**
-     * Display the component using an inherited paint method, rotation itself also handled here
+     * Display the component from the rendered image, rendering it first if anything it depends on has changed
      */
     public void paintComponent(Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
-        g2.rotate(rotation, getX() + (double)getWidth() / 2, getY() + (double)getHeight() / 2);
-        super.paintComponent(g);
+        AffineTransform transform = g2.getTransform();
+        double scaleX = transform.getScaleX(); // Rendered at the pixel size of the screen, so that the text stays sharp on scaled displays
+        double scaleY = transform.getScaleY();
+        if (rendered == null || getWidth() != renderedWidth || getHeight() != renderedHeight
+            || !Objects.equals(getText(), renderedText) || !Objects.equals(getFont(), renderedFont) || !Objects.equals(getForeground(), renderedColor)
+            || scaleX != renderedScaleX || scaleY != renderedScaleY) {
+            render(g2, scaleX, scaleY);
+        }
+        g2.drawImage(rendered, renderedX, renderedY, renderedX + (int) Math.ceil(rendered.getWidth() / scaleX),
+            renderedY + (int) Math.ceil(rendered.getHeight() / scaleY), 0, 0, rendered.getWidth(), rendered.getHeight(), null);
+    }
+
+    /**
+     * Render the rotated label into the image, rotation itself also handled here
+     * @param g Graphics context of the paint, for its' rendering hints
+     * @param scaleX Horizontal scale of the screen
+     * @param scaleY Vertical scale of the screen
+     */
+    private void render(Graphics2D g, double scaleX, double scaleY) {
+        rendered = new BufferedImage(getImageSize(getWidth(), scaleX), getImageSize(getHeight(), scaleY), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D imageGraphics = rendered.createGraphics();
+        imageGraphics.setRenderingHints(g.getRenderingHints()); // Same text antialiasing as painting straight to the screen
+        imageGraphics.setFont(getFont()); // Set by Swing on the graphics of the paint, but not on the graphics of an image
+        imageGraphics.setColor(getForeground());
+        imageGraphics.scale(scaleX, scaleY);
+        imageGraphics.setClip(0, 0, getWidth(), getHeight());
+        imageGraphics.rotate(rotation, getX() + (double)getWidth() / 2, getY() + (double)getHeight() / 2);
+        super.paintComponent(imageGraphics);
+        imageGraphics.dispose();
+        cropToText(scaleX, scaleY);
+        renderedText = getText();
+        renderedFont = getFont();
+        renderedColor = getForeground();
+        renderedScaleX = scaleX;
+        renderedScaleY = scaleY;
+        renderedWidth = getWidth();
+        renderedHeight = getHeight();
+    }
+
+    /**
+     * Crop the rendered image to the pixels the text covers, most of a rotated label is empty and drawing it would only blend transparent pixels
+     * @param scaleX Horizontal scale of the screen
+     * @param scaleY Vertical scale of the screen
+     */
+    private void cropToText(double scaleX, double scaleY) {
+        int minX = rendered.getWidth();
+        int minY = rendered.getHeight();
+        int maxX = -1;
+        int maxY = -1;
+        int width = rendered.getWidth();
+        int[] pixels = ((DataBufferInt) rendered.getRaster().getDataBuffer()).getData(); // Read straight from the image, getRGB converts every pixel
+        for (int y = 0; y < rendered.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                if ((pixels[y * width + x] >>> 24) != 0) {
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) { // Nothing to draw, keep a single transparent pixel
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        // Start at a whole pixel of the label, so that the image lands on the same screen pixels it was rendered for
+        minX = (int) (Math.floor(minX / scaleX) * scaleX);
+        minY = (int) (Math.floor(minY / scaleY) * scaleY);
+        BufferedImage cropped = new BufferedImage(maxX - minX + 1, maxY - minY + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = cropped.createGraphics();
+        g.drawImage(rendered, -minX, -minY, null);
+        g.dispose();
+        rendered = cropped;
+        renderedX = (int) Math.round(minX / scaleX);
+        renderedY = (int) Math.round(minY / scaleY);
+    }
+
+    private static int getImageSize(int size, double scale) {
+        return Math.max(1, (int) Math.ceil(size * scale));
     }
 }
\ No newline at end of file
@@ -5,26 +5,33 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Component;
+import java.awt.EventQueue;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JToggleButton;
 import javax.swing.SwingConstants;
-import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 import javax.swing.border.EmptyBorder;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 
+import game.ai.EngineWarmup;
+import game.analysis.AnalysisWorker;
 import game.board.Board;
+import game.board.model.BoardGeometry;
 import game.dialogs.NewGameDialog;
 import game.labels.RotatableJLabel;
 import game.player.Bot;
 import game.player.Human;
 import game.player.Player;
+import game.record.GameRecordWriter;
+import game.utils.StartupTimer;
 import game.utils.Utilities;
 
 /**
@@ -35,7 +42,7 @@ public class Game {
      * Minimum and maximum board sizes (includes both row and column).
      */
     public static final int MIN_BOARD_SIZE = 3;
-    public static final int MAX_BOARD_SIZE = 10;
+    public static final int MAX_BOARD_SIZE = 19;
 
     /**
      * Minimum and maximum consecutive marks needed for a win.
@@ -45,10 +52,18 @@ public class Game {
 
     /**
      * Minimum and maximum AI accuracy, in other words the depth of minimax (lower = less accurate, faster; higher = more accurate, slower).
+     * The bot of the UI plays on a clock instead, the depths are used by the analysis and the command line tools.
      */
     public static final int MIN_AI_ACCURACY = 2;
     public static final int MAX_AI_ACCURACY = 10;
 
+    /**
+     * Minimum and maximum time on the bot clock at the start of a game (minutes), and maximum increment per move (seconds).
+     */
+    public static final int MIN_CLOCK_MINUTES = 1;
+    public static final int MAX_CLOCK_MINUTES = 10;
+    public static final int MAX_INCREMENT_SECONDS = 10;
+
     /**
      * Path to the logo in local resources.
      */
@@ -67,14 +82,21 @@ public class Game {
     }
 
     /**
-     * Currently used AI accuracy as used by the current game instance
+     * Bot clock as used by the current game instance, time at the start of the game and the time added after every bot move.
      */
-    private static int aiAccuracy;
-    public static int getAiAccuracy() {
-        return aiAccuracy;
+    private static long clockMillis = MIN_CLOCK_MINUTES * 60_000L;
+    private static long incrementMillis;
+    public static long getClockMillis() {
+        return clockMillis;
+    }
+    public static void setClockMillis(long millis) {
+        clockMillis = millis;
+    }
+    public static long getIncrementMillis() {
+        return incrementMillis;
     }
-    public static void setAiAccuracy(int value) {
-        aiAccuracy = value;
+    public static void setIncrementMillis(long millis) {
+        incrementMillis = millis;
     }
 
     private JFrame frame;
@@ -84,7 +106,7 @@ public class Game {
     private JLabel humanScoreLabel;
     private int humanScore;
 
-    private Player bot;
+    private Bot bot;
     private JLabel botScoreLabel;
     private int botScore;
 
@@ -93,6 +115,17 @@ public class Game {
     
     private JLabel botMovingText;
 
+    /**
+     * Writer of the game records of this session, opened in the background while the UI is built (null if recording is disabled).
+     */
+    private CompletableFuture<GameRecordWriter> recordWriter;
+
+    /**
+     * Analysis overlay toggle, and the analysis of the current turn (null when not analysing).
+     */
+    private JToggleButton analysisButton;
+    private AnalysisWorker analysisWorker;
+
     /**
      * When canPlaceMarks = false, new marks cannot be set on the board.
      */
@@ -106,6 +139,15 @@ public class Game {
         return board;
     }
 
+    /**
+     * Get the writer of the game records
+     * @return Record writer, null if recording is disabled or the board isn't planar (the record format only knows planar boards)
+     */
+    public GameRecordWriter getRecordWriter() {
+        if (board != null && !board.getGeometry().isPlanar()) return null;
+        return recordWriter.join();
+    }
+
     public Player getHuman() {
         return human;
     }
@@ -118,7 +160,7 @@ public class Game {
         humanScoreLabel.setText("Human Score: " + humanScore);
     }
 
-    public Player getBot() {
+    public Bot getBot() {
         return bot;
     }
 
@@ -144,6 +186,31 @@ public class Game {
 
     public void setCanPlaceMarks(boolean value) {
         canPlaceMarks = value;
+        updateAnalysis(); // Analyse only while it's the human's turn
+    }
+
+    /**
+     * Restart the analysis overlay for the current board, if it is enabled and it's the human's turn
+     */
+    public void updateAnalysis() {
+        stopAnalysis();
+        if (analysisButton != null && analysisButton.isSelected() && canPlaceMarks && board != null && AnalysisWorker.canAnalyse(board)) {
+            analysisWorker = new AnalysisWorker(this);
+            analysisWorker.execute();
+        }
+    }
+
+    /**
+     * Stop the analysis of the current turn and remove the overlay
+     */
+    public void stopAnalysis() {
+        if (analysisWorker != null) {
+            analysisWorker.stop();
+            analysisWorker = null;
+        }
+        if (board != null) {
+            board.getComponent().clearAnalysis();
+        }
     }
 
     /**
@@ -155,6 +222,7 @@ public class Game {
     }
 
     public Game() {
+        recordWriter = CompletableFuture.supplyAsync(GameRecordWriter::openDefault);
         initializeUI();
     }
 
@@ -163,7 +231,8 @@ public class Game {
      */
     private void initializeUI() {
         frame = new JFrame();
-        frame.setIconImage(Utilities.getImage(LOCAL_LOGO_ICON_PATH, 32, 32, this));
+        Utilities.getImageAsync(LOCAL_LOGO_ICON_PATH, 32, 32, this) // The default icon is shown until the logo has been scaled
+            .thenAccept(icon -> EventQueue.invokeLater(() -> frame.setIconImage(icon)));
         frame.setTitle("Tic-Tac-Toe by Santeri Suomi");
         frame.setSize(new Dimension(750, 750));
         frame.setLayout(new BorderLayout());
@@ -173,6 +242,9 @@ public class Game {
         createHeaderPanel();
         createSidePanels();
         createFooterPanel();
+        StartupTimer.mark("UI built");
+        // The warm-up would compete with the startup for the cores, so it waits until the frame is up
+        StartupTimer.onFirstFrame(frame, () -> EngineWarmup.start(MIN_BOARD_SIZE, MIN_BOARD_SIZE, MIN_WINNING_MARKS)); // Board of the new game dialog
         frame.setVisible(true);
     }
 
@@ -199,6 +271,13 @@ public class Game {
         newGameButton.addActionListener(event -> onNewGameButtonPressed());
         newGameButton.setPreferredSize(new Dimension(140, 70));
         newGameButton.setFont(new Font(null, Font.PLAIN, 25));
+        analysisButton = new JToggleButton();
+        analysisButton.setFocusable(false);
+        analysisButton.setText("Analysis");
+        analysisButton.setToolTipText("Shade the empty pieces by how good a move there is for the human");
+        analysisButton.addActionListener(event -> updateAnalysis());
+        analysisButton.setPreferredSize(new Dimension(140, 70));
+        analysisButton.setFont(new Font(null, Font.PLAIN, 25));
         botMovingText = new JLabel();
         botMovingText.setVerticalAlignment(SwingConstants.CENTER);
         botMovingText.setText("Bot move processing...");
@@ -209,6 +288,8 @@ public class Game {
         headerPanel.add(endGameButton);
         headerPanel.add(Box.createRigidArea(new Dimension(10, 0)));
         headerPanel.add(newGameButton);
+        headerPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+        headerPanel.add(analysisButton);
         headerPanel.add(Box.createRigidArea(new Dimension(50, 0)));
         headerPanel.add(botMovingText);
         frame.add(headerPanel, BorderLayout.NORTH);
@@ -297,13 +378,33 @@ public class Game {
      * @param column Board column size
      */
     public void createNewGameState(int row, int column) {
+        createNewGameState(BoardGeometry.plane(row, column, winLength));
+    }
+
+    /**
+     * Creates a brand new game state on a board of the given geometry (e.g the 4x4x4 cube). Removes game state currently active.
+     * @param geometry Board geometry, its' win length is used as the win length of the game
+     */
+    public void createNewGameState(BoardGeometry geometry) {
+        stopAnalysis();
+        winLength = geometry.getWinLength();
         if (board != null) {
-            frame.remove(board.getPanel());
+            frame.remove(board.getComponent());
+            if (board.getRowLength() != geometry.getRows() || board.getColumnLength() != geometry.getColumns()
+                || board.getGeometry().getLayers() != geometry.getLayers()) {
+                Utilities.clearImageCache(); // Pieces get a new size, scaled marks of the old size are not needed anymore
+            }
         }
-        board = new Board(row, column, this);
+        board = new Board(geometry, this);
         human = new Human(this);
         bot = new Bot(this);
-        frame.add(board.getPanel(), BorderLayout.CENTER);
-        SwingUtilities.updateComponentTreeUI(frame); // Make sure UI components get updated
+        GameRecordWriter writer = getRecordWriter(); // Null on the cube, cube games aren't recorded
+        if (writer != null) {
+            writer.startGame(geometry.getRows(), geometry.getColumns(), winLength); // A game that was still being played is recorded as unfinished
+        }
+        frame.add(board.getComponent(), BorderLayout.CENTER);
+        frame.revalidate(); // Lay out the new board component
+        frame.repaint();
+        updateAnalysis();
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package game.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global budget of the memory allocated outside of the heap for the large tables of the engine (see OffHeapLongArray),
+ * shared by all the tables of the session so that several engines or board sizes together stay within the limit.
+ * The limit is 512 MB by default, or the amount of megabytes given with the system property tictactoe.memory.mb.
+ */
+public final class MemoryBudget {
+    /**
+     * System property of the budget in megabytes.
+     */
+    public static final String BUDGET_PROPERTY = "tictactoe.memory.mb";
+
+    /**
+     * Default budget in megabytes.
+     */
+    public static final long DEFAULT_BUDGET_MB = 512;
+
+    private static final AtomicLong reserved = new AtomicLong();
+    private static volatile long limit = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) << 20;
+
+    private MemoryBudget() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Get the budget
+     * @return Limit in bytes
+     */
+    public static long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Set the budget. Memory already reserved isn't released, so a smaller limit applies to tables allocated or resized after this
+     * @param bytes Limit in bytes
+     */
+    public static void setLimit(long bytes) {
+        limit = Math.max(0, bytes);
+    }
+
+    /**
+     * Get the memory reserved by the tables
+     * @return Reserved bytes
+     */
+    public static long getReserved() {
+        return reserved.get();
+    }
+
+    /**
+     * Get the memory left in the budget
+     * @return Available bytes, 0 if the budget has been exceeded by lowering the limit
+     */
+    public static long getAvailable() {
+        return Math.max(0, limit - reserved.get());
+    }
+
+    /**
+     * Reserve memory from the budget
+     * @param bytes Amount to reserve
+     * @return True if the memory was reserved, false if it would exceed the budget
+     */
+    public static boolean tryReserve(long bytes) {
+        long current;
+        do {
+            current = reserved.get();
+            if (current + bytes > limit) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    /**
+     * Return memory to the budget
+     * @param bytes Amount reserved earlier
+     */
+    public static void release(long bytes) {
+        reserved.addAndGet(-bytes);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package game.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.stream.IntStream;
+
+/**
+ * Array of longs stored outside of the heap, either in direct buffers or memory mapped from a file, and reserved from the MemoryBudget.
+ * Large tables kept here are never scanned or moved by the garbage collector, so they don't lengthen the pauses of the UI thread.
+ * The array is split into chunks of 2^27 longs (1 GB), because a single buffer can't be larger than 2 GB.
+ * Like the buffers it is made of, the array isn't synchronized: concurrent writes of the same index may be lost but never tear a long.
+ */
+public class OffHeapLongArray {
+    /**
+     * Size of a chunk as a power of two longs.
+     */
+    private static final int CHUNK_BITS = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    /**
+     * Longs zeroed by one task of clear, small enough to spread a large array over all the cores.
+     */
+    private static final int CLEAR_BLOCK = 1 << 17;
+
+    /**
+     * Zeros copied into the array by clear, one block at a time.
+     */
+    private static final long[] ZEROS = new long[CLEAR_BLOCK];
+
+    private LongBuffer[] chunks;
+    private long length;
+
+    /**
+     * Allocate a zeroed array in direct buffers
+     * @param length Amount of longs
+     * @throws IllegalStateException If the array doesn't fit in the memory budget
+     */
+    public OffHeapLongArray(long length) {
+        reserve(length);
+        this.length = length;
+        chunks = new LongBuffer[getChunkCount(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(getChunkLength(i) * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    /**
+     * Map an array from a file, the contents of the file are kept (the file must already be long enough)
+     * @param channel Channel of the file, opened for reading and writing (the mapping stays valid after it is closed)
+     * @param position Byte position of the first long in the file
+     * @param length Amount of longs
+     * @throws IOException If the file couldn't be mapped
+     * @throws IllegalStateException If the array doesn't fit in the memory budget
+     */
+    public OffHeapLongArray(FileChannel channel, long position, long length) throws IOException {
+        reserve(length);
+        try {
+            chunks = new LongBuffer[getChunkCount(length)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = position + ((long) i << CHUNK_BITS) * Long.BYTES;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, getChunkLength(i, length) * (long) Long.BYTES).asLongBuffer();
+            }
+        } catch (IOException e) {
+            MemoryBudget.release(length * Long.BYTES);
+            throw e;
+        }
+        this.length = length;
+    }
+
+    /**
+     * Reserve the memory of an array from the budget
+     * @param length Amount of longs
+     * @throws IllegalStateException If the array doesn't fit in the budget
+     */
+    private static void reserve(long length) {
+        if (!MemoryBudget.tryReserve(length * Long.BYTES)) {
+            throw new IllegalStateException("Memory budget exceeded: " + (length * Long.BYTES >> 20) + " MB requested, "
+                + (MemoryBudget.getAvailable() >> 20) + " MB available");
+        }
+    }
+
+    private static int getChunkCount(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_BITS);
+    }
+
+    private int getChunkLength(int chunk) {
+        return getChunkLength(chunk, length);
+    }
+
+    private static int getChunkLength(int chunk, long length) {
+        return (int) Math.min(1L << CHUNK_BITS, length - ((long) chunk << CHUNK_BITS));
+    }
+
+    /**
+     * Get the amount of longs in the array
+     * @return Length, 0 after free
+     */
+    public long length() {
+        return length;
+    }
+
+    public long get(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    public void set(long index, long value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    /**
+     * Set all the longs to 0. The array is zeroed in blocks on all the cores, so clearing a table of gigabytes between games takes a fraction of a second
+     */
+    public void clear() {
+        int blocksPerChunk = (1 << CHUNK_BITS) / CLEAR_BLOCK;
+        int blocks = (int) ((length + CLEAR_BLOCK - 1) / CLEAR_BLOCK);
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            LongBuffer chunk = chunks[block / blocksPerChunk].duplicate(); // Own position for the bulk put
+            int start = (block % blocksPerChunk) * CLEAR_BLOCK;
+            chunk.position(start);
+            chunk.put(ZEROS, 0, Math.min(CLEAR_BLOCK, chunk.limit() - start));
+        });
+    }
+
+    /**
+     * Return the memory of the array to the budget. The buffers are released by the garbage collector once they are no longer referenced,
+     * the array can't be used after this
+     */
+    public void free() {
+        if (chunks != null) {
+            MemoryBudget.release(length * Long.BYTES);
+            chunks = null;
+            length = 0;
+        }
+    }
+}
\ No newline at end of file
@@ -2,9 +2,18 @@ package game.player;
 
 import game.main.Game;
 import game.ai.DecisionMaker;
+import game.ai.EngineWarmup;
+import game.ai.NTupleNetwork;
+import game.ai.TimeManager;
+import game.ai.TranspositionTable;
+import game.book.OpeningBook;
 import game.board.BoardPiece;
 import game.board.BoardTester;
 import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardModel;
+import game.record.GameRecordWriter;
 
 /**
  * Player object that represents the bot (AI) player.
@@ -19,26 +28,98 @@ public class Bot implements Player {
     private DecisionMaker ai; 
 
     /**
-     * Create a new bot player instance. Creates a new instance of BoardTester for move testing and a new instance of minimax for decision making
+     * Opening book of the current board size and win length, empty if there is no book file for it (null on non-planar boards, the books are planar)
+     */
+    private OpeningBook book;
+
+    /**
+     * Was the last move found searched (false = forced or book move), and the time it took. Written on the search thread by getMove and
+     * read on the UI thread by applyMove, after the worker that ran getMove has finished
+     */
+    private boolean searched;
+    private long moveNanos;
+
+    /**
+     * Create a new bot player instance. Creates a new instance of BoardTester for move testing and a new instance of minimax for decision making,
+     * which shares the table of searched positions with every other bot of the same board geometry and evaluation. Only planar boards have opening books and networks
      * @param game Main game instance
      */
     public Bot(Game game) {
         this.game = game;
+        BoardGeometry geometry = game.getBoard().getGeometry();
         tester = new BoardTester(game);
         ai = new DecisionMaker(game, tester);
+        ai.setTimeManager(new TimeManager(Game.getClockMillis(), Game.getIncrementMillis())); // Every game starts with a full clock
+        ai.setMaxDepth(TimeManager.MAX_DEPTH);
+        ai.setLateMoveReductions(true); // Reach useful depths on big boards in the time of a move
+        ai.setFutilityPruning(true);
+        ai.setThreads(Runtime.getRuntime().availableProcessors()); // Root moves are split over all the cores
+        if (geometry.isPlanar()) {
+            ai.setNetwork(NTupleNetwork.getShared(Game.getWinLength())); // Null (the heuristic) if no network has been trained for the win length
+            book = OpeningBook.getShared(game.getBoard().getRowLength(), game.getBoard().getColumnLength(), Game.getWinLength());
+        }
+        ai.setTranspositionTable(TranspositionTable.getShared(geometry, ai.getEvaluationKey())); // After the evaluation is set up
     }
 
     /**
-     * Handle the bot move, first gets the best move from the decision maker after which it sets it on the main board
+     * Handle the bot move on the calling thread, finds the move (see getMove) and sets it on the main board (see applyMove)
      * @param piece This parameter is not currently in use by the bot object!
      */
     @Override
     public int move(BoardPiece piece) {
-        Move move = ai.getBestMove(); // Get the best move from the minimax decision maker algorithm
+        return applyMove(getMove());
+    }
+
+    /**
+     * Find the bot move, first checks for a forced move, then gets the best move from the opening book or the decision maker.
+     * Can be called outside the UI thread, the board is only read through its' latest snapshot and isn't changed
+     * @return Move found, invalid if there is no move
+     */
+    public Move getMove() {
+        EngineWarmup.stop(); // The search needs all the cores
+        long start = System.nanoTime();
+        BoardModel model = new BitBoardModel(game.getBoard().getSnapshot());
+        Move move = ai.getForcedMove(model, Occupant.BOT); // Wins, single blocks and last moves are played without a search
+        if (!move.isValid() && book != null && book.getRecordCount() > 0) { // Book moves are instant, only search positions that aren't in the book
+            move = book.getMove(model, Occupant.BOT);
+        }
+        searched = !move.isValid();
+        if (searched) {
+            move = ai.getBestMove(); // Get the best move from the minimax decision maker algorithm
+        }
+        moveNanos = System.nanoTime() - start;
+        return move;
+    }
+
+    /**
+     * Set a move found by getMove on the main board and test its' result, must be called on the UI thread
+     * @param move Move to set
+     * @return Move result (0 = tie, 1 = win, -1 = no win and no tie, also if the move isn't valid)
+     */
+    public int applyMove(Move move) {
         if (move.isValid()) { // If the move is valid
             BoardPiece movePiece = game.getBoard().setPieceOccupant(move.getRow(), move.getColumn(), Occupant.BOT); // Set the given best move  on the actual game board
-            return tester.getMoveResult(movePiece); // Return result
+            int result = tester.getMoveResult(movePiece);
+            recordMove(move, result, searched, moveNanos);
+            return result; // Return result
         }
         return -1; // If move wasn't valid, automatically return -1 (no result)
     }
+
+    /**
+     * Record the move and the stats of the search that found it, forced and book moves are recorded with depth 0
+     * @param move Move made
+     * @param result Result of the move
+     * @param searched Was the move searched (false = forced or book move)
+     * @param nanos Time used for the move
+     */
+    private void recordMove(Move move, int result, boolean searched, long nanos) {
+        GameRecordWriter recordWriter = game.getRecordWriter();
+        if (recordWriter == null) return;
+        recordWriter.recordMove(move.getRow(), move.getColumn(), Occupant.BOT, searched ? ai.getCompletedDepth() : 0,
+            searched ? ai.getBestScore() : 0, searched ? ai.getNodes() : 0, nanos / 1000);
+        if (result != -1) { // Win or tie ends the game
+            recordWriter.endGame(result == 1 ? Occupant.BOT : Occupant.NONE);
+        }
+    }
 }
\ No newline at end of file
@@ -3,18 +3,21 @@ package game.player;
 import game.main.Game;
 import game.board.BoardPiece;
 import game.board.BoardTester;
+import game.record.GameRecordWriter;
 
 /**
  * Player object that represents the human player.
  */
 public class Human implements Player {
+    private Game game;
     private BoardTester tester;
 
     /**
      * Create a new human player instance
-     * @param game Human doesn't need access to the game instance
+     * @param game Main game instance, used for recording the moves
      */
     public Human(Game game) {
+        this.game = game;
         tester = new BoardTester(game);
     }
 
@@ -25,6 +28,14 @@ public class Human implements Player {
     @Override
     public int move(BoardPiece piece) {
         piece.setOccupant(Occupant.HUMAN); // Set the piece mark.
-        return tester.getMoveResult(piece); // Return the result of the move to using a board tester
+        int result = tester.getMoveResult(piece); // Get the result of the move using a board tester
+        GameRecordWriter recordWriter = game.getRecordWriter();
+        if (recordWriter != null) {
+            recordWriter.recordMove(piece.getRow(), piece.getColumn(), Occupant.HUMAN);
+            if (result != -1) { // Win or tie ends the game
+                recordWriter.endGame(result == 1 ? Occupant.HUMAN : Occupant.NONE);
+            }
+        }
+        return result;
     }
 }
\ No newline at end of file
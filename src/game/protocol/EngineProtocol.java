@@ -0,0 +1,375 @@
+package game.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+import game.ai.DecisionMaker;
+import game.ai.TranspositionTable;
+import game.ai.SearchListener;
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardModel;
+import game.board.model.MoveList;
+import game.board.model.SparseBoardModel;
+import game.main.Game;
+import game.memory.MemoryBudget;
+import game.player.Occupant;
+
+/**
+ * Line based engine protocol over standard input and output, in the style of the Gomocup (Piskvork) protocol, so that the bot
+ * can be driven by external tournament managers and scripts without the UI. The engine always plays the bot marks.
+ * Coordinates are given as "x,y" where x is the column and y is the row.
+ *
+ * Commands:
+ * START size, RECTSTART width,height - start a new game on an empty board (up to MAX_BOARD_SIZE, START 0 = unbounded board)
+ * INFO timeout_turn ms, INFO time_left ms, INFO win_length n, INFO max_depth n, INFO max_memory bytes - settings (unknown keys are ignored)
+ * BEGIN - the engine makes the first move
+ * TURN x,y - the opponent moves, the engine answers with its' move (or "MESSAGE game over, ..." if the game has ended)
+ * MOVE x,y - the opponent moves, the engine only acknowledges it
+ * GO - the engine moves now
+ * BOARD followed by x,y,who lines and DONE - set up a position (who: 1 = engine, 2 = opponent), then the engine moves
+ * RESTART, ABOUT, END
+ *
+ * While searching, "MESSAGE info" lines are printed with the depth, score, nodes and principal variation of every completed depth.
+ */
+public class EngineProtocol implements SearchListener {
+    private static final String ABOUT = "name=\"Tic-Tac-Toe\", author=\"Santeri Suomi\", country=\"Finland\"";
+
+    /**
+     * Part of the remaining match time used for a single move, when the match time is limited.
+     */
+    private static final int TIME_LEFT_DIVISOR = 15;
+
+    /**
+     * Time kept back from every move for answering and for the search noticing its' deadline, in milliseconds.
+     */
+    private static final long TIME_MARGIN = 50;
+
+    /**
+     * Part of the turn timeout kept back as well, so that longer turns get a longer margin.
+     */
+    private static final int TIME_MARGIN_DIVISOR = 10;
+
+    /**
+     * Time budget of a move when neither the turn timeout nor the match time is set, in milliseconds.
+     */
+    private static final long DEFAULT_TIME_BUDGET = 5000;
+
+    /**
+     * Largest row and column size of START and RECTSTART, more than the UI allows so that the standard 20x20 board can be played.
+     * Bigger games can be played on the unbounded board (START 0).
+     */
+    public static final int MAX_BOARD_SIZE = 32;
+
+    /**
+     * Part of the memory limit of the match given to the transposition table, the rest is left for the JVM itself.
+     */
+    private static final int TABLE_MEMORY_DIVISOR = 2;
+
+    protected LineReader reader;
+    private PrintStream out;
+
+    private int rows;
+    private int columns;
+    private int winLength = -1;
+    private int maxDepth = Game.MAX_AI_ACCURACY;
+    private long turnTimeout;
+    private long timeLeft;
+
+    /**
+     * Memory limit of the match set since the last game, applied to the tables when the next game starts (-1 = unchanged, 0 = no limit)
+     */
+    private long maxMemory = -1;
+
+    /**
+     * Current board, null when no game has been started.
+     */
+    private BoardModel board;
+
+    /**
+     * Create a new protocol instance
+     * @param in Stream the commands are read from
+     * @param out Stream the responses are written to
+     */
+    public EngineProtocol(InputStream in, PrintStream out) {
+        this.reader = new LineReader(in);
+        this.out = out;
+    }
+
+    /**
+     * Run the engine protocol on standard input and output
+     * @param args Command line arguments (not used)
+     */
+    public static void main(String[] args) {
+        try {
+            new EngineProtocol(System.in, System.out).run();
+        } catch (IOException e) {
+            System.err.println("Reading input failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read and handle commands until END or the end of the input
+     * @throws IOException If reading the input failed
+     */
+    public void run() throws IOException {
+        while (reader.readLine()) {
+            if (reader.isBlank()) continue;
+            try {
+                if (!handleCommand()) return;
+            } catch (IllegalArgumentException e) {
+                respond("ERROR " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handle the command on the current line
+     * @return False if the protocol should stop (END), else true
+     * @throws IOException If reading the input failed
+     */
+    protected boolean handleCommand() throws IOException {
+        if (reader.nextIs("START")) {
+            int size = reader.nextInt();
+            startGame(size, size);
+        } else if (reader.nextIs("RECTSTART")) {
+            int width = reader.nextInt();
+            startGame(reader.nextInt(), width);
+        } else if (reader.nextIs("RESTART")) {
+            startGame(rows, columns);
+        } else if (reader.nextIs("INFO")) {
+            handleInfo();
+        } else if (reader.nextIs("BEGIN") || reader.nextIs("GO")) {
+            engineMove();
+        } else if (reader.nextIs("TURN")) {
+            opponentMove();
+            engineMove();
+        } else if (reader.nextIs("MOVE")) {
+            opponentMove();
+            respond("OK");
+        } else if (reader.nextIs("BOARD")) {
+            readBoard();
+            engineMove();
+        } else if (reader.nextIs("ABOUT")) {
+            respond(ABOUT);
+        } else if (reader.nextIs("END")) {
+            return false;
+        } else {
+            respond("UNKNOWN command");
+        }
+        return true;
+    }
+
+    /**
+     * Start a new game on an empty board
+     * @param rowCount Row size of the board
+     * @param columnCount Column size of the board
+     */
+    private void startGame(int rowCount, int columnCount) {
+        if ((rowCount != 0 || columnCount != 0) && (rowCount < Game.MIN_BOARD_SIZE || rowCount > MAX_BOARD_SIZE || columnCount < Game.MIN_BOARD_SIZE || columnCount > MAX_BOARD_SIZE)) {
+            throw new IllegalArgumentException("unsupported board size");
+        }
+        rows = rowCount;
+        columns = columnCount;
+        board = createBoard();
+        if (maxMemory >= 0) { // Between games of the only session using the shared tables (see isMemoryLimitAllowed), so no search is using them
+            long budget = maxMemory == 0 ? MemoryBudget.DEFAULT_BUDGET_MB << 20 : maxMemory / TABLE_MEMORY_DIVISOR;
+            MemoryBudget.setLimit(budget);
+            TranspositionTable.resizeShared(TranspositionTable.getSizeBits(budget));
+            maxMemory = -1;
+        }
+        respond("OK");
+    }
+
+    /**
+     * Create an empty board of the current size, a sparse board for unbounded games and a bitboard otherwise
+     * @return Empty board
+     */
+    private BoardModel createBoard() {
+        if (rows == 0) {
+            return new SparseBoardModel();
+        }
+        return new BitBoardModel(rows, columns);
+    }
+
+    /**
+     * Handle an INFO key value command, unknown keys are ignored as the protocol requires
+     */
+    private void handleInfo() {
+        if (reader.nextIs("TIMEOUT_TURN")) {
+            turnTimeout = reader.nextLong();
+        } else if (reader.nextIs("TIME_LEFT")) {
+            timeLeft = reader.nextLong();
+        } else if (reader.nextIs("WIN_LENGTH")) {
+            winLength = reader.nextInt();
+        } else if (reader.nextIs("MAX_DEPTH")) {
+            maxDepth = Math.max(1, reader.nextInt());
+        } else if (reader.nextIs("MAX_MEMORY") && isMemoryLimitAllowed()) {
+            maxMemory = Math.max(0, reader.nextLong());
+        }
+    }
+
+    /**
+     * Read an opponent move and place it on the board
+     */
+    private void opponentMove() {
+        int column = reader.nextInt();
+        placeMark(reader.nextInt(), column, Occupant.HUMAN);
+    }
+
+    /**
+     * Read BOARD lines until DONE and set up the position
+     * @throws IOException If reading the input failed
+     */
+    private void readBoard() throws IOException {
+        requireGame();
+        board = createBoard();
+        while (reader.readLine() && !reader.nextIs("DONE")) {
+            if (reader.isBlank()) continue;
+            int column = reader.nextInt();
+            int row = reader.nextInt();
+            placeMark(row, column, reader.nextInt() == 1 ? Occupant.BOT : Occupant.HUMAN);
+        }
+    }
+
+    /**
+     * Place a mark on the board
+     * @param row Row index
+     * @param column Column index
+     * @param occupant Occupant of the mark
+     */
+    private void placeMark(int row, int column, Occupant occupant) {
+        requireGame();
+        if (!board.isInside(row, column) || board.getOccupant(row, column) != Occupant.NONE) {
+            throw new IllegalArgumentException("invalid move " + column + "," + row);
+        }
+        board.setOccupant(row, column, occupant);
+    }
+
+    /**
+     * Search for the engine move, place it on the board and print it
+     */
+    private void engineMove() {
+        requireGame();
+        String result = getResult();
+        if (result != null) { // The last move of the opponent (or the position given with BOARD) already ended the game
+            respond("MESSAGE game over, " + result);
+            return;
+        }
+        DecisionMaker ai = new DecisionMaker(new BoardTester(getWinLength()), maxDepth);
+        ai.setTimeBudget(getTimeBudget());
+        ai.setSearchListener(this);
+        ai.setLateMoveReductions(true);
+        ai.setFutilityPruning(true);
+        ai.setTranspositionTable(TranspositionTable.getShared(board.getRows(), board.getColumns(), getWinLength(), ai.getEvaluationKey()));
+        Move move = search(ai, board.copy());
+        if (!move.isValid()) {
+            throw new IllegalArgumentException("no moves left");
+        }
+        board.setOccupant(move.getRow(), move.getColumn(), Occupant.BOT);
+        respond(move.getColumn() + "," + move.getRow());
+    }
+
+    /**
+     * Run the search of an engine move, by default directly on the protocol thread
+     * @param ai Decision maker configured for this move
+     * @param model Copy of the board
+     * @return Best move found
+     */
+    protected Move search(DecisionMaker ai, BoardModel model) {
+        return ai.getBestMove(model, Occupant.BOT);
+    }
+
+    /**
+     * Check if the memory limit of the match (INFO max_memory) may resize the shared tables. Only when this protocol instance is the only one
+     * searching with them, the tables are freed and allocated again without stopping other searches
+     * @return True if the memory limit is applied, false if it is ignored like an unknown key
+     */
+    protected boolean isMemoryLimitAllowed() {
+        return true;
+    }
+
+    /**
+     * Get the result of a game that is over
+     * @return "the engine won", "the opponent won" or "tie", null if the game isn't over
+     */
+    private String getResult() {
+        BoardTester tester = new BoardTester(getWinLength());
+        MoveList marks = new MoveList();
+        board.collectPieces(Occupant.HUMAN, marks);
+        board.collectPieces(Occupant.BOT, marks);
+        for (int i = 0; i < marks.size(); i++) {
+            int row = MoveList.getRow(marks.get(i));
+            int column = MoveList.getColumn(marks.get(i));
+            Occupant occupant = board.getOccupant(row, column);
+            if (tester.hasWinner(board, occupant, row, column)) {
+                return occupant == Occupant.BOT ? "the engine won" : "the opponent won";
+            }
+        }
+        return board.isFull() ? "tie" : null;
+    }
+
+    /**
+     * Get the win length of the current game, by default as long as possible on the board
+     * @return Consecutive marks needed for a win
+     */
+    private int getWinLength() {
+        if (winLength > 0) return winLength;
+        if (rows == 0) return Game.MAX_WINNING_MARKS;
+        return Math.min(Game.MAX_WINNING_MARKS, Math.max(rows, columns));
+    }
+
+    /**
+     * Get the time budget of the next move from the turn timeout and the remaining match time, less a safety margin so the answer
+     * arrives in time. Without either, a default budget is used, so that big and unbounded boards don't search to the max depth
+     * @return Time budget in milliseconds
+     */
+    protected long getTimeBudget() {
+        if (turnTimeout <= 0 && timeLeft <= 0) {
+            return DEFAULT_TIME_BUDGET;
+        }
+        long budget = turnTimeout > 0 ? Math.max(1, turnTimeout - Math.max(TIME_MARGIN, turnTimeout / TIME_MARGIN_DIVISOR)) : 0;
+        if (timeLeft > 0) {
+            long share = Math.max(1, timeLeft / TIME_LEFT_DIVISOR);
+            budget = budget > 0 ? Math.min(budget, share) : share;
+        }
+        return budget;
+    }
+
+    /**
+     * Make sure that a game has been started
+     * @throws IllegalArgumentException If no game has been started
+     */
+    private void requireGame() {
+        if (board == null) {
+            throw new IllegalArgumentException("no game started");
+        }
+    }
+
+    /**
+     * Print an info line of every completed depth
+     */
+    @Override
+    public void onDepthCompleted(int depth, int score, long nodes, Move[] principalVariation) {
+        StringBuilder info = new StringBuilder("MESSAGE info depth ").append(depth)
+            .append(" score ").append(score)
+            .append(" nodes ").append(nodes)
+            .append(" pv");
+        for (Move move : principalVariation) {
+            info.append(' ').append(move.getColumn()).append(',').append(move.getRow());
+        }
+        respond(info.toString());
+    }
+
+    /**
+     * Print a response line and flush it right away, the manager is waiting for it
+     * @param line Response line
+     */
+    protected void respond(String line) {
+        out.println(line);
+        out.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package game.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads protocol input line by line into a reusable byte buffer, and parses commands and numbers straight from the buffer.
+ * Nothing is allocated per line, so long batch runs don't create garbage for the input.
+ */
+public class LineReader {
+    private InputStream input;
+    private byte[] readBuffer = new byte[8192];
+    private int readPosition;
+    private int readLimit;
+
+    /**
+     * Current line, grows if a longer line is read.
+     */
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    /**
+     * Parsing position within the current line.
+     */
+    private int position;
+
+    /**
+     * Create a new line reader
+     * @param input Stream to read the lines from
+     */
+    public LineReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Read the next line, line endings are not included
+     * @return True if a line was read, false at the end of the input
+     * @throws IOException If reading failed
+     */
+    public boolean readLine() throws IOException {
+        lineLength = 0;
+        position = 0;
+        while (true) {
+            if (readPosition >= readLimit) {
+                readLimit = input.read(readBuffer, 0, readBuffer.length);
+                readPosition = 0;
+                if (readLimit <= 0) {
+                    readLimit = 0;
+                    return lineLength > 0; // Last line might not have a line ending
+                }
+            }
+            byte b = readBuffer[readPosition++];
+            if (b == '\n') {
+                return true;
+            }
+            if (b != '\r') {
+                if (lineLength == line.length) {
+                    byte[] grown = new byte[line.length * 2];
+                    System.arraycopy(line, 0, grown, 0, lineLength);
+                    line = grown;
+                }
+                line[lineLength++] = b;
+            }
+        }
+    }
+
+    /**
+     * Is the current line empty (only whitespace)?
+     * @return True or false
+     */
+    public boolean isBlank() {
+        skipSeparators();
+        return position >= lineLength;
+    }
+
+    /**
+     * Check if the next word of the line is the given keyword (ignoring case), and consume it if it is
+     * @param keyword Keyword to check, in upper case
+     * @return True if the next word was the keyword
+     */
+    public boolean nextIs(String keyword) {
+        skipSeparators();
+        int end = position + keyword.length();
+        if (end > lineLength || (end < lineLength && !isSeparator(line[end]))) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(line[position + i]) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        position = end;
+        return true;
+    }
+
+    /**
+     * Parse the next integer of the line, separated by spaces or commas
+     * @return Parsed integer
+     * @throws IllegalArgumentException If the next word isn't an integer
+     */
+    public int nextInt() {
+        skipSeparators();
+        boolean negative = position < lineLength && line[position] == '-';
+        if (negative) position++;
+        int start = position;
+        int value = 0;
+        while (position < lineLength && line[position] >= '0' && line[position] <= '9') {
+            value = value * 10 + (line[position++] - '0');
+        }
+        if (position == start) {
+            throw new IllegalArgumentException("Expected a number");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse the next long of the line, separated by spaces or commas
+     * @return Parsed long
+     * @throws IllegalArgumentException If the next word isn't a number
+     */
+    public long nextLong() {
+        skipSeparators();
+        int start = position;
+        long value = 0;
+        while (position < lineLength && line[position] >= '0' && line[position] <= '9') {
+            value = value * 10 + (line[position++] - '0');
+        }
+        if (position == start) {
+            throw new IllegalArgumentException("Expected a number");
+        }
+        return value;
+    }
+
+    /**
+     * Skip the rest of the current word
+     */
+    public void skipWord() {
+        skipSeparators();
+        while (position < lineLength && !isSeparator(line[position])) {
+            position++;
+        }
+    }
+
+    /**
+     * Skip spaces, tabs and commas at the current position
+     */
+    private void skipSeparators() {
+        while (position < lineLength && isSeparator(line[position])) {
+            position++;
+        }
+    }
+
+    /**
+     * Is the byte a separator between words?
+     * @param b Byte to check
+     * @return True for spaces, tabs and commas
+     */
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',';
+    }
+}
\ No newline at end of file
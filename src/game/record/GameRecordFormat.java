@@ -0,0 +1,36 @@
+package game.record;
+
+/**
+ * Binary format of the game record files. A file starts with the 4 magic bytes "TTR1", followed by any amount of game records:
+ * - Record start byte (RECORD_START), then the rows, columns and win length of the board as varints
+ * - One varint per move: ((row * columns + column + 1) << 2) | flags, where FLAG_BOT = the bot moved and FLAG_STATS = engine stats follow
+ * - Engine stats of a move: search depth, score (zigzag), nodes and search time in microseconds, all varints
+ * - Varint 0 ends the moves, followed by the result byte (RESULT_*)
+ * Varints are unsigned LEB128 (7 bits per byte, lowest bits first). Records are only ever appended, a record cut short
+ * (e.g the application was closed in the middle of a game) is read as unfinished.
+ */
+public final class GameRecordFormat {
+    public static final byte[] MAGIC = { 'T', 'T', 'R', '1' };
+    public static final int RECORD_START = 0x47;
+
+    public static final int FLAG_BOT = 1;
+    public static final int FLAG_STATS = 2;
+
+    public static final int RESULT_TIE = 0;
+    public static final int RESULT_HUMAN = 1;
+    public static final int RESULT_BOT = 2;
+    public static final int RESULT_UNFINISHED = 3;
+
+    /**
+     * System property of the record file, "records/games.ttr" in the working directory by default. An empty value disables recording.
+     */
+    public static final String RECORD_FILE_PROPERTY = "tictactoe.record.file";
+    public static final String DEFAULT_RECORD_FILE = "records/games.ttr";
+
+    /**
+     * Prevent instantiating by throwing exceptions if somehow tried.
+     */
+    private GameRecordFormat() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,280 @@
+package game.record;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+import game.player.Occupant;
+
+/**
+ * Streaming reader of game record files (see GameRecordFormat). Only the current record is kept in memory and its' arrays are reused,
+ * so files of millions of games can be scanned in constant memory:
+ * while (reader.next()) { ... reader.getMoveCount() ... }
+ */
+public class GameRecordReader implements Closeable {
+    private InputStream in;
+
+    private int rows;
+    private int columns;
+    private int winLength;
+    private int result;
+    private int moveCount;
+    private int[] moveRows = new int[64];
+    private int[] moveColumns = new int[64];
+    private boolean[] botMoves = new boolean[64];
+    private boolean[] hasStats = new boolean[64];
+    private int[] depths = new int[64];
+    private int[] scores = new int[64];
+    private long[] nodes = new long[64];
+    private long[] micros = new long[64];
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Get the result of the current game
+     * @return GameRecordFormat.RESULT_TIE, RESULT_HUMAN, RESULT_BOT or RESULT_UNFINISHED
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Get the winner of the current game
+     * @return Winner, Occupant.NONE for ties and unfinished games
+     */
+    public Occupant getWinner() {
+        if (result == GameRecordFormat.RESULT_HUMAN) return Occupant.HUMAN;
+        if (result == GameRecordFormat.RESULT_BOT) return Occupant.BOT;
+        return Occupant.NONE;
+    }
+
+    public int getMoveRow(int index) {
+        return moveRows[index];
+    }
+
+    public int getMoveColumn(int index) {
+        return moveColumns[index];
+    }
+
+    public Occupant getMover(int index) {
+        return botMoves[index] ? Occupant.BOT : Occupant.HUMAN;
+    }
+
+    /**
+     * Does a move have engine stats? (only bot moves do)
+     * @param index Index of the move
+     * @return True or false
+     */
+    public boolean hasStats(int index) {
+        return hasStats[index];
+    }
+
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    public long getNodes(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Get the time the engine used for a move
+     * @param index Index of the move
+     * @return Time in microseconds
+     */
+    public long getMicros(int index) {
+        return micros[index];
+    }
+
+    /**
+     * Open a record file
+     * @param file Record file
+     * @throws IOException If the file couldn't be opened or isn't a record file
+     */
+    public GameRecordReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    /**
+     * Read records from a stream
+     * @param stream Stream starting with the magic bytes
+     * @throws IOException If reading fails or the stream isn't a record stream
+     */
+    public GameRecordReader(InputStream stream) throws IOException {
+        in = new BufferedInputStream(stream, 1 << 16);
+        byte[] magic = new byte[GameRecordFormat.MAGIC.length];
+        if (in.readNBytes(magic, 0, magic.length) != magic.length || !Arrays.equals(magic, GameRecordFormat.MAGIC)) {
+            in.close();
+            throw new IOException("Not a game record file");
+        }
+    }
+
+    /**
+     * Read the next game record
+     * @return True if a record was read, false at the end of the file
+     * @throws IOException If reading fails or the file is corrupted
+     */
+    public boolean next() throws IOException {
+        int start = in.read();
+        if (start == -1) return false;
+        if (start != GameRecordFormat.RECORD_START) {
+            throw new IOException("Corrupted game record file");
+        }
+        moveCount = 0;
+        result = GameRecordFormat.RESULT_UNFINISHED;
+        try {
+            rows = (int) readVarint();
+            columns = (int) readVarint();
+            winLength = (int) readVarint();
+            if (columns <= 0) {
+                throw new IOException("Corrupted game record file");
+            }
+            readMoves();
+            result = readByte();
+            if (result > GameRecordFormat.RESULT_UNFINISHED) {
+                throw new IOException("Corrupted game record file");
+            }
+        } catch (EOFException e) {
+            // Record cut short by the application closing in the middle of a game, keep the moves read so far as an unfinished game
+        }
+        return true;
+    }
+
+    /**
+     * Read the moves of the current record up to the end marker
+     * @throws IOException If reading fails
+     */
+    private void readMoves() throws IOException {
+        long code;
+        while ((code = readVarint()) != 0) {
+            if (moveCount == moveRows.length) {
+                grow();
+            }
+            int index = moveCount;
+            long position = (code >>> 2) - 1;
+            moveRows[index] = (int) (position / columns);
+            moveColumns[index] = (int) (position % columns);
+            botMoves[index] = (code & GameRecordFormat.FLAG_BOT) != 0;
+            hasStats[index] = (code & GameRecordFormat.FLAG_STATS) != 0;
+            if (hasStats[index]) {
+                depths[index] = (int) readVarint();
+                int zigzag = (int) readVarint();
+                scores[index] = (zigzag >>> 1) ^ -(zigzag & 1);
+                nodes[index] = readVarint();
+                micros[index] = readVarint();
+            }
+            moveCount++; // Counted only when the whole move was read
+        }
+    }
+
+    /**
+     * Double the size of the move arrays
+     */
+    private void grow() {
+        int size = moveRows.length * 2;
+        moveRows = Arrays.copyOf(moveRows, size);
+        moveColumns = Arrays.copyOf(moveColumns, size);
+        botMoves = Arrays.copyOf(botMoves, size);
+        hasStats = Arrays.copyOf(hasStats, size);
+        depths = Arrays.copyOf(depths, size);
+        scores = Arrays.copyOf(scores, size);
+        nodes = Arrays.copyOf(nodes, size);
+        micros = Arrays.copyOf(micros, size);
+    }
+
+    /**
+     * Read a single byte
+     * @return Byte value
+     * @throws IOException If reading fails
+     * @throws EOFException At the end of the file
+     */
+    private int readByte() throws IOException {
+        int value = in.read();
+        if (value == -1) {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+    /**
+     * Read an unsigned varint
+     * @return Value
+     * @throws IOException If reading fails
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupted varint in game record file");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Print a summary of a record file from the command line
+     * @param args Record file (the default record file if not given)
+     */
+    public static void main(String[] args) {
+        Path file = Paths.get(args.length > 0 ? args[0] : System.getProperty(GameRecordFormat.RECORD_FILE_PROPERTY, GameRecordFormat.DEFAULT_RECORD_FILE));
+        long[] results = new long[4];
+        long moves = 0;
+        long botMoveCount = 0;
+        long botNodes = 0;
+        long botMicros = 0;
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            while (reader.next()) {
+                results[reader.getResult()]++;
+                moves += reader.getMoveCount();
+                for (int i = 0; i < reader.getMoveCount(); i++) {
+                    if (reader.hasStats(i)) {
+                        botMoveCount++;
+                        botNodes += reader.getNodes(i);
+                        botMicros += reader.getMicros(i);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        long games = results[0] + results[1] + results[2] + results[3];
+        System.out.printf(Locale.ROOT, "%d games (%d human wins, %d bot wins, %d ties, %d unfinished), %d moves%n",
+            games, results[GameRecordFormat.RESULT_HUMAN], results[GameRecordFormat.RESULT_BOT], results[GameRecordFormat.RESULT_TIE],
+            results[GameRecordFormat.RESULT_UNFINISHED], moves);
+        if (botMoveCount > 0) {
+            System.out.printf(Locale.ROOT, "Bot: %d moves, %.3f ms per move, %.0f nodes per second%n",
+                botMoveCount, botMicros / 1e3 / botMoveCount, botMicros == 0 ? 0 : botNodes / (botMicros / 1e6));
+        }
+    }
+}
\ No newline at end of file
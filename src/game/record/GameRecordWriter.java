@@ -0,0 +1,217 @@
+package game.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import game.player.Occupant;
+
+/**
+ * Buffered, append-only writer of game records (see GameRecordFormat). The moves of a game are buffered and the file is flushed
+ * when the game ends, so recording doesn't slow down the moves. The writer is used from both the UI thread (human moves)
+ * and the bot move thread, so the methods are synchronized. Recording must never break the game, so when writing fails the error is printed
+ * and the rest of the session isn't recorded.
+ */
+public class GameRecordWriter implements Closeable {
+    private OutputStream out;
+    private int columns;
+
+    /**
+     * Is a game record currently open (started but not ended)?
+     */
+    private boolean gameOpen;
+
+    /**
+     * Set when writing has failed, nothing is written after that.
+     */
+    private boolean failed;
+
+    /**
+     * Open a record file for appending, the magic bytes are written if the file is new
+     * @param file Record file
+     * @throws IOException If the file couldn't be opened
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        if (isNew) {
+            out.write(GameRecordFormat.MAGIC);
+        }
+    }
+
+    /**
+     * Open the record file of the session (see GameRecordFormat.RECORD_FILE_PROPERTY). The file is closed when the application exits
+     * @return Writer, null if recording is disabled or the file couldn't be opened
+     */
+    public static GameRecordWriter openDefault() {
+        String file = System.getProperty(GameRecordFormat.RECORD_FILE_PROPERTY, GameRecordFormat.DEFAULT_RECORD_FILE);
+        if (file.isEmpty()) return null;
+        try {
+            GameRecordWriter writer = new GameRecordWriter(Paths.get(file));
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::closeQuietly));
+            return writer;
+        } catch (IOException e) {
+            System.err.println("Couldn't open the game record file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start the record of a new game, a game still open is ended as unfinished
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     */
+    public synchronized void startGame(int rows, int columns, int winLength) {
+        if (failed) return;
+        try {
+            if (gameOpen) {
+                endGame(GameRecordFormat.RESULT_UNFINISHED);
+            }
+            this.columns = columns;
+            out.write(GameRecordFormat.RECORD_START);
+            writeVarint(rows);
+            writeVarint(columns);
+            writeVarint(winLength);
+            gameOpen = true;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Record a move without engine stats (human move)
+     * @param row Row of the move
+     * @param column Column of the move
+     * @param occupant Occupant that moved
+     */
+    public synchronized void recordMove(int row, int column, Occupant occupant) {
+        if (!gameOpen) return;
+        try {
+            writeVarint(getMoveCode(row, column, occupant, 0));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Record a move with engine stats (bot move)
+     * @param row Row of the move
+     * @param column Column of the move
+     * @param occupant Occupant that moved
+     * @param depth Completed search depth (0 = not searched, e.g a book move)
+     * @param score Score of the move
+     * @param nodes Searched nodes
+     * @param micros Time used for the move in microseconds
+     */
+    public synchronized void recordMove(int row, int column, Occupant occupant, int depth, int score, long nodes, long micros) {
+        if (!gameOpen) return;
+        try {
+            writeVarint(getMoveCode(row, column, occupant, GameRecordFormat.FLAG_STATS));
+            writeVarint(depth);
+            writeVarint(((score << 1) ^ (score >> 31)) & 0xFFFFFFFFL); // Zigzag, so that small negative scores stay short
+            writeVarint(nodes);
+            writeVarint(micros);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * End the record of the current game and flush the file
+     * @param winner Winner of the game, Occupant.NONE = tie
+     */
+    public synchronized void endGame(Occupant winner) {
+        if (!gameOpen) return;
+        try {
+            if (winner == Occupant.HUMAN) {
+                endGame(GameRecordFormat.RESULT_HUMAN);
+            } else if (winner == Occupant.BOT) {
+                endGame(GameRecordFormat.RESULT_BOT);
+            } else {
+                endGame(GameRecordFormat.RESULT_TIE);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Stop recording after a write error
+     * @param e Error
+     */
+    private void fail(IOException e) {
+        System.err.println("Couldn't write the game record file, recording stopped: " + e.getMessage());
+        failed = true;
+        gameOpen = false;
+    }
+
+    /**
+     * Write the end of the moves and the result
+     * @param result Result byte
+     * @throws IOException If writing fails
+     */
+    private void endGame(int result) throws IOException {
+        writeVarint(0);
+        out.write(result);
+        out.flush();
+        gameOpen = false;
+    }
+
+    /**
+     * End a game still open as unfinished and close the file
+     * @throws IOException If writing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (gameOpen && !failed) {
+            endGame(GameRecordFormat.RESULT_UNFINISHED);
+        }
+        out.close();
+    }
+
+    /**
+     * Close the file, errors are only printed (used when the application exits)
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("Couldn't close the game record file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the varint code of a move
+     * @param row Row of the move
+     * @param column Column of the move
+     * @param occupant Occupant that moved
+     * @param flags Extra flags
+     * @return Move code, always above 0
+     */
+    private long getMoveCode(int row, int column, Occupant occupant, int flags) {
+        long position = (long) row * columns + column + 1;
+        return (position << 2) | (occupant == Occupant.BOT ? GameRecordFormat.FLAG_BOT : 0) | flags;
+    }
+
+    /**
+     * Write an unsigned varint
+     * @param value Value, not negative
+     * @throws IOException If writing fails
+     */
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
\ No newline at end of file
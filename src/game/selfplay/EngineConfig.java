@@ -0,0 +1,275 @@
+package game.selfplay;
+
+import game.ai.DecisionMaker;
+import game.ai.NTupleNetwork;
+import game.ai.TimeManager;
+import game.ai.TranspositionTable;
+import game.board.BoardTester;
+import game.board.HeuristicWeights;
+import game.board.Move;
+import game.board.copy.BoardStateCopy;
+import game.board.model.BoardGeometry;
+import game.board.model.BoardModel;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Configuration of a single engine (decision maker) taking part in a self-play tournament.
+ * Parsed from the command line in the form "name:depth=6,time=200,clock=60000+1000,heuristic=off,engine=reference,tt=on,lmr=on,futility=on" (all settings are optional).
+ * The engine is either "model" (board model search, default) or "reference" (original board state copy search).
+ * With "clock=base+increment" (milliseconds) every game is played on a clock that decides the time of each move, instead of a fixed depth or time.
+ * With "tt=on" all the games of the engine share one transposition table (only used by the model engine).
+ * With "weights=default" the heuristic uses the hand-picked window weights instead of the tuned ones (see HeuristicWeights).
+ * With "eval=ntuple" the positions are evaluated with the n-tuple network of the win length instead of the heuristic (model engine only).
+ * With "lmr=on" late moves are searched with reduced depth, "futility=on" (or "futility=margin") prunes quiet moves near the depth limit (model engine only).
+ * With "threads=N" the root moves are searched with N threads, "deterministic=on" makes the search reproducible (the time and the clock are then ignored)
+ * and "nodes=N" limits the nodes of every move, so that results don't depend on the speed of the machine (model engine only).
+ * With "bitboard=on" boards of at most 64 positions are searched with the bitboard search (model engine only, always used on the cube).
+ */
+public class EngineConfig {
+    private String name;
+    private int depth = Game.MAX_AI_ACCURACY;
+    private long timeBudget;
+    private long clockMillis;
+    private long incrementMillis;
+    private boolean heuristicEnabled = true;
+    private boolean referenceEngine;
+    private boolean transpositionTableEnabled;
+    private boolean lateMoveReductions;
+    private boolean futilityPruning;
+    private int futilityMargin = -1;
+    private boolean defaultWeights;
+    private boolean networkEnabled;
+    private int threads = 1;
+    private boolean deterministic;
+    private long nodeBudget;
+    private boolean bitboardSearch;
+
+    /**
+     * Transposition table shared by all the games of this engine, created by the first game.
+     */
+    private TranspositionTable transpositionTable;
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public long getClockMillis() {
+        return clockMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public boolean isHeuristicEnabled() {
+        return heuristicEnabled;
+    }
+
+    public boolean isReferenceEngine() {
+        return referenceEngine;
+    }
+
+    public boolean isTranspositionTableEnabled() {
+        return transpositionTableEnabled;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    public boolean isBitboardSearch() {
+        return bitboardSearch;
+    }
+
+    /**
+     * Create a new engine configuration with default settings
+     * @param name Name of the engine shown in the results
+     */
+    public EngineConfig(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Parse an engine configuration from a command line argument
+     * @param arg Argument, e.g "deep:depth=8,time=500"
+     * @return Parsed configuration
+     * @throws IllegalArgumentException If the argument contains an unknown setting or an invalid value
+     */
+    public static EngineConfig parse(String arg) {
+        int nameEnd = arg.indexOf(':');
+        EngineConfig config = new EngineConfig(nameEnd == -1 ? arg : arg.substring(0, nameEnd));
+        if (nameEnd == -1) return config; // Only the name was given
+        for (String setting : arg.substring(nameEnd + 1).split(",")) {
+            String[] keyValue = setting.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid engine setting: " + setting);
+            }
+            switch (keyValue[0]) {
+                case "depth":
+                    config.depth = Integer.parseInt(keyValue[1]);
+                    break;
+                case "time":
+                    config.timeBudget = Long.parseLong(keyValue[1]);
+                    break;
+                case "clock":
+                    String[] clock = keyValue[1].split("\\+", 2);
+                    config.clockMillis = Long.parseLong(clock[0]);
+                    config.incrementMillis = clock.length > 1 ? Long.parseLong(clock[1]) : 0;
+                    break;
+                case "heuristic":
+                    config.heuristicEnabled = !keyValue[1].equals("off");
+                    break;
+                case "engine":
+                    config.referenceEngine = keyValue[1].equals("reference");
+                    break;
+                case "tt":
+                    config.transpositionTableEnabled = keyValue[1].equals("on");
+                    break;
+                case "eval":
+                    config.networkEnabled = keyValue[1].equals("ntuple");
+                    break;
+                case "weights":
+                    config.defaultWeights = keyValue[1].equals("default");
+                    break;
+                case "lmr":
+                    config.lateMoveReductions = keyValue[1].equals("on");
+                    break;
+                case "futility":
+                    config.futilityPruning = !keyValue[1].equals("off");
+                    if (config.futilityPruning && !keyValue[1].equals("on")) {
+                        config.futilityMargin = Integer.parseInt(keyValue[1]); // A number is the margin
+                    }
+                    break;
+                case "threads":
+                    config.threads = Integer.parseInt(keyValue[1]);
+                    break;
+                case "deterministic":
+                    config.deterministic = keyValue[1].equals("on");
+                    break;
+                case "nodes":
+                    config.nodeBudget = Long.parseLong(keyValue[1]);
+                    break;
+                case "bitboard":
+                    config.bitboardSearch = keyValue[1].equals("on");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown engine setting: " + keyValue[0]);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Create a new decision maker using this configuration. Decision makers are not thread safe, so every game creates its' own.
+     * @param winLength Consecutive marks needed for a win
+     * @return New decision maker instance
+     */
+    public DecisionMaker createDecisionMaker(int winLength) {
+        return createDecisionMaker(new BoardTester(winLength));
+    }
+
+    /**
+     * Create a new decision maker using this configuration for the boards of a geometry, e.g the 4x4x4 cube
+     * @param geometry Geometry of the boards
+     * @return New decision maker instance
+     */
+    public DecisionMaker createDecisionMaker(BoardGeometry geometry) {
+        return createDecisionMaker(new BoardTester(geometry));
+    }
+
+    /**
+     * Create a new decision maker using this configuration
+     * @param tester Board tester of the decision maker, the window weights are set on it
+     * @return New decision maker instance
+     */
+    private DecisionMaker createDecisionMaker(BoardTester tester) {
+        int winLength = tester.getWinLength();
+        if (defaultWeights) {
+            tester.setWindowWeights(HeuristicWeights.getDefaultWeights(winLength));
+        }
+        DecisionMaker ai = new DecisionMaker(tester, depth);
+        ai.setTimeBudget(timeBudget);
+        ai.setHeuristicEnabled(heuristicEnabled);
+        if (networkEnabled) {
+            NTupleNetwork network = NTupleNetwork.getShared(winLength);
+            if (network == null) {
+                throw new IllegalStateException("No n-tuple network for win length " + winLength + ": " + NTupleNetwork.getFileName(winLength));
+            }
+            ai.setNetwork(network);
+        }
+        ai.setLateMoveReductions(lateMoveReductions);
+        ai.setFutilityPruning(futilityPruning);
+        ai.setFutilityMargin(futilityMargin);
+        ai.setThreads(threads);
+        ai.setDeterministic(deterministic);
+        ai.setNodeBudget(nodeBudget);
+        ai.setBitboardSearch(bitboardSearch);
+        if (clockMillis > 0) {
+            ai.setTimeManager(new TimeManager(clockMillis, incrementMillis)); // Decision makers are created per game, so every game has a full clock
+            ai.setMaxDepth(TimeManager.MAX_DEPTH);
+        }
+        if (transpositionTableEnabled) {
+            ai.setTranspositionTable(getTranspositionTable());
+        }
+        return ai;
+    }
+
+    /**
+     * Get the transposition table of this engine, games run in several threads so it is created under a lock
+     * @return Transposition table shared by the games of this engine
+     */
+    private synchronized TranspositionTable getTranspositionTable() {
+        if (transpositionTable == null) {
+            transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_BITS);
+        }
+        return transpositionTable;
+    }
+
+    /**
+     * Get the best move with the engine of this configuration
+     * @param ai Decision maker created with this configuration
+     * @param model Current board
+     * @param side Occupant to get the move for
+     * @return Best move found
+     */
+    public Move getBestMove(DecisionMaker ai, BoardModel model, Occupant side) {
+        if (referenceEngine) {
+            return ai.getBestMove(new BoardStateCopy(model), side);
+        }
+        return ai.getBestMove(model.copy(), side);
+    }
+
+    @Override
+    public String toString() {
+        String limit = clockMillis > 0 ? "clock " + clockMillis + "+" + incrementMillis + " ms" : "depth " + depth; // The clock replaces the depth
+        return name + " (" + limit + (timeBudget > 0 ? ", " + timeBudget + " ms" : "") + (heuristicEnabled ? "" : ", no heuristic")
+            + (referenceEngine ? ", reference" : "") + (transpositionTableEnabled ? ", tt" : "")
+            + (defaultWeights ? ", default weights" : "") + (networkEnabled ? ", ntuple" : "") + (lateMoveReductions ? ", lmr" : "") + (futilityPruning ? ", futility" + (futilityMargin >= 0 ? " " + futilityMargin : "") : "")
+            + (threads > 1 ? ", " + threads + " threads" : "") + (deterministic ? ", deterministic" : "") + (nodeBudget > 0 ? ", " + nodeBudget + " nodes" : "") + (bitboardSearch ? ", bitboard" : "") + ")";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,396 @@
+package game.selfplay;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.board.BoardTester;
+import game.board.HeuristicWeights;
+import game.board.model.BitBoardModel;
+import game.board.model.MoveList;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Command line tuner of the window weights of the board model heuristic (Texel tuning). Plays self-play games on all cores, labels every position
+ * of the games with the result of its' game, and fits the weights so that the logistic function of the heuristic predicts the results as well as possible.
+ * The tuned weights are written to the weight file of the engine (see HeuristicWeights), the other win lengths in the file are kept.
+ * Usage: --tune [--rows N] [--columns N] [--win N] [--games N] [--openings N] [--seed N] [--threads N] [--engine CONFIG] [--iterations N] [--output FILE]
+ */
+public class EvaluationTuner {
+    /**
+     * Learning rate of the weights (Adam), in heuristic points per iteration.
+     */
+    private static final double LEARNING_RATE = 0.5;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private int rows = 10;
+    private int columns = 10;
+    private int winLength = 5;
+    private int games = 200;
+    private int openingMoves = 4;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private EngineConfig engine = EngineConfig.parse("tuner:depth=2,lmr=on");
+    private int iterations = 2000;
+    private Path output = Paths.get("src", "weights", "heuristic.properties");
+
+    /**
+     * Heuristic features of the positions, winLength - 1 values per position: bot windows minus human windows by the amount of marks.
+     */
+    private int[] features;
+
+    /**
+     * Results of the games of the positions from the point of view of the bot (1 = bot won, 0.5 = tie, 0 = human won).
+     */
+    private double[] results;
+    private int positions;
+
+    /**
+     * Run the tuner from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        EvaluationTuner tuner = new EvaluationTuner();
+        try {
+            tuner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        try {
+            tuner.run();
+        } catch (IOException e) {
+            System.err.println("Writing the weights failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--games": games = Integer.parseInt(value); break;
+                case "--openings": openingMoves = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--engine": engine = EngineConfig.parse(value); break;
+                case "--iterations": iterations = Integer.parseInt(value); break;
+                case "--output": output = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (winLength < Game.MIN_WINNING_MARKS || winLength > Math.max(rows, columns) || openingMoves >= rows * columns) {
+            throw new IllegalArgumentException("Invalid board settings");
+        }
+    }
+
+    /**
+     * Play the games, fit the weights and write them
+     * @throws IOException If writing the weights failed
+     */
+    private void run() throws IOException {
+        System.out.printf("Board %dx%d, win length %d, %d games, %d opening moves, seed %d, %d threads, engine %s%n",
+            rows, columns, winLength, games, openingMoves, seed, threads, engine);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            collectPositions(executor);
+            System.out.printf("%d positions%n", positions);
+            if (positions == 0) return;
+            int[] current = HeuristicWeights.getWeights(winLength);
+            double[] weights = toDoubles(current);
+            double scale = fitScale(executor, weights);
+            System.out.printf(Locale.ROOT, "Scale %.5f, error %.6f with weights %s%n", scale, getError(executor, weights, scale), HeuristicWeights.format(current));
+            fitWeights(executor, weights, scale);
+            int[] tuned = HeuristicWeights.getDefaultWeights(winLength);
+            for (int i = 0; i < weights.length; i++) {
+                tuned[i + 1] = (int) Math.round(weights[i]);
+            }
+            System.out.printf(Locale.ROOT, "Error %.6f with tuned weights %s%n", getError(executor, toDoubles(tuned), scale), HeuristicWeights.format(tuned));
+            writeWeights(tuned);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Play the self-play games concurrently and collect the features and results of their positions
+     * @param executor Executor the games are played on
+     * @throws InterruptedException If interrupted while waiting for the games
+     * @throws ExecutionException If a game threw an exception
+     */
+    private void collectPositions(ExecutorService executor) throws InterruptedException, ExecutionException {
+        List<Future<SelfPlayGame.Result>> games = new ArrayList<>(this.games);
+        for (int i = 0; i < this.games; i++) {
+            SelfPlayGame game = new SelfPlayGame(rows, columns, winLength, engine, engine, seed + i, openingMoves);
+            games.add(executor.submit(game::play));
+        }
+        features = new int[1024];
+        results = new double[1024 / (winLength - 1)];
+        BoardTester tester = new BoardTester(winLength);
+        for (Future<SelfPlayGame.Result> game : games) {
+            addPositions(tester, game.get());
+        }
+    }
+
+    /**
+     * Replay a game and add its' positions. Positions where the player to move wins right away are left out,
+     * their result is decided by the search and not by the heuristic
+     * @param tester Board tester of the win length
+     * @param result Result of the game
+     */
+    private void addPositions(BoardTester tester, SelfPlayGame.Result result) {
+        double outcome = result.getWinner() == Occupant.BOT ? 1 : result.getWinner() == Occupant.HUMAN ? 0 : 0.5;
+        MoveList played = result.getPlayedMoves();
+        BitBoardModel board = new BitBoardModel(rows, columns);
+        MoveList winning = new MoveList();
+        int[] botCounts = new int[winLength + 1];
+        int[] humanCounts = new int[winLength + 1];
+        for (int i = 0; i < played.size() - 1; i++) { // The position after the last move is already decided
+            Occupant side = i % 2 == 0 ? Occupant.HUMAN : Occupant.BOT; // Human marks always start
+            board.setOccupant(MoveList.getRow(played.get(i)), MoveList.getColumn(played.get(i)), side);
+            if (i + 1 < openingMoves) continue; // Random opening positions don't tell anything about the weights
+            winning.clear();
+            tester.collectWinningMoves(board, side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT, winning);
+            if (winning.size() > 0) continue;
+            Arrays.fill(botCounts, 0);
+            Arrays.fill(humanCounts, 0);
+            tester.collectWindowCounts(board, Occupant.BOT, Occupant.HUMAN, botCounts);
+            tester.collectWindowCounts(board, Occupant.HUMAN, Occupant.BOT, humanCounts);
+            addPosition(botCounts, humanCounts, outcome);
+        }
+    }
+
+    /**
+     * Add the features and the result of a position, growing the arrays when needed
+     * @param botCounts Bot windows by the amount of marks
+     * @param humanCounts Human windows by the amount of marks
+     * @param outcome Result of the game
+     */
+    private void addPosition(int[] botCounts, int[] humanCounts, double outcome) {
+        int width = winLength - 1;
+        if (positions == results.length) {
+            results = Arrays.copyOf(results, positions * 2);
+            features = Arrays.copyOf(features, positions * 2 * width);
+        }
+        for (int i = 0; i < width; i++) {
+            features[positions * width + i] = botCounts[i + 1] - humanCounts[i + 1];
+        }
+        results[positions++] = outcome;
+    }
+
+    /**
+     * Find the scale of the logistic function that fits the current weights best, so that the tuned weights stay on the same scale
+     * (the rest of the search, e.g the futility margin, depends on it)
+     * @param executor Executor the error is computed on
+     * @param weights Current weights
+     * @return Scale of the heuristic in the logistic function
+     * @throws InterruptedException If interrupted while waiting for the error
+     * @throws ExecutionException If computing the error failed
+     */
+    private double fitScale(ExecutorService executor, double[] weights) throws InterruptedException, ExecutionException {
+        double best = 1;
+        double bestError = Double.MAX_VALUE;
+        for (double scale = 1e-5; scale < 1; scale *= 1.1) {
+            double error = getError(executor, weights, scale);
+            if (error < bestError) {
+                bestError = error;
+                best = scale;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fit the weights by gradient descent (Adam) on the mean squared error between the predictions and the results
+     * @param executor Executor the gradients are computed on
+     * @param weights Weights to fit, updated in place
+     * @param scale Scale of the heuristic in the logistic function
+     * @throws InterruptedException If interrupted while waiting for the gradients
+     * @throws ExecutionException If computing the gradients failed
+     */
+    private void fitWeights(ExecutorService executor, double[] weights, double scale) throws InterruptedException, ExecutionException {
+        double[] moment = new double[weights.length];
+        double[] velocity = new double[weights.length];
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            double[] gradient = getGradient(executor, weights, scale);
+            for (int i = 0; i < weights.length; i++) {
+                moment[i] = BETA1 * moment[i] + (1 - BETA1) * gradient[i];
+                velocity[i] = BETA2 * velocity[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                double correctedMoment = moment[i] / (1 - Math.pow(BETA1, iteration));
+                double correctedVelocity = velocity[i] / (1 - Math.pow(BETA2, iteration));
+                weights[i] = Math.max(0, weights[i] - LEARNING_RATE * correctedMoment / (Math.sqrt(correctedVelocity) + EPSILON));
+            }
+            if (iteration % 200 == 0) {
+                System.out.printf(Locale.ROOT, "Iteration %d, error %.6f%n", iteration, getError(executor, weights, scale));
+            }
+        }
+    }
+
+    /**
+     * Compute the mean squared error of the predictions, the positions are split between the threads
+     * @param executor Executor the error is computed on
+     * @param weights Weights
+     * @param scale Scale of the heuristic in the logistic function
+     * @return Mean squared error
+     * @throws InterruptedException If interrupted while waiting for the threads
+     * @throws ExecutionException If a thread failed
+     */
+    private double getError(ExecutorService executor, double[] weights, double scale) throws InterruptedException, ExecutionException {
+        double[] sum = sumChunks(executor, (from, to) -> {
+            double error = 0;
+            for (int p = from; p < to; p++) {
+                double difference = results[p] - predict(p, weights, scale);
+                error += difference * difference;
+            }
+            return new double[] { error };
+        }, 1);
+        return sum[0] / positions;
+    }
+
+    /**
+     * Compute the gradient of the mean squared error by the weights, the positions are split between the threads
+     * @param executor Executor the gradient is computed on
+     * @param weights Weights
+     * @param scale Scale of the heuristic in the logistic function
+     * @return Gradient of every weight
+     * @throws InterruptedException If interrupted while waiting for the threads
+     * @throws ExecutionException If a thread failed
+     */
+    private double[] getGradient(ExecutorService executor, double[] weights, double scale) throws InterruptedException, ExecutionException {
+        int width = weights.length;
+        double[] gradient = sumChunks(executor, (from, to) -> {
+            double[] chunk = new double[width];
+            for (int p = from; p < to; p++) {
+                double prediction = predict(p, weights, scale);
+                // Derivative of (result - sigmoid(scale * eval))^2 by the evaluation
+                double factor = -2 * (results[p] - prediction) * prediction * (1 - prediction) * scale;
+                for (int i = 0; i < width; i++) {
+                    chunk[i] += factor * features[p * width + i];
+                }
+            }
+            return chunk;
+        }, width);
+        for (int i = 0; i < width; i++) {
+            gradient[i] /= positions;
+        }
+        return gradient;
+    }
+
+    /**
+     * Sum of a computation over the positions split into one chunk per thread
+     */
+    private interface ChunkSum {
+        /**
+         * Compute the sums of a chunk of positions
+         * @param from First position (inclusive)
+         * @param to Last position (exclusive)
+         * @return Sums of the chunk
+         */
+        double[] sum(int from, int to);
+    }
+
+    /**
+     * Run a computation on the positions in one chunk per thread and add up the sums of the chunks
+     * @param executor Executor the chunks are run on
+     * @param computation Computation of a chunk
+     * @param width Amount of sums
+     * @return Sums of all the positions
+     * @throws InterruptedException If interrupted while waiting for the threads
+     * @throws ExecutionException If a chunk failed
+     */
+    private double[] sumChunks(ExecutorService executor, ChunkSum computation, int width) throws InterruptedException, ExecutionException {
+        int chunkSize = (positions + threads - 1) / threads;
+        List<Future<double[]>> chunks = new ArrayList<>(threads);
+        for (int from = 0; from < positions; from += chunkSize) {
+            int start = from;
+            int end = Math.min(positions, from + chunkSize);
+            Callable<double[]> chunk = () -> computation.sum(start, end);
+            chunks.add(executor.submit(chunk));
+        }
+        double[] total = new double[width];
+        for (Future<double[]> chunk : chunks) { // Added in order, so the result doesn't depend on the timing of the threads
+            double[] sums = chunk.get();
+            for (int i = 0; i < width; i++) {
+                total[i] += sums[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Predict the result of a position with the logistic function of its' heuristic
+     * @param position Index of the position
+     * @param weights Weights
+     * @param scale Scale of the heuristic in the logistic function
+     * @return Expected result from the point of view of the bot (0..1)
+     */
+    private double predict(int position, double[] weights, double scale) {
+        double evaluation = 0;
+        for (int i = 0; i < weights.length; i++) {
+            evaluation += weights[i] * features[position * weights.length + i];
+        }
+        return 1 / (1 + Math.exp(-scale * evaluation));
+    }
+
+    /**
+     * Convert integer weights to the weights being fitted
+     * @param weights Weights indexed by the amount of marks
+     * @return Weights of 1..winLength - 1 marks
+     */
+    private double[] toDoubles(int[] weights) {
+        double[] values = new double[winLength - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = weights[i + 1];
+        }
+        return values;
+    }
+
+    /**
+     * Write the tuned weights to the weight file, keeping the weights of the other win lengths
+     * @param tuned Tuned weights
+     * @throws IOException If reading or writing the file failed
+     */
+    private void writeWeights(int[] tuned) throws IOException {
+        Properties file = HeuristicWeights.read(output);
+        file.setProperty(HeuristicWeights.getKey(winLength), HeuristicWeights.format(tuned));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            file.store(writer, "Window weights of the board model heuristic, window.winLength=weights of 1..winLength-1 marks (written by --tune)");
+        }
+        System.out.println("Weights written to " + output);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package game.selfplay;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+import game.ai.NTupleEvaluator;
+import game.ai.NTupleNetwork;
+import game.board.BoardTester;
+import game.board.model.BitBoardModel;
+import game.board.model.MoveList;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Command line trainer of the n-tuple network (see NTupleNetwork) by temporal difference learning, TD(0) on the positions after every move.
+ * The network plays itself with one ply of lookahead (and a random move now and then to explore), and after every move the value of the previous position
+ * is moved towards the value of the new one, or towards the result of the game after the last move. The value of a position is the logistic function
+ * of the network sum from the point of view of the player to move, so that the sum ends up in heuristic points. Patterns that are the same line read backwards share a weight.
+ * The updates depend on each other in the order the games are played, so training runs on a single thread.
+ * Usage: --train [--rows N] [--columns N] [--win N] [--games N] [--openings N] [--epsilon X] [--rate X] [--seed N] [--output FILE]
+ */
+public class NTupleTrainer {
+    /**
+     * Scale of the network sum in the logistic function, about the same scale the heuristic weights were tuned with.
+     */
+    private static final double VALUE_SCALE = 0.01;
+
+    /**
+     * Amount of games between progress lines.
+     */
+    private static final int REPORT_INTERVAL = 1000;
+
+    private int rows = 10;
+    private int columns = 10;
+    private int winLength = 5;
+    private int games = 20000;
+    private int openingMoves = 2;
+    private double epsilon = 0.1;
+    private double rate = 0.05;
+    private long seed = 1;
+    private Path output;
+
+    /**
+     * Trained parameters of both tables, indexed by the shared (canonical) pattern.
+     */
+    private double[][] parameters;
+
+    /**
+     * Shared pattern of every pattern of a tuple (the smaller of the pattern and its' reverse).
+     */
+    private int[] canonical;
+
+    /**
+     * Every pattern with the marks of the players swapped, to read the board patterns from the point of view of the human.
+     */
+    private int[] swapped;
+
+    private Random random;
+    private BoardTester tester;
+    private NTupleEvaluator evaluator;
+    private MoveList moves = new MoveList();
+
+    /**
+     * Absolute error of the last position of the last game, for the progress lines.
+     */
+    private double lastError;
+
+    /**
+     * Run the trainer from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        NTupleTrainer trainer = new NTupleTrainer();
+        try {
+            trainer.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        try {
+            trainer.run();
+        } catch (IOException e) {
+            System.err.println("Writing the network failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--games": games = Integer.parseInt(value); break;
+                case "--openings": openingMoves = Integer.parseInt(value); break;
+                case "--epsilon": epsilon = Double.parseDouble(value); break;
+                case "--rate": rate = Double.parseDouble(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--output": output = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (winLength < Game.MIN_WINNING_MARKS || winLength > Math.max(rows, columns) || openingMoves >= rows * columns) {
+            throw new IllegalArgumentException("Invalid board settings");
+        }
+        if (output == null) {
+            output = Paths.get(System.getProperty(NTupleNetwork.NETWORK_DIRECTORY_PROPERTY, "networks"), NTupleNetwork.getFileName(winLength));
+        }
+    }
+
+    /**
+     * Train the network and write it
+     * @throws IOException If writing the network failed
+     */
+    private void run() throws IOException {
+        System.out.printf(Locale.ROOT, "Board %dx%d, win length %d, %d games, %d opening moves, epsilon %.3f, rate %.4f, seed %d%n",
+            rows, columns, winLength, games, openingMoves, epsilon, rate, seed);
+        NTupleNetwork network = new NTupleNetwork(winLength);
+        createSharedPatterns(network);
+        parameters = new double[2][network.getTableSize()];
+        random = new Random(seed);
+        tester = new BoardTester(winLength);
+        evaluator = new NTupleEvaluator(network, rows, columns); // Only the patterns are used, the weights of the empty network stay 0
+        double error = 0;
+        int[] wins = new int[3];
+        for (int game = 1; game <= games; game++) {
+            Occupant winner = playGame();
+            wins[winner == Occupant.BOT ? 0 : winner == Occupant.HUMAN ? 1 : 2]++;
+            error += lastError;
+            if (game % REPORT_INTERVAL == 0) {
+                System.out.printf(Locale.ROOT, "Games %d, human wins %d, bot wins %d, ties %d, mean final error %.4f%n",
+                    game, wins[1], wins[0], wins[2], error / REPORT_INTERVAL);
+                error = 0;
+            }
+        }
+        for (int table = 0; table < 2; table++) {
+            for (int pattern = 0; pattern < network.getTableSize(); pattern++) {
+                long weight = Math.round(parameters[table][canonical[pattern]]);
+                network.setWeight(table, pattern, (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight)));
+            }
+        }
+        network.write(output);
+        System.out.println("Network written to " + output);
+    }
+
+    /**
+     * Play one training game and update the parameters after every move
+     * @return Winner of the game, Occupant.NONE for a tie
+     */
+    private Occupant playGame() {
+        BitBoardModel board = new BitBoardModel(rows, columns);
+        evaluator.reset(board);
+        Occupant side = Occupant.HUMAN; // Human marks always start
+        for (int i = 0; i < openingMoves; i++) {
+            moves.clear();
+            board.generateMoves(board.getPiecesPlaced() == 0 ? 1 : 2, moves); // The opening moves are random, but near each other
+            long move = moves.get(random.nextInt(moves.size()));
+            place(board, MoveList.getRow(move), MoveList.getColumn(move), side);
+            side = side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+        }
+        int[] previousPatterns = new int[evaluator.getTupleCount()];
+        double previousValue = saveFeatures(previousPatterns, side);
+        Occupant previousSide = side;
+        while (true) {
+            long move = chooseMove(board, side);
+            int row = MoveList.getRow(move);
+            int column = MoveList.getColumn(move);
+            place(board, row, column, side);
+            Occupant winner = null;
+            if (tester.hasWinner(board, side, row, column)) {
+                winner = side;
+            } else if (board.isFull()) {
+                winner = Occupant.NONE;
+            }
+            Occupant next = side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+            double target = winner == null ? getValue(next) : winner == Occupant.BOT ? 1 : winner == Occupant.HUMAN ? 0 : 0.5;
+            update(previousPatterns, previousSide, target - previousValue);
+            if (winner != null) {
+                lastError = Math.abs(target - previousValue);
+                return winner;
+            }
+            previousValue = saveFeatures(previousPatterns, next);
+            previousSide = next;
+            side = next;
+        }
+    }
+
+    /**
+     * Choose a move with one ply of lookahead: a winning move right away, otherwise the move with the best value for the side,
+     * or a random move with the exploration probability
+     * @param board Current board
+     * @param side Occupant to move
+     * @return Packed move
+     */
+    private long chooseMove(BitBoardModel board, Occupant side) {
+        moves.clear();
+        board.generateMoves(2, moves);
+        if (random.nextDouble() < epsilon) {
+            return moves.get(random.nextInt(moves.size()));
+        }
+        Occupant next = side == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+        long best = moves.get(0);
+        double bestValue = side == Occupant.BOT ? -1 : 2;
+        for (int i = 0; i < moves.size(); i++) {
+            int row = MoveList.getRow(moves.get(i));
+            int column = MoveList.getColumn(moves.get(i));
+            place(board, row, column, side);
+            double value = tester.hasWinner(board, side, row, column) ? (side == Occupant.BOT ? 1 : 0) : getValue(next);
+            remove(board, row, column, side);
+            if (side == Occupant.BOT ? value > bestValue : value < bestValue) {
+                bestValue = value;
+                best = moves.get(i);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the value of the current position
+     * @param sideToMove Occupant to move
+     * @return Probability of a bot win (0..1)
+     */
+    private double getValue(Occupant sideToMove) {
+        double sum = 0;
+        for (int t = 0; t < evaluator.getTupleCount(); t++) {
+            sum += parameters[evaluator.getTable(t)][getSharedPattern(evaluator.getPattern(t), sideToMove)];
+        }
+        double value = 1 / (1 + Math.exp(-VALUE_SCALE * sum)); // Probability of a win of the player to move
+        return sideToMove == Occupant.BOT ? value : 1 - value;
+    }
+
+    /**
+     * Save the patterns of the current position, to be updated after the next move
+     * @param patterns Array the patterns are copied to
+     * @param sideToMove Occupant to move
+     * @return Value of the current position
+     */
+    private double saveFeatures(int[] patterns, Occupant sideToMove) {
+        for (int t = 0; t < patterns.length; t++) {
+            patterns[t] = evaluator.getPattern(t);
+        }
+        return getValue(sideToMove);
+    }
+
+    /**
+     * Move the parameters of a position towards its' target value
+     * @param patterns Patterns of the position
+     * @param sideToMove Occupant to move in the position
+     * @param error Target value minus the value of the position (from the point of view of the bot)
+     */
+    private void update(int[] patterns, Occupant sideToMove, double error) {
+        double step = rate * (sideToMove == Occupant.BOT ? error : -error); // The parameters are from the point of view of the player to move
+        for (int t = 0; t < patterns.length; t++) {
+            parameters[evaluator.getTable(t)][getSharedPattern(patterns[t], sideToMove)] += step;
+        }
+    }
+
+    /**
+     * Get the shared pattern of a board pattern from the point of view of the player to move
+     * @param pattern Pattern of the board (1 = bot, 2 = human)
+     * @param sideToMove Occupant to move
+     * @return Index of the parameter
+     */
+    private int getSharedPattern(int pattern, Occupant sideToMove) {
+        return canonical[sideToMove == Occupant.BOT ? pattern : swapped[pattern]];
+    }
+
+    /**
+     * Place a mark on the board and the evaluator
+     * @param board Board
+     * @param row Row index
+     * @param column Column index
+     * @param occupant Occupant of the mark
+     */
+    private void place(BitBoardModel board, int row, int column, Occupant occupant) {
+        board.setOccupant(row, column, occupant);
+        evaluator.setOccupant(row, column, Occupant.NONE, occupant);
+    }
+
+    /**
+     * Remove a mark from the board and the evaluator
+     * @param board Board
+     * @param row Row index
+     * @param column Column index
+     * @param occupant Occupant of the mark
+     */
+    private void remove(BitBoardModel board, int row, int column, Occupant occupant) {
+        board.setOccupant(row, column, Occupant.NONE);
+        evaluator.setOccupant(row, column, occupant, Occupant.NONE);
+    }
+
+    /**
+     * Find the shared pattern of every pattern (a pattern and its' reverse are the same line) and the pattern with the players swapped
+     * @param network Network the patterns are for
+     */
+    private void createSharedPatterns(NTupleNetwork network) {
+        int size = network.getTableSize();
+        int length = network.getTupleLength();
+        canonical = new int[size];
+        swapped = new int[size];
+        for (int pattern = 0; pattern < size; pattern++) {
+            canonical[pattern] = Math.min(pattern, reverse(pattern, length));
+            swapped[pattern] = NTupleNetwork.swapPlayers(pattern, length);
+        }
+    }
+
+    /**
+     * Reverse the digits of a base-3 pattern
+     * @param pattern Pattern
+     * @param length Amount of digits
+     * @return Reversed pattern
+     */
+    private static int reverse(int pattern, int length) {
+        int reversed = 0;
+        for (int i = 0; i < length; i++) {
+            reversed = reversed * 3 + pattern % 3;
+            pattern /= 3;
+        }
+        return reversed;
+    }
+}
\ No newline at end of file
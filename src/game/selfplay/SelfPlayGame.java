@@ -0,0 +1,180 @@
+package game.selfplay;
+
+import java.util.Random;
+
+import game.ai.DecisionMaker;
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.model.BitBoardModel;
+import game.board.model.BoardGeometry;
+import game.board.model.MoveList;
+import game.player.Occupant;
+
+/**
+ * A single bot vs bot game played without the UI. The first engine plays the human marks (and moves first), the second one the bot marks.
+ */
+public class SelfPlayGame {
+    private BoardGeometry geometry;
+    private EngineConfig first;
+    private EngineConfig second;
+    private long openingSeed;
+    private int openingMoves;
+
+    /**
+     * Result of a finished game.
+     */
+    public static class Result {
+        /**
+         * Winner of the game, Occupant.HUMAN = first engine, Occupant.BOT = second engine, Occupant.NONE = tie.
+         */
+        private Occupant winner;
+        private int[] moves = new int[2];
+        private long[] nanos = new long[2];
+        private long[] nodes = new long[2];
+
+        /**
+         * Every move of the game in order, the random opening moves included.
+         */
+        private MoveList playedMoves = new MoveList();
+
+        public Occupant getWinner() {
+            return winner;
+        }
+
+        public MoveList getPlayedMoves() {
+            return playedMoves;
+        }
+
+        /**
+         * Get the amount of searched moves made by an engine (opening moves are not counted)
+         * @param engine 0 = first engine, 1 = second engine
+         * @return Amount of moves
+         */
+        public int getMoves(int engine) {
+            return moves[engine];
+        }
+
+        /**
+         * Get the total time used for searching moves by an engine
+         * @param engine 0 = first engine, 1 = second engine
+         * @return Time in nanoseconds
+         */
+        public long getNanos(int engine) {
+            return nanos[engine];
+        }
+
+        /**
+         * Get the total amount of nodes searched by an engine
+         * @param engine 0 = first engine, 1 = second engine
+         * @return Amount of nodes
+         */
+        public long getNodes(int engine) {
+            return nodes[engine];
+        }
+    }
+
+    /**
+     * Create a new self-play game
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @param first Engine moving first (human marks)
+     * @param second Engine moving second (bot marks)
+     * @param openingSeed Seed for the random opening, same seed always gives the same opening
+     * @param openingMoves Amount of random moves made before the engines take over
+     */
+    public SelfPlayGame(int rows, int columns, int winLength, EngineConfig first, EngineConfig second, long openingSeed, int openingMoves) {
+        this(BoardGeometry.plane(rows, columns, winLength), first, second, openingSeed, openingMoves);
+    }
+
+    /**
+     * Create a new self-play game on a board of any geometry, e.g the 4x4x4 cube
+     * @param geometry Board geometry
+     * @param first Engine moving first (human marks)
+     * @param second Engine moving second (bot marks)
+     * @param openingSeed Seed for the random opening, same seed always gives the same opening
+     * @param openingMoves Amount of random moves made before the engines take over
+     */
+    public SelfPlayGame(BoardGeometry geometry, EngineConfig first, EngineConfig second, long openingSeed, int openingMoves) {
+        this.geometry = geometry;
+        this.first = first;
+        this.second = second;
+        this.openingSeed = openingSeed;
+        this.openingMoves = openingMoves;
+    }
+
+    /**
+     * Play the game to the end
+     * @return Result of the game
+     */
+    public Result play() {
+        BoardTester tester = new BoardTester(geometry);
+        EngineConfig[] configs = { first, second };
+        DecisionMaker[] engines = { first.createDecisionMaker(geometry), second.createDecisionMaker(geometry) };
+        Result result = new Result();
+        BitBoardModel board = createOpening(tester, result.playedMoves);
+        int turn = openingMoves % 2; // Human marks (first engine) always start
+        try {
+            while (true) {
+                Occupant side = turn == 0 ? Occupant.HUMAN : Occupant.BOT;
+                long start = System.nanoTime();
+                Move move = configs[turn].getBestMove(engines[turn], board, side);
+                result.nanos[turn] += System.nanoTime() - start;
+                result.nodes[turn] += engines[turn].getNodes();
+                result.moves[turn]++;
+                board.setOccupant(move.getRow(), move.getColumn(), side);
+                result.playedMoves.add(move.getRow(), move.getColumn());
+                int moveResult = tester.getMoveResult(board, side, move.getRow(), move.getColumn());
+                if (moveResult != -1) {
+                    result.winner = moveResult == 1 ? side : Occupant.NONE;
+                    return result;
+                }
+                turn = 1 - turn;
+            }
+        } finally {
+            engines[0].free(); // Private tables of deterministic engines, otherwise every game would keep its' share of the memory budget
+            engines[1].free();
+        }
+    }
+
+    /**
+     * Create the seeded random opening. Openings that would already end the game are retried with the next random moves.
+     * @param tester Board tester to test the opening moves with
+     * @param played List the opening moves are added to
+     * @return Board state after the opening moves
+     */
+    private BitBoardModel createOpening(BoardTester tester, MoveList played) {
+        Random random = new Random(openingSeed);
+        while (true) {
+            BitBoardModel board = new BitBoardModel(geometry.getRows(), geometry.getColumns());
+            played.clear();
+            if (playRandomMoves(board, tester, random, played)) {
+                return board;
+            }
+        }
+    }
+
+    /**
+     * Play the random opening moves on the given board
+     * @param board Empty board state
+     * @param tester Board tester to test the opening moves with
+     * @param random Seeded random generator
+     * @param played List the opening moves are added to
+     * @return True if the game is still going after the opening, else false
+     */
+    private boolean playRandomMoves(BitBoardModel board, BoardTester tester, Random random, MoveList played) {
+        MoveList moves = new MoveList();
+        for (int i = 0; i < openingMoves; i++) {
+            moves.clear();
+            board.generateMoves(0, moves);
+            long move = moves.get(random.nextInt(moves.size()));
+            Occupant side = i % 2 == 0 ? Occupant.HUMAN : Occupant.BOT;
+            board.setOccupant(MoveList.getRow(move), MoveList.getColumn(move), side);
+            played.add(MoveList.getRow(move), MoveList.getColumn(move));
+            if (tester.getMoveResult(board, side, MoveList.getRow(move), MoveList.getColumn(move)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+package game.selfplay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.board.model.BoardGeometry;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Command line self-play tournament runner. Every pair of the given engines plays a match against each other,
+ * the games are played concurrently on all cores. Each opening is played twice with the colors swapped, so that neither engine
+ * gets an advantage from moving first.
+ * With --cube N the games are played on the NxNxN cube instead (N = 3 or 4, 4 is Qubic), where a line through the whole cube wins.
+ * Usage: --tournament [--rows N] [--columns N] [--win N] [--cube N] [--games N] [--openings N] [--seed N] [--threads N] --engine CONFIG --engine CONFIG...
+ */
+public class Tournament {
+    private int rows = Game.MIN_BOARD_SIZE;
+    private int columns = Game.MIN_BOARD_SIZE;
+    private int winLength = Game.MIN_WINNING_MARKS;
+
+    /**
+     * Side of the cube the games are played on, 0 = the planar board of rows, columns and win length.
+     */
+    private int cube;
+    private int games = 100;
+    private int openingMoves = 2;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private List<EngineConfig> engines = new ArrayList<>();
+
+    /**
+     * Accumulated results of a match between two engines, from the point of view of the first engine.
+     */
+    private static class MatchStats {
+        private int wins;
+        private int draws;
+        private int losses;
+        private long[] moves = new long[2];
+        private long[] nanos = new long[2];
+        private long[] nodes = new long[2];
+
+        /**
+         * Add a game result to the stats
+         * @param result Result of the game
+         * @param swapped True if the first engine of the match played second in this game
+         */
+        private void add(SelfPlayGame.Result result, boolean swapped) {
+            Occupant matchFirst = swapped ? Occupant.BOT : Occupant.HUMAN;
+            if (result.getWinner() == Occupant.NONE) {
+                draws++;
+            } else if (result.getWinner() == matchFirst) {
+                wins++;
+            } else {
+                losses++;
+            }
+            for (int engine = 0; engine < 2; engine++) {
+                int index = swapped ? 1 - engine : engine;
+                moves[index] += result.getMoves(engine);
+                nanos[index] += result.getNanos(engine);
+                nodes[index] += result.getNodes(engine);
+            }
+        }
+    }
+
+    /**
+     * Run the tournament from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        Tournament tournament = new Tournament();
+        try {
+            tournament.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        tournament.run();
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--cube": cube = Integer.parseInt(value); break;
+                case "--games": games = Integer.parseInt(value); break;
+                case "--openings": openingMoves = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--engine": engines.add(EngineConfig.parse(value)); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (engines.size() < 2) {
+            throw new IllegalArgumentException("At least two engines are needed (--engine)");
+        }
+        if (cube != 0 && (cube < Game.MIN_BOARD_SIZE || cube > BoardGeometry.QUBIC_SIZE)) {
+            throw new IllegalArgumentException("Cube size must be " + Game.MIN_BOARD_SIZE + " to " + BoardGeometry.QUBIC_SIZE + " (a bitboard of 64 positions)");
+        }
+        if (winLength > Math.max(rows, columns) || openingMoves >= getGeometry().getPositions()) {
+            throw new IllegalArgumentException("Invalid board settings");
+        }
+    }
+
+    /**
+     * Get the geometry of the games
+     * @return The cube if one was given, otherwise the planar board
+     */
+    private BoardGeometry getGeometry() {
+        return cube != 0 ? BoardGeometry.cube(cube) : BoardGeometry.plane(rows, columns, winLength);
+    }
+
+    /**
+     * Play all the matches and print the results
+     */
+    private void run() {
+        System.out.printf("Board %s, %d games per match, %d opening moves, seed %d, %d threads%n",
+            getGeometry(), games, openingMoves, seed, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int a = 0; a < engines.size(); a++) {
+                for (int b = a + 1; b < engines.size(); b++) {
+                    printMatch(engines.get(a), engines.get(b), playMatch(executor, engines.get(a), engines.get(b)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Self-play game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Play a match between two engines
+     * @param executor Executor the games are played on
+     * @param a First engine
+     * @param b Second engine
+     * @return Match stats from the point of view of the first engine
+     * @throws InterruptedException If interrupted while waiting for the games
+     * @throws ExecutionException If a game threw an exception
+     */
+    private MatchStats playMatch(ExecutorService executor, EngineConfig a, EngineConfig b) throws InterruptedException, ExecutionException {
+        List<Future<SelfPlayGame.Result>> results = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            long openingSeed = seed + i / 2; // Both games of a game pair use the same opening
+            boolean swapped = i % 2 == 1;
+            SelfPlayGame game = new SelfPlayGame(getGeometry(), swapped ? b : a, swapped ? a : b, openingSeed, openingMoves);
+            results.add(executor.submit(game::play));
+        }
+        MatchStats stats = new MatchStats();
+        for (int i = 0; i < games; i++) {
+            stats.add(results.get(i).get(), i % 2 == 1);
+        }
+        return stats;
+    }
+
+    /**
+     * Print the results of a match
+     * @param a First engine
+     * @param b Second engine
+     * @param stats Match stats from the point of view of the first engine
+     */
+    private static void printMatch(EngineConfig a, EngineConfig b, MatchStats stats) {
+        int total = stats.wins + stats.draws + stats.losses;
+        double score = (stats.wins + stats.draws / 2.0) / total;
+        // Standard error of the mean score per game, used for the 95% confidence interval of the Elo difference
+        double variance = (stats.wins * Math.pow(1 - score, 2) + stats.draws * Math.pow(0.5 - score, 2) + stats.losses * Math.pow(score, 2)) / total;
+        double margin = 1.96 * Math.sqrt(variance / total);
+        double elo = eloDifference(score);
+        double eloMargin = (eloDifference(score + margin) - eloDifference(score - margin)) / 2;
+        System.out.printf(Locale.ROOT, "%s vs %s: +%d =%d -%d, score %.1f%%, Elo %+.1f +/- %.1f%n",
+            a, b, stats.wins, stats.draws, stats.losses, score * 100, elo, eloMargin);
+        EngineConfig[] configs = { a, b };
+        for (int i = 0; i < 2; i++) {
+            double averageMillis = stats.moves[i] == 0 ? 0 : stats.nanos[i] / 1e6 / stats.moves[i];
+            double nodesPerSecond = stats.nanos[i] == 0 ? 0 : stats.nodes[i] / (stats.nanos[i] / 1e9);
+            System.out.printf(Locale.ROOT, "  %s: %d moves, %.3f ms per move, %.0f nodes per second%n",
+                configs[i].getName(), stats.moves[i], averageMillis, nodesPerSecond);
+        }
+    }
+
+    /**
+     * Convert an expected score to an Elo difference, the score is clamped so that 0% and 100% don't give infinite values
+     * @param score Expected score (0..1)
+     * @return Elo difference
+     */
+    private static double eloDifference(double score) {
+        double clamped = Math.min(Math.max(score, 0.001), 0.999);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package game.server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Game server hosting many simultaneous games against the bot in one JVM. Every connection on the local socket is its' own session
+ * speaking the engine protocol, running on its' own (virtual, when available) thread, while the searches share a bounded pool of CPU threads.
+ * Usage: --server [--port N] [--threads N] [--queue N] [--time ms]
+ */
+public class GameServer {
+    private int port = 7777;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private long maxTimeBudget = 1000;
+
+    private ServerMetrics metrics = new ServerMetrics();
+    private SearchScheduler scheduler;
+    private ExecutorService sessions;
+    private ServerSocket serverSocket;
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the port the server is listening on (useful when started with port 0)
+     * @return Local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Create a new game server
+     * @param port Port to listen on (loopback only), 0 = any free port
+     * @param threads Amount of search threads
+     * @param queueCapacity Maximum amount of searches waiting for a search thread
+     * @param maxTimeBudget Maximum time budget of a single move in milliseconds, 0 = no limit
+     */
+    public GameServer(int port, int threads, int queueCapacity, long maxTimeBudget) {
+        this.port = port;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.maxTimeBudget = maxTimeBudget;
+    }
+
+    /**
+     * Create a new game server with the default settings
+     */
+    private GameServer() {
+    }
+
+    /**
+     * Run the server from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        GameServer server = new GameServer();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port": server.port = Integer.parseInt(args[i + 1]); break;
+                case "--threads": server.threads = Integer.parseInt(args[i + 1]); break;
+                case "--queue": server.queueCapacity = Integer.parseInt(args[i + 1]); break;
+                case "--time": server.maxTimeBudget = Long.parseLong(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        try {
+            server.start();
+            System.out.println("Listening on " + server.serverSocket.getLocalSocketAddress());
+            server.acceptConnections();
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Bind the server socket on the loopback address and create the thread pools
+     * @throws IOException If binding failed
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        scheduler = new SearchScheduler(threads, queueCapacity, metrics);
+        sessions = createSessionExecutor();
+    }
+
+    /**
+     * Accept connections until the server is stopped, every connection gets its' own session
+     * @throws IOException If accepting failed for another reason than the server being stopped
+     */
+    public void acceptConnections() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return; // Stopped
+                throw e;
+            }
+            sessions.execute(() -> runSession(socket));
+        }
+    }
+
+    /**
+     * Stop accepting connections and close all the sessions
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Ignore, closing anyway
+        }
+        sessions.shutdownNow();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Run a single session until the client ends it or disconnects
+     * @param socket Client connection
+     */
+    private void runSession(Socket socket) {
+        metrics.sessionStarted();
+        try (Socket client = socket) {
+            PrintStream out = new PrintStream(client.getOutputStream(), false, StandardCharsets.US_ASCII);
+            new ServerSession(client.getInputStream(), out, scheduler, metrics, maxTimeBudget).run();
+        } catch (IOException e) {
+            // Client disconnected, nothing to clean up other than the socket
+        } finally {
+            metrics.sessionEnded();
+        }
+    }
+
+    /**
+     * Create the executor for the sessions. Every session gets a virtual thread on Java 21 and newer,
+     * on older versions this falls back to (cached) platform threads
+     * @return Session executor
+     */
+    private static ExecutorService createSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package game.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import game.ai.DecisionMaker;
+import game.board.Move;
+import game.board.model.BoardModel;
+import game.player.Occupant;
+
+/**
+ * Runs the searches of all the sessions on a bounded pool of CPU threads. Searches are queued in arrival order,
+ * and every session has at most one search in flight, so no session can starve the others.
+ * When the queue is full new searches are rejected right away instead of piling up (backpressure).
+ */
+public class SearchScheduler {
+    private ThreadPoolExecutor pool;
+    private ServerMetrics metrics;
+
+    /**
+     * Create a new search scheduler
+     * @param threads Amount of search threads, usually the amount of cores
+     * @param queueCapacity Maximum amount of searches waiting for a thread
+     * @param metrics Metrics to record the searches to
+     */
+    public SearchScheduler(int threads, int queueCapacity, ServerMetrics metrics) {
+        this.metrics = metrics;
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity, true));
+    }
+
+    /**
+     * Run a search on the pool and wait for the result. The time spent waiting in the queue is taken from the time budget of the search.
+     * @param ai Decision maker configured for this move
+     * @param model Copy of the board
+     * @param timeBudget Time budget of the whole move in milliseconds (including the queue wait), 0 = no limit
+     * @return Best move found
+     * @throws RejectedExecutionException If the pool is saturated
+     * @throws InterruptedException If the session was interrupted while waiting
+     */
+    public Move search(DecisionMaker ai, BoardModel model, long timeBudget) throws InterruptedException {
+        long submitted = System.nanoTime();
+        Future<Move> result;
+        try {
+            result = pool.submit(() -> {
+                long started = System.nanoTime();
+                long waitMillis = (started - submitted) / 1_000_000L;
+                if (timeBudget > 0) {
+                    ai.setTimeBudget(Math.max(1, timeBudget - waitMillis));
+                }
+                Move move = ai.getBestMove(model, Occupant.BOT);
+                metrics.searchFinished(started - submitted, System.nanoTime() - started);
+                return move;
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.searchRejected();
+            throw e;
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        } catch (InterruptedException e) {
+            ai.stop(); // The search doesn't check for interrupts, without this it would hold its' thread until its' own limit
+            result.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Stop the search threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
\ No newline at end of file
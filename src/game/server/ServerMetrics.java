@@ -0,0 +1,77 @@
+package game.server;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe counters of the game server, updated by the search pool and the sessions.
+ */
+public class ServerMetrics {
+    private LongAdder sessions = new LongAdder();
+    private LongAdder activeSessions = new LongAdder();
+    private LongAdder searches = new LongAdder();
+    private LongAdder rejectedSearches = new LongAdder();
+    private LongAdder queueWaitNanos = new LongAdder();
+    private AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private LongAdder searchNanos = new LongAdder();
+    private AtomicLong maxSearchNanos = new AtomicLong();
+
+    /**
+     * Record a new session
+     */
+    public void sessionStarted() {
+        sessions.increment();
+        activeSessions.increment();
+    }
+
+    /**
+     * Record a closed session
+     */
+    public void sessionEnded() {
+        activeSessions.decrement();
+    }
+
+    /**
+     * Record a search that was rejected because the search pool was saturated
+     */
+    public void searchRejected() {
+        rejectedSearches.increment();
+    }
+
+    /**
+     * Record a finished search
+     * @param waitNanos Time the search spent waiting in the queue
+     * @param runNanos Time the search spent running
+     */
+    public void searchFinished(long waitNanos, long runNanos) {
+        searches.increment();
+        queueWaitNanos.add(waitNanos);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        searchNanos.add(runNanos);
+        maxSearchNanos.accumulateAndGet(runNanos, Math::max);
+    }
+
+    /**
+     * Get a one line summary of the metrics
+     * @return Summary text
+     */
+    public String getSummary() {
+        long count = searches.sum();
+        return String.format(Locale.ROOT,
+            "sessions %d active %d searches %d rejected %d queue_wait_avg_ms %.3f queue_wait_max_ms %.3f search_avg_ms %.3f search_max_ms %.3f",
+            sessions.sum(), activeSessions.sum(), count, rejectedSearches.sum(),
+            average(queueWaitNanos.sum(), count), maxQueueWaitNanos.get() / 1e6,
+            average(searchNanos.sum(), count), maxSearchNanos.get() / 1e6);
+    }
+
+    /**
+     * Average of a nanosecond total in milliseconds
+     * @param totalNanos Total nanoseconds
+     * @param count Amount of samples
+     * @return Average in milliseconds, 0 if there are no samples
+     */
+    private static double average(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package game.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.concurrent.RejectedExecutionException;
+
+import game.ai.DecisionMaker;
+import game.board.Move;
+import game.board.model.BoardModel;
+import game.protocol.EngineProtocol;
+
+/**
+ * A single game session of the game server, speaking the engine protocol with its' own board and settings.
+ * Searches are not run on the session thread but handed to the shared search scheduler.
+ */
+public class ServerSession extends EngineProtocol {
+    private SearchScheduler scheduler;
+    private ServerMetrics metrics;
+
+    /**
+     * Maximum time budget of a single move in this session in milliseconds, 0 = no limit.
+     */
+    private long maxTimeBudget;
+
+    /**
+     * Create a new session
+     * @param in Stream the commands are read from
+     * @param out Stream the responses are written to
+     * @param scheduler Scheduler to run the searches on
+     * @param metrics Server metrics
+     * @param maxTimeBudget Maximum time budget of a single move in milliseconds, 0 = no limit
+     */
+    public ServerSession(InputStream in, PrintStream out, SearchScheduler scheduler, ServerMetrics metrics, long maxTimeBudget) {
+        super(in, out);
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.maxTimeBudget = maxTimeBudget;
+    }
+
+    /**
+     * Handle the server specific commands (METRICS), everything else is handled by the engine protocol
+     */
+    @Override
+    protected boolean handleCommand() throws IOException {
+        if (reader.nextIs("METRICS")) {
+            respond("MESSAGE metrics " + metrics.getSummary());
+            return true;
+        }
+        return super.handleCommand();
+    }
+
+    /**
+     * Run the search on the shared scheduler
+     * @throws IllegalArgumentException If the server is too busy, so that the client gets an ERROR response and can retry later
+     */
+    @Override
+    protected Move search(DecisionMaker ai, BoardModel model) {
+        try {
+            return scheduler.search(ai, model, ai.getTimeBudget());
+        } catch (RejectedExecutionException e) {
+            throw new IllegalArgumentException("server busy, try again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("session interrupted");
+        }
+    }
+
+    /**
+     * The shared tables are used by the searches of all the sessions, so their memory is a server setting (see MemoryBudget and
+     * TranspositionTable.SHARED_SIZE_PROPERTY) that a session can't change
+     */
+    @Override
+    protected boolean isMemoryLimitAllowed() {
+        return false;
+    }
+
+    /**
+     * The client can ask for a shorter time budget than the server maximum, but not a longer one
+     */
+    @Override
+    protected long getTimeBudget() {
+        long budget = super.getTimeBudget();
+        if (maxTimeBudget <= 0) return budget;
+        return budget > 0 ? Math.min(budget, maxTimeBudget) : maxTimeBudget;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package game.utils;
+
+import java.awt.EventQueue;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+/**
+ * Startup instrumentation: the times of the phases of the startup (milliseconds after the JVM started) and the time to the first visible frame,
+ * printed as a single line when the frame has been shown. With the system property tictactoe.startup.exit=true the application exits right after it,
+ * which is how the startup benchmark launches it.
+ * Usage (startup benchmark, launches the application the given amount of times): --startup [--runs N]
+ */
+public final class StartupTimer {
+    /**
+     * System property that makes the application exit after the first frame.
+     */
+    public static final String EXIT_PROPERTY = "tictactoe.startup.exit";
+
+    /**
+     * Start of the line with the time to the first frame, read by the benchmark.
+     */
+    private static final String FIRST_FRAME_PREFIX = "Startup: first frame after ";
+
+    private static final List<String> phases = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Prevent instantiating by throwing exceptions if somehow tried.
+     */
+    private StartupTimer() {
+        throw new IllegalStateException("Utility class, do not instantiate");
+    }
+
+    /**
+     * Record the end of a startup phase
+     * @param phase Name of the phase
+     */
+    public static void mark(String phase) {
+        phases.add(phase + " " + getUptime() + " ms");
+    }
+
+    /**
+     * Print the time to the first frame once the frame has been opened and painted, then run the given task (e.g the work that can wait until the UI is up)
+     * @param frame Main frame, before it is made visible
+     * @param afterFirstFrame Task run on the dispatch thread after the first frame
+     */
+    public static void onFirstFrame(JFrame frame, Runnable afterFirstFrame) {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent event) {
+                EventQueue.invokeLater(() -> { // After the paint events of the opened window
+                    System.out.println(FIRST_FRAME_PREFIX + getUptime() + " ms (" + String.join(", ", phases) + ")");
+                    if (Boolean.getBoolean(EXIT_PROPERTY)) {
+                        System.exit(0);
+                    }
+                    afterFirstFrame.run();
+                });
+            }
+        });
+    }
+
+    /**
+     * Get the time since the JVM started
+     * @return Milliseconds
+     */
+    private static long getUptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Launch the application in new processes and print the times to the first frame
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        int runs = 10;
+        if (args.length == 2 && args[0].equals("--runs")) {
+            runs = Integer.parseInt(args[1]);
+        } else if (args.length > 0) {
+            System.err.println("Unknown arguments: " + String.join(" ", args));
+            System.exit(1);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-D" + EXIT_PROPERTY + "=true"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments()); // Same JVM options as this process
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), "game.App"));
+        long[] times = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            try {
+                times[run] = launch(command);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Startup run failed: " + e.getMessage());
+                System.exit(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            System.out.printf(Locale.ROOT, "Run %d: %d ms%n", run + 1, times[run]);
+        }
+        Arrays.sort(times);
+        System.out.printf(Locale.ROOT, "First frame after %d ms (median), %d ms (fastest), %d ms (slowest)%n", times[runs / 2], times[0], times[runs - 1]);
+    }
+
+    /**
+     * Launch the application once and read its' time to the first frame
+     * @param command Command of the application
+     * @return Milliseconds from the start of the JVM to the first frame
+     * @throws IOException If the process couldn't be started
+     * @throws InterruptedException If interrupted while waiting for the process
+     * @throws IllegalStateException If the application exited without showing a frame
+     */
+    private static long launch(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long time = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FIRST_FRAME_PREFIX)) {
+                    time = Long.parseLong(line.substring(FIRST_FRAME_PREFIX.length(), line.indexOf(" ms")));
+                }
+            }
+        }
+        process.waitFor();
+        if (time < 0) {
+            throw new IllegalStateException("the application exited without showing a frame (exit code " + process.exitValue() + ")");
+        }
+        return time;
+    }
+}
\ No newline at end of file
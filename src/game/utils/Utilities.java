@@ -1,8 +1,14 @@
 package game.utils;
 
 import java.awt.Window;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.ImageIcon;
 
@@ -10,6 +16,38 @@ import javax.swing.ImageIcon;
  * A static, non-instantiable class for small utility functions.
  */
 public final class Utilities {
+    /**
+     * Cache of images that have already been loaded and scaled, so that every placed mark doesn't decode and rescale the image again.
+     */
+    private static final Map<ImageKey, BufferedImage> imageCache = new ConcurrentHashMap<>();
+
+    /**
+     * Key of a cached image (path, width and height).
+     */
+    private static final class ImageKey {
+        private final String path;
+        private final int width;
+        private final int height;
+
+        private ImageKey(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ImageKey)) return false;
+            ImageKey other = (ImageKey) obj;
+            return width == other.width && height == other.height && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+
     /**
      * Prevent instantiating by throwing exceptions if somehow tried.
      */
@@ -38,13 +76,54 @@ public final class Utilities {
 
     /**
      * Get a image object from local resources rescaled to width and height.
+     * The image is loaded and scaled only the first time, after that the same pre-rendered image is returned from the cache.
      * @param path Path of the mark image file
      * @param width Width of the image to be returned
      * @param height Height of the image to be returned
      * @param obj Object context, so that the resource can be found locally
      */
     public static Image getImage(String path, int width, int height, Object obj) {
-        ImageIcon imgIcon = new ImageIcon(obj.getClass().getResource(path));
-        return imgIcon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
+        ImageKey key = new ImageKey(path, Math.max(1, width), Math.max(1, height));
+        return imageCache.computeIfAbsent(key, k -> renderImage(k, obj));
+    }
+
+    /**
+     * Load and scale an image into the cache on a background thread, so that decoding and smooth scaling don't hold up the dispatch thread
+     * @param path Path of the image file
+     * @param width Width of the image
+     * @param height Height of the image
+     * @param obj Object context, so that the resource can be found locally
+     * @return Future of the scaled image, already completed if the image was in the cache
+     */
+    public static CompletableFuture<Image> getImageAsync(String path, int width, int height, Object obj) {
+        ImageKey key = new ImageKey(path, Math.max(1, width), Math.max(1, height));
+        BufferedImage cached = imageCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> getImage(path, width, height, obj));
+    }
+
+    /**
+     * Remove all the scaled images from the cache, e.g when the board size changes and the old sizes are not needed anymore.
+     */
+    public static void clearImageCache() {
+        imageCache.clear();
+    }
+
+    /**
+     * Load an image from local resources and render it scaled to a new buffered image
+     * @param key Path and size of the image
+     * @param obj Object context, so that the resource can be found locally
+     * @return Scaled image
+     */
+    private static BufferedImage renderImage(ImageKey key, Object obj) {
+        ImageIcon imgIcon = new ImageIcon(obj.getClass().getResource(key.path));
+        ImageIcon scaled = new ImageIcon(imgIcon.getImage().getScaledInstance(key.width, key.height, Image.SCALE_SMOOTH)); // ImageIcon waits until the scaling is done
+        BufferedImage image = new BufferedImage(key.width, key.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(scaled.getImage(), 0, 0, null);
+        g.dispose();
+        return image;
     }
 }
\ No newline at end of file
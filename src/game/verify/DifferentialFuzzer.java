@@ -0,0 +1,711 @@
+package game.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.ai.DecisionMaker;
+import game.ai.TranspositionTable;
+import game.board.BoardTester;
+import game.board.HeuristicWeights;
+import game.board.Move;
+import game.board.copy.BoardStateCopy;
+import game.board.model.BitBoardModel;
+import game.board.model.LineEvaluator;
+import game.board.model.LineMasks;
+import game.board.model.ScalarLineEvaluator;
+import game.main.Game;
+import game.player.Occupant;
+import game.selfplay.EngineConfig;
+
+/**
+ * Command line differential fuzzer of the optimised engines against the reference minimax (the original board state copy search).
+ * Every case picks a board (all the sizes and win lengths allowed by Game in turn, or the one given) and checks two things on random positions:
+ * - Terminal detection: a random game is played to the end, and after every move the result of the reference (getMoveResultForMinimax) is compared to
+ *   the last move test, the line evaluators (scalar and the default backend) and the test through every mark
+ * - Game values: the board is filled by random moves that don't win until a few positions are empty, and the exact value of the position (who wins
+ *   and in how many plies, or a draw) found by the reference is compared to the value found by every engine. Engines with late move reductions or
+ *   futility pruning may search a losing line too shallow to see the loss, so only the winner of their value is compared. The value of the move each
+ *   engine chose is also found by the reference and compared the same way, so a wrong move with the right value is caught (a parallel search with a
+ *   shared bound may otherwise pick an unproven move)
+ * A failing case is shrunk by cropping edge rows and columns and removing marks as long as it still fails, and the smallest failing position is printed.
+ * Cases are numbered and seeded from the seed and their number, so a case can be run again with --first N --cases 1 and the same seed.
+ * Usage: --fuzz [--cases N] [--first N] [--empties N] [--rows N --columns N --win N] [--engine SPEC]... [--threads N] [--seed N] [--report N]
+ */
+public class DifferentialFuzzer {
+    /**
+     * Engines compared to the reference by default, in the format of EngineConfig (the depth and the candidate radius are set by the fuzzer).
+     */
+    private static final String[] DEFAULT_ENGINES = {
+        "model", "tt:tt=on", "parallel:threads=2,deterministic=on,tt=on", "shared:threads=4,tt=on", "lmr:lmr=on,tt=on",
+        "futility:futility=on,tt=on", "bitboard:bitboard=on,tt=on"
+    };
+
+    /**
+     * Size of the transposition table of every engine, as a power of two entries. Small so that entries get replaced within a case.
+     */
+    private static final int TABLE_SIZE_BITS = 12;
+
+    /**
+     * Result of the reference terminal test when the game isn't over.
+     */
+    private static final int NOT_TERMINAL = -1000;
+
+    /**
+     * Kinds of the checks.
+     */
+    private static final String TERMINAL = "terminal detection";
+    private static final String VALUE = "game value";
+    private static final String EXCEPTION = "exception";
+
+    /**
+     * Random position of a case and the side to move in it
+     */
+    private static class Position {
+        private final BitBoardModel model;
+        private final int winLength;
+        private final Occupant side;
+
+        private Position(BitBoardModel model, int winLength, Occupant side) {
+            this.model = model;
+            this.winLength = winLength;
+            this.side = side;
+        }
+
+        private int getEmpties() {
+            return model.getRows() * model.getColumns() - model.getPiecesPlaced();
+        }
+    }
+
+    /**
+     * Failed check of a case, with the position before and after shrinking
+     */
+    private static class Failure {
+        private final long index;
+        private final String kind;
+        private final Position original;
+        private Position minimized;
+        private String details;
+        private int steps;
+
+        /**
+         * Exception the case failed with, null if it failed a check
+         */
+        private RuntimeException cause;
+
+        private Failure(long index, String kind, Position original, String details) {
+            this.index = index;
+            this.kind = kind;
+            this.original = original;
+            this.minimized = original;
+            this.details = details;
+        }
+
+        private Failure(long index, RuntimeException cause) {
+            this(index, EXCEPTION, null, cause.toString());
+            this.cause = cause;
+        }
+    }
+
+    private long cases = 1000;
+    private long first;
+    private int maxEmpties = 6;
+    private int rows;
+    private int columns;
+    private int winLength;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private int reportLimit = 10;
+    private List<EngineConfig> engines = new ArrayList<>();
+
+    /**
+     * Boards of the cases as { rows, columns, win length }, case i uses board i % boards.length
+     */
+    private int[][] boards;
+
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final List<Failure> failures = new ArrayList<>();
+
+    /**
+     * Run the fuzzer from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        DifferentialFuzzer fuzzer = new DifferentialFuzzer();
+        try {
+            fuzzer.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (!fuzzer.run()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--cases": cases = Long.parseLong(value); break;
+                case "--first": first = Long.parseLong(value); break;
+                case "--empties": maxEmpties = Integer.parseInt(value); break;
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--engine": engines.add(EngineConfig.parse(value)); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--report": reportLimit = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (engines.isEmpty()) {
+            for (String engine : DEFAULT_ENGINES) {
+                engines.add(EngineConfig.parse(engine));
+            }
+        }
+        for (EngineConfig engine : engines) {
+            if (engine.isReferenceEngine()) {
+                throw new IllegalArgumentException("The reference engine is what the engines are compared to: " + engine.getName());
+            }
+        }
+        if (rows != 0 || columns != 0 || winLength != 0) { // A single board, all three must be given
+            if (rows < Game.MIN_BOARD_SIZE || columns < Game.MIN_BOARD_SIZE || winLength < Game.MIN_WINNING_MARKS || winLength > Math.max(rows, columns)) {
+                throw new IllegalArgumentException("Invalid board: " + rows + "x" + columns + ", win length " + winLength);
+            }
+            boards = new int[][] { { rows, columns, winLength } };
+        } else {
+            List<int[]> all = new ArrayList<>();
+            for (int win = Game.MIN_WINNING_MARKS; win <= Game.MAX_WINNING_MARKS; win++) {
+                for (int r = Game.MIN_BOARD_SIZE; r <= Game.MAX_BOARD_SIZE; r++) {
+                    for (int c = Game.MIN_BOARD_SIZE; c <= Game.MAX_BOARD_SIZE; c++) {
+                        if (win <= Math.max(r, c)) {
+                            all.add(new int[] { r, c, win });
+                        }
+                    }
+                }
+            }
+            boards = all.toArray(new int[0][]);
+        }
+        if (cases < 1 || first < 0 || maxEmpties < 1 || threads < 1 || reportLimit < 0) {
+            throw new IllegalArgumentException("Invalid fuzzing settings");
+        }
+    }
+
+    /**
+     * Run all the cases on all the threads and print the failures and a summary
+     * @return True if no case failed
+     */
+    private boolean run() {
+        System.out.printf(Locale.ROOT, "%d cases from case %d on %d boards, up to %d empty positions, %d threads, seed %d%n",
+            cases, first, boards.length, maxEmpties, threads, seed);
+        System.out.println("Engines (searched to the end of the game on every empty position, whatever their depth):");
+        for (EngineConfig engine : engines) {
+            System.out.println("  " + engine + (isExact(engine) ? "" : ", winner only"));
+        }
+        long start = System.nanoTime();
+        AtomicLong next = new AtomicLong(first);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                TranspositionTable[] tables = new TranspositionTable[engines.size()];
+                try {
+                    for (long index = next.getAndIncrement(); index < first + cases; index = next.getAndIncrement()) {
+                        Failure failure;
+                        try {
+                            failure = runCase(index, tables);
+                            if (failure != null) {
+                                shrink(failure, tables);
+                            }
+                        } catch (RuntimeException e) { // A failure like the others, the remaining cases still run
+                            failure = new Failure(index, e);
+                        }
+                        if (failure != null) {
+                            synchronized (failures) {
+                                failures.add(failure);
+                            }
+                        }
+                    }
+                } finally {
+                    for (TranspositionTable table : tables) {
+                        if (table != null) table.free();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        failures.sort((a, b) -> Long.compare(a.index, b.index)); // Same output whatever the order the threads finished in
+        for (int i = 0; i < Math.min(reportLimit, failures.size()); i++) {
+            printFailure(failures.get(i));
+        }
+        System.out.printf(Locale.ROOT, "%d cases, %d positions and %d searches checked in %.1f s (%.0f positions/s), %d failures%n",
+            cases, positions.get(), searches.get(), seconds, positions.get() / seconds, failures.size());
+        return failures.isEmpty();
+    }
+
+    /**
+     * Check if the values of an engine are compared exactly, or only the winner (see class description)
+     * @param engine Engine configuration
+     * @return True if the whole value is compared
+     */
+    private static boolean isExact(EngineConfig engine) {
+        return !engine.isLateMoveReductions() && !engine.isFutilityPruning();
+    }
+
+    /**
+     * Run both checks of a case
+     * @param index Number of the case
+     * @param tables Transposition tables of the engines of this thread
+     * @return First failed check, null if the case passed
+     */
+    private Failure runCase(long index, TranspositionTable[] tables) {
+        Random random = new Random(seed + index);
+        int[] board = boards[(int) (index % boards.length)];
+        Failure failure = checkRandomGame(index, random, board[0], board[1], board[2]);
+        if (failure != null) {
+            return failure;
+        }
+        Position position = createValuePosition(random, board[0], board[1], board[2], 1 + random.nextInt(maxEmpties));
+        String details = checkValue(position, tables);
+        return details != null ? new Failure(index, VALUE, position, details) : null;
+    }
+
+    /**
+     * Play a random game to the end and check the terminal detection after every move
+     * @param index Number of the case
+     * @param random Random numbers of the case
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @return Failure at the first position where the tests disagree, null if they always agreed
+     */
+    private Failure checkRandomGame(long index, Random random, int rows, int columns, int winLength) {
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        Occupant mover = random.nextBoolean() ? Occupant.HUMAN : Occupant.BOT;
+        while (true) {
+            int row;
+            int column;
+            do {
+                row = random.nextInt(rows);
+                column = random.nextInt(columns);
+            } while (model.getOccupant(row, column) != Occupant.NONE);
+            model.setOccupant(row, column, mover);
+            positions.incrementAndGet();
+            mover = getOpponent(mover);
+            Position position = new Position((BitBoardModel) model.copy(), winLength, mover);
+            String details = checkTerminal(position, row, column);
+            if (details != null) {
+                return new Failure(index, TERMINAL, position, details);
+            }
+            if (getReferenceResult(position) != NOT_TERMINAL) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Compare the terminal tests of a position to the reference
+     * @param position Position to test
+     * @param row Row of the last move, -1 to skip the last move test (when shrinking)
+     * @param column Column of the last move
+     * @return Description of the disagreeing results, null if all agreed
+     */
+    private String checkTerminal(Position position, int row, int column) {
+        BitBoardModel model = position.model;
+        BoardTester tester = new BoardTester(position.winLength);
+        LineMasks masks = new LineMasks(model.getRows(), model.getColumns(), position.winLength);
+        int[] weights = HeuristicWeights.getWeights(position.winLength);
+        LineEvaluator scalar = new ScalarLineEvaluator(masks, weights);
+        LineEvaluator backend = LineEvaluator.create(masks, weights);
+        long[] bot = model.getWords(Occupant.BOT);
+        long[] human = model.getWords(Occupant.HUMAN);
+
+        String expected = describeTerminal(getReferenceResult(position));
+        StringBuilder mismatches = new StringBuilder();
+        compare(mismatches, expected, "scalar lines", describeTerminal(model, scalar.hasWin(bot), scalar.hasWin(human)));
+        if (!backend.getName().equals(scalar.getName())) {
+            compare(mismatches, expected, backend.getName() + " lines", describeTerminal(model, backend.hasWin(bot), backend.hasWin(human)));
+        }
+        compare(mismatches, expected, "mark walk",
+            describeTerminal(model, hasWinnerByMarks(tester, model, Occupant.BOT), hasWinnerByMarks(tester, model, Occupant.HUMAN)));
+        if (row >= 0) {
+            Occupant mover = model.getOccupant(row, column);
+            boolean won = tester.hasWinner(model, mover, row, column);
+            compare(mismatches, expected, "last move",
+                describeTerminal(model, won && mover == Occupant.BOT, won && mover == Occupant.HUMAN));
+        }
+        return mismatches.length() > 0 ? "reference " + expected + mismatches : null;
+    }
+
+    /**
+     * Get the result of the reference terminal test. The test only looks at the positions that were empty when the copy was made, so the copy is made
+     * of the empty board and the marks are placed afterwards, the way the reference search places its' moves
+     * @param position Position to test
+     * @return 100 if the bot has won, -100 if the human has won, 0 if it is a tie and NOT_TERMINAL otherwise
+     */
+    private static int getReferenceResult(Position position) {
+        BitBoardModel model = position.model;
+        BoardStateCopy state = new BoardStateCopy(new BitBoardModel(model.getRows(), model.getColumns()));
+        for (int row = 0; row < model.getRows(); row++) {
+            for (int column = 0; column < model.getColumns(); column++) {
+                state.getPiece(row, column).setOccupant(model.getOccupant(row, column));
+            }
+        }
+        return new BoardTester(position.winLength).getMoveResultForMinimax(state, 0);
+    }
+
+    private static String describeTerminal(int referenceResult) {
+        switch (referenceResult) {
+            case 100: return "bot won";
+            case -100: return "human won";
+            case 0: return "tie";
+            default: return "not over";
+        }
+    }
+
+    private static String describeTerminal(BitBoardModel model, boolean botWon, boolean humanWon) {
+        return botWon ? "bot won" : humanWon ? "human won" : model.isFull() ? "tie" : "not over";
+    }
+
+    /**
+     * Test for a win through every mark of an occupant with the line check of BoardTester
+     * @param tester Board tester
+     * @param model Board model
+     * @param occupant Occupant to test
+     * @return True if the occupant has a line
+     */
+    private static boolean hasWinnerByMarks(BoardTester tester, BitBoardModel model, Occupant occupant) {
+        for (int row = 0; row < model.getRows(); row++) {
+            for (int column = 0; column < model.getColumns(); column++) {
+                if (model.getOccupant(row, column) == occupant && tester.hasWinner(model, occupant, row, column)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a result to the mismatches if it isn't the expected one
+     * @param mismatches Description of the mismatches so far
+     * @param expected Expected result
+     * @param name Name of the tested method
+     * @param actual Result of the tested method
+     */
+    private static void compare(StringBuilder mismatches, String expected, String name, String actual) {
+        if (!actual.equals(expected)) {
+            mismatches.append(", ").append(name).append(' ').append(actual);
+        }
+    }
+
+    /**
+     * Fill a board by random moves that don't win until the given amount of positions are empty. Filling stops early if every empty position
+     * would win for the player to move, then the position is a win in one
+     * @param random Random numbers of the case
+     * @param rows Row size of the board
+     * @param columns Column size of the board
+     * @param winLength Consecutive marks needed for a win
+     * @param empties Empty positions to leave
+     * @return Position that isn't over, with the player to move next
+     */
+    private Position createValuePosition(Random random, int rows, int columns, int winLength, int empties) {
+        BoardTester tester = new BoardTester(winLength);
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        Occupant mover = random.nextBoolean() ? Occupant.HUMAN : Occupant.BOT;
+        int[] candidates = new int[rows * columns];
+        while (rows * columns - model.getPiecesPlaced() > empties) {
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    if (model.getOccupant(row, column) == Occupant.NONE) {
+                        model.setOccupant(row, column, mover);
+                        if (!tester.hasWinner(model, mover, row, column)) {
+                            candidates[count++] = row * columns + column;
+                        }
+                        model.setOccupant(row, column, Occupant.NONE);
+                    }
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+            int move = candidates[random.nextInt(count)];
+            model.setOccupant(move / columns, move % columns, mover);
+            mover = getOpponent(mover);
+        }
+        return new Position(model, winLength, mover);
+    }
+
+    /**
+     * Compare the value of a position found by every engine to the value found by the reference
+     * @param position Position that isn't over
+     * @param tables Transposition tables of the engines of this thread
+     * @return Description of the disagreeing values, null if all agreed
+     */
+    private String checkValue(Position position, TranspositionTable[] tables) {
+        int empties = position.getEmpties();
+        positions.incrementAndGet();
+        int expected = getReferenceValue(position);
+
+        StringBuilder mismatches = new StringBuilder();
+        for (int i = 0; i < engines.size(); i++) {
+            EngineConfig engine = engines.get(i);
+            DecisionMaker ai = engine.createDecisionMaker(position.winLength);
+            ai.setMaxDepth(empties + 1);
+            ai.setCandidateRadius(0); // Every empty position, the positions near the marks are not enough for an exact value
+            if (engine.isTranspositionTableEnabled()) {
+                // Own table for every case, the keys don't include the board size so positions of different boards would mix
+                if (tables[i] == null) {
+                    tables[i] = new TranspositionTable(TABLE_SIZE_BITS);
+                }
+                tables[i].clear();
+                ai.setTranspositionTable(tables[i]);
+            }
+            Move move = engine.getBestMove(ai, position.model, position.side);
+            ai.free();
+            int actual = getValue(ai.getBestScore(), BoardTester.WIN_SCORE);
+            searches.incrementAndGet();
+            if (!isSameValue(engine, actual, expected)) {
+                mismatches.append(", ").append(engine.getName()).append(' ').append(describeValue(actual));
+                continue;
+            }
+            int moveValue = getMoveValue(position, move);
+            if (!isSameValue(engine, moveValue, expected)) {
+                mismatches.append(", ").append(engine.getName()).append(" played ").append(move.getRow()).append(',').append(move.getColumn())
+                    .append(" worth ").append(describeValue(moveValue));
+            }
+        }
+        return mismatches.length() > 0 ? "reference " + describeValue(expected) + mismatches : null;
+    }
+
+    private static boolean isSameValue(EngineConfig engine, int actual, int expected) {
+        return isExact(engine) ? actual == expected : Integer.signum(actual) == Integer.signum(expected);
+    }
+
+    /**
+     * Get the exact value of a position that isn't over with the reference search
+     * @param position Position to search
+     * @return Game value (see getValue)
+     */
+    private int getReferenceValue(Position position) {
+        // Deep enough to reach the end of every line
+        DecisionMaker reference = new DecisionMaker(new BoardTester(position.winLength), position.getEmpties() + 1);
+        reference.getBestMove(new BoardStateCopy(position.model), position.side);
+        searches.incrementAndGet();
+        return getValue(reference.getBestScore(), 100);
+    }
+
+    /**
+     * Get the exact value of a move with the reference: the value of the position after it, one ply further
+     * @param position Position the move is played in
+     * @param move Move to play
+     * @return Game value of the move (see getValue)
+     */
+    private int getMoveValue(Position position, Move move) {
+        BitBoardModel model = (BitBoardModel) position.model.copy();
+        model.setOccupant(move.getRow(), move.getColumn(), position.side);
+        Position after = new Position(model, position.winLength, getOpponent(position.side));
+        int result = getReferenceResult(after);
+        if (result != NOT_TERMINAL) {
+            return Integer.signum(result); // Won on this move (1 ply) or a draw
+        }
+        int value = getReferenceValue(after);
+        return value + Integer.signum(value);
+    }
+
+    /**
+     * Turn a search score into a game value
+     * @param score Score of the best move
+     * @param winScore Score of a win on the first move (100 for the reference, BoardTester.WIN_SCORE for the board model search)
+     * @return Plies to the win of the bot, negated plies to the win of the human, or 0 for a draw
+     */
+    private static int getValue(int score, int winScore) {
+        if (score > winScore / 2) {
+            return winScore - score + 1;
+        } else if (score < -winScore / 2) {
+            return -(winScore + score + 1);
+        }
+        return 0;
+    }
+
+    private static String describeValue(int value) {
+        if (value == 0) return "draw";
+        return (value > 0 ? "bot" : "human") + " wins in " + Math.abs(value) + (Math.abs(value) == 1 ? " ply" : " plies");
+    }
+
+    /**
+     * Shrink the position of a failure as long as it keeps failing the same check: first crop edge rows and columns,
+     * then remove single marks (keeping the amounts of marks of a real game)
+     * @param failure Failure to shrink, the smallest failing position is stored to it
+     * @param tables Transposition tables of the engines of this thread
+     */
+    private void shrink(Failure failure, TranspositionTable[] tables) {
+        int emptyLimit = Math.max(maxEmpties, failure.original.getEmpties()); // Removing marks makes the reference search slower
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            for (Position candidate : getShrinkCandidates(failure.minimized)) {
+                if (!isLegal(candidate, failure.kind, emptyLimit)) continue;
+                String details = failure.kind == TERMINAL ? checkTerminal(candidate, -1, -1) : checkValue(candidate, tables);
+                if (details != null) {
+                    failure.minimized = candidate;
+                    failure.details = details;
+                    failure.steps++;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the positions one step smaller than a position: without the first or last row or column, or without one mark
+     * @param position Position to shrink
+     * @return Smaller positions, cropped ones first
+     */
+    private static List<Position> getShrinkCandidates(Position position) {
+        List<Position> candidates = new ArrayList<>();
+        BitBoardModel model = position.model;
+        int rows = model.getRows();
+        int columns = model.getColumns();
+        if (rows > Game.MIN_BOARD_SIZE) {
+            candidates.add(crop(position, 1, 0, rows - 1, columns));
+            candidates.add(crop(position, 0, 0, rows - 1, columns));
+        }
+        if (columns > Game.MIN_BOARD_SIZE) {
+            candidates.add(crop(position, 0, 1, rows, columns - 1));
+            candidates.add(crop(position, 0, 0, rows, columns - 1));
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                Occupant occupant = model.getOccupant(row, column);
+                if (occupant != Occupant.NONE) {
+                    BitBoardModel smaller = (BitBoardModel) model.copy();
+                    smaller.setOccupant(row, column, Occupant.NONE);
+                    candidates.add(new Position(smaller, position.winLength, getSideToMove(smaller, position.side)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Copy a part of a position to a smaller board
+     * @param position Position to crop
+     * @param firstRow First row to keep
+     * @param firstColumn First column to keep
+     * @param rows Rows to keep
+     * @param columns Columns to keep
+     * @return Cropped position
+     */
+    private static Position crop(Position position, int firstRow, int firstColumn, int rows, int columns) {
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                model.setOccupant(row, column, position.model.getOccupant(firstRow + row, firstColumn + column));
+            }
+        }
+        return new Position(model, position.winLength, getSideToMove(model, position.side));
+    }
+
+    /**
+     * Get the side to move of a shrunk position: the player with fewer marks, or the side to move before shrinking if both have as many
+     * @param model Board model of the shrunk position
+     * @param side Side to move before shrinking
+     * @return Side to move
+     */
+    private static Occupant getSideToMove(BitBoardModel model, Occupant side) {
+        int bots = (int) count(model.getWords(Occupant.BOT));
+        int humans = model.getPiecesPlaced() - bots;
+        return bots < humans ? Occupant.BOT : humans < bots ? Occupant.HUMAN : side;
+    }
+
+    private static long count(long[] words) {
+        long bits = 0;
+        for (long word : words) {
+            bits += Long.bitCount(word);
+        }
+        return bits;
+    }
+
+    /**
+     * Check that a shrunk position could come up in a game and can be checked
+     * @param position Shrunk position
+     * @param kind Kind of the failed check
+     * @param emptyLimit Most empty positions a game value may be searched with
+     * @return True if the position can be used
+     */
+    private static boolean isLegal(Position position, String kind, int emptyLimit) {
+        BitBoardModel model = position.model;
+        if (position.winLength > Math.max(model.getRows(), model.getColumns())) {
+            return false;
+        }
+        long bots = count(model.getWords(Occupant.BOT));
+        long humans = model.getPiecesPlaced() - bots;
+        if (Math.abs(bots - humans) > 1) {
+            return false;
+        }
+        if (kind == TERMINAL) {
+            return true;
+        }
+        return position.getEmpties() >= 1 && position.getEmpties() <= emptyLimit && getReferenceResult(position) == NOT_TERMINAL;
+    }
+
+    private static Occupant getOpponent(Occupant occupant) {
+        return occupant == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+    }
+
+    /**
+     * Print a failure with the position it was shrunk to
+     * @param failure Failure to print
+     */
+    private void printFailure(Failure failure) {
+        if (failure.cause != null) {
+            StackTraceElement[] trace = failure.cause.getStackTrace();
+            System.out.printf(Locale.ROOT, "Case %d (seed %d) failed with an exception:%n", failure.index, seed);
+            System.out.println("  " + failure.details + (trace.length > 0 ? " at " + trace[0] : ""));
+            return;
+        }
+        Position original = failure.original;
+        Position minimized = failure.minimized;
+        System.out.printf(Locale.ROOT, "Case %d failed the %s check on %dx%d, win length %d, shrunk in %d steps to %dx%d:%n",
+            failure.index, failure.kind, original.model.getRows(), original.model.getColumns(), original.winLength,
+            failure.steps, minimized.model.getRows(), minimized.model.getColumns());
+        for (int row = 0; row < minimized.model.getRows(); row++) {
+            StringBuilder line = new StringBuilder("  ");
+            for (int column = 0; column < minimized.model.getColumns(); column++) {
+                Occupant occupant = minimized.model.getOccupant(row, column);
+                line.append(occupant == Occupant.BOT ? 'O' : occupant == Occupant.HUMAN ? 'X' : '.');
+            }
+            System.out.println(line);
+        }
+        if (failure.kind == VALUE) {
+            System.out.println("  " + (minimized.side == Occupant.BOT ? "Bot (O)" : "Human (X)") + " to move");
+        }
+        System.out.println("  " + failure.details);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,332 @@
+package game.verify;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import game.board.BoardTester;
+import game.board.Move;
+import game.board.copy.BoardPieceCopy;
+import game.board.copy.BoardStateCopy;
+import game.board.model.BitBoardModel;
+import game.board.model.MoveList;
+import game.main.Game;
+import game.player.Occupant;
+
+/**
+ * Command line enumeration of the game tree (perft): counts the positions reached from a position at every ply up to a depth, and the games that end at them.
+ * Positions where the game is over are counted but not played further, the same way getMoveResultForMinimax stops the reference search.
+ * Nothing is evaluated or pruned, so the time is spent only placing and removing marks and testing for wins, which makes it a raw benchmark of the board
+ * representation. The totals of small boards are known (255,168 games on 3x3), so they also check that a new representation plays the game right.
+ * - Bulk counting: the positions of the last ply are counted from the empty positions instead of being played (the games ending at the last ply are then
+ *   only known when it fills the board)
+ * - Parallel: with more than one thread the first plies are split into fork-join tasks that each play on their own copy of the board
+ * - Reference: the same enumeration on a board state copy with getMoveResultForMinimax, always played to the last ply on one thread
+ * Usage: --perft [--rows N] [--columns N] [--win N] [--depth N] [--moves R,C;R,C...] [--bulk on|off] [--threads N] [--engine model|reference] [--expect N]
+ */
+public class Perft {
+    /**
+     * Remaining depth from which the subtrees of a parallel enumeration are played on a single thread, deeper plies are split into tasks.
+     */
+    private static final int SPLIT_MIN_DEPTH = 5;
+
+    /**
+     * Positions and ended games at every ply of a (sub)tree, index 0 is the ply after the root
+     */
+    private static class Counts {
+        private final long[] positions;
+        private final long[] games;
+
+        private Counts(int depth) {
+            positions = new long[depth];
+            games = new long[depth];
+        }
+
+        /**
+         * Add the counts of a subtree starting a number of plies deeper
+         * @param other Counts of the subtree
+         * @param offset Plies from the root of this tree to the root of the subtree
+         */
+        private void add(Counts other, int offset) {
+            for (int i = 0; i < other.positions.length; i++) {
+                positions[i + offset] += other.positions[i];
+                games[i + offset] += other.games[i];
+            }
+        }
+    }
+
+    /**
+     * Fork-join task enumerating the subtree of a position on its' own copy of the board
+     */
+    private class PerftTask extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+
+        private final BitBoardModel model;
+        private final Occupant mover;
+        private final int depth;
+
+        private PerftTask(BitBoardModel model, Occupant mover, int depth) {
+            this.model = model;
+            this.mover = mover;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (depth < SPLIT_MIN_DEPTH) {
+                return new Enumerator(depth).run(model, mover);
+            }
+            Counts counts = new Counts(depth);
+            MoveList moves = new MoveList();
+            model.generateMoves(0, moves);
+            BoardTester tester = new BoardTester(winLength);
+            PerftTask[] tasks = new PerftTask[moves.size()];
+            for (int i = 0; i < moves.size(); i++) {
+                int row = MoveList.getRow(moves.get(i));
+                int column = MoveList.getColumn(moves.get(i));
+                BitBoardModel child = (BitBoardModel) model.copy();
+                child.setOccupant(row, column, mover);
+                counts.positions[0]++;
+                if (tester.hasWinner(child, mover, row, column) || child.isFull()) {
+                    counts.games[0]++;
+                } else {
+                    tasks[i] = new PerftTask(child, getOpponent(mover), depth - 1);
+                    tasks[i].fork();
+                }
+            }
+            for (PerftTask task : tasks) {
+                if (task != null) {
+                    counts.add(task.join(), 1);
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Single threaded enumeration with its' own move lists and board tester
+     */
+    private class Enumerator {
+        private final Counts counts;
+        private final MoveList[] moveLists;
+        private final BoardTester tester = new BoardTester(winLength);
+
+        private Enumerator(int depth) {
+            counts = new Counts(depth);
+            moveLists = new MoveList[depth];
+            for (int i = 0; i < depth; i++) {
+                moveLists[i] = new MoveList();
+            }
+        }
+
+        /**
+         * Enumerate the tree of a position
+         * @param model Board model, marks are placed and removed but it is left unchanged
+         * @param mover Occupant to move
+         * @return Counts of the tree
+         */
+        private Counts run(BitBoardModel model, Occupant mover) {
+            if (counts.positions.length > 0) {
+                enumerate(model, mover, 0);
+            }
+            return counts;
+        }
+
+        private void enumerate(BitBoardModel model, Occupant mover, int ply) {
+            int remaining = counts.positions.length - ply;
+            if (bulk && remaining == 1) { // Every empty position is a position of the last ply, whether it ends the game or not
+                int empties = model.getRows() * model.getColumns() - model.getPiecesPlaced();
+                counts.positions[ply] += empties;
+                if (empties == 1) {
+                    counts.games[ply]++; // Fills the board, the game ends with a win or a tie
+                }
+                return;
+            }
+            MoveList moves = moveLists[ply];
+            moves.clear();
+            model.generateMoves(0, moves);
+            Occupant opponent = getOpponent(mover);
+            for (int i = 0; i < moves.size(); i++) {
+                int row = MoveList.getRow(moves.get(i));
+                int column = MoveList.getColumn(moves.get(i));
+                model.setOccupant(row, column, mover);
+                counts.positions[ply]++;
+                if (tester.hasWinner(model, mover, row, column) || model.isFull()) {
+                    counts.games[ply]++;
+                } else if (remaining > 1) {
+                    enumerate(model, opponent, ply + 1);
+                }
+                model.setOccupant(row, column, Occupant.NONE);
+            }
+        }
+    }
+
+    private int rows = 3;
+    private int columns = 3;
+    private int winLength = 3;
+    private int depth = -1;
+    private String moves = "";
+    private boolean bulk = true;
+    private int threads = 1;
+    private boolean reference;
+    private long expected = -1;
+
+    /**
+     * Run the enumeration from the command line
+     * @param args Command line arguments (see class description)
+     */
+    public static void main(String[] args) {
+        Perft perft = new Perft();
+        try {
+            perft.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (!perft.run()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parse the command line arguments
+     * @param args Command line arguments
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--win": winLength = Integer.parseInt(value); break;
+                case "--depth": depth = Integer.parseInt(value); break;
+                case "--moves": moves = value; break;
+                case "--bulk": bulk = value.equals("on"); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--engine": reference = value.equals("reference"); break;
+                case "--expect": expected = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (rows < Game.MIN_BOARD_SIZE || columns < Game.MIN_BOARD_SIZE || winLength < Game.MIN_WINNING_MARKS
+            || winLength > Math.max(rows, columns) || threads < 1) {
+            throw new IllegalArgumentException("Invalid perft settings");
+        }
+    }
+
+    /**
+     * Play the opening moves, enumerate the tree and print the counts of every ply
+     * @return True if the total matched the expected one (or none was given)
+     */
+    private boolean run() {
+        BitBoardModel model = new BitBoardModel(rows, columns);
+        Occupant mover = playMoves(model);
+        int empties = rows * columns - model.getPiecesPlaced();
+        int plies = depth < 0 ? empties : Math.min(depth, empties);
+        System.out.printf(Locale.ROOT, "Board %dx%d, win length %d, %d marks placed, depth %d, %s engine, bulk counting %s, %d threads%n",
+            rows, columns, winLength, model.getPiecesPlaced(), plies, reference ? "reference" : "model",
+            bulk && !reference ? "on" : "off", reference ? 1 : threads);
+
+        long start = System.nanoTime();
+        Counts counts;
+        if (reference) {
+            counts = new Counts(plies);
+            // The reference only looks at the positions that were empty when the copy was made, so it is made of the empty board
+            BoardStateCopy state = new BoardStateCopy(new BitBoardModel(rows, columns));
+            for (Move move : state.getMoves()) {
+                state.getPiece(move.getRow(), move.getColumn()).setOccupant(model.getOccupant(move.getRow(), move.getColumn()));
+            }
+            enumerateReference(state, new BoardTester(winLength), mover, 0, counts);
+        } else if (threads > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            counts = pool.invoke(new PerftTask(model, mover, plies));
+            pool.shutdown();
+        } else {
+            counts = new Enumerator(plies).run(model, mover);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalPositions = 0;
+        long totalGames = 0;
+        System.out.println("Ply      Positions   Ended games");
+        for (int ply = 0; ply < plies; ply++) {
+            totalPositions += counts.positions[ply];
+            totalGames += counts.games[ply];
+            boolean unknown = bulk && !reference && ply == plies - 1 && ply < empties - 1; // Bulk counted leaves that don't fill the board
+            System.out.printf(Locale.ROOT, "%3d %14d %13s%n", ply + 1, counts.positions[ply], unknown ? "-" : Long.toString(counts.games[ply]));
+        }
+        System.out.printf(Locale.ROOT, "%d positions at the last ply, %d in total, %d ended games, %.3f s (%.0f positions/s)%n",
+            plies > 0 ? counts.positions[plies - 1] : 1, totalPositions, totalGames, seconds, totalPositions / seconds);
+        if (expected >= 0) {
+            // Played to the end of every game the ended games are the total, otherwise the positions at the last ply are (like the perft of chess)
+            long actual = plies == empties ? totalGames : plies > 0 ? counts.positions[plies - 1] : 1;
+            System.out.println(actual == expected ? "Matches the expected total " + expected : "Expected " + expected + " but counted " + actual);
+            return actual == expected;
+        }
+        return true;
+    }
+
+    /**
+     * Play the opening moves of the --moves argument, the human moves first like in the game
+     * @param model Empty board model
+     * @return Occupant to move after the opening
+     * @throws IllegalArgumentException If a move isn't an empty position on the board or the game ends during the opening
+     */
+    private Occupant playMoves(BitBoardModel model) {
+        BoardTester tester = new BoardTester(winLength);
+        Occupant mover = Occupant.HUMAN;
+        for (String move : moves.split(";")) {
+            if (move.isBlank()) continue;
+            String[] rowColumn = move.split(",");
+            if (rowColumn.length != 2) {
+                throw new IllegalArgumentException("Invalid move: " + move);
+            }
+            int row = Integer.parseInt(rowColumn[0].trim());
+            int column = Integer.parseInt(rowColumn[1].trim());
+            if (!model.isInside(row, column) || model.getOccupant(row, column) != Occupant.NONE) {
+                throw new IllegalArgumentException("Invalid move: " + move);
+            }
+            model.setOccupant(row, column, mover);
+            if (tester.hasWinner(model, mover, row, column) || model.isFull()) {
+                throw new IllegalArgumentException("The game ends at move " + move);
+            }
+            mover = getOpponent(mover);
+        }
+        return mover;
+    }
+
+    /**
+     * Enumerate the tree with the reference board state copy
+     * @param state Board state copy of the position, marks are placed and removed but it is left unchanged
+     * @param tester Board tester
+     * @param mover Occupant to move
+     * @param ply Ply of the position
+     * @param counts Counts to add to
+     */
+    private void enumerateReference(BoardStateCopy state, BoardTester tester, Occupant mover, int ply, Counts counts) {
+        if (ply == counts.positions.length) {
+            return;
+        }
+        for (Move move : state.getMoves()) {
+            BoardPieceCopy piece = state.getPiece(move.getRow(), move.getColumn());
+            if (piece.getOccupant() != Occupant.NONE) continue;
+            piece.setOccupant(mover);
+            counts.positions[ply]++;
+            if (tester.getMoveResultForMinimax(state, ply) != -1000) {
+                counts.games[ply]++;
+            } else {
+                enumerateReference(state, tester, getOpponent(mover), ply + 1, counts);
+            }
+            piece.setOccupant(Occupant.NONE);
+        }
+    }
+
+    private static Occupant getOpponent(Occupant occupant) {
+        return occupant == Occupant.BOT ? Occupant.HUMAN : Occupant.BOT;
+    }
+}
\ No newline at end of file